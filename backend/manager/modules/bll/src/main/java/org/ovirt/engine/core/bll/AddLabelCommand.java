@@ -29,6 +29,7 @@ public class AddLabelCommand<T extends LabelActionParameters> extends LabelComma
 
         labelDao.save(label);
         vmStaticDao.incrementDbGenerationForVms(new ArrayList<Guid>(label.getVms()));
+        labelsChanged();
         setSucceeded(true);
         setActionReturnValue(label.getId());
     }
@@ -49,6 +49,8 @@ public class AddPermissionCommand<T extends PermissionsOperationsParameters> ext
     private VmStaticDao vmStaticDao;
     @Inject
     private MultiLevelAdministrationHandler multiLevelAdministrationHandler;
+    @Inject
+    private PermissionResolver permissionResolver;
 
     public AddPermissionCommand(T parameters, CommandContext commandContext) {
         super(parameters, commandContext);
@@ -189,6 +191,7 @@ public class AddPermissionCommand<T extends PermissionsOperationsParameters> ext
 
             TransactionSupport.executeInNewTransaction(() -> {
                 permissionDao.save(paramPermission);
+                permissionResolver.permissionAdded(paramPermission);
                 getCompensationContext().snapshotNewEntity(paramPermission);
                 getCompensationContext().stateChanged();
                 return null;
@@ -36,6 +36,7 @@ import org.ovirt.engine.core.bll.quota.QuotaSanityParameter;
 import org.ovirt.engine.core.bll.quota.QuotaStorageConsumptionParameter;
 import org.ovirt.engine.core.bll.quota.QuotaStorageDependent;
 import org.ovirt.engine.core.bll.quota.QuotaVdsDependent;
+import org.ovirt.engine.core.bll.scheduling.arem.AffinityGroupIndexManager;
 import org.ovirt.engine.core.bll.storage.disk.image.DisksFilter;
 import org.ovirt.engine.core.bll.storage.disk.image.ImagesHandler;
 import org.ovirt.engine.core.bll.storage.utils.BlockStorageDiscardFunctionalityHelper;
@@ -227,6 +228,8 @@ public class AddVmCommand<T extends AddVmParameters> extends VmManagementCommand
     private AffinityGroupDao affinityGroupDao;
     @Inject
     private LabelDao labelDao;
+    @Inject
+    private AffinityGroupIndexManager affinityGroupIndexManager;
 
     @Inject
     private VmInitDao vmInitDao;
@@ -1969,6 +1972,10 @@ public class AddVmCommand<T extends AddVmParameters> extends VmManagementCommand
                     .collect(Collectors.toList());
             labelDao.addVmToLabels(getVmId(), labelIds);
         }
+
+        if (affinityGroups != null || affinityLabels != null) {
+            affinityGroupIndexManager.invalidate();
+        }
     }
 
     VmBase getVmBase(Guid vmId) {
@@ -27,6 +27,9 @@ public class AttachActionGroupsToRoleCommand<T extends ActionGroupsToRoleParamet
     @Inject
     private RoleDao roleDao;
 
+    @Inject
+    private PermissionResolver permissionResolver;
+
     public AttachActionGroupsToRoleCommand(T parameters, CommandContext cmdContext) {
         super(parameters, cmdContext);
     }
@@ -80,6 +83,7 @@ public class AttachActionGroupsToRoleCommand<T extends ActionGroupsToRoleParamet
             roleGroupMapDao.save(new RoleGroupMap(group, getParameters().getRoleId()));
             appendCustomCommaSeparatedValue("ActionGroup", group.toString());
         }
+        permissionResolver.actionGroupsAttached(groups);
 
         // Only adding groups that allow viewing children could make a role allow viewing its children
         if (addedGroupThatAllowsViewingChildren) {
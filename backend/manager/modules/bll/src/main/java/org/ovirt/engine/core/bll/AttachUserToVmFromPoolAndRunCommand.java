@@ -55,6 +55,8 @@ public class AttachUserToVmFromPoolAndRunCommand<T extends AttachUserToVmFromPoo
     @Inject
     private PermissionDao permissionDao;
     @Inject
+    private PermissionResolver permissionResolver;
+    @Inject
     private DbUserDao dbUserDao;
     @Inject
     private VmDao vmDao;
@@ -64,6 +66,12 @@ public class AttachUserToVmFromPoolAndRunCommand<T extends AttachUserToVmFromPoo
     @Typed(ConcurrentChildCommandsExecutionCallback.class)
     private Instance<ConcurrentChildCommandsExecutionCallback> callbackProvider;
 
+    /**
+     * Whether the VM was handed out to this command by the free list of the pool, so it is returned to the list if it
+     * is not attached.
+     */
+    private boolean vmSelectedFromPool;
+
     protected AttachUserToVmFromPoolAndRunCommand(Guid commandId) {
         super(commandId);
     }
@@ -88,6 +96,7 @@ public class AttachUserToVmFromPoolAndRunCommand<T extends AttachUserToVmFromPoo
                         getVmPoolId(),
                         (vmId, errors) -> getReturnValue().getValidationMessages().addAll(errors));
             }
+            vmSelectedFromPool = !Guid.Empty.equals(vmToAttach);
             getParameters().setVmId(vmToAttach);
             getParameters().setEntityInfo(new EntityInfo(VdcObjectType.VM, vmToAttach));
             getParameters().setVmPrestarted(vmPrestarted);
@@ -263,6 +272,9 @@ public class AttachUserToVmFromPoolAndRunCommand<T extends AttachUserToVmFromPoo
             if (!isRunVmSucceeded()) {
                 log.warn("endSuccessfully: RunVm failed, detaching user from VM");
                 detachUserFromVmFromPool();
+                if (getParameters().isNonPrestartedVmLocked()) {
+                    vmPoolHandler.releaseVm(getVmPoolId(), getVmId(), false);
+                }
                 getReturnValue().setEndActionTryAgain(false);
             }
         } else {
@@ -318,6 +330,7 @@ public class AttachUserToVmFromPoolAndRunCommand<T extends AttachUserToVmFromPoo
                             getVmId());
             if (perm != null) {
                 permissionDao.remove(perm.getId());
+                permissionResolver.permissionRemoved(perm);
             }
         }
     }
@@ -325,6 +338,12 @@ public class AttachUserToVmFromPoolAndRunCommand<T extends AttachUserToVmFromPoo
     @Override
     protected void freeLock() {
         super.freeLock();
+        if (getCommandStatus() == CommandStatus.ENDED_WITH_FAILURE && !Guid.Empty.equals(getVmId())
+                && (vmSelectedFromPool || getParameters().isNonPrestartedVmLocked())) {
+            // the VM was not attached, so it can be selected for other users
+            vmPoolHandler.releaseVm(getVmPoolId(), getVmId(), isVmPrestarted());
+            vmSelectedFromPool = false;
+        }
         if (getCommandStatus() == CommandStatus.ENDED_WITH_FAILURE && !Guid.Empty.equals(getVmId())
                 && getParameters().isNonPrestartedVmLocked()) {
             EngineLock runLock = vmPoolHandler.createLock(getVmId());
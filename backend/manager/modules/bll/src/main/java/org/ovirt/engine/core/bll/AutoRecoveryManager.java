@@ -1,9 +1,10 @@
 package org.ovirt.engine.core.bll;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -25,6 +26,7 @@ import org.ovirt.engine.core.common.businessentities.BusinessEntity;
 import org.ovirt.engine.core.common.businessentities.NonOperationalReason;
 import org.ovirt.engine.core.common.businessentities.VDS;
 import org.ovirt.engine.core.common.businessentities.network.Network;
+import org.ovirt.engine.core.common.businessentities.network.NetworkAttachment;
 import org.ovirt.engine.core.common.businessentities.network.VdsNetworkInterface;
 import org.ovirt.engine.core.common.config.Config;
 import org.ovirt.engine.core.common.config.ConfigValues;
@@ -113,55 +115,7 @@ public class AutoRecoveryManager implements BackendService {
                     final VdsActionParameters params = new VdsActionParameters(arg.getId());
                     params.setRunSilent(true);
                     return params;
-                }, list -> {
-                    List<VDS> filtered = new ArrayList<>(list.size());
-                    List<VdsNetworkInterface> nics;
-                    List<Network> clusterNetworks = new ArrayList<>();
-                    Map<Guid, Network> networkMap = new HashMap<>();
-                    Map<Guid, List<Network>> clusterNetworksMap = new HashMap<>();
-                    for (VDS vds : list) {
-                        if (vds.getNonOperationalReason() == NonOperationalReason.HE_HOST_IN_NON_HE_CLUSTER) {
-                            // the host has been moved out of its original cluster for operational purpose. It must not
-                            // and will not be activated so that HE VM never migrated out of its cluster
-                            continue;
-                        }
-                        nics = interfaceDao.getAllInterfacesForVds(vds.getId());
-                        Guid clusterId = vds.getClusterId();
-                        if (!clusterNetworksMap.containsKey(clusterId)) {
-                            clusterNetworks = networkDao.getAllForCluster(vds.getClusterId());
-                            clusterNetworksMap.put(clusterId, clusterNetworks);
-                            networkMap.putAll(
-                                    clusterNetworks.stream().collect(Collectors.toMap(Network::getId, network -> network)));
-                        }
-                        Map<String, Set<String>> problematicNics =
-                                networkMonitoringHelper.determineProblematicNics(nics,
-                                        clusterNetworksMap.get(clusterId));
-
-                        if (!problematicNics.isEmpty()) {
-                            continue;
-                        }
-                        // here we check if the host networks match it's cluster networks
-                        Set<String> attachedNetworkNames = networkAttachmentDao
-                                .getAllForHost(vds.getId())
-                                .stream()
-                                .map(networkAttachment -> networkMap.get(networkAttachment.getNetworkId()).getName())
-                                .collect(Collectors.toSet());
-                        String missingOperationalClusterNetworks =
-                                networkMonitoringHelper.getMissingOperationalClusterNetworks(attachedNetworkNames,
-                                        clusterNetworks);
-                        if (missingOperationalClusterNetworks.length() > 0) {
-                            continue;
-                        }
-                        // Check that VM networks are implemented above a bridge.
-                        String vmNetworksImplementedAsBridgeless =
-                                networkMonitoringHelper.getVmNetworksImplementedAsBridgeless(vds, clusterNetworks);
-                        if (vmNetworksImplementedAsBridgeless.length() > 0) {
-                            continue;
-                        }
-                        filtered.add(vds);
-                    }
-                    return filtered;
-        }, "hosts");
+                }, this::filterRecoverableHosts, "hosts");
         check(storageDomainDao,
                 ActionType.ConnectDomainToStorage,
                 arg -> {
@@ -172,6 +126,66 @@ public class AutoRecoveryManager implements BackendService {
                 }, list -> list, "storage domains");
     }
 
+    /**
+     * Selects the hosts whose networks are configured as required by their clusters. The interfaces, the network
+     * attachments and the cluster networks of all the hosts are fetched at once.
+     */
+    List<VDS> filterRecoverableHosts(List<VDS> hosts) {
+        List<VDS> candidates = hosts.stream()
+                // a host moved out of its original cluster for operational purpose must not and will not be activated,
+                // so that HE VM never migrated out of its cluster
+                .filter(vds -> vds.getNonOperationalReason() != NonOperationalReason.HE_HOST_IN_NON_HE_CLUSTER)
+                .collect(Collectors.toList());
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+
+        List<Guid> hostIds = candidates.stream().map(VDS::getId).collect(Collectors.toList());
+        Map<Guid, List<VdsNetworkInterface>> nicsByHost = interfaceDao.getAllInterfacesForMultipleVds(hostIds);
+        Map<Guid, List<Network>> networksByCluster = networkDao.getAllForClusters(
+                candidates.stream().map(VDS::getClusterId).collect(Collectors.toSet()));
+        Map<Guid, Guid> hostIdByNicId = new HashMap<>();
+        nicsByHost.values().forEach(nics -> nics.forEach(nic -> hostIdByNicId.put(nic.getId(), nic.getVdsId())));
+        Map<Guid, List<NetworkAttachment>> attachmentsByHost = networkAttachmentDao.getAllForHosts(hostIds)
+                .stream()
+                .filter(attachment -> hostIdByNicId.containsKey(attachment.getNicId()))
+                .collect(Collectors.groupingBy(attachment -> hostIdByNicId.get(attachment.getNicId())));
+
+        return candidates.stream()
+                .filter(vds -> isRecoverable(vds,
+                        nicsByHost.getOrDefault(vds.getId(), Collections.emptyList()),
+                        attachmentsByHost.getOrDefault(vds.getId(), Collections.emptyList()),
+                        networksByCluster.getOrDefault(vds.getClusterId(), Collections.emptyList())))
+                .collect(Collectors.toList());
+    }
+
+    private boolean isRecoverable(VDS vds,
+            List<VdsNetworkInterface> nics,
+            List<NetworkAttachment> attachments,
+            List<Network> clusterNetworks) {
+        Map<String, Set<String>> problematicNics =
+                networkMonitoringHelper.determineProblematicNics(nics, clusterNetworks);
+        if (!problematicNics.isEmpty()) {
+            return false;
+        }
+        // here we check if the host networks match it's cluster networks
+        Map<Guid, String> networkNames = clusterNetworks.stream()
+                .collect(Collectors.toMap(Network::getId, Network::getName));
+        Set<String> attachedNetworkNames = attachments.stream()
+                .map(networkAttachment -> networkNames.get(networkAttachment.getNetworkId()))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        String missingOperationalClusterNetworks =
+                networkMonitoringHelper.getMissingOperationalClusterNetworks(attachedNetworkNames, clusterNetworks);
+        if (missingOperationalClusterNetworks.length() > 0) {
+            return false;
+        }
+        // Check that VM networks are implemented above a bridge.
+        String vmNetworksImplementedAsBridgeless =
+                networkMonitoringHelper.getVmNetworksImplementedAsBridgeless(vds, clusterNetworks);
+        return vmNetworksImplementedAsBridgeless.length() == 0;
+    }
+
     /**
      * Check all the failing resources retrieved from the dao.
      * @param dao               the dao to get the list of failing resources from
@@ -56,6 +56,7 @@ import org.ovirt.engine.core.utils.ObjectIdentityChecker;
 import org.ovirt.engine.core.utils.lock.EngineLock;
 import org.ovirt.engine.core.utils.threadpool.ThreadPoolUtil;
 import org.ovirt.engine.core.utils.transaction.TransactionSupport;
+import org.ovirt.engine.core.vdsbroker.NetworkOutOfSyncIndex;
 import org.ovirt.engine.core.vdsbroker.vdsbroker.HostNetworkAttachmentsPersister;
 
 @NonTransactiveCommandAttribute(forceCompensation = true)
@@ -82,6 +83,10 @@ public class ChangeVDSClusterCommand<T extends ChangeVDSClusterParameters> exten
     private ClusterUtils clusterUtils;
     @Inject
     private HostedEngineHelper hostedEngineHelper;
+    @Inject
+    private PermissionResolver permissionResolver;
+    @Inject
+    private NetworkOutOfSyncIndex networkOutOfSyncIndex;
 
     private StoragePool targetStoragePool;
 
@@ -239,11 +244,13 @@ public class ChangeVDSClusterCommand<T extends ChangeVDSClusterParameters> exten
             }
             staticData.setClusterId(targetClusterId);
             vdsStaticDao.update(staticData);
+            permissionResolver.parentsChanged(staticData.getId());
             getCompensationContext().stateChanged();
             // remove the server from resource manager and add it back
             initializeVds();
             return null;
         });
+        networkOutOfSyncIndex.hostChanged(getVdsId(), targetClusterId);
 
         if (targetStoragePool != null
                 && (getSourceCluster().getStoragePoolId()== null || !targetStoragePool.getId().equals(getSourceCluster().getStoragePoolId()))) {
@@ -34,6 +34,7 @@ import org.ovirt.engine.core.bll.context.NoOpCompensationContext;
 import org.ovirt.engine.core.bll.interfaces.BackendInternal;
 import org.ovirt.engine.core.bll.job.ExecutionContext;
 import org.ovirt.engine.core.bll.job.ExecutionHandler;
+import org.ovirt.engine.core.bll.job.JobRepository;
 import org.ovirt.engine.core.bll.quota.InvalidQuotaParametersException;
 import org.ovirt.engine.core.bll.quota.QuotaConsumptionParameter;
 import org.ovirt.engine.core.bll.quota.QuotaManager;
@@ -90,8 +91,6 @@ import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AuditLogableImpl;
 import org.ovirt.engine.core.dal.job.ExecutionMessageDirector;
 import org.ovirt.engine.core.dao.BusinessEntitySnapshotDao;
 import org.ovirt.engine.core.dao.EntityDao;
-import org.ovirt.engine.core.dao.PermissionDao;
-import org.ovirt.engine.core.dao.StepDao;
 import org.ovirt.engine.core.utils.CorrelationIdTracker;
 import org.ovirt.engine.core.utils.ReflectionUtils;
 import org.ovirt.engine.core.utils.ReplacementUtils;
@@ -157,10 +156,10 @@ public abstract class CommandBase<T extends ActionParametersBase>
     private BusinessEntitySnapshotDao businessEntitySnapshotDao;
 
     @Inject
-    private PermissionDao permissionDao;
+    private PermissionResolver permissionResolver;
 
     @Inject
-    private StepDao stepDao;
+    private JobRepository jobRepository;
 
     @Inject
     private CommandCoordinatorUtil commandCoordinatorUtil;
@@ -339,7 +338,7 @@ public abstract class CommandBase<T extends ActionParametersBase>
         defaultContext.setCommandType(getClass().getName());
         defaultContext.setBusinessEntitySnapshotDao(businessEntitySnapshotDao);
         defaultContext.setSnapshotSerializer(
-                SerializationFactory.getSerializer());
+                SerializationFactory.getPersistenceSerializer());
         return defaultContext;
     }
 
@@ -926,7 +925,7 @@ public abstract class CommandBase<T extends ActionParametersBase>
             final Guid object,
             final VdcObjectType type) {
         // Grant if there is matching permission in the database:
-        final Guid permId = permissionDao.getEntityPermissions(userId, actionGroup, object, type);
+        final Guid permId = permissionResolver.getPermission(userId, actionGroup, object, type);
         if (permId != null) {
             if (log.isDebugEnabled()) {
                 log.debug("Found permission '{}' for user when running '{}', on '{}' with id '{}'",
@@ -1020,6 +1019,7 @@ public abstract class CommandBase<T extends ActionParametersBase>
     }
 
     protected boolean checkPermissions(final List<PermissionSubject> permSubjects) {
+        prefetchPermissions(permSubjects);
         for (PermissionSubject permSubject : permSubjects) {
             if (!checkSinglePermission(permSubject, getReturnValue().getValidationMessages())) {
                 logMissingPermission(permSubject);
@@ -1029,6 +1029,22 @@ public abstract class CommandBase<T extends ActionParametersBase>
         return true;
     }
 
+    /**
+     * Checks the permissions of the current user on the objects of the same type and action group in a single call,
+     * rather than checking each of them on its own.
+     */
+    protected void prefetchPermissions(final List<PermissionSubject> permSubjects) {
+        permSubjects.stream()
+                .filter(permSubject -> permSubject.getObjectId() != null && permSubject.getActionGroup() != null)
+                .collect(Collectors.groupingBy(permSubject -> new Pair<>(permSubject.getActionGroup(),
+                        permSubject.getObjectType()),
+                        Collectors.mapping(PermissionSubject::getObjectId, Collectors.toSet())))
+                .forEach((key, objectIds) -> permissionResolver.prefetch(getCurrentUser().getId(),
+                        key.getFirst(),
+                        key.getSecond(),
+                        objectIds));
+    }
+
     protected void logMissingPermission(PermissionSubject permSubject) {
         log.info("No permission found for user '{}' or one of the groups he is member of,"
                 + " when running action '{}', Required permissions are: Action type: '{}' Action group: '{}'"
@@ -1365,7 +1381,7 @@ public abstract class CommandBase<T extends ActionParametersBase>
                             getCommandStepSubjectEntities());
             if (taskStep != null) {
                 if (shouldUpdateStepProgress()) {
-                    stepDao.updateStepProgress(taskStep.getId(), 0);
+                    jobRepository.updateStepProgress(taskStep.getId(), 0);
                 }
                 getExecutionContext().setStep(taskStep);
                 persistCommandIfNeeded();
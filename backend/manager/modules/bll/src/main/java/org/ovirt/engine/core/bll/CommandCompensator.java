@@ -72,7 +72,7 @@ public class CommandCompensator {
     public void compensate(Guid commandId, String commandType, CompensationContext compensationContext) {
         TransactionSupport.executeInNewTransaction(() -> {
             Deserializer deserializer =
-                    SerializationFactory.getDeserializer();
+                    SerializationFactory.getPersistenceDeserializer();
             List<BusinessEntitySnapshot> entitySnapshots = businessEntitySnapshotDao.getAllForCommandId(commandId);
             log.debug("Command [id={}]: {} compensation data.",
                     commandId,
@@ -0,0 +1,131 @@
+package org.ovirt.engine.core.bll;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.ovirt.engine.core.bll.context.CommandContext;
+import org.ovirt.engine.core.bll.context.EngineContext;
+import org.ovirt.engine.core.common.action.ActionParametersBase;
+import org.ovirt.engine.core.common.queries.QueryParametersBase;
+import org.ovirt.engine.core.compat.Guid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Direct constructor references of the commands and queries, generated at build time by the commands constructors
+ * annotation processor. Types which have no registered constructor (e.g. when the processor did not run or when the
+ * constructor could not be determined statically) are instantiated by {@link CommandsFactory} using reflection.
+ */
+public final class CommandConstructors {
+
+    private static final Logger log = LoggerFactory.getLogger(CommandConstructors.class);
+
+    private static final String[] GENERATED_PROVIDERS = new String[] {
+            "org.ovirt.engine.core.bll.GeneratedActionConstructors",
+            "org.ovirt.engine.core.bll.GeneratedQueryConstructors",
+            "org.ovirt.engine.core.bll.GeneratedCompensationConstructors"
+    };
+
+    private static final CommandConstructors instance = load();
+
+    @FunctionalInterface
+    public interface ActionConstructor {
+        CommandBase<?> create(ActionParametersBase parameters, CommandContext commandContext);
+    }
+
+    @FunctionalInterface
+    public interface QueryConstructor {
+        QueriesCommandBase<?> create(QueryParametersBase parameters, EngineContext engineContext);
+    }
+
+    @FunctionalInterface
+    public interface CompensationConstructor {
+        CommandBase<?> create(Guid commandId);
+    }
+
+    /**
+     * Implemented by the generated classes.
+     */
+    public interface Provider {
+        void registerTo(CommandConstructors constructors);
+    }
+
+    private final Map<Class<?>, ActionConstructor> actionConstructors = new HashMap<>();
+    private final Map<Class<?>, QueryConstructor> queryConstructors = new HashMap<>();
+    private final Map<String, CompensationConstructor> compensationConstructors = new HashMap<>();
+
+    CommandConstructors() {
+    }
+
+    public static CommandConstructors getInstance() {
+        return instance;
+    }
+
+    private static CommandConstructors load() {
+        CommandConstructors constructors = new CommandConstructors();
+        for (String providerName : GENERATED_PROVIDERS) {
+            try {
+                Class.forName(providerName)
+                        .asSubclass(Provider.class)
+                        .getDeclaredConstructor()
+                        .newInstance()
+                        .registerTo(constructors);
+            } catch (ClassNotFoundException e) {
+                log.warn("Generated constructors '{}' not found, falling back to reflection", providerName);
+            } catch (Exception e) {
+                log.error("Failed to load generated constructors '{}', falling back to reflection: {}",
+                        providerName,
+                        e.getMessage());
+                log.debug("Exception", e);
+            }
+        }
+        log.info("Loaded constructors of {} actions, {} queries and {} compensation commands",
+                constructors.actionConstructors.size(),
+                constructors.queryConstructors.size(),
+                constructors.compensationConstructors.size());
+        return constructors;
+    }
+
+    public void registerAction(Class<?> type, ActionConstructor constructor) {
+        actionConstructors.put(type, constructor);
+    }
+
+    public void registerQuery(Class<?> type, QueryConstructor constructor) {
+        queryConstructors.put(type, constructor);
+    }
+
+    public void registerCompensation(Class<?> type, CompensationConstructor constructor) {
+        compensationConstructors.put(type.getName(), constructor);
+    }
+
+    /**
+     * @return the constructor of the given command class or {@code null} if it has to be resolved by reflection
+     */
+    public ActionConstructor getActionConstructor(Class<?> type) {
+        return type == null ? null : actionConstructors.get(type);
+    }
+
+    /**
+     * @return the constructor of the given query class or {@code null} if it has to be resolved by reflection
+     */
+    public QueryConstructor getQueryConstructor(Class<?> type) {
+        return type == null ? null : queryConstructors.get(type);
+    }
+
+    /**
+     * @return the compensation constructor of the given command class name or {@code null} if it has to be resolved
+     *         by reflection
+     */
+    public CompensationConstructor getCompensationConstructor(String className) {
+        return className == null ? null : compensationConstructors.get(className);
+    }
+
+    Map<Class<?>, ActionConstructor> getActionConstructors() {
+        return Collections.unmodifiableMap(actionConstructors);
+    }
+
+    Map<Class<?>, QueryConstructor> getQueryConstructors() {
+        return Collections.unmodifiableMap(queryConstructors);
+    }
+}
@@ -79,6 +79,7 @@ public final class CommandsFactory {
         return COMMAND_PACKAGES;
     }
 
+    private static CommandConstructors commandConstructors = CommandConstructors.getInstance();
     private static ConcurrentMap<String, Class<?>> commandsCache = new ConcurrentHashMap<>();
     private static ConcurrentMap<Pair<Class<?>, Class<?>[]>, Constructor<?>> constructorCache =
             new ConcurrentHashMap<>();
@@ -91,8 +92,12 @@ public final class CommandsFactory {
             P parameters,
             CommandContext commandContext) {
         try {
-            Constructor<?> commandConstructor =
-                    getCommandConstructor(getCommandClass(action.name()), parameters.getClass(), CommandContext.class);
+            Class<?> type = getCommandClass(action.name());
+            CommandConstructors.ActionConstructor generatedConstructor =
+                    commandConstructors.getActionConstructor(type);
+            Constructor<?> commandConstructor = generatedConstructor != null
+                    ? null
+                    : getCommandConstructor(type, parameters.getClass(), CommandContext.class);
 
             if (commandContext == null) {
                 commandContext = CommandContext.createContext(parameters.getSessionId());
@@ -103,7 +108,9 @@ public final class CommandsFactory {
             }
 
             @SuppressWarnings("unchecked")
-            CommandBase<P> command = (CommandBase<P>) commandConstructor.newInstance(parameters, commandContext);
+            CommandBase<P> command = generatedConstructor != null
+                    ? (CommandBase<P>) generatedConstructor.create(parameters, commandContext)
+                    : (CommandBase<P>) commandConstructor.newInstance(parameters, commandContext);
             return Injector.injectMembers(command);
         } catch (InvocationTargetException ex) {
             logException(ex,
@@ -133,8 +140,15 @@ public final class CommandsFactory {
      */
     public static CommandBase<?> createCommand(String className, Guid commandId) {
         try {
-            Constructor<?> constructor = Class.forName(className).getDeclaredConstructor(Guid.class);
-            CommandBase<?> cmd = (CommandBase<?>) constructor.newInstance(commandId);
+            CommandConstructors.CompensationConstructor generatedConstructor =
+                    commandConstructors.getCompensationConstructor(className);
+            CommandBase<?> cmd;
+            if (generatedConstructor != null) {
+                cmd = generatedConstructor.create(commandId);
+            } else {
+                Constructor<?> constructor = Class.forName(className).getDeclaredConstructor(Guid.class);
+                cmd = (CommandBase<?>) constructor.newInstance(commandId);
+            }
             return Injector.injectMembers(cmd);
         } catch (Exception e) {
             logException(e,
@@ -152,8 +166,10 @@ public final class CommandsFactory {
         Class<?> type = null;
         try {
             type = getQueryClass(query.name());
-            QueriesCommandBase<?> result =
-                    (QueriesCommandBase<?>) getCommandConstructor(type, parameters.getClass(), EngineContext.class)
+            CommandConstructors.QueryConstructor generatedConstructor = commandConstructors.getQueryConstructor(type);
+            QueriesCommandBase<?> result = generatedConstructor != null
+                    ? generatedConstructor.create(parameters, engineContext)
+                    : (QueriesCommandBase<?>) getCommandConstructor(type, parameters.getClass(), EngineContext.class)
                             .newInstance(parameters, engineContext);
             return Injector.injectMembers(result);
         } catch (Exception e) {
@@ -5,14 +5,14 @@ import java.util.List;
 import javax.inject.Inject;
 
 import org.ovirt.engine.core.bll.context.EngineContext;
+import org.ovirt.engine.core.bll.job.JobRepository;
 import org.ovirt.engine.core.common.job.Step;
 import org.ovirt.engine.core.common.queries.GetStepsWithSubjectEntitiesByJobIdQueryParameters;
-import org.ovirt.engine.core.dao.StepDao;
 import org.ovirt.engine.core.dao.StepSubjectEntityDao;
 
 public class GetStepsWithSubjectEntitiesByJobIdQuery<P extends GetStepsWithSubjectEntitiesByJobIdQueryParameters> extends QueriesCommandBase<P> {
     @Inject
-    private StepDao stepDao;
+    private JobRepository jobRepository;
 
     @Inject
     private StepSubjectEntityDao stepSubjectEntityDao;
@@ -23,7 +23,7 @@ public class GetStepsWithSubjectEntitiesByJobIdQuery<P extends GetStepsWithSubje
 
     @Override
     protected void executeQueryCommand() {
-        List<Step> steps = stepDao.getStepsByJobId(getParameters().getJobId());
+        List<Step> steps = jobRepository.getStepsByJobId(getParameters().getJobId());
         steps.forEach(s -> s.setSubjectEntities(stepSubjectEntityDao.getStepSubjectEntitiesByStepId(s.getId())));
         getQueryReturnValue().setReturnValue(steps);
     }
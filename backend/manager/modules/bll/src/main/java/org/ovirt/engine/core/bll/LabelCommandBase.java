@@ -6,6 +6,7 @@ import java.util.List;
 import javax.inject.Inject;
 
 import org.ovirt.engine.core.bll.context.CommandContext;
+import org.ovirt.engine.core.bll.scheduling.arem.AffinityGroupIndexManager;
 import org.ovirt.engine.core.bll.utils.PermissionSubject;
 import org.ovirt.engine.core.common.VdcObjectType;
 import org.ovirt.engine.core.common.action.LabelActionParametersBase;
@@ -19,6 +20,8 @@ public abstract class LabelCommandBase<T extends LabelActionParametersBase> exte
 
     @Inject
     protected LabelDao labelDao;
+    @Inject
+    private AffinityGroupIndexManager affinityGroupIndexManager;
 
     protected Label getLabel() {
         if (label == null && getLabelId() != null) {
@@ -46,6 +49,13 @@ public abstract class LabelCommandBase<T extends LabelActionParametersBase> exte
                 ActionGroup.TAG_MANAGEMENT));
     }
 
+    /**
+     * Drops the cached affinity groups of the clusters, must be called after the labels were changed.
+     */
+    protected void labelsChanged() {
+        affinityGroupIndexManager.invalidate();
+    }
+
     protected void setAuditCustomValues() {
         addCustomValue("labelName", getLabelName());
     }
@@ -33,7 +33,6 @@ import org.ovirt.engine.core.common.job.StepEnum;
 import org.ovirt.engine.core.common.utils.ExecutionMethod;
 import org.ovirt.engine.core.compat.Guid;
 import org.ovirt.engine.core.dal.job.ExecutionMessageDirector;
-import org.ovirt.engine.core.dao.PermissionDao;
 import org.ovirt.engine.core.dao.VmDao;
 
 @NonTransactiveCommandAttribute
@@ -42,7 +41,7 @@ public class MigrateMultipleVmsCommand<T extends MigrateMultipleVmsParameters> e
     @Inject
     private VmDao vmDao;
     @Inject
-    private PermissionDao permissionDao;
+    private PermissionResolver permissionResolver;
     @Inject
     private SchedulingManager schedulingManager;
 
@@ -291,11 +290,9 @@ public class MigrateMultipleVmsCommand<T extends MigrateMultipleVmsParameters> e
     }
 
     private boolean hasPermissionToMigrateVms(List<VM> vms) {
-        return vms.stream()
-                .map(vm -> permissionDao.getEntityPermissions(getUserId(),
-                        getActionType().getActionGroup(),
-                        vm.getId(),
-                        VdcObjectType.VM))
-                .allMatch(Objects::nonNull);
+        return permissionResolver.canPerform(getUserId(),
+                getActionType().getActionGroup(),
+                VdcObjectType.VM,
+                vms.stream().map(VM::getId).collect(Collectors.toList()));
     }
 }
@@ -46,6 +46,9 @@ public class MultiLevelAdministrationHandler {
     @Inject
     private DbUserDao dbUserDao;
 
+    @Inject
+    private PermissionResolver permissionResolver;
+
     /**
      * Admin user is a user with at least one permission that contains admin
      * role
@@ -65,6 +68,7 @@ public class MultiLevelAdministrationHandler {
     public void addPermission(Permission... permissions) {
         for (Permission perms : permissions) {
             permissionDao.save(perms);
+            permissionResolver.permissionAdded(perms);
         }
     }
 
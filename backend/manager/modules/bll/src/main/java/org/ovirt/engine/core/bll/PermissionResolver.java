@@ -0,0 +1,310 @@
+package org.ovirt.engine.core.bll;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.ovirt.engine.core.common.VdcObjectType;
+import org.ovirt.engine.core.common.businessentities.ActionGroup;
+import org.ovirt.engine.core.common.businessentities.EntityPermission;
+import org.ovirt.engine.core.common.businessentities.Permission;
+import org.ovirt.engine.core.common.config.Config;
+import org.ovirt.engine.core.common.config.ConfigValues;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.dao.PermissionDao;
+import org.ovirt.engine.core.utils.transaction.TransactionSuccessListener;
+import org.ovirt.engine.core.utils.transaction.TransactionSupport;
+
+/**
+ * Checks the permissions of users to perform action groups on entities, as
+ * {@link PermissionDao#getEntityPermissions(Guid, ActionGroup, Guid, VdcObjectType)} does.
+ * <p>
+ * The entities which are not known yet are checked in the DB in a single call per action group and type, and the
+ * result of each check is kept, together with the parents of the entity, for PermissionCacheExpirationInSeconds. So
+ * commands on many entities, and users repeating commands, don't run the recursive permission query of the DB for
+ * each entity.
+ * <p>
+ * The checks are kept only for the entity types whose parents change by the commands which call
+ * {@link #parentsChanged(Guid)}, and only until they could have changed: every command that adds or removes
+ * permissions, attaches or detaches action groups of roles, moves entities between clusters or data centers, or
+ * changes the sessions or the groups of users must call the matching method.
+ */
+@Singleton
+public class PermissionResolver {
+
+    private static final Set<VdcObjectType> CACHED_TYPES = Collections.unmodifiableSet(EnumSet.of(
+            VdcObjectType.System,
+            VdcObjectType.StoragePool,
+            VdcObjectType.Cluster,
+            VdcObjectType.VDS,
+            VdcObjectType.VM,
+            VdcObjectType.VmPool,
+            VdcObjectType.Quota,
+            VdcObjectType.GlusterVolume,
+            VdcObjectType.Network,
+            VdcObjectType.VnicProfile,
+            VdcObjectType.CpuProfile));
+
+    private static final int MAX_ENTRIES = 100000;
+
+    @Inject
+    private PermissionDao permissionDao;
+
+    private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * Returns a permission of the user, or of one of the groups of the user, which grants the action group on the
+     * entity.
+     *
+     * @return the permission, {@code null} if there is none
+     */
+    public Guid getPermission(Guid userId, ActionGroup actionGroup, Guid objectId, VdcObjectType objectType) {
+        return getPermissions(userId, actionGroup, objectType, Collections.singleton(objectId)).get(objectId);
+    }
+
+    /**
+     * Returns the permissions of the user, or of the groups of the user, which grant the action group on each of the
+     * entities.
+     *
+     * @return the permission for each entity, {@code null} for the entities the user has no permission for
+     */
+    public Map<Guid, Guid> getPermissions(Guid userId,
+            ActionGroup actionGroup,
+            VdcObjectType objectType,
+            Collection<Guid> objectIds) {
+        int expiration = getExpiration();
+        boolean cached = isCached(expiration, objectType);
+        long now = System.currentTimeMillis();
+
+        Map<Guid, Guid> permissions = new HashMap<>();
+        List<Guid> unknownIds = new ArrayList<>();
+        for (Guid objectId : new LinkedHashSet<>(objectIds)) {
+            Entry entry = cached ? entries.get(new Key(userId, actionGroup, objectId, objectType)) : null;
+            if (entry != null && entry.expiration > now) {
+                permissions.put(objectId, entry.permissionId);
+            } else {
+                unknownIds.add(objectId);
+            }
+        }
+
+        if (unknownIds.isEmpty()) {
+            return permissions;
+        }
+        if (!cached && unknownIds.size() == 1) {
+            Guid objectId = unknownIds.get(0);
+            permissions.put(objectId, permissionDao.getEntityPermissions(userId, actionGroup, objectId, objectType));
+            return permissions;
+        }
+
+        long loadedVersion = version.get();
+        List<EntityPermission> loaded =
+                permissionDao.getEntityPermissionsForObjects(userId, actionGroup, unknownIds, objectType);
+        for (Guid objectId : unknownIds) {
+            permissions.put(objectId, null);
+        }
+        for (EntityPermission entityPermission : loaded) {
+            permissions.put(entityPermission.getEntityId(), entityPermission.getPermissionId());
+        }
+        if (cached) {
+            keep(userId, actionGroup, objectType, loaded, now + TimeUnit.SECONDS.toMillis(expiration), loadedVersion);
+        }
+        return permissions;
+    }
+
+    /**
+     * Checks whether the user, or one of the groups of the user, has permissions granting the action group on all the
+     * entities.
+     */
+    public boolean canPerform(Guid userId,
+            ActionGroup actionGroup,
+            VdcObjectType objectType,
+            Collection<Guid> objectIds) {
+        return getPermissions(userId, actionGroup, objectType, objectIds).values().stream().allMatch(Objects::nonNull);
+    }
+
+    /**
+     * Checks the permissions of the user on the entities in a single call, so they are known when each of the entities
+     * is checked later on. Does nothing for the entities whose checks are not kept.
+     */
+    public void prefetch(Guid userId, ActionGroup actionGroup, VdcObjectType objectType, Collection<Guid> objectIds) {
+        if (objectIds.size() > 1 && isCached(getExpiration(), objectType)) {
+            getPermissions(userId, actionGroup, objectType, objectIds);
+        }
+    }
+
+    /**
+     * Drops the checks the permission could grant, after it was added.
+     */
+    public void permissionAdded(Permission permission) {
+        Guid objectId = permission.getObjectId();
+        invalidate(entry -> entry.permissionId == null && entry.parentIds.contains(objectId));
+    }
+
+    /**
+     * Drops the checks granted by the permission, after it was removed.
+     */
+    public void permissionRemoved(Permission permission) {
+        Guid permissionId = permission.getId();
+        invalidate(entry -> permissionId.equals(entry.permissionId));
+    }
+
+    /**
+     * Drops the checks of the action groups which were denied, after the action groups were attached to a role.
+     */
+    public void actionGroupsAttached(Collection<ActionGroup> actionGroups) {
+        invalidate((key, entry) -> entry.permissionId == null && actionGroups.contains(key.actionGroup));
+    }
+
+    /**
+     * Drops the checks of the action groups which were granted, after the action groups were detached from a role.
+     */
+    public void actionGroupsDetached(Collection<ActionGroup> actionGroups) {
+        invalidate((key, entry) -> entry.permissionId != null && actionGroups.contains(key.actionGroup));
+    }
+
+    /**
+     * Drops the checks of the entity and of its descendants, after the entity was moved to another cluster or data
+     * center, or was removed.
+     */
+    public void parentsChanged(Guid entityId) {
+        invalidate(entry -> entry.parentIds.contains(entityId));
+    }
+
+    /**
+     * Drops the checks of the user, after a session of the user was opened or closed, so the groups of the user may
+     * have changed.
+     */
+    public void userChanged(Guid userId) {
+        invalidate((key, entry) -> key.userId.equals(userId));
+    }
+
+    /**
+     * Drops all the checks.
+     */
+    public void clear() {
+        invalidate((key, entry) -> true);
+    }
+
+    private static int getExpiration() {
+        return Config.<Integer> getValue(ConfigValues.PermissionCacheExpirationInSeconds);
+    }
+
+    private static boolean isCached(int expiration, VdcObjectType objectType) {
+        return expiration > 0 && CACHED_TYPES.contains(objectType);
+    }
+
+    private void keep(Guid userId,
+            ActionGroup actionGroup,
+            VdcObjectType objectType,
+            List<EntityPermission> loaded,
+            long expiration,
+            long loadedVersion) {
+        if (entries.size() + loaded.size() > MAX_ENTRIES) {
+            long now = System.currentTimeMillis();
+            entries.values().removeIf(entry -> entry.expiration <= now);
+            if (entries.size() + loaded.size() > MAX_ENTRIES) {
+                return;
+            }
+        }
+
+        Map<Key, Entry> kept = new HashMap<>();
+        for (EntityPermission entityPermission : loaded) {
+            Key key = new Key(userId, actionGroup, entityPermission.getEntityId(), objectType);
+            Entry entry = new Entry(entityPermission.getPermissionId(), entityPermission.getParentIds(), expiration);
+            entries.put(key, entry);
+            kept.put(key, entry);
+        }
+
+        // Checks done before a change of the permissions must not be kept; a change that comes after this point
+        // drops them by itself
+        if (version.get() != loadedVersion) {
+            kept.forEach(entries::remove);
+        }
+    }
+
+    private void invalidate(Predicate<Entry> dropped) {
+        invalidate((key, entry) -> dropped.test(entry));
+    }
+
+    private void invalidate(EntryPredicate dropped) {
+        dropEntries(dropped);
+
+        // A check done before the current transaction is committed would miss the changes, so it is dropped again
+        if (TransactionSupport.current() != null) {
+            TransactionSupport.registerRollbackHandler((TransactionSuccessListener) () -> dropEntries(dropped));
+        }
+    }
+
+    private void dropEntries(EntryPredicate dropped) {
+        // The checks that are being done are dropped by the version change
+        version.incrementAndGet();
+        entries.entrySet().removeIf(e -> dropped.test(e.getKey(), e.getValue()));
+    }
+
+    @FunctionalInterface
+    private interface EntryPredicate {
+        boolean test(Key key, Entry entry);
+    }
+
+    private static final class Key {
+        private final Guid userId;
+        private final ActionGroup actionGroup;
+        private final Guid objectId;
+        private final VdcObjectType objectType;
+
+        Key(Guid userId, ActionGroup actionGroup, Guid objectId, VdcObjectType objectType) {
+            this.userId = userId;
+            this.actionGroup = actionGroup;
+            this.objectId = objectId;
+            this.objectType = objectType;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return actionGroup == other.actionGroup
+                    && objectType == other.objectType
+                    && Objects.equals(userId, other.userId)
+                    && Objects.equals(objectId, other.objectId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, actionGroup, objectId, objectType);
+        }
+    }
+
+    private static final class Entry {
+        private final Guid permissionId;
+        private final Set<Guid> parentIds;
+        private final long expiration;
+
+        Entry(Guid permissionId, Set<Guid> parentIds, long expiration) {
+            this.permissionId = permissionId;
+            this.parentIds = parentIds;
+            this.expiration = expiration;
+        }
+    }
+}
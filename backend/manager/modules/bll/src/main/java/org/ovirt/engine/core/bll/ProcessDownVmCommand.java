@@ -88,6 +88,8 @@ public class ProcessDownVmCommand<T extends ProcessDownVmParameters> extends Com
     private VmNicDao vmNicDao;
     @Inject
     private VmNumaNodeDao vmNumaNodeDao;
+    @Inject
+    private VmPoolHandler vmPoolHandler;
 
     protected ProcessDownVmCommand(Guid commandId) {
         super(commandId);
@@ -138,6 +140,10 @@ public class ProcessDownVmCommand<T extends ProcessDownVmParameters> extends Com
                 // Otherwise this was already done in DetachUserFromVmFromPoolCommand \ updateVmVersionCommand->RemoveVmCommand
                 removeVmStatelessImages();
             }
+
+            if (getVm().getVmPoolId() != null) {
+                vmPoolHandler.vmStatusChanged(getVm().getVmPoolId(), getVmId(), VMStatus.Down);
+            }
         }
 
         getQuotaManager().rollbackQuotaByVmId(getVmId());
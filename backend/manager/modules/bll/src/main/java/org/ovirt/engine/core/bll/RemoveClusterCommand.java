@@ -8,6 +8,7 @@ import javax.inject.Inject;
 
 import org.ovirt.engine.core.bll.context.CommandContext;
 import org.ovirt.engine.core.bll.kubevirt.ForceClusterResourcesRemover;
+import org.ovirt.engine.core.bll.scheduling.arem.AffinityGroupIndexManager;
 import org.ovirt.engine.core.common.AuditLogType;
 import org.ovirt.engine.core.common.action.ClusterParametersBase;
 import org.ovirt.engine.core.common.businessentities.VmPool;
@@ -20,6 +21,7 @@ import org.ovirt.engine.core.dao.VdsStaticDao;
 import org.ovirt.engine.core.dao.VmPoolDao;
 import org.ovirt.engine.core.dao.VmStaticDao;
 import org.ovirt.engine.core.dao.VmTemplateDao;
+import org.ovirt.engine.core.vdsbroker.NetworkOutOfSyncIndex;
 
 public class RemoveClusterCommand<T extends ClusterParametersBase> extends ClusterCommandBase<T> {
 
@@ -35,6 +37,10 @@ public class RemoveClusterCommand<T extends ClusterParametersBase> extends Clust
     private VmPoolDao vmPoolDao;
     @Inject
     private ForceClusterResourcesRemover clusterResourcesRemover;
+    @Inject
+    private AffinityGroupIndexManager affinityGroupIndexManager;
+    @Inject
+    private NetworkOutOfSyncIndex networkOutOfSyncIndex;
 
     public RemoveClusterCommand(T parameters, CommandContext cmdContext) {
         super(parameters, cmdContext);
@@ -44,11 +50,12 @@ public class RemoveClusterCommand<T extends ClusterParametersBase> extends Clust
     protected void executeCommand() {
         if (isForceRemovalOfUnmanagedCluster()) {
             clusterResourcesRemover.forceRemove(getCluster().getId());
-            setSucceeded(true);
-            return;
+        } else {
+            clusterDao.remove(getCluster().getId());
         }
-
-        clusterDao.remove(getCluster().getId());
+        // the affinity groups and labels of the cluster are removed with it
+        affinityGroupIndexManager.invalidate();
+        networkOutOfSyncIndex.clusterRemoved(getCluster().getId());
         setSucceeded(true);
     }
 
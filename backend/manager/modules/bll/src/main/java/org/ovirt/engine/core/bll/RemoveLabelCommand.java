@@ -27,6 +27,7 @@ public class RemoveLabelCommand<T extends LabelActionParametersBase> extends Lab
             Label label = labelDao.get(getLabelId());
             vmStaticDao.incrementDbGenerationForVms(new ArrayList<Guid>(label.getVms()));
             labelDao.remove(getLabelId());
+            labelsChanged();
             setSucceeded(true);
         }
     }
@@ -10,6 +10,7 @@ import javax.inject.Inject;
 
 import org.apache.commons.lang.StringUtils;
 import org.ovirt.engine.core.bll.context.CommandContext;
+import org.ovirt.engine.core.bll.scheduling.arem.AffinityGroupIndexManager;
 import org.ovirt.engine.core.bll.utils.ClusterUtils;
 import org.ovirt.engine.core.common.AuditLogType;
 import org.ovirt.engine.core.common.action.LockProperties;
@@ -54,6 +55,7 @@ import org.ovirt.engine.core.dao.gluster.GlusterServerDao;
 import org.ovirt.engine.core.dao.gluster.GlusterVolumeDao;
 import org.ovirt.engine.core.utils.lock.EngineLock;
 import org.ovirt.engine.core.utils.transaction.TransactionSupport;
+import org.ovirt.engine.core.vdsbroker.NetworkOutOfSyncIndex;
 
 @NonTransactiveCommandAttribute
 public class RemoveVdsCommand<T extends RemoveVdsParameters> extends VdsCommand<T> {
@@ -93,6 +95,10 @@ public class RemoveVdsCommand<T extends RemoveVdsParameters> extends VdsCommand<
     private HostLocking hostLocking;
     @Inject
     private AnsibleExecutor ansibleExecutor;
+    @Inject
+    private AffinityGroupIndexManager affinityGroupIndexManager;
+    @Inject
+    private NetworkOutOfSyncIndex networkOutOfSyncIndex;
 
     public RemoveVdsCommand(T parameters, CommandContext commandContext) {
         super(parameters, commandContext);
@@ -154,6 +160,9 @@ public class RemoveVdsCommand<T extends RemoveVdsParameters> extends VdsCommand<
         tagDao.detachVdsFromAllTags(hostId);
         vdsDynamicDao.remove(hostId);
         vdsStaticDao.remove(hostId);
+        // the host is removed from its affinity groups and labels with it
+        affinityGroupIndexManager.invalidate();
+        networkOutOfSyncIndex.hostRemoved(hostId);
     }
 
     private boolean isForceRemovalOfUnmanagedHost(VDS vds) {
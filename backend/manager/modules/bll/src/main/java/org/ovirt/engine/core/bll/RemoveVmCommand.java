@@ -24,6 +24,7 @@ import org.ovirt.engine.core.bll.network.ExternalNetworkManagerFactory;
 import org.ovirt.engine.core.bll.quota.QuotaConsumptionParameter;
 import org.ovirt.engine.core.bll.quota.QuotaStorageConsumptionParameter;
 import org.ovirt.engine.core.bll.quota.QuotaStorageDependent;
+import org.ovirt.engine.core.bll.scheduling.arem.AffinityGroupIndexManager;
 import org.ovirt.engine.core.bll.storage.disk.image.DisksFilter;
 import org.ovirt.engine.core.bll.storage.disk.image.ImagesHandler;
 import org.ovirt.engine.core.bll.tasks.CommandCoordinatorUtil;
@@ -98,6 +99,9 @@ public class RemoveVmCommand<T extends RemoveVmParameters> extends VmCommand<T>
     @Inject
     private KubevirtMonitoring kubevirt;
 
+    @Inject
+    private AffinityGroupIndexManager affinityGroupIndexManager;
+
     private List<CinderDisk> cinderDisks;
 
     private List<ManagedBlockStorageDisk> managedBlockDisks;
@@ -391,6 +395,8 @@ public class RemoveVmCommand<T extends RemoveVmParameters> extends VmCommand<T>
         removeVmNetwork();
         removeVmSnapshots();
         removeVmStatic(getParameters().isRemovePermissions());
+        // the VM is removed from its affinity groups and labels with it
+        affinityGroupIndexManager.invalidate();
         removeIcons();
     }
 
@@ -56,6 +56,8 @@ public class SshHostRebootCommand<T extends SshHostRebootParameters> extends Vds
         ) {
             try {
                 log.info("Opening SSH reboot session on host {}", getVds().getHostName());
+                // the host goes down, so its connection is not pooled
+                sshClient.setSessionPool(null);
                 sshClient.setVds(getVds());
                 sshClient.useDefaultKeyPair();
                 sshClient.connect();
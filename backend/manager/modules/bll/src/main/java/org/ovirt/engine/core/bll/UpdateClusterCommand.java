@@ -81,6 +81,7 @@ import org.ovirt.engine.core.dao.VmStaticDao;
 import org.ovirt.engine.core.dao.VmTemplateDao;
 import org.ovirt.engine.core.dao.network.NetworkClusterDao;
 import org.ovirt.engine.core.utils.transaction.TransactionSupport;
+import org.ovirt.engine.core.vdsbroker.NetworkOutOfSyncIndex;
 import org.ovirt.engine.core.vdsbroker.ResourceManager;
 import org.ovirt.engine.core.vdsbroker.VmManager;
 
@@ -123,6 +124,10 @@ public class UpdateClusterCommand<T extends ClusterOperationParameters> extends
     private VmInitDao vmInitDao;
     @Inject
     private OsRepository osRepository;
+    @Inject
+    private PermissionResolver permissionResolver;
+    @Inject
+    private NetworkOutOfSyncIndex networkOutOfSyncIndex;
 
     private List<VDS> allHostsForCluster;
 
@@ -351,10 +356,14 @@ public class UpdateClusterCommand<T extends ClusterOperationParameters> extends
         TransactionSupport.executeInNewTransaction(() -> {
             CompensationUtils.updateEntity(getParameters().getCluster(), oldCluster, clusterDao, getCompensationContext());
             addOrUpdateAddtionalClusterFeatures();
+            if (!Objects.equals(oldCluster.getStoragePoolId(), getCluster().getStoragePoolId())) {
+                permissionResolver.parentsChanged(getCluster().getId());
+            }
 
             getCompensationContext().stateChanged();
             return null;
         });
+        networkOutOfSyncIndex.clusterChanged(getCluster().getId());
 
         if (isAddedToStoragePool) {
             if (!addVdsSpmIdForAllHosts()) {
@@ -368,6 +377,7 @@ public class UpdateClusterCommand<T extends ClusterOperationParameters> extends
                 getCompensationContext().stateChanged();
                 return null;
             });
+            networkOutOfSyncIndex.clusterChanged(getCluster().getId());
         }
 
         if (!updateVmsAndTemplates()) {
@@ -56,6 +56,7 @@ import org.ovirt.engine.core.common.businessentities.StoragePool;
 import org.ovirt.engine.core.common.businessentities.StoragePoolStatus;
 import org.ovirt.engine.core.common.businessentities.VDS;
 import org.ovirt.engine.core.common.businessentities.VDSStatus;
+import org.ovirt.engine.core.common.businessentities.VMStatus;
 import org.ovirt.engine.core.common.businessentities.gluster.GlusterBrickEntity;
 import org.ovirt.engine.core.common.businessentities.gluster.GlusterStatus;
 import org.ovirt.engine.core.common.businessentities.qos.CpuQos;
@@ -86,6 +87,7 @@ import org.ovirt.engine.core.dao.StorageDomainDao;
 import org.ovirt.engine.core.dao.StorageDomainStaticDao;
 import org.ovirt.engine.core.dao.StoragePoolDao;
 import org.ovirt.engine.core.dao.VdsDao;
+import org.ovirt.engine.core.dao.VmDao;
 import org.ovirt.engine.core.dao.VmStaticDao;
 import org.ovirt.engine.core.dao.gluster.GlusterBrickDao;
 import org.ovirt.engine.core.dao.qos.CpuQosDao;
@@ -120,6 +122,8 @@ public class VdsEventListener implements IVdsEventListener {
     @Inject
     private VmStaticDao vmStaticDao;
     @Inject
+    private VmDao vmDao;
+    @Inject
     private StoragePoolDao storagePoolDao;
     @Inject
     private StorageDomainDao storageDomainDao;
@@ -155,6 +159,8 @@ public class VdsEventListener implements IVdsEventListener {
     private HostLocking hostLocking;
     @Inject
     private IsoDomainListSynchronizer isoDomainListSynchronizer;
+    @Inject
+    private VmPoolHandler vmPoolHandler;
 
     private static final Logger log = LoggerFactory.getLogger(VdsEventListener.class);
 
@@ -549,6 +555,17 @@ public class VdsEventListener implements IVdsEventListener {
                 vdsException.getVdsError().getVdsId()).handleNetworkException(vdsException));
     }
 
+    @Override
+    public void processOnVmsUp(List<Guid> vmIds) {
+        if (vmIds.isEmpty()) {
+            return;
+        }
+
+        ThreadPoolUtil.execute(() -> vmDao.getVmsByIds(vmIds).stream()
+                .filter(vm -> vm.getVmPoolId() != null && vm.getStatus() == VMStatus.Up)
+                .forEach(vm -> vmPoolHandler.vmMovedToUp(vm.getVmPoolId(), vm.getId())));
+    }
+
     @Override
     public void refreshHostIfAnyVmHasHostDevices(List<Guid> succeededToRunVms, List<Guid> movedToDownVms, final Guid hostId) {
         if (succeededToRunVms.isEmpty() && movedToDownVms.isEmpty()) {
@@ -102,6 +102,8 @@ public class VdsPowerDownCommand<T extends VdsPowerDownParameters> extends VdsCo
         ) {
             try {
                 log.info("Opening SSH power down session on host {}", getVds().getHostName());
+                // the host goes down, so its connection is not pooled
+                sshClient.setSessionPool(null);
                 sshClient.setVds(getVds());
                 sshClient.useDefaultKeyPair();
                 sshClient.connect();
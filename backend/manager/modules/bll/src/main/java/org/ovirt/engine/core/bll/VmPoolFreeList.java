@@ -0,0 +1,133 @@
+package org.ovirt.engine.core.bll;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.ovirt.engine.core.common.businessentities.VMStatus;
+import org.ovirt.engine.core.common.utils.Pair;
+import org.ovirt.engine.core.compat.Guid;
+
+/**
+ * Keeps the VMs of each VM pool that are candidates for being attached to users, by the status of the VMs, so that
+ * concurrent users of a pool are handed out distinct candidates without going over all the VMs of the pool.
+ * <p>
+ * The candidates are not validated here. A candidate that is handed out is not loaded again until
+ * {@link #HANDED_OUT_TIMEOUT} passes, it is added again when its status changes or it is released because it was not
+ * attached, so it is not handed out to another user while it is being attached, or validated again by every user when
+ * it is not free.
+ */
+public class VmPoolFreeList {
+
+    static final long HANDED_OUT_TIMEOUT = TimeUnit.MINUTES.toMillis(1);
+
+    private final ConcurrentMap<Pair<Guid, VMStatus>, Candidates> candidates = new ConcurrentHashMap<>();
+    private final LongSupplier clock;
+
+    public VmPoolFreeList() {
+        this(System::currentTimeMillis);
+    }
+
+    VmPoolFreeList(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Hands out the next candidate of the VM pool in the given status.
+     *
+     * @return the ID of the VM, or {@code null} if there are no candidates left
+     */
+    public Guid poll(Guid vmPoolId, VMStatus vmStatus) {
+        Candidates poolCandidates = candidates.get(new Pair<>(vmPoolId, vmStatus));
+        return poolCandidates == null ? null : poolCandidates.poll(clock.getAsLong());
+    }
+
+    /**
+     * Adds the VMs of the VM pool in the given status as candidates, except for the ones that were handed out
+     * recently.
+     */
+    public void load(Guid vmPoolId, VMStatus vmStatus, Collection<Guid> vmIds) {
+        getCandidates(vmPoolId, vmStatus).load(vmIds, clock.getAsLong());
+    }
+
+    /**
+     * Adds a VM of the VM pool that moved to the given status as a candidate, even if it was handed out recently.
+     */
+    public void add(Guid vmPoolId, VMStatus vmStatus, Guid vmId) {
+        getCandidates(vmPoolId, vmStatus).add(vmId);
+    }
+
+    /**
+     * Makes a candidate that was handed out, but was not attached to the user, a candidate again. Does nothing if the
+     * VM is no longer handed out, e.g. since it was added or handed out again meanwhile.
+     */
+    public void release(Guid vmPoolId, VMStatus vmStatus, Guid vmId) {
+        Candidates poolCandidates = candidates.get(new Pair<>(vmPoolId, vmStatus));
+        if (poolCandidates != null) {
+            poolCandidates.release(vmId);
+        }
+    }
+
+    /**
+     * Removes a VM of the VM pool that is no longer in the given status from the candidates.
+     */
+    public void remove(Guid vmPoolId, VMStatus vmStatus, Guid vmId) {
+        Candidates poolCandidates = candidates.get(new Pair<>(vmPoolId, vmStatus));
+        if (poolCandidates != null) {
+            poolCandidates.remove(vmId);
+        }
+    }
+
+    private Candidates getCandidates(Guid vmPoolId, VMStatus vmStatus) {
+        return candidates.computeIfAbsent(new Pair<>(vmPoolId, vmStatus), key -> new Candidates());
+    }
+
+    private static class Candidates {
+
+        private final Set<Guid> ready = new LinkedHashSet<>();
+        private final Map<Guid, Long> handedOut = new HashMap<>();
+
+        synchronized Guid poll(long now) {
+            Iterator<Guid> iterator = ready.iterator();
+            if (!iterator.hasNext()) {
+                return null;
+            }
+
+            Guid vmId = iterator.next();
+            iterator.remove();
+            handedOut.put(vmId, now);
+            return vmId;
+        }
+
+        synchronized void load(Collection<Guid> vmIds, long now) {
+            handedOut.values().removeIf(time -> now - time >= HANDED_OUT_TIMEOUT);
+            for (Guid vmId : vmIds) {
+                if (!handedOut.containsKey(vmId)) {
+                    ready.add(vmId);
+                }
+            }
+        }
+
+        synchronized void add(Guid vmId) {
+            handedOut.remove(vmId);
+            ready.add(vmId);
+        }
+
+        synchronized void release(Guid vmId) {
+            if (handedOut.remove(vmId) != null) {
+                ready.add(vmId);
+            }
+        }
+
+        synchronized void remove(Guid vmId) {
+            ready.remove(vmId);
+        }
+    }
+}
@@ -7,6 +7,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import javax.inject.Inject;
@@ -87,6 +88,8 @@ public class VmPoolHandler implements BackendService {
     @Inject
     private SnapshotsValidator snapshotsValidator;
 
+    private final VmPoolFreeList freeList = new VmPoolFreeList();
+
     public EngineLock createLock(Guid vmId) {
         return new EngineLock(
                 RunVmCommandBase.getExclusiveLocksForRunVm(vmId, getLockMessage()),
@@ -152,17 +155,91 @@ public class VmPoolHandler implements BackendService {
     }
 
     public Guid selectPrestartedVm(Guid vmPoolId, boolean isStatefulPool, ErrorProcessor errorProcessor) {
-        return selectPrestartedVms(vmPoolId, isStatefulPool, errorProcessor, false)
-                .findFirst()
-                .map(vmId -> acquireVm(vmId, false))
-                .orElse(Guid.Empty);
+        return selectFreeVm(vmPoolId,
+                VMStatus.Up,
+                vm -> isPrestartedVmFree(vm.getId(), vm.getDynamicData(), isStatefulPool, errorProcessor),
+                false);
     }
 
     public Guid selectNonPrestartedVm(Guid vmPoolId, ErrorProcessor errorProcessor) {
-        return selectNonPrestartedVms(vmPoolId, errorProcessor, false)
-                .findFirst()
-                .map(vmId -> acquireVm(vmId, true))
-                .orElse(Guid.Empty);
+        return selectFreeVm(vmPoolId,
+                VMStatus.Down,
+                vm -> isNonPrestartedVmFree(vm, errorProcessor),
+                true);
+    }
+
+    /**
+     * Selects a free VM of the pool in the given status for a user. The candidates are taken from the free list of the
+     * pool, which is loaded from the DB at most once per selection, when there are no candidates left in it, so only
+     * the selected VMs are validated and concurrent users don't validate the same VMs.
+     */
+    private Guid selectFreeVm(Guid vmPoolId, VMStatus vmStatus, Predicate<VM> vmFilter, boolean leaveLocked) {
+        boolean loaded = false;
+        while (true) {
+            Guid vmId = freeList.poll(vmPoolId, vmStatus);
+            if (vmId == null) {
+                if (loaded) {
+                    return Guid.Empty;
+                }
+                freeList.load(vmPoolId, vmStatus, getVmIdsInVmPool(vmPoolId, vmStatus));
+                loaded = true;
+                continue;
+            }
+
+            // the free list may be stale, the VM is taken only if it is still in the pool and in the given status
+            VM vm = vmDao.get(vmId);
+            if (vm != null && vmPoolId.equals(vm.getVmPoolId()) && vm.getStatus() == vmStatus && vmFilter.test(vm)) {
+                Guid acquiredVmId = acquireVm(vmId, leaveLocked);
+                if (!Guid.Empty.equals(acquiredVmId)) {
+                    return acquiredVmId;
+                }
+            }
+        }
+    }
+
+    private List<Guid> getVmIdsInVmPool(Guid vmPoolId, VMStatus vmStatus) {
+        List<VmPoolMap> vmPoolMaps = vmPoolDao.getVmMapsInVmPoolByVmPoolIdAndStatus(vmPoolId, vmStatus);
+        if (vmPoolMaps == null) {
+            return Collections.emptyList();
+        }
+
+        return vmPoolMaps.stream().map(VmPoolMap::getVmId).collect(Collectors.toList());
+    }
+
+    /**
+     * Updates the free list of the pool when a VM of the pool moved to the given status, Down for a VM that was
+     * released.
+     */
+    public void vmStatusChanged(Guid vmPoolId, Guid vmId, VMStatus vmStatus) {
+        freeList.remove(vmPoolId, vmStatus == VMStatus.Up ? VMStatus.Down : VMStatus.Up, vmId);
+        freeList.add(vmPoolId, vmStatus, vmId);
+    }
+
+    /**
+     * Updates the free list of the pool when a VM of the pool moved to Up, whether it was prestarted by the pool
+     * monitor, run by a user or an admin, resumed or migrated. Unlike a VM that went down, a VM that was handed out to
+     * a user recently is not offered again, since it is likely being attached to the user.
+     */
+    public void vmMovedToUp(Guid vmPoolId, Guid vmId) {
+        freeList.remove(vmPoolId, VMStatus.Down, vmId);
+        freeList.load(vmPoolId, VMStatus.Up, Collections.singletonList(vmId));
+    }
+
+    /**
+     * Returns a VM that was selected for a user but was not attached to the user, because the attach or the run of the
+     * VM failed, to the free list of the pool.
+     */
+    public void releaseVm(Guid vmPoolId, Guid vmId, boolean prestarted) {
+        freeList.release(vmPoolId, prestarted ? VMStatus.Up : VMStatus.Down, vmId);
+    }
+
+    /**
+     * Removes a VM of the pool that is no longer free, e.g. a VM that is being prestarted, from the free list of the
+     * pool.
+     */
+    public void vmNotFree(Guid vmPoolId, Guid vmId) {
+        freeList.remove(vmPoolId, VMStatus.Up, vmId);
+        freeList.remove(vmPoolId, VMStatus.Down, vmId);
     }
 
     /**
@@ -175,8 +252,14 @@ public class VmPoolHandler implements BackendService {
     public boolean isPrestartedVmFree(Guid vmId, boolean isStatefulPool, ErrorProcessor errorProcessor) {
         // check that there is no user already attached to this VM
         // and make sure the VM is running statelessly
+        return isPrestartedVmFree(vmId, vmDynamicDao.get(vmId), isStatefulPool, errorProcessor);
+    }
+
+    private boolean isPrestartedVmFree(Guid vmId,
+            VmDynamic vmDynamic,
+            boolean isStatefulPool,
+            ErrorProcessor errorProcessor) {
         List<String> messages = new ArrayList<>();
-        VmDynamic vmDynamic = vmDynamicDao.get(vmId);
         boolean isFree = !vmAssignedToUser(vmId, vmDynamic, messages)
                 && (isStatefulPool && !vmIsStartedByRunOnce(vmDynamic) || vmIsRunningStateless(vmId));
         if (errorProcessor != null && !messages.isEmpty()) {
@@ -192,14 +275,18 @@ public class VmPoolHandler implements BackendService {
      * @return True if the VM is free, false otherwise
      */
     public boolean isNonPrestartedVmFree(Guid vmId, ErrorProcessor errorProcessor) {
-        List<String> messages = new ArrayList<>();
-
         VM vm = vmDao.get(vmId);
         if (vm == null) {
-            messages.add(EngineMessage.ACTION_TYPE_FAILED_VM_NOT_FOUND.name());
             return false;
         }
 
+        return isNonPrestartedVmFree(vm, errorProcessor);
+    }
+
+    private boolean isNonPrestartedVmFree(VM vm, ErrorProcessor errorProcessor) {
+        Guid vmId = vm.getId();
+        List<String> messages = new ArrayList<>();
+
         // check that there is no user already attached to this VM
         if (vmAssignedToUser(vmId, vm.getDynamicData(), messages)) {
             return failVmFree(errorProcessor, vmId, messages);
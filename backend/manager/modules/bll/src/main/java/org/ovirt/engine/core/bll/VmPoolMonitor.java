@@ -164,6 +164,7 @@ public class VmPoolMonitor implements BackendService {
                 && iterator.hasNext()) {
             Guid vmId = iterator.next();
             if (prestartVm(vmId, !vmPool.isStateful(), vmPool.getName())) {
+                vmPoolHandler.vmNotFree(vmPool.getVmPoolId(), vmId);
                 prestartedVms++;
                 failedAttempts = 0;
             } else {
@@ -28,6 +28,7 @@ import org.ovirt.engine.core.aaa.AcctUtils;
 import org.ovirt.engine.core.aaa.AuthenticationProfile;
 import org.ovirt.engine.core.aaa.AuthenticationProfileRepository;
 import org.ovirt.engine.core.aaa.SsoOAuthServiceUtils;
+import org.ovirt.engine.core.bll.PermissionResolver;
 import org.ovirt.engine.core.common.businessentities.EngineSession;
 import org.ovirt.engine.core.common.businessentities.aaa.DbUser;
 import org.ovirt.engine.core.common.config.Config;
@@ -79,6 +80,9 @@ public class SessionDataContainer {
     @Inject
     private EngineSessionDao engineSessionDao;
 
+    @Inject
+    private PermissionResolver permissionResolver;
+
     @PostConstruct
     private void init() {
         scheduledExecutorService.scheduleAtFixedRate(this::cleanExpiredUsersSessions,
@@ -146,6 +150,7 @@ public class SessionDataContainer {
         if (sessionInfo != null) {
             sessionInfo.contentOfSession.put(ENGINE_SESSION_SEQ_ID,
                     engineSessionDao.save(new EngineSession(getUser(sessionId, false), sessionId, getSourceIp(sessionId))));
+            userGroupsChanged(getUser(sessionId, false));
             setSessionStartTime(sessionId);
         }
     }
@@ -183,6 +188,7 @@ public class SessionDataContainer {
 
     public void cleanupEngineSessionsOnStartup() {
         engineSessionDao.removeAll();
+        permissionResolver.clear();
     }
 
     public void cleanupEngineSessionsForSsoAccessToken(String ssoAccessToken) {
@@ -452,9 +458,20 @@ public class SessionDataContainer {
                 msgArgs
                 );
         engineSessionDao.remove(getEngineSessionSeqId(sessionId));
+        userGroupsChanged(getUser(sessionId, false));
         sessionInfoMap.remove(sessionId);
     }
 
+    /**
+     * The groups of a user are those of the engine sessions of the user, so permission checks of the user done before
+     * a session was added or removed may not hold anymore.
+     */
+    private void userGroupsChanged(DbUser user) {
+        if (user != null) {
+            permissionResolver.userChanged(user.getId());
+        }
+    }
+
     class SsoSessionValidator {
         public Map<String, Boolean> getSessionStatuses(Set<String> tokens) {
             Map<String, Boolean> sessionStatuses = Collections.emptyMap();
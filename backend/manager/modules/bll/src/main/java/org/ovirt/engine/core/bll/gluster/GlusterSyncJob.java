@@ -4,12 +4,20 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -63,6 +71,7 @@ import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AuditLogDirector;
 import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AuditLogable;
 import org.ovirt.engine.core.dao.gluster.GlusterDBUtils;
 import org.ovirt.engine.core.utils.lock.EngineLock;
+import org.ovirt.engine.core.utils.threadpool.ThreadPoolUtil;
 import org.ovirt.engine.core.utils.transaction.TransactionSupport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -87,6 +96,11 @@ public class GlusterSyncJob extends GlusterJob {
     @Inject
     private GlusterThinDeviceService thinDeviceService;
 
+    /**
+     * The ids of the clusters which were not refreshed by the last refresh of each data type since it ran out of time.
+     */
+    private final Map<String, Set<Guid>> deferredClusters = new ConcurrentHashMap<>();
+
     @Override
     public Collection<GlusterJobSchedulingDetails> getSchedulingDetails() {
         return Arrays.asList(
@@ -111,22 +125,79 @@ public class GlusterSyncJob extends GlusterJob {
     @OnTimerMethodAnnotation("refreshLightWeightData")
     public void refreshLightWeightData() {
         log.debug("Refreshing Gluster Data [lightweight]");
-        List<Cluster> clusters = clusterDao.getAll();
+        refreshClusters("lightweight", ConfigValues.GlusterRefreshRateLight, this::refreshClusterData);
+    }
 
-        for (Cluster cluster : clusters) {
-            if (cluster.supportsGlusterService()) {
-                try {
-                    refreshClusterData(cluster);
-                } catch (Exception e) {
-                    log.error("Error while refreshing Gluster lightweight data of cluster '{}': {}",
-                            cluster.getName(),
-                            e.getMessage());
-                    log.debug("Exception", e);
-                }
+    /**
+     * Refreshes the data of the gluster clusters on at most {@link ConfigValues#GlusterRefreshMaxConcurrentClusters}
+     * threads. Each thread takes the next cluster once it is done with the previous one, so a slow cluster delays only
+     * the clusters that would have been refreshed after it by the same thread. Once the refresh interval has elapsed
+     * the threads stop taking clusters, so the refresh doesn't overrun the next one by more than the clusters being
+     * refreshed; the clusters left are refreshed first by the next refresh. Returns when no cluster is being refreshed.
+     */
+    private void refreshClusters(String dataType, ConfigValues refreshRate, Consumer<Cluster> refreshCluster) {
+        long startTime = System.nanoTime();
+        long deadline = startTime + TimeUnit.SECONDS.toNanos(getRefreshRate(refreshRate));
+        Set<Guid> deferred = deferredClusters.getOrDefault(dataType, Collections.emptySet());
+        Queue<Cluster> pendingClusters = clusterDao.getAll().stream()
+                .filter(Cluster::supportsGlusterService)
+                .sorted(Comparator.comparing(cluster -> !deferred.contains(cluster.getId())))
+                .collect(Collectors.toCollection(ConcurrentLinkedQueue::new));
+        int clustersCount = pendingClusters.size();
+
+        // No need for another thread to refresh a single cluster
+        if (clustersCount <= 1) {
+            refreshPendingClusters(dataType, pendingClusters, deadline, refreshCluster);
+        } else {
+            Callable<Void> worker = () -> {
+                refreshPendingClusters(dataType, pendingClusters, deadline, refreshCluster);
+                return null;
+            };
+            int workersCount = Math.min(clustersCount,
+                    Math.max(1, Config.<Integer> getValue(ConfigValues.GlusterRefreshMaxConcurrentClusters)));
+            ThreadPoolUtil.invokeAll(Collections.nCopies(workersCount, worker));
+        }
+
+        deferredClusters.put(dataType, pendingClusters.stream().map(Cluster::getId).collect(Collectors.toSet()));
+        if (System.nanoTime() - deadline > 0) {
+            log.warn("Refreshing Gluster {} data of {} clusters took {} ms, more than its refresh interval,"
+                            + " {} clusters are deferred to the next refresh",
+                    dataType,
+                    clustersCount - pendingClusters.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime),
+                    pendingClusters.size());
+        }
+    }
+
+    /**
+     * Refreshes the pending clusters one after the other, until none is left or the deadline has passed. At least one
+     * cluster is refreshed, so the refresh makes progress even if it always runs out of time.
+     */
+    private void refreshPendingClusters(String dataType,
+            Queue<Cluster> pendingClusters,
+            long deadline,
+            Consumer<Cluster> refreshCluster) {
+        Cluster cluster;
+        while ((cluster = pendingClusters.poll()) != null) {
+            refreshCluster(dataType, cluster, refreshCluster);
+            if (System.nanoTime() - deadline > 0) {
+                return;
             }
         }
     }
 
+    private void refreshCluster(String dataType, Cluster cluster, Consumer<Cluster> refreshCluster) {
+        try {
+            refreshCluster.accept(cluster);
+        } catch (Exception e) {
+            log.error("Error while refreshing Gluster {} data of cluster '{}': {}",
+                    dataType,
+                    cluster.getName(),
+                    e.getMessage());
+            log.debug("Exception", e);
+        }
+    }
+
     private void refreshClusterData(Cluster cluster) {
         log.debug("Refreshing Gluster lightweight Data for cluster '{}'", cluster.getName());
 
@@ -457,11 +528,14 @@ public class GlusterSyncJob extends GlusterJob {
                 return;
             }
 
+            Map<Guid, GlusterVolumeEntity> existingVolumes = volumeDao.getByClusterId(cluster.getId()).stream()
+                    .collect(Collectors.toMap(GlusterVolumeEntity::getId, volume -> volume));
+
             // remove deleted volumes must happen before adding new ones,
             // to handle cases where user deleted a volume and created a
             // new one with same name in a very short time
-            removeDeletedVolumes(cluster.getId(), volumesMap);
-            updateExistingAndNewVolumes(cluster.getId(), volumesMap);
+            removeDeletedVolumes(cluster.getId(), existingVolumes.values(), volumesMap);
+            updateExistingAndNewVolumes(cluster.getId(), existingVolumes, volumesMap);
         } finally {
             releaseLock(cluster.getId());
         }
@@ -496,9 +570,11 @@ public class GlusterSyncJob extends GlusterJob {
         return result.getSucceeded() ? (Map<Guid, GlusterVolumeEntity>) result.getReturnValue() : null;
     }
 
-    private void removeDeletedVolumes(Guid clusterId, Map<Guid, GlusterVolumeEntity> volumesMap) {
+    private void removeDeletedVolumes(Guid clusterId,
+            Collection<GlusterVolumeEntity> existingVolumes,
+            Map<Guid, GlusterVolumeEntity> volumesMap) {
         List<Guid> idsToRemove = new ArrayList<>();
-        for (GlusterVolumeEntity volume : volumeDao.getByClusterId(clusterId)) {
+        for (GlusterVolumeEntity volume : existingVolumes) {
             if (!volumesMap.containsKey(volume.getId())) {
                 idsToRemove.add(volume.getId());
                 log.debug("Volume '{}' has been removed directly using the gluster CLI. Removing it from engine as well.",
@@ -523,14 +599,16 @@ public class GlusterSyncJob extends GlusterJob {
         }
     }
 
-    private void updateExistingAndNewVolumes(Guid clusterId, Map<Guid, GlusterVolumeEntity> volumesMap) {
+    private void updateExistingAndNewVolumes(Guid clusterId,
+            Map<Guid, GlusterVolumeEntity> existingVolumes,
+            Map<Guid, GlusterVolumeEntity> volumesMap) {
         Cluster cluster = clusterDao.get(clusterId);
 
         for (Entry<Guid, GlusterVolumeEntity> entry : volumesMap.entrySet()) {
             GlusterVolumeEntity volume = entry.getValue();
             log.debug("Analyzing volume '{}'", volume.getName());
 
-            GlusterVolumeEntity existingVolume = volumeDao.getById(entry.getKey());
+            GlusterVolumeEntity existingVolume = existingVolumes.get(entry.getKey());
             if (existingVolume == null) {
                 try {
                     createVolume(volume);
@@ -687,6 +765,9 @@ public class GlusterSyncJob extends GlusterJob {
 
     @SuppressWarnings("serial")
     private void updateExistingAndNewBricks(GlusterVolumeEntity existingVolume, List<GlusterBrickEntity> fetchedBricks) {
+        List<GlusterBrickEntity> newBricks = new ArrayList<>();
+        List<GlusterBrickEntity> bricksWithChangedOrder = new ArrayList<>();
+        List<GlusterBrickEntity> bricksWithChangedNetwork = new ArrayList<>();
         for (final GlusterBrickEntity fetchedBrick : fetchedBricks) {
             GlusterBrickEntity existingBrick = GlusterCoreUtil.findBrick(existingVolume.getBricks(), fetchedBrick);
             if (existingBrick == null) {
@@ -697,7 +778,7 @@ public class GlusterSyncJob extends GlusterJob {
                             fetchedBrick.getQualifiedName(),
                             existingVolume.getName());
                     fetchedBrick.setStatus(existingVolume.isOnline() ? GlusterStatus.UP : GlusterStatus.DOWN);
-                    brickDao.save(fetchedBrick);
+                    newBricks.add(fetchedBrick);
                     logUtil.logAuditMessage(existingVolume.getClusterId(),
                             existingVolume.getClusterName(),
                             existingVolume,
@@ -712,17 +793,29 @@ public class GlusterSyncJob extends GlusterJob {
                             existingBrick.getQualifiedName(),
                             existingBrick.getBrickOrder(),
                             fetchedBrick.getBrickOrder());
-                    brickDao.updateBrickOrder(existingBrick.getId(), fetchedBrick.getBrickOrder());
+                    existingBrick.setBrickOrder(fetchedBrick.getBrickOrder());
+                    bricksWithChangedOrder.add(existingBrick);
                 }
                 // update network id, if different
                 if (!Objects.equals(existingBrick.getNetworkId(), fetchedBrick.getNetworkId())) {
                     log.info("Network address for brick '{}' detected as  '{}'. Updating engine DB accordingly.",
                             existingBrick.getQualifiedName(),
                             fetchedBrick.getNetworkAddress());
-                    brickDao.updateBrickNetworkId(existingBrick.getId(), fetchedBrick.getNetworkId());
+                    existingBrick.setNetworkId(fetchedBrick.getNetworkId());
+                    bricksWithChangedNetwork.add(existingBrick);
                 }
             }
         }
+
+        if (!newBricks.isEmpty()) {
+            brickDao.saveAllInBatch(newBricks);
+        }
+        if (!bricksWithChangedOrder.isEmpty()) {
+            brickDao.updateBrickOrders(bricksWithChangedOrder);
+        }
+        if (!bricksWithChangedNetwork.isEmpty()) {
+            brickDao.updateBrickNetworkIds(bricksWithChangedNetwork);
+        }
     }
 
     private void updateOptions(GlusterVolumeEntity existingVolume, GlusterVolumeEntity fetchedVolume) {
@@ -811,7 +904,7 @@ public class GlusterSyncJob extends GlusterJob {
     }
 
     private void saveNewOptions(GlusterVolumeEntity volume, Collection<GlusterVolumeOptionEntity> entities) {
-        optionDao.saveAll(entities);
+        optionDao.saveAllInBatch(entities);
         for (final GlusterVolumeOptionEntity entity : entities) {
             Map<String, String> customValues = new HashMap<>();
             customValues.put(GlusterConstants.OPTION_KEY, entity.getKey());
@@ -830,7 +923,7 @@ public class GlusterSyncJob extends GlusterJob {
     }
 
     private void updateExistingOptions(final GlusterVolumeEntity volume, Collection<GlusterVolumeOptionEntity> entities) {
-        optionDao.updateAll("UpdateGlusterVolumeOption", entities);
+        optionDao.updateAllInBatch(entities);
         for (final GlusterVolumeOptionEntity entity : entities) {
             Map<String, String> customValues = new HashMap<>();
             customValues.put(GlusterConstants.OPTION_KEY, entity.getKey());
@@ -914,19 +1007,7 @@ public class GlusterSyncJob extends GlusterJob {
     @OnTimerMethodAnnotation("refreshHeavyWeightData")
     public void refreshHeavyWeightData() {
         log.debug("Refreshing Gluster Data [heavyweight]");
-
-        for (Cluster cluster : clusterDao.getAll()) {
-            if (cluster.supportsGlusterService()) {
-                try {
-                    refreshClusterHeavyWeightData(cluster);
-                } catch (Exception e) {
-                    log.error("Error while refreshing Gluster heavyweight data of cluster '{}': {}",
-                            cluster.getName(),
-                            e.getMessage());
-                    log.debug("Exception", e);
-                }
-            }
-        }
+        refreshClusters("heavyweight", ConfigValues.GlusterRefreshRateHeavy, this::refreshClusterHeavyWeightData);
     }
 
     private void refreshClusterHeavyWeightData(Cluster cluster) {
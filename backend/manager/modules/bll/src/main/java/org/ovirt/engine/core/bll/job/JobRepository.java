@@ -12,7 +12,9 @@ import org.ovirt.engine.core.compat.Guid;
 
 /**
  * Represents basic CRUD operations for Job and Step objects.
- * Each modification operation is being executed in a new transaction.
+ * Each modification operation is being executed in a new transaction. Changes of steps which are still running may be
+ * kept in memory and written to the DB shortly after, together with the other changes of the job. Reads of steps by the
+ * repository always see the changes made through it.
  */
 public interface JobRepository {
 
@@ -43,6 +45,16 @@ public interface JobRepository {
      */
     void updateStep(Step step);
 
+    /**
+     * Updates the progress of the {@link Step} entity with the given id.
+     *
+     * @param stepId
+     *            The id of the step to update (can't be <code>null</code>).
+     * @param progress
+     *            The progress of the step.
+     */
+    void updateStepProgress(Guid stepId, Integer progress);
+
     /**
      * Persists a new instance of {@link Job} the entity.
      *
@@ -71,6 +83,24 @@ public interface JobRepository {
      */
     Step getStep(Guid stepId, boolean loadSubjectEntities);
 
+    /**
+     * Checks if the {@link Step} entity with the given id exists.
+     *
+     * @param stepId
+     *            The id to look by (can't be <code>null</code>).
+     * @return Does the step exist or not.
+     */
+    boolean stepExists(Guid stepId);
+
+    /**
+     * Retrieves the {@link Step} entities of the {@link Job} with the given id.
+     *
+     * @param jobId
+     *            The id of the job (can't be <code>null</code>).
+     * @return A list of all the job's steps in a flat collection, or an empty list if none is found.
+     */
+    List<Step> getStepsByJobId(Guid jobId);
+
     /**
      * Retrieves a list of {@link Job} entities with the given characteristics.
      *
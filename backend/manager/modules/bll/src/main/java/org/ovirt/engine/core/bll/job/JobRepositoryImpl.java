@@ -1,15 +1,25 @@
 package org.ovirt.engine.core.bll.job;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.concurrent.ManagedScheduledExecutorService;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
@@ -24,23 +34,47 @@ import org.ovirt.engine.core.dao.JobDao;
 import org.ovirt.engine.core.dao.JobSubjectEntityDao;
 import org.ovirt.engine.core.dao.StepDao;
 import org.ovirt.engine.core.dao.StepSubjectEntityDao;
+import org.ovirt.engine.core.utils.threadpool.ThreadPools;
 import org.ovirt.engine.core.utils.transaction.TransactionSupport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Implements the CRUD operations for the Job entities.
+ * <p>
+ * New steps and changes of running steps are kept in memory per job, and are written to the DB together, with a single
+ * update of the last update time of the job, every {@link #PENDING_STEPS_WRITE_INTERVAL} milliseconds. The pending
+ * steps of a job are written right away when a step of the job ends, when the job ends, before the steps of the job
+ * are read and when the engine stops.
+ * <p>
+ * The pending steps of a job are taken from the job under its lock and written outside of it, so steps keep being
+ * added to the job while its previous steps are written. The writes of a job are serialized, in the order the steps
+ * were taken, by one of {@link #WRITE_LOCKS_COUNT} write locks, which are shared by the jobs.
  */
 @Singleton
 public class JobRepositoryImpl implements JobRepository {
 
     private static final Logger log = LoggerFactory.getLogger(JobRepositoryImpl.class);
 
+    private static final long PENDING_STEPS_WRITE_INTERVAL = 1000;
+
+    private static final int WRITE_LOCKS_COUNT = 64;
+
     private final JobDao jobDao;
     private final JobSubjectEntityDao jobSubjectEntityDao;
     private final StepDao stepDao;
     private final StepSubjectEntityDao stepSubjectEntityDao;
 
+    // Map: job id -> the changes in the steps of the job that were not written to the DB yet
+    private final ConcurrentMap<Guid, PendingSteps> pendingSteps = new ConcurrentHashMap<>();
+    // Map: step id -> the pending steps containing the step, until they are written to the DB
+    private final ConcurrentMap<Guid, PendingSteps> pendingStepsByStepId = new ConcurrentHashMap<>();
+    private final Object[] writeLocks = new Object[WRITE_LOCKS_COUNT];
+
+    @Inject
+    @ThreadPools(ThreadPools.ThreadPoolType.EngineScheduledThreadPool)
+    private ManagedScheduledExecutorService executor;
+
     @Inject
     public JobRepositoryImpl(JobDao jobDao, JobSubjectEntityDao jobSubjectEntityDao, StepDao stepDao,
                              StepSubjectEntityDao stepSubjectEntityDao) {
@@ -48,6 +82,22 @@ public class JobRepositoryImpl implements JobRepository {
         this.jobSubjectEntityDao = jobSubjectEntityDao;
         this.stepDao = stepDao;
         this.stepSubjectEntityDao = stepSubjectEntityDao;
+        for (int i = 0; i < writeLocks.length; i++) {
+            writeLocks[i] = new Object();
+        }
+    }
+
+    @PostConstruct
+    private void init() {
+        executor.scheduleWithFixedDelay(this::writeAllPendingSteps,
+                PENDING_STEPS_WRITE_INTERVAL,
+                PENDING_STEPS_WRITE_INTERVAL,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    private void destroy() {
+        writeAllPendingSteps();
     }
 
     @Override
@@ -58,38 +108,178 @@ public class JobRepositoryImpl implements JobRepository {
     @Override
     public void saveStep(final Step step, Collection<StepSubjectEntity> stepSubjectEntities) {
         stepSubjectEntities.forEach(x -> x.setStepId(step.getId()));
-        TransactionSupport.executeInNewTransaction(() -> {
-            try {
-                jobDao.updateJobLastUpdateTime(step.getJobId(), new Date());
-                stepDao.save(step);
-                stepSubjectEntityDao.saveAll(stepSubjectEntities);
-            } catch (Exception e) {
-                log.error("Failed to save step '{}', '{}': {}",
-                        step.getId(),
-                        step.getStepName(),
-                        e.getMessage());
-                log.debug("Exception", e);
-            }
-            return null;
-        });
+        withPendingSteps(step.getJobId(),
+                Collections.singletonList(step),
+                pending -> pending.saveStep(step, stepSubjectEntities));
+        // Steps are looked up by their subject entities directly in the DB
+        if (mustBeWrittenNow(step) || !stepSubjectEntities.isEmpty()) {
+            writePendingSteps(step.getJobId());
+        }
     }
 
     @Override
     public void updateStep(final Step step) {
-        TransactionSupport.executeInNewTransaction(() -> {
+        withPendingSteps(step.getJobId(), Collections.singletonList(step), pending -> pending.updateStep(step));
+        if (mustBeWrittenNow(step)) {
+            writePendingSteps(step.getJobId());
+        }
+    }
+
+    @Override
+    public void updateStepProgress(Guid stepId, Integer progress) {
+        PendingSteps pending = pendingStepsByStepId.get(stepId);
+        if (pending != null) {
+            synchronized (pending) {
+                Step step = pending.getStep(stepId);
+                if (step != null && !pending.isWritten()) {
+                    step.setProgress(progress);
+                    return;
+                }
+            }
+            // The step is being written, the progress is updated once it is
+            writePendingSteps(pending.getJobId());
+        }
+        stepDao.updateStepProgress(stepId, progress);
+    }
+
+    /**
+     * A step is written right away, instead of with the other pending steps of its job, once it ended, so its final
+     * status survives a restart of the engine, and when it is looked up directly in the DB, like the external steps and
+     * the steps of external systems.
+     */
+    private static boolean mustBeWrittenNow(Step step) {
+        return step.getStatus() != JobExecutionStatus.STARTED
+                || step.isExternal()
+                || step.getExternalSystem().getId() != null;
+    }
+
+    /**
+     * Runs the given code, which adds the given steps, while holding the pending steps of the job, so the steps of the
+     * job are not taken to be written by another thread in the meantime.
+     */
+    private void withPendingSteps(Guid jobId, List<Step> steps, Consumer<PendingSteps> code) {
+        while (true) {
+            PendingSteps pending = pendingSteps.computeIfAbsent(jobId, PendingSteps::new);
+            synchronized (pending) {
+                // The pending steps were taken to be written by another thread, new ones are needed
+                if (!pending.isWritten()) {
+                    code.accept(pending);
+                    steps.forEach(step -> pendingStepsByStepId.put(step.getId(), pending));
+                    return;
+                }
+            }
+        }
+    }
 
+    private Object getWriteLock(Guid jobId) {
+        return writeLocks[Math.floorMod(jobId.hashCode(), writeLocks.length)];
+    }
+
+    /**
+     * Writes the pending steps of the job, and waits for the steps of the job that are being written by another
+     * thread.
+     */
+    private void writePendingSteps(Guid jobId) {
+        synchronized (getWriteLock(jobId)) {
+            PendingSteps pending = pendingSteps.get(jobId);
+            if (pending == null) {
+                return;
+            }
+            synchronized (pending) {
+                if (pending.isWritten()) {
+                    return;
+                }
+                pending.setWritten();
+                pendingSteps.remove(jobId, pending);
+            }
             try {
-                jobDao.updateJobLastUpdateTime(step.getJobId(), new Date());
-                stepDao.update(step);
-            } catch (Exception e) {
-                log.error("Failed to update step '{}', '{}': {}",
-                        step.getId(),
-                        step.getStepName(),
-                        e.getMessage());
-                log.debug("Exception", e);
+                writePendingSteps(pending);
+            } finally {
+                pending.getStepIds().forEach(stepId -> pendingStepsByStepId.remove(stepId, pending));
             }
-            return null;
-        });
+        }
+    }
+
+    private void writePendingStepsOfStep(Guid stepId) {
+        PendingSteps pending = pendingStepsByStepId.get(stepId);
+        if (pending != null) {
+            writePendingSteps(pending.getJobId());
+        }
+    }
+
+    private void writeAllPendingSteps() {
+        pendingSteps.keySet().forEach(this::writePendingSteps);
+    }
+
+    /**
+     * Writes the pending steps, which were taken from their job, in a new transaction. Must be called while holding
+     * the write lock of the job.
+     * <p>
+     * If the steps can't be written together, the transaction is rolled back and each step is written in a transaction
+     * of its own, as it would have been without the pending steps, so a single step that can't be written doesn't lose
+     * the others.
+     */
+    private void writePendingSteps(PendingSteps pending) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        try {
+            TransactionSupport.executeInNewTransaction(() -> {
+                jobDao.updateJobLastUpdateTime(pending.getJobId(), pending.getLastUpdateTime());
+                if (!pending.getNewSteps().isEmpty()) {
+                    stepDao.saveAllInBatch(pending.getNewSteps());
+                }
+                if (!pending.getUpdatedSteps().isEmpty()) {
+                    stepDao.updateAllInBatch(pending.getUpdatedSteps());
+                }
+                if (!pending.getNewStepSubjectEntities().isEmpty()) {
+                    stepSubjectEntityDao.saveAll(pending.getNewStepSubjectEntities());
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Failed to write steps {} of job '{}' together, writing them one by one: {}",
+                    pending.getStepIds(),
+                    pending.getJobId(),
+                    e.getMessage());
+            log.debug("Exception", e);
+            writeEachPendingStep(pending);
+        }
+    }
+
+    private void writeEachPendingStep(PendingSteps pending) {
+        Map<Guid, List<StepSubjectEntity>> stepSubjectEntities = new HashMap<>();
+        for (StepSubjectEntity stepSubjectEntity : pending.getNewStepSubjectEntities()) {
+            stepSubjectEntities.computeIfAbsent(stepSubjectEntity.getStepId(), k -> new ArrayList<>())
+                    .add(stepSubjectEntity);
+        }
+
+        for (Step step : pending.getNewSteps()) {
+            writeStep(step, "save", () -> {
+                stepDao.save(step);
+                stepSubjectEntityDao.saveAll(stepSubjectEntities.getOrDefault(step.getId(), Collections.emptyList()));
+            });
+        }
+        for (Step step : pending.getUpdatedSteps()) {
+            writeStep(step, "update", () -> stepDao.update(step));
+        }
+    }
+
+    private void writeStep(Step step, String operation, Runnable write) {
+        try {
+            TransactionSupport.executeInNewTransaction(() -> {
+                jobDao.updateJobLastUpdateTime(step.getJobId(), new Date());
+                write.run();
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.error("Failed to {} step '{}', '{}': {}",
+                    operation,
+                    step.getId(),
+                    step.getStepName(),
+                    e.getMessage());
+            log.debug("Exception", e);
+        }
     }
 
     @Override
@@ -117,6 +307,7 @@ public class JobRepositoryImpl implements JobRepository {
 
     @Override
     public Job getJobWithSteps(final Guid jobId) {
+        writePendingSteps(jobId);
         Job job = jobDao.get(jobId);
         if (job != null) {
             Map<Guid, VdcObjectType> jobSubjectEntity =
@@ -129,6 +320,7 @@ public class JobRepositoryImpl implements JobRepository {
 
     @Override
     public void loadJobSteps(final Job job) {
+        writePendingSteps(job.getId());
         List<Step> steps = stepDao.getStepsByJobId(job.getId());
         if (!steps.isEmpty()) {
             job.setSteps(buildStepsTree(steps));
@@ -137,6 +329,7 @@ public class JobRepositoryImpl implements JobRepository {
 
     @Override
     public void loadParentStepSteps(final Step step) {
+        writePendingSteps(step.getJobId());
         List<Step> steps = stepDao.getStepsByParentStepId(step.getId());
         if (!steps.isEmpty()) {
             step.setSteps(steps);
@@ -174,6 +367,7 @@ public class JobRepositoryImpl implements JobRepository {
 
     @Override
     public Step getStep(Guid stepId, boolean loadSubjectEntities) {
+        writePendingStepsOfStep(stepId);
         Step step = stepDao.get(stepId);
         if (step != null && loadSubjectEntities) {
             step.setSubjectEntities(stepSubjectEntityDao.getStepSubjectEntitiesByStepId(stepId));
@@ -181,6 +375,17 @@ public class JobRepositoryImpl implements JobRepository {
         return step;
     }
 
+    @Override
+    public boolean stepExists(Guid stepId) {
+        return pendingStepsByStepId.containsKey(stepId) || stepDao.exists(stepId);
+    }
+
+    @Override
+    public List<Step> getStepsByJobId(Guid jobId) {
+        writePendingSteps(jobId);
+        return stepDao.getStepsByJobId(jobId);
+    }
+
     @Override
     public List<Job> getJobsByEntityAndAction(Guid entityId, ActionType actionType) {
         List<Job> jobList = new ArrayList<>();
@@ -197,29 +402,37 @@ public class JobRepositoryImpl implements JobRepository {
 
     @Override
     public void updateExistingStepAndSaveNewStep(final Step existingStep, final Step newStep) {
-        TransactionSupport.executeInNewTransaction(() -> {
-            jobDao.updateJobLastUpdateTime(existingStep.getJobId(), new Date());
-            stepDao.update(existingStep);
-            stepDao.save(newStep);
-            return null;
+        withPendingSteps(existingStep.getJobId(), Arrays.asList(existingStep, newStep), pending -> {
+            pending.updateStep(existingStep);
+            pending.saveStep(newStep, Collections.emptyList());
         });
+        if (mustBeWrittenNow(existingStep) || mustBeWrittenNow(newStep)) {
+            writePendingSteps(existingStep.getJobId());
+        }
     }
 
     @Override
     public void updateCompletedJobAndSteps(final Job job) {
-        TransactionSupport.executeInNewTransaction(() -> {
-            jobDao.update(job);
-            stepDao.updateJobStepsCompleted(job.getId(), job.getStatus(), job.getEndTime());
-            return null;
-        });
+        // The pending steps are written first, so they don't override the completion of the steps
+        synchronized (getWriteLock(job.getId())) {
+            writePendingSteps(job.getId());
+            TransactionSupport.executeInNewTransaction(() -> {
+                jobDao.update(job);
+                stepDao.updateJobStepsCompleted(job.getId(), job.getStatus(), job.getEndTime());
+                return null;
+            });
+        }
     }
 
     @Override
     public void closeCompletedJobSteps(final Guid jobId, final JobExecutionStatus status) {
-        TransactionSupport.executeInNewTransaction(() -> {
-            stepDao.updateJobStepsCompleted(jobId, status, new Date());
-            return null;
-        });
+        synchronized (getWriteLock(jobId)) {
+            writePendingSteps(jobId);
+            TransactionSupport.executeInNewTransaction(() -> {
+                stepDao.updateJobStepsCompleted(jobId, status, new Date());
+                return null;
+            });
+        }
     }
 
     @Override
@@ -232,4 +445,79 @@ public class JobRepositoryImpl implements JobRepository {
 
     }
 
+    /**
+     * The changes in the steps of a job that were not written to the DB yet. The steps are kept in the order they were
+     * added, so sub-steps are written after their parent steps.
+     */
+    private static class PendingSteps {
+        private final Guid jobId;
+        private final Map<Guid, Step> newSteps = new LinkedHashMap<>();
+        private final Map<Guid, Step> updatedSteps = new LinkedHashMap<>();
+        private final List<StepSubjectEntity> newStepSubjectEntities = new ArrayList<>();
+        private Date lastUpdateTime;
+        private boolean written;
+
+        PendingSteps(Guid jobId) {
+            this.jobId = jobId;
+        }
+
+        Guid getJobId() {
+            return jobId;
+        }
+
+        synchronized void saveStep(Step step, Collection<StepSubjectEntity> stepSubjectEntities) {
+            newSteps.put(step.getId(), step);
+            newStepSubjectEntities.addAll(stepSubjectEntities);
+            lastUpdateTime = new Date();
+        }
+
+        synchronized void updateStep(Step step) {
+            // A change in a new step is written with the step itself
+            if (newSteps.containsKey(step.getId())) {
+                newSteps.put(step.getId(), step);
+            } else {
+                updatedSteps.put(step.getId(), step);
+            }
+            lastUpdateTime = new Date();
+        }
+
+        synchronized Step getStep(Guid stepId) {
+            Step step = newSteps.get(stepId);
+            return step != null ? step : updatedSteps.get(stepId);
+        }
+
+        synchronized boolean isEmpty() {
+            return lastUpdateTime == null;
+        }
+
+        synchronized Date getLastUpdateTime() {
+            return lastUpdateTime;
+        }
+
+        synchronized List<Step> getNewSteps() {
+            return new ArrayList<>(newSteps.values());
+        }
+
+        synchronized List<Step> getUpdatedSteps() {
+            return new ArrayList<>(updatedSteps.values());
+        }
+
+        synchronized List<StepSubjectEntity> getNewStepSubjectEntities() {
+            return newStepSubjectEntities;
+        }
+
+        synchronized Set<Guid> getStepIds() {
+            Set<Guid> stepIds = new LinkedHashSet<>(newSteps.keySet());
+            stepIds.addAll(updatedSteps.keySet());
+            return stepIds;
+        }
+
+        synchronized boolean isWritten() {
+            return written;
+        }
+
+        synchronized void setWritten() {
+            written = true;
+        }
+    }
 }
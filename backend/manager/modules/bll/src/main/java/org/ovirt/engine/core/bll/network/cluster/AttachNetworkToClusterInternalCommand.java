@@ -25,6 +25,7 @@ import org.ovirt.engine.core.dao.network.InterfaceDao;
 import org.ovirt.engine.core.dao.network.NetworkAttachmentDao;
 import org.ovirt.engine.core.dao.network.NetworkClusterDao;
 import org.ovirt.engine.core.dao.network.NetworkDao;
+import org.ovirt.engine.core.vdsbroker.NetworkOutOfSyncIndex;
 import org.ovirt.engine.core.vdsbroker.vdsbroker.HostNetworkAttachmentsPersister;
 
 @InternalCommandAttribute
@@ -51,6 +52,8 @@ public class AttachNetworkToClusterInternalCommand<T extends AttachNetworkToClus
     private VmDao vmDao;
     @Inject
     private ClusterDao clusterDao;
+    @Inject
+    private NetworkOutOfSyncIndex networkOutOfSyncIndex;
 
     public AttachNetworkToClusterInternalCommand(T parameters, CommandContext cmdContext) {
         super(parameters, cmdContext);
@@ -64,6 +67,7 @@ public class AttachNetworkToClusterInternalCommand<T extends AttachNetworkToClus
     protected void executeCommand() {
 
         attachNetwork(getClusterId(), getNetworkCluster(), getNetwork());
+        networkOutOfSyncIndex.clusterChanged(getClusterId());
 
         setSucceeded(true);
     }
@@ -21,6 +21,7 @@ import org.ovirt.engine.core.dao.VmStaticDao;
 import org.ovirt.engine.core.dao.VmTemplateDao;
 import org.ovirt.engine.core.dao.gluster.GlusterBrickDao;
 import org.ovirt.engine.core.dao.network.VmNetworkInterfaceDao;
+import org.ovirt.engine.core.vdsbroker.NetworkOutOfSyncIndex;
 
 @InternalCommandAttribute
 @ValidateSupportsTransaction
@@ -39,6 +40,8 @@ public class DetachNetworkFromClusterInternalCommand<T extends AttachNetworkToCl
     private VmNetworkInterfaceDao vmNetworkInterfaceDao;
     @Inject
     private GlusterBrickDao glusterBrickDao;
+    @Inject
+    private NetworkOutOfSyncIndex networkOutOfSyncIndex;
 
     public DetachNetworkFromClusterInternalCommand(T parameters, CommandContext cmdContext) {
         super(parameters, cmdContext);
@@ -48,6 +51,7 @@ public class DetachNetworkFromClusterInternalCommand<T extends AttachNetworkToCl
     protected void executeCommand() {
         networkClusterHelper.removeNetworkAndReassignRoles(getParameters().getNetworkCluster());
         networkHelper.setVdsmNamesInVdsInterfaces(getNetwork(), getClusterId());
+        networkOutOfSyncIndex.clusterChanged(getClusterId());
 
         setSucceeded(true);
     }
@@ -23,6 +23,7 @@ import org.ovirt.engine.core.dao.gluster.GlusterBrickDao;
 import org.ovirt.engine.core.dao.network.InterfaceDao;
 import org.ovirt.engine.core.dao.network.NetworkClusterDao;
 import org.ovirt.engine.core.dao.network.NetworkDao;
+import org.ovirt.engine.core.vdsbroker.NetworkOutOfSyncIndex;
 
 @ValidateSupportsTransaction
 public class UpdateNetworkOnClusterCommand<T extends NetworkClusterParameters> extends NetworkClusterCommandBase<T> {
@@ -49,6 +50,8 @@ public class UpdateNetworkOnClusterCommand<T extends NetworkClusterParameters> e
     private ClusterDao clusterDao;
     @Inject
     private GlusterBrickDao glusterBrickDao;
+    @Inject
+    private NetworkOutOfSyncIndex networkOutOfSyncIndex;
 
     private NetworkCluster oldNetworkCluster;
 
@@ -117,6 +120,7 @@ public class UpdateNetworkOnClusterCommand<T extends NetworkClusterParameters> e
         }
 
         networkClusterHelper.setStatus(getClusterId(), getPersistedNetwork());
+        networkOutOfSyncIndex.clusterChanged(getClusterId());
         setSucceeded(true);
     }
 
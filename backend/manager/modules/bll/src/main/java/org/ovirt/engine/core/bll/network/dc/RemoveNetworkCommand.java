@@ -50,6 +50,7 @@ import org.ovirt.engine.core.dao.network.NetworkClusterDao;
 import org.ovirt.engine.core.dao.network.NetworkDao;
 import org.ovirt.engine.core.dao.provider.ProviderDao;
 import org.ovirt.engine.core.utils.transaction.TransactionSupport;
+import org.ovirt.engine.core.vdsbroker.NetworkOutOfSyncIndex;
 
 @NonTransactiveCommandAttribute(forceCompensation = true)
 public class RemoveNetworkCommand<T extends RemoveNetworkParameters> extends NetworkCommon<T> {
@@ -75,6 +76,8 @@ public class RemoveNetworkCommand<T extends RemoveNetworkParameters> extends Net
     @Inject
     @Typed(ConcurrentChildCommandsExecutionCallback.class)
     private Instance<ConcurrentChildCommandsExecutionCallback> callbackProvider;
+    @Inject
+    private NetworkOutOfSyncIndex networkOutOfSyncIndex;
 
     private Network network;
     private Provider<?> provider;
@@ -133,6 +136,7 @@ public class RemoveNetworkCommand<T extends RemoveNetworkParameters> extends Net
             getCompensationContext().stateChanged();
             return null;
         });
+        networkOutOfSyncIndex.networksChanged();
 
         if (getNetwork().isExternal()) {
             if (getParameters().isRemoveFromNetworkProvider()) {
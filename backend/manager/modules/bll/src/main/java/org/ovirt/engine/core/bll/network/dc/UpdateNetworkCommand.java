@@ -71,6 +71,7 @@ import org.ovirt.engine.core.di.Injector;
 import org.ovirt.engine.core.utils.NetworkUtils;
 import org.ovirt.engine.core.utils.transaction.TransactionSupport;
 import org.ovirt.engine.core.vdsbroker.NetworkImplementationDetailsUtils;
+import org.ovirt.engine.core.vdsbroker.NetworkOutOfSyncIndex;
 
 @NonTransactiveCommandAttribute
 public class UpdateNetworkCommand<T extends AddNetworkStoragePoolParameters> extends NetworkModification<T> implements RenamedEntityInfoProvider {
@@ -94,6 +95,8 @@ public class UpdateNetworkCommand<T extends AddNetworkStoragePoolParameters> ext
     private Instance<ConcurrentChildCommandsExecutionCallback> callbackProvider;
     @Inject
     private AuditLogDirector auditLogDirector;
+    @Inject
+    private NetworkOutOfSyncIndex networkOutOfSyncIndex;
 
     private Network oldNetwork;
 
@@ -126,6 +129,7 @@ public class UpdateNetworkCommand<T extends AddNetworkStoragePoolParameters> ext
 
             return null;
         });
+        networkOutOfSyncIndex.networksChanged();
 
         if (!getNetwork().isExternal()) {
             applyNetworkChangesToHosts();
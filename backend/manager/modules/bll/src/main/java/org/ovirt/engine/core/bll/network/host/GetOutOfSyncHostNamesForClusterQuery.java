@@ -1,6 +1,7 @@
 package org.ovirt.engine.core.bll.network.host;
 
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -8,14 +9,18 @@ import javax.inject.Inject;
 
 import org.ovirt.engine.core.bll.QueriesCommandBase;
 import org.ovirt.engine.core.bll.context.EngineContext;
-import org.ovirt.engine.core.common.businessentities.network.VdsNetworkInterface;
+import org.ovirt.engine.core.common.businessentities.VdsStatic;
 import org.ovirt.engine.core.common.queries.IdQueryParameters;
-import org.ovirt.engine.core.vdsbroker.NetworkImplementationDetailsUtils;
+import org.ovirt.engine.core.dao.VdsStaticDao;
+import org.ovirt.engine.core.vdsbroker.NetworkOutOfSyncIndex;
 
 public class GetOutOfSyncHostNamesForClusterQuery<P extends IdQueryParameters> extends QueriesCommandBase<P> {
 
     @Inject
-    private NetworkImplementationDetailsUtils util;
+    private NetworkOutOfSyncIndex networkOutOfSyncIndex;
+
+    @Inject
+    private VdsStaticDao vdsStaticDao;
 
     public GetOutOfSyncHostNamesForClusterQuery(P parameters, EngineContext engineContext) {
         super(parameters, engineContext);
@@ -23,9 +28,10 @@ public class GetOutOfSyncHostNamesForClusterQuery<P extends IdQueryParameters> e
 
     @Override
     protected void executeQueryCommand() {
-        List<String> outOfSyncVdsNames = util.getAllInterfacesOutOfSync(getParameters().getId())
+        List<String> outOfSyncVdsNames = vdsStaticDao.getByIds(
+                new ArrayList<>(networkOutOfSyncIndex.getOutOfSyncHosts(getParameters().getId())))
             .stream()
-            .map(VdsNetworkInterface::getVdsName)
+            .map(VdsStatic::getName)
             .distinct()
             .sorted()
             .collect(Collectors.toList());
@@ -2,21 +2,19 @@ package org.ovirt.engine.core.bll.network.host;
 
 
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 
 import org.ovirt.engine.core.bll.QueriesCommandBase;
 import org.ovirt.engine.core.bll.context.EngineContext;
-import org.ovirt.engine.core.common.businessentities.network.VdsNetworkInterface;
 import org.ovirt.engine.core.common.queries.IdQueryParameters;
 import org.ovirt.engine.core.compat.Guid;
-import org.ovirt.engine.core.vdsbroker.NetworkImplementationDetailsUtils;
+import org.ovirt.engine.core.vdsbroker.NetworkOutOfSyncIndex;
 
 public class GetOutOfSyncHostsForClusterQuery<P extends IdQueryParameters> extends QueriesCommandBase<P> {
 
     @Inject
-    private NetworkImplementationDetailsUtils util;
+    private NetworkOutOfSyncIndex networkOutOfSyncIndex;
 
     public GetOutOfSyncHostsForClusterQuery(P parameters, EngineContext engineContext) {
         super(parameters, engineContext);
@@ -24,10 +22,7 @@ public class GetOutOfSyncHostsForClusterQuery<P extends IdQueryParameters> exten
 
     @Override
     protected void executeQueryCommand() {
-        Set<Guid> outOfSyncVdsIds = util.getAllInterfacesOutOfSync(getParameters().getId())
-            .stream()
-            .map(VdsNetworkInterface::getVdsId)
-            .collect(Collectors.toSet());
+        Set<Guid> outOfSyncVdsIds = networkOutOfSyncIndex.getOutOfSyncHosts(getParameters().getId());
 
         getQueryReturnValue().setReturnValue(outOfSyncVdsIds);
     }
@@ -24,15 +24,15 @@ import org.ovirt.engine.core.dao.ClusterDao;
 import org.ovirt.engine.core.dao.VdsStaticDao;
 import org.ovirt.engine.core.dao.network.DnsResolverConfigurationDao;
 import org.ovirt.engine.core.dao.network.InterfaceDao;
-import org.ovirt.engine.core.dao.network.NetworkDao;
 import org.ovirt.engine.core.utils.NetworkInSyncWithVdsNetworkInterface;
 import org.ovirt.engine.core.vdsbroker.EffectiveHostNetworkQos;
+import org.ovirt.engine.core.vdsbroker.NetworkOutOfSyncIndex;
 
 @Singleton
 public class ReportedConfigurationsFiller {
 
     private final InterfaceDao interfaceDao;
-    private final NetworkDao networkDao;
+    private final NetworkOutOfSyncIndex networkOutOfSyncIndex;
     private final VdsStaticDao vdsStaticDao;
     private final DnsResolverConfigurationDao dnsResolverConfigurationDao;
     private final ClusterDao clusterDao;
@@ -41,7 +41,7 @@ public class ReportedConfigurationsFiller {
 
     @Inject
     public ReportedConfigurationsFiller(InterfaceDao interfaceDao,
-            NetworkDao networkDao,
+            NetworkOutOfSyncIndex networkOutOfSyncIndex,
             VdsStaticDao vdsStaticDao,
             DnsResolverConfigurationDao dnsResolverConfigurationDao,
             ClusterDao clusterDao,
@@ -49,7 +49,7 @@ public class ReportedConfigurationsFiller {
             DefaultRouteUtil defaultRouteUtil) {
 
         this.interfaceDao = Objects.requireNonNull(interfaceDao);
-        this.networkDao = Objects.requireNonNull(networkDao);
+        this.networkOutOfSyncIndex = Objects.requireNonNull(networkOutOfSyncIndex);
         this.vdsStaticDao = Objects.requireNonNull(vdsStaticDao);
         this.dnsResolverConfigurationDao = Objects.requireNonNull(dnsResolverConfigurationDao);
         this.clusterDao = Objects.requireNonNull(clusterDao);
@@ -78,7 +78,8 @@ public class ReportedConfigurationsFiller {
         List<VdsNetworkInterface> allInterfacesForHost = interfaceDao.getAllInterfacesForVds(hostId);
         Guid clusterId = getClusterId(hostId);
 
-        BusinessEntityMap<Network> networkMap = new BusinessEntityMap<>(networkDao.getAllForCluster(clusterId));
+        BusinessEntityMap<Network> networkMap =
+                new BusinessEntityMap<>(networkOutOfSyncIndex.getClusterNetworks(clusterId));
         fillReportedConfigurations(allInterfacesForHost,
                 networkMap,
                 networkAttachments,
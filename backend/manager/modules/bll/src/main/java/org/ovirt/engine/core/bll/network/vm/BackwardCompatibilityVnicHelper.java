@@ -7,6 +7,7 @@ import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import org.apache.commons.lang.StringUtils;
+import org.ovirt.engine.core.bll.PermissionResolver;
 import org.ovirt.engine.core.bll.ValidationResult;
 import org.ovirt.engine.core.common.VdcObjectType;
 import org.ovirt.engine.core.common.businessentities.ActionGroup;
@@ -16,29 +17,28 @@ import org.ovirt.engine.core.common.businessentities.network.Network;
 import org.ovirt.engine.core.common.businessentities.network.VmNic;
 import org.ovirt.engine.core.common.businessentities.network.VnicProfile;
 import org.ovirt.engine.core.common.errors.EngineMessage;
-import org.ovirt.engine.core.dao.PermissionDao;
 import org.ovirt.engine.core.dao.network.NetworkDao;
 import org.ovirt.engine.core.dao.network.VnicProfileDao;
 import org.ovirt.engine.core.utils.ReplacementUtils;
 
 @Singleton
 public class BackwardCompatibilityVnicHelper {
-    private final PermissionDao permissionDao;
+    private final PermissionResolver permissionResolver;
     private final VnicProfileDao vnicProfileDao;
     private final NetworkDao networkDao;
 
     @Inject
-    BackwardCompatibilityVnicHelper(PermissionDao permissionDao,
+    BackwardCompatibilityVnicHelper(PermissionResolver permissionResolver,
             VnicProfileDao vnicProfileDao,
             NetworkDao networkDao) {
-        this.permissionDao = Objects.requireNonNull(permissionDao);
+        this.permissionResolver = Objects.requireNonNull(permissionResolver);
         this.vnicProfileDao = Objects.requireNonNull(vnicProfileDao);
         this.networkDao = Objects.requireNonNull(networkDao);
     }
 
     public boolean isVnicProfilePermitted(DbUser user, VnicProfile profile, boolean portMirroringRequired) {
         return portMirroringRequired == profile.isPortMirroring()
-                && permissionDao.getEntityPermissions(user.getId(),
+                && permissionResolver.getPermission(user.getId(),
                         ActionGroup.CONFIGURE_VM_NETWORK,
                         profile.getId(),
                         VdcObjectType.VnicProfile) != null;
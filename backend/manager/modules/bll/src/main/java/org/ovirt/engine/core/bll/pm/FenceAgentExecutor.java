@@ -33,6 +33,7 @@ import org.ovirt.engine.core.dao.StorageDomainDao;
 import org.ovirt.engine.core.dao.VdsSpmIdMapDao;
 import org.ovirt.engine.core.dao.gluster.GlusterServerDao;
 import org.ovirt.engine.core.utils.pm.VdsFenceOptions;
+import org.ovirt.engine.core.utils.threadpool.PerKeyConcurrencyLimiter;
 import org.ovirt.engine.core.vdsbroker.ResourceManager;
 import org.ovirt.engine.core.vdsbroker.vdsbroker.VdsProperties;
 import org.slf4j.Logger;
@@ -72,12 +73,20 @@ public class FenceAgentExecutor {
     private final FencingPolicy fencingPolicy;
     private FenceProxyLocator proxyLocator;
     private ArchitectureType architectureType;
+    private PerKeyConcurrencyLimiter<Guid> proxyConcurrencyLimiter;
 
     public FenceAgentExecutor(VDS fencedHost, FencingPolicy fencingPolicy) {
         this.fencedHost = fencedHost;
         this.fencingPolicy = fencingPolicy;
     }
 
+    /**
+     * Bounds the number of fence actions executed concurrently by the same proxy host, by default they are not bounded
+     */
+    public void setProxyConcurrencyLimiter(PerKeyConcurrencyLimiter<Guid> proxyConcurrencyLimiter) {
+        this.proxyConcurrencyLimiter = proxyConcurrencyLimiter;
+    }
+
     /**
      * Executes specified fence action using specified agent
      *
@@ -102,7 +111,7 @@ public class FenceAgentExecutor {
         }
 
         try {
-            result = executeFenceAction(action, agent, proxyHost);
+            result = executeFenceActionOnProxy(action, agent, proxyHost);
             if (result.getStatus() == Status.ERROR) {
                 log.warn(
                         "Fence action failed using proxy host '{}', trying another proxy",
@@ -111,13 +120,13 @@ public class FenceAgentExecutor {
                         isRetryEnabled(action),
                         proxyHost.getId());
                 if (alternativeProxy != null) {
-                    result = executeFenceAction(action, agent, alternativeProxy);
+                    result = executeFenceActionOnProxy(action, agent, alternativeProxy);
                 } else {
                     log.warn(
                             "Failed to find another proxy to re-run failed fence action, "
                                     + "retrying with the same proxy '{}'",
                             proxyHost.getHostName());
-                    result = executeFenceAction(action, agent, proxyHost);
+                    result = executeFenceActionOnProxy(action, agent, proxyHost);
                 }
             }
         } catch (EngineException e) {
@@ -143,6 +152,25 @@ public class FenceAgentExecutor {
         }
     }
 
+    private FenceOperationResult executeFenceActionOnProxy(FenceActionType action, FenceAgent agent, VDS proxyHost) {
+        if (proxyConcurrencyLimiter == null) {
+            return executeFenceAction(action, agent, proxyHost);
+        }
+        try (PerKeyConcurrencyLimiter.Permit permit = proxyConcurrencyLimiter.acquire(proxyHost.getId())) {
+            return executeFenceAction(action, agent, proxyHost);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new FenceOperationResult(
+                    Status.ERROR,
+                    PowerStatus.UNKNOWN,
+                    String.format(
+                            "Interrupted while waiting for proxy host '%s' to run %s on host '%s'.",
+                            proxyHost.getHostName(),
+                            getActionText(action),
+                            fencedHost.getHostName()));
+        }
+    }
+
     protected FenceOperationResult executeFenceAction(FenceActionType action, FenceAgent agent, VDS proxyHost) {
         FenceAgent realAgent = createRealAgent(agent, proxyHost);
         auditFenceActionExecution(action, realAgent, proxyHost);
@@ -1,16 +1,34 @@
 package org.ovirt.engine.core.bll.pm;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
 import javax.enterprise.concurrent.ManagedScheduledExecutorService;
+import javax.enterprise.concurrent.ManagedThreadFactory;
 import javax.enterprise.inject.Instance;
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -27,10 +45,12 @@ import org.ovirt.engine.core.common.action.FenceVdsActionParameters;
 import org.ovirt.engine.core.common.businessentities.ExternalStatus;
 import org.ovirt.engine.core.common.businessentities.VDS;
 import org.ovirt.engine.core.common.businessentities.VDSStatus;
+import org.ovirt.engine.core.common.businessentities.pm.FenceActionType;
 import org.ovirt.engine.core.common.businessentities.pm.FenceAgent;
 import org.ovirt.engine.core.common.businessentities.pm.FenceOperationResult.Status;
 import org.ovirt.engine.core.common.config.Config;
 import org.ovirt.engine.core.common.config.ConfigValues;
+import org.ovirt.engine.core.common.utils.EngineThreadPools;
 import org.ovirt.engine.core.compat.Guid;
 import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AlertDirector;
 import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AuditLogDirector;
@@ -38,7 +58,9 @@ import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AuditLogable;
 import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AuditLogableImpl;
 import org.ovirt.engine.core.dao.FenceAgentDao;
 import org.ovirt.engine.core.dao.VdsDao;
+import org.ovirt.engine.core.di.Injector;
 import org.ovirt.engine.core.utils.ThreadUtils;
+import org.ovirt.engine.core.utils.threadpool.PerKeyConcurrencyLimiter;
 import org.ovirt.engine.core.utils.threadpool.ThreadPoolUtil;
 import org.ovirt.engine.core.utils.threadpool.ThreadPools;
 import org.slf4j.Logger;
@@ -66,6 +88,15 @@ public class PmHealthCheckManager implements BackendService {
     @Inject
     @ThreadPools(ThreadPools.ThreadPoolType.EngineScheduledThreadPool)
     private ManagedScheduledExecutorService executor;
+    @Resource(lookup = EngineThreadPools.ENGINE_THREAD_FACTORY_NAME)
+    private ManagedThreadFactory threadFactory;
+
+    /**
+     * Runs the status checks of the fence agents. The hosts are handled on the engine thread pool and wait for the
+     * checks of their agents, so the checks have their own threads and can't be starved by the threads waiting for
+     * them.
+     */
+    private ExecutorService agentsExecutor;
 
     /**
      * Initializes the PM Health Check Manager
@@ -85,18 +116,24 @@ public class PmHealthCheckManager implements BackendService {
         log.info("Finished initializing {}", getClass().getSimpleName());
     }
 
-    private void pmHealthCheck() {
+    @PreDestroy
+    private synchronized void shutdown() {
+        if (agentsExecutor != null) {
+            agentsExecutor.shutdownNow();
+        }
+    }
+
+    void pmHealthCheck() {
         try {
             // skip PM health check if previous operation is not completed yet
             if (lock.tryLock()) {
                 try {
                     log.info("Power Management Health Check started.");
-                    List<VDS> hosts = vdsDao.getAll();
-                    for (VDS host : hosts) {
-                        if (host.isPmEnabled()) {
-                            pmHealthCheck(host);
-                        }
-                    }
+                    List<VDS> hosts = vdsDao.getAll().stream()
+                            .filter(VDS::isPmEnabled)
+                            .collect(Collectors.toList());
+                    HealthCheckContext context = new HealthCheckContext();
+                    forEachHostConcurrently(hosts, host -> pmHealthCheck(host, context));
                     log.info("Power Management Health Check completed.");
                 } finally {
                     lock.unlock();
@@ -112,8 +149,12 @@ public class PmHealthCheckManager implements BackendService {
      * Check PM health of a host. Add/Remove alerts as necessary, and log the results.
      */
     public void pmHealthCheck(VDS host) {
+        pmHealthCheck(host, new HealthCheckContext());
+    }
+
+    private void pmHealthCheck(VDS host, HealthCheckContext context) {
         // check health
-        PmHealth pmHealth = checkPMHealth(host);
+        PmHealth pmHealth = checkPMHealth(host, context);
         // handle alerts - adding or canceling as necessary
         handleAlerts(pmHealth);
         log.debug(pmHealth.toString());
@@ -127,18 +168,51 @@ public class PmHealthCheckManager implements BackendService {
         pmHealthCheck(host);
     }
 
+    /**
+     * Runs the action for each of the hosts, on at most {@code PMHealthCheckMaxConcurrentHosts} threads. Each thread
+     * takes the next host once it is done with the previous one, so a host with slow fence agents delays only the
+     * hosts that would have been handled after it by the same thread. Returns when the action is done for all hosts.
+     */
+    private void forEachHostConcurrently(List<VDS> hosts, Consumer<VDS> action) {
+        if (hosts.isEmpty()) {
+            return;
+        }
+        Queue<VDS> pendingHosts = new ConcurrentLinkedQueue<>(hosts);
+        Callable<Void> worker = () -> {
+            VDS host;
+            while ((host = pendingHosts.poll()) != null) {
+                try {
+                    action.accept(host);
+                } catch (RuntimeException e) {
+                    log.error("Failed to handle power management of host '{}': {}",
+                            host.getName(),
+                            ExceptionUtils.getRootCauseMessage(e));
+                    log.debug("Exception", e);
+                }
+            }
+            return null;
+        };
+        int workersCount =
+                Math.min(hosts.size(), Config.<Integer>getValue(ConfigValues.PMHealthCheckMaxConcurrentHosts));
+        ThreadPoolUtil.invokeAll(Collections.nCopies(workersCount, worker));
+    }
 
     /**
      * Collect health-status info for all agents.
      */
-    private PmHealth checkPMHealth(VDS host) {
+    private PmHealth checkPMHealth(VDS host, HealthCheckContext context) {
         PmHealth pmHealth = new PmHealth(host);
-        AgentsIterator iterator = PowerManagementHelper.getAgentsIterator(
-                fenceAgentDao.getFenceAgentsForHost(host.getId()));
+        List<FenceAgent> agents = fenceAgentDao.getFenceAgentsForHost(host.getId());
+
+        // The status of all the agents is fetched at the same time, the results are collected by agents order
+        Map<FenceAgent, Future<Boolean>> agentsHealth = new HashMap<>();
+        agents.forEach(agent -> agentsHealth.put(agent, context.checkAgentHealth(host, agent)));
+        long deadline = System.currentTimeMillis() + context.agentTimeout;
 
+        AgentsIterator iterator = PowerManagementHelper.getAgentsIterator(agents);
         // In each step of the loop deal with the agents with the next 'order' (one or more). Write info into PmHealth.
         while (iterator.hasNext()) {
-            collectHealthStatus(pmHealth, iterator.next());
+            collectHealthStatus(pmHealth, iterator.next(), agentsHealth, deadline);
         }
         return pmHealth;
     }
@@ -185,11 +259,14 @@ public class PmHealthCheckManager implements BackendService {
     /**
      * A step in the health-status check. Checks health of the provided agents.
      */
-    private void collectHealthStatus(PmHealth healthStatus, List<FenceAgent> agents) {
+    private void collectHealthStatus(PmHealth healthStatus,
+            List<FenceAgent> agents,
+            Map<FenceAgent, Future<Boolean>> agentsHealth,
+            long deadline) {
         boolean atLeastOneHealthy = false; // initialize to false, and if one healthy agent found, change to true.
         boolean allHealthy = true; // initialize to true, and if one unhealthy agent found, change to false.
         for (FenceAgent agent : agents) {
-            if (isHealthy(agent, healthStatus.getHost())) {
+            if (waitForAgentHealth(agentsHealth.get(agent), agent, healthStatus.getHost(), deadline)) {
                 healthStatus.getHealthMap().put(agent, true);
                 atLeastOneHealthy = true;
             } else {
@@ -205,12 +282,69 @@ public class PmHealthCheckManager implements BackendService {
         }
     }
 
+    /**
+     * Waits for the health of the agent until the deadline, an agent which does not answer until then is considered
+     * unhealthy.
+     */
+    private boolean waitForAgentHealth(Future<Boolean> agentHealth, FenceAgent agent, VDS host, long deadline) {
+        try {
+            return agentHealth.get(Math.max(deadline - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            agentHealth.cancel(true);
+            log.warn("Status of fence agent '{}' of host '{}' was not received in time, considering it unhealthy.",
+                    agent.getId(),
+                    host.getName());
+        } catch (ExecutionException | CancellationException e) {
+            log.warn("Failed to get status of fence agent '{}' of host '{}': {}",
+                    agent.getId(),
+                    host.getName(),
+                    ExceptionUtils.getRootCauseMessage(e));
+            log.debug("Exception", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
     /**
      * Checks if the agent is healthy. A healthy agent is one that returns an answer when queries for status, and it
      * doesn't matter whether that answer is "on" or "off".
      */
-    private boolean isHealthy(FenceAgent agent, VDS host) {
-        return new HostFenceActionExecutor(host).getFenceAgentStatus(agent).getStatus() == Status.SUCCESS;
+    private boolean isHealthy(FenceAgent agent, VDS host, PerKeyConcurrencyLimiter<Guid> proxyLimiter) {
+        FenceAgentExecutor agentExecutor = createAgentExecutor(host);
+        agentExecutor.setProxyConcurrencyLimiter(proxyLimiter);
+        return agentExecutor.fence(FenceActionType.STATUS, agent).getStatus() == Status.SUCCESS;
+    }
+
+    /**
+     * Creates the executor of the status checks of the agents of the host, which is what
+     * {@link HostFenceActionExecutor#getFenceAgentStatus(FenceAgent)} uses for a single agent
+     */
+    protected FenceAgentExecutor createAgentExecutor(VDS host) {
+        return Injector.injectMembers(new FenceAgentExecutor(host, null));
+    }
+
+    private synchronized ExecutorService getAgentsExecutor() {
+        if (agentsExecutor == null) {
+            agentsExecutor = createAgentsExecutor();
+        }
+        return agentsExecutor;
+    }
+
+    /**
+     * Creates the executor of the status checks of the agents, which runs as many checks at the same time as there
+     * are hosts handled at the same time
+     */
+    protected ExecutorService createAgentsExecutor() {
+        int threads = Config.<Integer>getValue(ConfigValues.PMHealthCheckMaxConcurrentHosts);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads,
+                threads,
+                60L,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                threadFactory);
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
     }
 
     private void waitUntilFencingAllowed() {
@@ -262,29 +396,31 @@ public class PmHealthCheckManager implements BackendService {
      * We should try to catch such hosts and attempt to restart it.
      */
     public void startHosts(List<VDS> hostWithPMInStatusReboot) {
-        for (VDS host : hostWithPMInStatusReboot) {
-            RestartVdsCommand<FenceVdsActionParameters> restartVdsCommand =
-                    new RestartVdsCommand<>(new
-                            FenceVdsActionParameters(host.getId()), null);
-            if (new HostFenceActionExecutor(host).isHostPoweredOff()) {
-                //if an external-status other than OK has been set on the host,
-                //that is considered an indication not to perform automatic
-                //power-management operations on the host.
-                if (!ExternalStatus.Ok.equals(host.getExternalStatus())) {
-                    log.warn("Host '{}' ({}) was not started by PM Health Check Manager becuse it has external-status: '{}'.",
-                            host.getName(),
-                            host.getId(),
-                            host.getExternalStatus());
-                    continue;
-                }
-                ActionReturnValue
-                        retValue = backend.get().runInternalAction(ActionType.RestartVds, restartVdsCommand.getParameters());
-                if (retValue!= null && retValue.getSucceeded()) {
-                    log.info("Host '{}' was started successfully by PM Health Check Manager",
-                            host.getName());
-                } else {
-                    log.info("PM Health Check Manager failed to start Host '{}'", host.getName());
-                }
+        forEachHostConcurrently(hostWithPMInStatusReboot, this::startHost);
+    }
+
+    private void startHost(VDS host) {
+        RestartVdsCommand<FenceVdsActionParameters> restartVdsCommand =
+                new RestartVdsCommand<>(new
+                        FenceVdsActionParameters(host.getId()), null);
+        if (new HostFenceActionExecutor(host).isHostPoweredOff()) {
+            //if an external-status other than OK has been set on the host,
+            //that is considered an indication not to perform automatic
+            //power-management operations on the host.
+            if (!ExternalStatus.Ok.equals(host.getExternalStatus())) {
+                log.warn("Host '{}' ({}) was not started by PM Health Check Manager becuse it has external-status: '{}'.",
+                        host.getName(),
+                        host.getId(),
+                        host.getExternalStatus());
+                return;
+            }
+            ActionReturnValue
+                    retValue = backend.get().runInternalAction(ActionType.RestartVds, restartVdsCommand.getParameters());
+            if (retValue!= null && retValue.getSucceeded()) {
+                log.info("Host '{}' was started successfully by PM Health Check Manager",
+                        host.getName());
+            } else {
+                log.info("PM Health Check Manager failed to start Host '{}'", host.getName());
             }
         }
     }
@@ -296,16 +432,18 @@ public class PmHealthCheckManager implements BackendService {
      * period passed.
      */
     public void fenceHosts(List<VDS> hosts) {
-        for (VDS host : hosts) {
-            // retrieve the current status from DB
-            host = vdsDao.get(host.getId());
-            // Check if host exists, has power management and is still in non-responsive status after quite time.
-            if (host != null && host.isPmEnabled() && host.getStatus() == VDSStatus.NonResponsive) {
-                VdsNotRespondingTreatmentCommand<FenceVdsActionParameters> nonResponingVdsCommand =
-                        new VdsNotRespondingTreatmentCommand<>(new
-                                FenceVdsActionParameters(host.getId()), null);
-                backend.get().runInternalAction(ActionType.VdsNotRespondingTreatment, nonResponingVdsCommand.getParameters());
-            }
+        forEachHostConcurrently(hosts, this::fenceHost);
+    }
+
+    private void fenceHost(VDS host) {
+        // retrieve the current status from DB
+        host = vdsDao.get(host.getId());
+        // Check if host exists, has power management and is still in non-responsive status after quite time.
+        if (host != null && host.isPmEnabled() && host.getStatus() == VDSStatus.NonResponsive) {
+            VdsNotRespondingTreatmentCommand<FenceVdsActionParameters> nonResponingVdsCommand =
+                    new VdsNotRespondingTreatmentCommand<>(new
+                            FenceVdsActionParameters(host.getId()), null);
+            backend.get().runInternalAction(ActionType.VdsNotRespondingTreatment, nonResponingVdsCommand.getParameters());
         }
     }
 
@@ -331,6 +469,34 @@ public class PmHealthCheckManager implements BackendService {
         }
     }
 
+    /**
+     * The state shared by the checks of the hosts in a single health check.
+     * <p>
+     * Several hosts may share the same fence agent, e.g. the hosts of a blade chassis, so the status of an agent is
+     * fetched once for all the hosts of a cluster that use it with the same options. Hosts of the same cluster are
+     * expected to use the same fence proxies.
+     */
+    private class HealthCheckContext {
+        private final PerKeyConcurrencyLimiter<Guid> proxyLimiter = new PerKeyConcurrencyLimiter<>(
+                Config.<Integer>getValue(ConfigValues.PMHealthCheckMaxConcurrentChecksPerProxy));
+        private final long agentTimeout = TimeUnit.SECONDS.toMillis(
+                Config.<Integer>getValue(ConfigValues.PMHealthCheckAgentTimeoutInSec));
+        private final ConcurrentMap<List<Object>, Future<Boolean>> agentsHealth = new ConcurrentHashMap<>();
+
+        private Future<Boolean> checkAgentHealth(VDS host, FenceAgent agent) {
+            List<Object> key = Arrays.asList(host.getClusterId(),
+                    agent.getType(),
+                    agent.getIp(),
+                    agent.getPort(),
+                    agent.getUser(),
+                    agent.getPassword(),
+                    agent.getOptions(),
+                    agent.getEncryptOptions());
+            return agentsHealth.computeIfAbsent(key,
+                    k -> getAgentsExecutor().submit(() -> isHealthy(agent, host, proxyLimiter)));
+        }
+    }
+
     private static class PmHealth {
         public PmHealth(VDS host) {
             super();
@@ -83,6 +83,8 @@ public class SshSoftFencingCommand<T extends VdsActionParameters> extends VdsCom
         ) {
             try {
                 log.info("Opening SSH Soft Fencing session on host '{}'", getVds().getHostName());
+                // the host is not responding, so a new connection is used and it is not pooled
+                sshClient.setSessionPool(null);
                 sshClient.setVds(getVds());
                 sshClient.useDefaultKeyPair();
                 sshClient.connect();
@@ -126,10 +128,10 @@ public class SshSoftFencingCommand<T extends VdsActionParameters> extends VdsCom
                 Config.<Integer>getValue(ConfigValues.TimeoutToResetVdsInSeconds));
         long passedTime=0;
         log.info("Waiting to host {} {} seconds to become up after soft fencing execution",
-                vdsManager.getCopyVds().getHostName(),
+                vdsManager.getVdsHostname(),
                 graceTime/100);
         while (passedTime <= graceTime) {
-            if (vdsManager.getCopyVds().getStatus() == VDSStatus.Up) {
+            if (vdsManager.getStatus() == VDSStatus.Up) {
                 // host became Up during grace period
                 return true;
             }
@@ -5,6 +5,7 @@ import java.util.List;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
+import org.ovirt.engine.core.bll.PermissionResolver;
 import org.ovirt.engine.core.bll.ValidationResult;
 import org.ovirt.engine.core.common.VdcObjectType;
 import org.ovirt.engine.core.common.businessentities.ActionGroup;
@@ -12,7 +13,6 @@ import org.ovirt.engine.core.common.businessentities.VmBase;
 import org.ovirt.engine.core.common.businessentities.profiles.CpuProfile;
 import org.ovirt.engine.core.common.errors.EngineMessage;
 import org.ovirt.engine.core.compat.Guid;
-import org.ovirt.engine.core.dao.PermissionDao;
 import org.ovirt.engine.core.dao.profiles.CpuProfileDao;
 
 @Singleton
@@ -22,7 +22,7 @@ public class CpuProfileHelper {
     CpuProfileDao cpuProfileDao;
 
     @Inject
-    PermissionDao permissionDao;
+    PermissionResolver permissionResolver;
 
     public static CpuProfile createCpuProfile(Guid clusterId, String name) {
         CpuProfile cpuProfile = new CpuProfile();
@@ -50,7 +50,7 @@ public class CpuProfileHelper {
 
     private boolean checkPermissions(Guid cpuProfileId, Guid userId) {
         return Guid.isNullOrEmpty(userId) ||
-                permissionDao.getEntityPermissions(userId,
+                permissionResolver.getPermission(userId,
                     ActionGroup.ASSIGN_CPU_PROFILE,
                     cpuProfileId,
                     VdcObjectType.CpuProfile) != null;
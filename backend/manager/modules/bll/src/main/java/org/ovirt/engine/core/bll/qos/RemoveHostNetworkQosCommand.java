@@ -11,12 +11,15 @@ import org.ovirt.engine.core.common.businessentities.network.HostNetworkQos;
 import org.ovirt.engine.core.common.businessentities.network.Network;
 import org.ovirt.engine.core.dao.network.HostNetworkQosDao;
 import org.ovirt.engine.core.dao.network.NetworkDao;
+import org.ovirt.engine.core.vdsbroker.NetworkOutOfSyncIndex;
 
 public class RemoveHostNetworkQosCommand extends RemoveQosCommandBase<HostNetworkQos, HostNetworkQosValidator> {
     @Inject
     private RefreshNetworksParametersFactory refreshNetworksParametersFactory;
     @Inject
     private NetworkDao networkDao;
+    @Inject
+    private NetworkOutOfSyncIndex networkOutOfSyncIndex;
 
     public RemoveHostNetworkQosCommand(QosParametersBase<HostNetworkQos> parameters, CommandContext cmdContext) {
         super(parameters, cmdContext);
@@ -39,6 +42,7 @@ public class RemoveHostNetworkQosCommand extends RemoveQosCommandBase<HostNetwor
 
         //remove qos.
         super.executeCommand();
+        networkOutOfSyncIndex.networksChanged();
 
         refreshNetworks(refreshNetworksParametersFactory.create(networksHavingQos));
     }
@@ -10,11 +10,14 @@ import org.ovirt.engine.core.common.action.QosParametersBase;
 import org.ovirt.engine.core.common.businessentities.network.HostNetworkQos;
 import org.ovirt.engine.core.compat.Guid;
 import org.ovirt.engine.core.dao.network.HostNetworkQosDao;
+import org.ovirt.engine.core.vdsbroker.NetworkOutOfSyncIndex;
 
 public class UpdateHostNetworkQosCommand extends UpdateQosCommandBase<HostNetworkQos, HostNetworkQosValidator> {
 
     @Inject
     private RefreshNetworksParametersFactory refreshNetworksParametersFactory;
+    @Inject
+    private NetworkOutOfSyncIndex networkOutOfSyncIndex;
 
     public UpdateHostNetworkQosCommand(QosParametersBase<HostNetworkQos> parameters, CommandContext cmdContext) {
         super(parameters, cmdContext);
@@ -45,6 +48,7 @@ public class UpdateHostNetworkQosCommand extends UpdateQosCommandBase<HostNetwor
         HostNetworkQos newQos = getQos();
 
         super.executeCommand();
+        networkOutOfSyncIndex.networksChanged();
 
         if (networkUpdateRequired(oldQos, newQos)) {
             refreshNetworks(refreshNetworksParametersFactory.create(qosId));
@@ -1058,12 +1058,15 @@ public class SchedulingManager implements BackendService {
                 .filter(f -> !f.getPolicyUnit().isInternal())
                 .map(f -> f.getPolicyUnit().getName())
                 .collect(Collectors.toList());
+        List<Guid> hostIDs = hostList.stream().map(VDS::getId).collect(Collectors.toList());
+        Map<Guid, List<Guid>> filteredIDsForVms = externalBroker.runFiltersForVms(
+                filterNames,
+                hostIDs,
+                vmGroup.stream().map(VM::getId).collect(Collectors.toList()),
+                context.getPolicyParameters());
+
         for (VM vm : vmGroup) {
-            List<Guid> filteredIDs = externalBroker.runFilters(
-                    filterNames,
-                    hostList.stream().map(VDS::getId).collect(Collectors.toList()),
-                    vm.getId(),
-                    context.getPolicyParameters());
+            List<Guid> filteredIDs = filteredIDsForVms.getOrDefault(vm.getId(), hostIDs);
 
             logFilterActions(hostList,
                     new HashSet<>(filteredIDs),
@@ -1128,15 +1131,13 @@ public class SchedulingManager implements BackendService {
                 .collect(Collectors.toMap(pair -> pair.getFirst().getPolicyUnit().getName(),
                         pair -> pair.getFirst().getPolicyUnit().getId()));
 
-        for (VM vm : vmGroup) {
-            List<WeightResultEntry> externalScores =
-                    externalBroker.runScores(scoreNameAndWeight,
-                            hostIDs,
-                            vm.getId(),
-                            context.getPolicyParameters());
+        List<WeightResultEntry> externalScores =
+                externalBroker.runScoresForVms(scoreNameAndWeight,
+                        hostIDs,
+                        vmGroup.stream().map(VM::getId).collect(Collectors.toList()),
+                        context.getPolicyParameters());
 
-            sumScoreResults(selector, nameToGuidMap, externalScores);
-        }
+        sumScoreResults(selector, nameToGuidMap, externalScores);
     }
 
     private void sumScoreResults(SelectorInstance selector,
@@ -0,0 +1,130 @@
+package org.ovirt.engine.core.bll.scheduling.arem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.ovirt.engine.core.common.scheduling.AffinityGroup;
+import org.ovirt.engine.core.compat.Guid;
+
+/**
+ * The affinity groups of a cluster, indexed by the VMs and by the hosts in them. It also keeps the VM to host affinity
+ * violations of the VMs of the cluster, see {@link #getVmToHostViolations(boolean)}.
+ * <p>
+ * The affinity groups created from the affinity labels of the cluster are kept apart from the other groups, because
+ * they are used only when the cluster supports implicit affinity groups. The groups in the index are shared and must
+ * not be modified, use {@link #copyGroups(boolean)} to get groups that can be modified.
+ */
+public class AffinityGroupIndex {
+
+    private static final Comparator<AffinityGroup> BY_PRIORITY_DESCENDING =
+            Comparator.comparingLong(AffinityGroup::getPriority).reversed();
+
+    private final List<AffinityGroup> groups;
+    private final List<AffinityGroup> labelGroups;
+
+    // Map: VM id -> affinity groups of the VM, sorted by priority from the highest
+    private final Map<Guid, List<AffinityGroup>> groupsForVm;
+    private final Map<Guid, List<AffinityGroup>> groupsWithLabelGroupsForVm;
+
+    // Map: host id -> affinity groups of the host, including the groups created from the affinity labels
+    private final Map<Guid, Set<AffinityGroup>> groupsForHost;
+
+    private VmToHostAffinityViolations vmToHostViolations;
+    private VmToHostAffinityViolations vmToHostViolationsWithLabelGroups;
+
+    /**
+     * @param groups
+     *            the affinity groups of the cluster
+     * @param labelGroups
+     *            the affinity groups created from the affinity labels of the cluster
+     */
+    public AffinityGroupIndex(List<AffinityGroup> groups, List<AffinityGroup> labelGroups) {
+        this.groups = Collections.unmodifiableList(new ArrayList<>(groups));
+        this.labelGroups = Collections.unmodifiableList(new ArrayList<>(labelGroups));
+        this.groupsForVm = indexByVm(this.groups.stream());
+        this.groupsWithLabelGroupsForVm = indexByVm(Stream.concat(this.groups.stream(), this.labelGroups.stream()));
+        this.groupsForHost = indexByHost(Stream.concat(this.groups.stream(), this.labelGroups.stream()));
+    }
+
+    private static Map<Guid, Set<AffinityGroup>> indexByHost(Stream<AffinityGroup> groups) {
+        // The groups are compared by identity, which is cheaper than comparing all their fields
+        Map<Guid, Set<AffinityGroup>> index = new HashMap<>();
+        groups.forEach(group -> group.getVdsIds()
+                .forEach(hostId -> index
+                        .computeIfAbsent(hostId, k -> Collections.newSetFromMap(new IdentityHashMap<>()))
+                        .add(group)));
+        return index;
+    }
+
+    private static Map<Guid, List<AffinityGroup>> indexByVm(Stream<AffinityGroup> groups) {
+        Map<Guid, List<AffinityGroup>> index = new HashMap<>();
+        groups.forEach(group -> group.getVmIds()
+                .forEach(vmId -> index.computeIfAbsent(vmId, k -> new ArrayList<>()).add(group)));
+
+        // Sorting lists by priority here, so it is not needed later
+        index.values().forEach(vmGroups -> vmGroups.sort(BY_PRIORITY_DESCENDING));
+        return index;
+    }
+
+    public List<AffinityGroup> getGroups(boolean withLabelGroups) {
+        if (!withLabelGroups) {
+            return groups;
+        }
+
+        List<AffinityGroup> allGroups = new ArrayList<>(groups.size() + labelGroups.size());
+        allGroups.addAll(groups);
+        allGroups.addAll(labelGroups);
+        return allGroups;
+    }
+
+    /**
+     * @return copies of the affinity groups, in the same order as {@link #getGroups(boolean)}
+     */
+    public List<AffinityGroup> copyGroups(boolean withLabelGroups) {
+        return getGroups(withLabelGroups).stream()
+                .map(AffinityGroup::new)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return the affinity groups that contain the VM, sorted by priority from the highest
+     */
+    public List<AffinityGroup> getGroupsForVm(Guid vmId, boolean withLabelGroups) {
+        Map<Guid, List<AffinityGroup>> index = withLabelGroups ? groupsWithLabelGroupsForVm : groupsForVm;
+        return Collections.unmodifiableList(index.getOrDefault(vmId, Collections.emptyList()));
+    }
+
+    /**
+     * @param group
+     *            one of the groups of the index, not a copy of it
+     * @return whether the host is one of the hosts of the group
+     */
+    public boolean isHostInGroup(Guid hostId, AffinityGroup group) {
+        return groupsForHost.getOrDefault(hostId, Collections.emptySet()).contains(group);
+    }
+
+    /**
+     * @return the VM to host affinity violations of the VMs of the cluster, which are shared by the users of the index
+     */
+    public synchronized VmToHostAffinityViolations getVmToHostViolations(boolean withLabelGroups) {
+        if (withLabelGroups) {
+            if (vmToHostViolationsWithLabelGroups == null) {
+                vmToHostViolationsWithLabelGroups = new VmToHostAffinityViolations(this, true);
+            }
+            return vmToHostViolationsWithLabelGroups;
+        }
+
+        if (vmToHostViolations == null) {
+            vmToHostViolations = new VmToHostAffinityViolations(this, false);
+        }
+        return vmToHostViolations;
+    }
+}
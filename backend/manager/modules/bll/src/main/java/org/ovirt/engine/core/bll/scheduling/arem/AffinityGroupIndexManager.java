@@ -0,0 +1,77 @@
+package org.ovirt.engine.core.bll.scheduling.arem;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.dao.LabelDao;
+import org.ovirt.engine.core.dao.scheduling.AffinityGroupDao;
+import org.ovirt.engine.core.utils.transaction.TransactionSuccessListener;
+import org.ovirt.engine.core.utils.transaction.TransactionSupport;
+
+/**
+ * Keeps the {@link AffinityGroupIndex} of each cluster, so the affinity rules enforcer and the affinity policy units
+ * don't load the affinity groups from the DB on every balancing and scheduling.
+ * <p>
+ * The indexes are loaded on first use and are dropped by {@link #invalidate()}, which must be called by every command
+ * that changes affinity groups or affinity labels, or removes VMs, hosts or clusters, which removes them from their
+ * affinity groups and labels. An index may still refer to a VM that was removed meanwhile, so its users skip the VMs
+ * that are not found.
+ */
+@Singleton
+public class AffinityGroupIndexManager {
+
+    @Inject
+    private AffinityGroupDao affinityGroupDao;
+    @Inject
+    private LabelDao labelDao;
+
+    private final ConcurrentMap<Guid, VersionedIndex> indexes = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+
+    public AffinityGroupIndex getIndex(Guid clusterId) {
+        long currentVersion = version.get();
+        VersionedIndex current = indexes.get(clusterId);
+        if (current != null && current.version == currentVersion) {
+            return current.index;
+        }
+
+        AffinityGroupIndex index = new AffinityGroupIndex(
+                affinityGroupDao.getAllAffinityGroupsWithFlatLabelsByClusterId(clusterId),
+                AffinityRulesUtils.affinityGroupsFromLabels(labelDao.getAllByClusterId(clusterId), clusterId));
+        indexes.put(clusterId, new VersionedIndex(currentVersion, index));
+        return index;
+    }
+
+    /**
+     * Drops the indexes of all the clusters, after affinity groups or affinity labels were changed.
+     */
+    public void invalidate() {
+        dropIndexes();
+
+        // An index loaded before the current transaction is committed would miss the changes, so it is dropped again
+        if (TransactionSupport.current() != null) {
+            TransactionSupport.registerRollbackHandler((TransactionSuccessListener) this::dropIndexes);
+        }
+    }
+
+    private void dropIndexes() {
+        // The indexes that are being loaded are dropped by the version change
+        version.incrementAndGet();
+        indexes.clear();
+    }
+
+    private static class VersionedIndex {
+        private final long version;
+        private final AffinityGroupIndex index;
+
+        VersionedIndex(long version, AffinityGroupIndex index) {
+            this.version = version;
+            this.index = index;
+        }
+    }
+}
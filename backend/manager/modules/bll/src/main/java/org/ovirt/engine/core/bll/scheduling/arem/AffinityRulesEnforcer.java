@@ -24,16 +24,13 @@ import org.ovirt.engine.core.bll.scheduling.SchedulingManager;
 import org.ovirt.engine.core.bll.scheduling.arem.AffinityRulesUtils.AffinityGroupConflicts;
 import org.ovirt.engine.core.common.FeatureSupported;
 import org.ovirt.engine.core.common.businessentities.Cluster;
-import org.ovirt.engine.core.common.businessentities.Label;
 import org.ovirt.engine.core.common.businessentities.MigrationSupport;
 import org.ovirt.engine.core.common.businessentities.VM;
 import org.ovirt.engine.core.common.scheduling.AffinityGroup;
 import org.ovirt.engine.core.common.scheduling.EntityAffinityRule;
 import org.ovirt.engine.core.common.utils.Pair;
 import org.ovirt.engine.core.compat.Guid;
-import org.ovirt.engine.core.dao.LabelDao;
 import org.ovirt.engine.core.dao.VmDao;
-import org.ovirt.engine.core.dao.scheduling.AffinityGroupDao;
 import org.ovirt.engine.core.utils.Pipeline;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,9 +44,7 @@ public class AffinityRulesEnforcer {
     private static final Logger log = LoggerFactory.getLogger(AffinityRulesEnforcer.class);
 
     @Inject
-    private AffinityGroupDao affinityGroupDao;
-    @Inject
-    private LabelDao labelDao;
+    private AffinityGroupIndexManager affinityGroupIndexManager;
     @Inject
     private VmDao vmDao;
     @Inject
@@ -67,14 +62,10 @@ public class AffinityRulesEnforcer {
      * @return Iterator returning valid VMs for migration
      */
     public Iterator<VM> chooseVmsToMigrate(Cluster cluster) {
-        List<AffinityGroup> allAffinityGroups = affinityGroupDao.getAllAffinityGroupsWithFlatLabelsByClusterId(cluster.getId());
-
-        if (FeatureSupported.isImplicitAffinityGroupSupported(cluster.getCompatibilityVersion())) {
-            List<Label> allAffinityLabels = labelDao.getAllByClusterId(cluster.getId());
-            allAffinityGroups.addAll(AffinityRulesUtils.affinityGroupsFromLabels(allAffinityLabels, cluster.getId()));
-        }
+        AffinityGroupIndex affinityGroupIndex = affinityGroupIndexManager.getIndex(cluster.getId());
+        boolean withLabelGroups = FeatureSupported.isImplicitAffinityGroupSupported(cluster.getCompatibilityVersion());
 
-        Cache cache = new Cache(cluster, allAffinityGroups);
+        Cache cache = new Cache(cluster, affinityGroupIndex, withLabelGroups);
 
         Pair<Iterable<Guid>, Iterable<Guid>> vmToHostConflicts = getCandidateVmsFromVmsToHostAffinity(cache);
 
@@ -134,75 +125,41 @@ public class AffinityRulesEnforcer {
 
         cache.fetchVms(vmIds);
 
+        // The violations are recalculated only for the VMs whose host changed since the previous balancing
+        Map<Guid, Guid> vmToHost = new HashMap<>();
+        for (Guid vmId : vmIds) {
+            VM vm = cache.getVm(vmId);
+            if (vm != null && vm.getRunOnVds() != null) {
+                vmToHost.put(vmId, vm.getRunOnVds());
+            }
+        }
+        VmToHostAffinityViolations violations = cache.getVmToHostViolations();
+        int recalculated = violations.update(vmToHost);
+        log.debug("Recalculated the vm to hosts affinity violations of {} out of {} running VMs",
+                recalculated,
+                vmToHost.size());
+        List<Guid> hardCandidates = violations.getViolatingVms(true);
+        List<Guid> softCandidates = violations.getViolatingVms(false);
+
         Iterable<Guid> vmsBreakingHardAffinity = () -> {
-            List<Guid> candidateVMs = getVmToHostsAffinityGroupCandidates(allVmToHostsAffinityGroups, cache, true);
-            if (candidateVMs.isEmpty()) {
+            if (hardCandidates.isEmpty()) {
                 log.debug("No vm to hosts hard-affinity group violation detected");
             } else {
                 logVmToHostConflicts(allVmToHostsAffinityGroups);
             }
-            return candidateVMs.iterator();
+            return hardCandidates.iterator();
         };
 
         Iterable<Guid> vmsBreakingSoftAffinity = () -> {
-            List<Guid> candidateVMs = getVmToHostsAffinityGroupCandidates(allVmToHostsAffinityGroups, cache, false);
-            if (candidateVMs.isEmpty()) {
+            if (softCandidates.isEmpty()) {
                 log.debug("No vm to hosts soft-affinity group violation detected");
             }
-            return candidateVMs.iterator();
+            return softCandidates.iterator();
         };
 
         return new Pair<>(vmsBreakingHardAffinity, vmsBreakingSoftAffinity);
     }
 
-    /**
-     * Get a list of candidate VMs (by VM ids) from the VM to host affinity groups.
-     * This list will contain all VMs that violate the host affinity policies
-     * sorted according to the number of violations (descending).
-     *
-     * @param allVMtoHostsAffinityGroups VM to Host affinity groups.
-     * @param cache                   cache of VMs
-     * @param isVdsAffinityEnforcing     true - Hard affinity constraint, false - Soft affinity constraint.
-     * @return list of candidate VMs for migration by VM to Host affinities.
-     */
-    private List<Guid> getVmToHostsAffinityGroupCandidates(List<AffinityGroup> allVMtoHostsAffinityGroups,
-            Cache cache,
-            boolean isVdsAffinityEnforcing) {
-        Map<Guid, Integer> vmToHostsAffinityMap = new HashMap<>();
-
-        // Iterate over all affinity groups and check the currently running
-        // VMs for compliance, record violations per VM
-        allVMtoHostsAffinityGroups.stream()
-                .filter(AffinityGroup::isVdsAffinityEnabled)
-                .filter(ag -> ag.isVdsEnforcing() == isVdsAffinityEnforcing)
-                .forEach(g -> {
-                    Set<Guid> affHosts = new HashSet<>(g.getVdsIds());
-                    g.getVmIds()
-                            .forEach(vm_id -> {
-                                VM vm = cache.getVm(vm_id);
-                                if (vm == null || vm.getRunOnVds() == null) {
-                                    return;
-                                }
-
-                                if (affHosts.contains(vm.getRunOnVds()) && !g.isVdsPositive()) {
-                                    // Negative affinity violated
-                                    vmToHostsAffinityMap.put(vm_id,
-                                            1 + vmToHostsAffinityMap.getOrDefault(vm_id, 0));
-                                } else if (!affHosts.contains(vm.getRunOnVds()) && g.isVdsPositive()) {
-                                    // Positive affinity violated
-                                    vmToHostsAffinityMap.put(vm_id,
-                                            1 + vmToHostsAffinityMap.getOrDefault(vm_id, 0));
-                                }
-                            });
-                });
-
-        // Sort according the to the number of violations
-        return vmToHostsAffinityMap.entrySet().stream()
-                .sorted(Comparator.comparing(Map.Entry::getValue))
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toList());
-    }
-
     private void logVmToHostConflicts(List<AffinityGroup> groups) {
         List<AffinityGroupConflicts> conflicts = AffinityRulesUtils.checkForAffinityGroupHostsConflict(groups);
         for (AffinityGroupConflicts conflict : conflicts) {
@@ -365,6 +322,9 @@ public class AffinityRulesEnforcer {
         Map<Guid, List<Guid>> res = new HashMap<>();
         for(Guid vmId : vms) {
             VM vm = cache.getVm(vmId);
+            if (vm == null) {
+                continue;
+            }
 
             Guid host = vm.getRunOnVds();
             if (host == null) {
@@ -564,8 +524,9 @@ public class AffinityRulesEnforcer {
         private final Cluster cluster;
         private Map<Guid, VM> vms = new HashMap<>();
 
+        private final AffinityGroupIndex affinityGroupIndex;
+        private final boolean withLabelGroups;
         private List<AffinityGroup> allGroups;
-        private Map<Guid, List<AffinityGroup>> groupsForVm;
         private boolean unifiedGroupsComputed = false;
 
         // Map: Affinity group id -> host id -> number of VMs running on the host
@@ -573,9 +534,12 @@ public class AffinityRulesEnforcer {
 
         Boolean hostAffinityMoreImportant;
 
-        public Cache(Cluster cluster, List<AffinityGroup> allGroups) {
+        public Cache(Cluster cluster, AffinityGroupIndex affinityGroupIndex, boolean withLabelGroups) {
             this.cluster = cluster;
-            this.allGroups = allGroups;
+            this.affinityGroupIndex = affinityGroupIndex;
+            this.withLabelGroups = withLabelGroups;
+            // The groups of the index are shared, copies are used because the unification modifies them
+            this.allGroups = affinityGroupIndex.copyGroups(withLabelGroups);
         }
 
         public VM getVm(Guid id) {
@@ -629,23 +593,18 @@ public class AffinityRulesEnforcer {
             allGroups.addAll(unifiedPositiveEnforcingGroups);
 
             unifiedGroupsComputed = true;
-            groupsForVm = null;
         }
 
+        /**
+         * The groups are taken from the index, without the unified positive enforcing groups. Only the soft groups
+         * are used by the callers, which are not changed by the unification.
+         */
         public List<AffinityGroup> getAllGroupsForVmSorted(Guid vmId) {
-            if (groupsForVm == null) {
-                groupsForVm = new HashMap<>();
-                for (AffinityGroup ag : allGroups) {
-                    for (Guid id : ag.getVmIds()) {
-                        groupsForVm.computeIfAbsent(id, k -> new ArrayList<>()).add(ag);
-                    }
-                }
-
-                // Sorting lists by priority here, so it is not needed later
-                groupsForVm.values().forEach(groups -> groups.sort(Comparator.comparingLong(AffinityGroup::getPriority).reversed()));
-            }
+            return affinityGroupIndex.getGroupsForVm(vmId, withLabelGroups);
+        }
 
-            return groupsForVm.getOrDefault(vmId, Collections.emptyList());
+        public VmToHostAffinityViolations getVmToHostViolations() {
+            return affinityGroupIndex.getVmToHostViolations(withLabelGroups);
         }
 
         public Map<Guid, Map<Guid, Integer>> getHostsForGroups() {
@@ -0,0 +1,105 @@
+package org.ovirt.engine.core.bll.scheduling.arem;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import org.ovirt.engine.core.common.scheduling.AffinityGroup;
+import org.ovirt.engine.core.compat.Guid;
+
+/**
+ * The number of VM to host affinity groups broken by each VM of a cluster, kept by its {@link AffinityGroupIndex}.
+ * <p>
+ * The violations are updated incrementally: {@link #update(Map)} recalculates them only for the VMs that were started,
+ * stopped or migrated since the previous update, using the groups of the VM and the hosts of the groups from the
+ * index. A change of the affinity groups replaces the index, so the violations are calculated again for all the VMs.
+ */
+public class VmToHostAffinityViolations {
+
+    private final AffinityGroupIndex index;
+    private final boolean withLabelGroups;
+
+    // Map: VM id -> host the VM runs on, as of the last update
+    private final Map<Guid, Guid> placement = new HashMap<>();
+    // Map: VM id -> number of broken groups, only the VMs breaking some groups are kept
+    private final Map<Guid, Integer> hardViolations = new HashMap<>();
+    private final Map<Guid, Integer> softViolations = new HashMap<>();
+
+    VmToHostAffinityViolations(AffinityGroupIndex index, boolean withLabelGroups) {
+        this.index = index;
+        this.withLabelGroups = withLabelGroups;
+    }
+
+    /**
+     * Updates the violations to the current placement of the VMs.
+     *
+     * @param vmToHost
+     *            the hosts of the running VMs of the affinity groups
+     * @return the number of VMs whose violations were recalculated
+     */
+    public synchronized int update(Map<Guid, Guid> vmToHost) {
+        int recalculated = 0;
+        for (Iterator<Guid> iterator = placement.keySet().iterator(); iterator.hasNext();) {
+            Guid vmId = iterator.next();
+            if (!vmToHost.containsKey(vmId)) {
+                iterator.remove();
+                hardViolations.remove(vmId);
+                softViolations.remove(vmId);
+                recalculated++;
+            }
+        }
+
+        for (Map.Entry<Guid, Guid> entry : vmToHost.entrySet()) {
+            if (!Objects.equals(placement.put(entry.getKey(), entry.getValue()), entry.getValue())) {
+                recalculate(entry.getKey(), entry.getValue());
+                recalculated++;
+            }
+        }
+        return recalculated;
+    }
+
+    private void recalculate(Guid vmId, Guid hostId) {
+        int hard = 0;
+        int soft = 0;
+        for (AffinityGroup group : index.getGroupsForVm(vmId, withLabelGroups)) {
+            if (!group.isVdsAffinityEnabled() || group.getVdsIds().isEmpty()) {
+                continue;
+            }
+
+            if (index.isHostInGroup(hostId, group) != group.isVdsPositive()) {
+                if (group.isVdsEnforcing()) {
+                    hard++;
+                } else {
+                    soft++;
+                }
+            }
+        }
+
+        setViolations(hardViolations, vmId, hard);
+        setViolations(softViolations, vmId, soft);
+    }
+
+    private static void setViolations(Map<Guid, Integer> violations, Guid vmId, int count) {
+        if (count == 0) {
+            violations.remove(vmId);
+        } else {
+            violations.put(vmId, count);
+        }
+    }
+
+    /**
+     * @param enforcing
+     *            true - hard affinity, false - soft affinity
+     * @return the VMs breaking affinity groups, sorted by the number of broken groups
+     */
+    public synchronized List<Guid> getViolatingVms(boolean enforcing) {
+        return (enforcing ? hardViolations : softViolations).entrySet().stream()
+                .sorted(Comparator.comparing(Map.Entry::getValue))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+}
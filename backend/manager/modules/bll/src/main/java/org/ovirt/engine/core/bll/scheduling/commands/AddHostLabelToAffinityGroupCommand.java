@@ -38,6 +38,7 @@ public class AddHostLabelToAffinityGroupCommand <T extends AffinityGroupMemberCh
     @Override
     protected void executeCommand() {
         affinityGroupDao.insertAffinityHostLabel(getParameters().getAffinityGroupId(), getParameters().getEntityId());
+        affinityGroupsChanged();
         setSucceeded(true);
     }
 }
@@ -39,6 +39,7 @@ public class AddVmToAffinityGroupCommand <T extends AffinityGroupMemberChangePar
     protected void executeCommand() {
         vmStaticDao.incrementDbGeneration(getParameters().getEntityId());
         affinityGroupDao.insertAffinityVm(getParameters().getAffinityGroupId(), getParameters().getEntityId());
+        affinityGroupsChanged();
         setSucceeded(true);
     }
 }
@@ -13,6 +13,7 @@ import javax.inject.Inject;
 
 import org.ovirt.engine.core.bll.CommandBase;
 import org.ovirt.engine.core.bll.context.CommandContext;
+import org.ovirt.engine.core.bll.scheduling.arem.AffinityGroupIndexManager;
 import org.ovirt.engine.core.bll.utils.PermissionSubject;
 import org.ovirt.engine.core.bll.validator.AffinityValidator;
 import org.ovirt.engine.core.common.VdcObjectType;
@@ -49,6 +50,8 @@ public abstract class AffinityGroupCRUDCommand <T extends AffinityGroupCRUDParam
     private LabelDao labelDao;
     @Inject
     private AffinityValidator affinityValidator;
+    @Inject
+    private AffinityGroupIndexManager affinityGroupIndexManager;
 
     AffinityGroup affinityGroup = null;
 
@@ -65,6 +68,13 @@ public abstract class AffinityGroupCRUDCommand <T extends AffinityGroupCRUDParam
         }
     }
 
+    /**
+     * Drops the cached affinity groups of the clusters, must be called after the affinity groups were changed.
+     */
+    protected void affinityGroupsChanged() {
+        affinityGroupIndexManager.invalidate();
+    }
+
     protected boolean validateParameters() {
         if (getCluster() == null) {
             return failValidation(EngineMessage.ACTION_TYPE_FAILED_INVALID_CLUSTER_FOR_AFFINITY_GROUP);
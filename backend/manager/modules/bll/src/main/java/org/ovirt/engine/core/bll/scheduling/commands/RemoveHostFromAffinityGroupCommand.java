@@ -38,6 +38,7 @@ public class RemoveHostFromAffinityGroupCommand <T extends AffinityGroupMemberCh
     @Override
     protected void executeCommand() {
         affinityGroupDao.deleteAffinityHost(getParameters().getAffinityGroupId(), getParameters().getEntityId());
+        affinityGroupsChanged();
         setSucceeded(true);
     }
 }
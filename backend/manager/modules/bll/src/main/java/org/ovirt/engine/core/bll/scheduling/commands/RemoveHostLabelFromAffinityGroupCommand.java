@@ -38,6 +38,7 @@ public class RemoveHostLabelFromAffinityGroupCommand <T extends AffinityGroupMem
     @Override
     protected void executeCommand() {
         affinityGroupDao.deleteAffinityHostLabel(getParameters().getAffinityGroupId(), getParameters().getEntityId());
+        affinityGroupsChanged();
         setSucceeded(true);
     }
 }
@@ -39,6 +39,7 @@ public class RemoveVmFromAffinityGroupCommand <T extends AffinityGroupMemberChan
     protected void executeCommand() {
         vmStaticDao.incrementDbGeneration(getParameters().getEntityId());
         affinityGroupDao.deleteAffinityVm(getParameters().getAffinityGroupId(), getParameters().getEntityId());
+        affinityGroupsChanged();
         setSucceeded(true);
     }
 }
@@ -13,11 +13,29 @@ public interface ExternalSchedulerBroker {
     List<Guid> runFilters(List<String> filterNames,
             List<Guid> hostIDs, Guid vmID, Map<String, String> propertiesMap);
 
+    /**
+     * Runs the filters for each of the VMs, in a single request when the external scheduler supports it.
+     *
+     * @return the hosts that passed the filters, by VM ID
+     */
+    Map<Guid, List<Guid>> runFiltersForVms(List<String> filterNames,
+            List<Guid> hostIDs, List<Guid> vmIDs, Map<String, String> propertiesMap);
+
     List<WeightResultEntry> runScores(List<Pair<String, Integer>> scoreNameAndWeight,
             List<Guid> hostIDs,
             Guid vmID,
             Map<String, String> propertiesMap);
 
+    /**
+     * Runs the weight modules for each of the VMs, in a single request when the external scheduler supports it.
+     *
+     * @return the scores of all the VMs
+     */
+    List<WeightResultEntry> runScoresForVms(List<Pair<String, Integer>> scoreNameAndWeight,
+            List<Guid> hostIDs,
+            List<Guid> vmIDs,
+            Map<String, String> propertiesMap);
+
     Optional<BalanceResult> runBalance(String balanceName, List<Guid> hostIDs, Map<String, String> propertiesMap);
 
 }
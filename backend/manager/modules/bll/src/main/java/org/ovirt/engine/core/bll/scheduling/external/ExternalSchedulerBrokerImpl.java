@@ -2,7 +2,10 @@ package org.ovirt.engine.core.bll.scheduling.external;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -31,19 +34,31 @@ public class ExternalSchedulerBrokerImpl implements ExternalSchedulerBroker {
     private static final String FILTER = "runFilters";
     private static final String SCORE = "runCostFunctions";
     private static final String BALANCE = "runLoadBalancing";
+    private static final String MULTICALL = "system.multicall";
 
     private static final Object[] EMPTY = new Object[] {};
 
     private static final Logger log = LoggerFactory.getLogger(ExternalSchedulerBrokerImpl.class);
 
-    private XmlRpcClientConfigImpl config;
+    private final XmlRpcClient client;
+
+    // Cleared when the external scheduler does not support multicall, the VMs are then sent in separate requests
+    private volatile boolean multicallSupported = true;
 
     @Inject
     private AuditLogDirector auditLogDirector;
 
     public ExternalSchedulerBrokerImpl() {
+        this(createClient());
+    }
+
+    ExternalSchedulerBrokerImpl(XmlRpcClient client) {
+        this.client = client;
+    }
+
+    private static XmlRpcClient createClient() {
         String extSchedUrl = Config.getValue(ConfigValues.ExternalSchedulerServiceURL);
-        config = new XmlRpcClientConfigImpl();
+        XmlRpcClientConfigImpl config = new XmlRpcClientConfigImpl();
         config.setEnabledForExtensions(true);
         config.setConnectionTimeout(Config.getValue(ConfigValues.ExternalSchedulerConnectionTimeout));
         config.setReplyTimeout(Config.getValue(ConfigValues.ExternalSchedulerResponseTimeout));
@@ -53,13 +68,19 @@ public class ExternalSchedulerBrokerImpl implements ExternalSchedulerBroker {
             log.error("External scheduler got bad url: {}", e.getMessage());
             log.debug("Exception", e);
         }
+
+        // The client is thread safe and is shared by all the requests, so its transport can keep the connections to
+        // the external scheduler alive between the requests
+        XmlRpcClient client = new XmlRpcClient();
+        client.setConfig(config);
+        return client;
     }
 
     @Override
     public Optional<ExternalSchedulerDiscoveryResult> runDiscover() {
+        // The external scheduler may have been upgraded since the last discovery
+        multicallSupported = true;
         try {
-            XmlRpcClient client = new XmlRpcClient();
-            client.setConfig(config);
             Object result = client.execute(DISCOVER, EMPTY);
             return parseDiscoverResults(result);
 
@@ -89,9 +110,8 @@ public class ExternalSchedulerBrokerImpl implements ExternalSchedulerBroker {
                 return hostIDs;
             }
 
-            XmlRpcClient client = new XmlRpcClient();
-            client.setConfig(config);
-            Object xmlRpcStruct = client.execute(FILTER, createFilterArgs(filterNames, hostIDs, vmID, propertiesMap));
+            Object xmlRpcStruct = client.execute(FILTER,
+                    createFilterArgs(filterNames, toStringArray(hostIDs), vmID, propertiesMap));
             return ExternalSchedulerBrokerObjectBuilder.getFilteringResult(xmlRpcStruct).getHosts();
 
         } catch (XmlRpcException e) {
@@ -102,24 +122,128 @@ public class ExternalSchedulerBrokerImpl implements ExternalSchedulerBroker {
         }
     }
 
+    @Override
+    public Map<Guid, List<Guid>> runFiltersForVms(List<String> filterNames,
+            List<Guid> hostIDs,
+            List<Guid> vmIDs,
+            Map<String, String> propertiesMap) {
+        Map<Guid, List<Guid>> filteredHosts = new LinkedHashMap<>();
+        try {
+            // Do not batch when there is no operation requested from the scheduler or a single VM
+            if (filterNames.isEmpty() || vmIDs.size() < 2 || !multicallSupported) {
+                return runFiltersSeparately(filterNames, hostIDs, vmIDs, propertiesMap);
+            }
+
+            String[] hosts = toStringArray(hostIDs);
+            List<Object[]> calls = new ArrayList<>(vmIDs.size());
+            for (Guid vmID : vmIDs) {
+                calls.add(createFilterArgs(filterNames, hosts, vmID, propertiesMap));
+            }
+
+            Object[] results = executeMulticall(FILTER, calls);
+            if (results == null) {
+                return runFiltersSeparately(filterNames, hostIDs, vmIDs, propertiesMap);
+            }
+
+            for (int i = 0; i < results.length; i++) {
+                Object result = getCallResult(results[i]);
+                // The hosts are not filtered for a VM whose call failed, like when the scheduler is not reachable
+                filteredHosts.put(vmIDs.get(i), result == null
+                        ? hostIDs
+                        : ExternalSchedulerBrokerObjectBuilder.getFilteringResult(result).getHosts());
+            }
+            return filteredHosts;
+
+        } catch (XmlRpcException e) {
+            log.error("Error communicating with the external scheduler while filtering: {}", e.getMessage());
+            log.debug("Exception", e);
+            auditLogFailedToConnect();
+            vmIDs.forEach(vmID -> filteredHosts.put(vmID, hostIDs));
+            return filteredHosts;
+        }
+    }
+
+    private Map<Guid, List<Guid>> runFiltersSeparately(List<String> filterNames,
+            List<Guid> hostIDs,
+            List<Guid> vmIDs,
+            Map<String, String> propertiesMap) {
+        Map<Guid, List<Guid>> filteredHosts = new LinkedHashMap<>();
+        for (Guid vmID : vmIDs) {
+            filteredHosts.put(vmID, runFilters(filterNames, hostIDs, vmID, propertiesMap));
+        }
+        return filteredHosts;
+    }
+
+    /**
+     * Sends the calls of the method to the external scheduler in a single request.
+     *
+     * @return the results of the calls in the order of the calls, or {@code null} if the external scheduler does not
+     *         support multicall
+     */
+    private Object[] executeMulticall(String methodName, List<Object[]> calls) throws XmlRpcException {
+        Object[] multicallArgs = new Object[calls.size()];
+        for (int i = 0; i < multicallArgs.length; i++) {
+            Map<String, Object> call = new HashMap<>();
+            call.put("methodName", methodName);
+            call.put("params", calls.get(i));
+            multicallArgs[i] = call;
+        }
+
+        Object results;
+        try {
+            results = client.execute(MULTICALL, new Object[] { multicallArgs });
+        } catch (XmlRpcException e) {
+            // A fault without a cause is returned by the external scheduler itself, which does not know the method.
+            // Other failures are failures to communicate with it.
+            if (e.getCause() != null) {
+                throw e;
+            }
+            log.info("The external scheduler does not support multicall, the VMs will be sent in separate requests: {}",
+                    e.getMessage());
+            multicallSupported = false;
+            return null;
+        }
+
+        if (!(results instanceof Object[]) || ((Object[]) results).length != calls.size()) {
+            throw new XmlRpcException("Malformed multicall results of " + methodName);
+        }
+        return (Object[]) results;
+    }
+
+    /**
+     * @return the result of a single call of a multicall request, or {@code null} if the call failed
+     */
+    private Object getCallResult(Object multicallResult) {
+        // The result of a call is wrapped in an array, a failed call returns a fault struct instead
+        if (multicallResult instanceof Object[] && ((Object[]) multicallResult).length == 1) {
+            return ((Object[]) multicallResult)[0];
+        }
+        log.error("External scheduler error, call of multicall request failed: {}", multicallResult);
+        return null;
+    }
+
+    private static String[] toStringArray(List<Guid> ids) {
+        String[] arr = new String[ids.size()];
+        for (int i = 0; i < arr.length; i++) {
+            arr[i] = ids.get(i).toString();
+        }
+        return arr;
+    }
+
     private void auditLogFailedToConnect() {
         AuditLogable loggable = new AuditLogableImpl();
         auditLogDirector.log(loggable, AuditLogType.FAILED_TO_CONNECT_TO_SCHEDULER_PROXY);
     }
 
     private Object[] createFilterArgs(List<String> filterNames,
-            List<Guid> hostIDs,
+            String[] hostIDs,
             Guid vmID,
             Map<String, String> propertiesMap) {
         Object[] sentObject = new Object[4];
         // filters name
         sentObject[0] = filterNames;
         // hosts ids
-        String[] arr = new String[hostIDs.size()];
-        for (int i = 0; i < arr.length; i++) {
-            arr[i] = hostIDs.get(i).toString();
-        }
-        sentObject[1] = arr;
+        sentObject[1] = hostIDs;
         // vm id
         sentObject[2] = vmID.toString();
         // additional args
@@ -138,9 +262,8 @@ public class ExternalSchedulerBrokerImpl implements ExternalSchedulerBroker {
                 return Collections.emptyList();
             }
 
-            XmlRpcClient client = new XmlRpcClient();
-            client.setConfig(config);
-            Object result = client.execute(SCORE, createScoreArgs(scoreNameAndWeight, hostIDs, vmID, propertiesMap));
+            Object result = client.execute(SCORE,
+                    createScoreArgs(scoreNameAndWeight, toStringArray(hostIDs), vmID, propertiesMap));
             return ExternalSchedulerBrokerObjectBuilder.getScoreResult(result).getHosts();
 
         } catch (XmlRpcException e) {
@@ -152,8 +275,59 @@ public class ExternalSchedulerBrokerImpl implements ExternalSchedulerBroker {
         }
     }
 
-    private Object[] createScoreArgs(List<Pair<String, Integer>> scoreNameAndWeight,
+    @Override
+    public List<WeightResultEntry> runScoresForVms(List<Pair<String, Integer>> scoreNameAndWeight,
             List<Guid> hostIDs,
+            List<Guid> vmIDs,
+            Map<String, String> propertiesMap) {
+        try {
+            // Do not batch when there is no operation requested from the scheduler or a single VM
+            if (scoreNameAndWeight.isEmpty() || vmIDs.size() < 2 || !multicallSupported) {
+                return runScoresSeparately(scoreNameAndWeight, hostIDs, vmIDs, propertiesMap);
+            }
+
+            String[] hosts = toStringArray(hostIDs);
+            List<Object[]> calls = new ArrayList<>(vmIDs.size());
+            for (Guid vmID : vmIDs) {
+                calls.add(createScoreArgs(scoreNameAndWeight, hosts, vmID, propertiesMap));
+            }
+
+            Object[] results = executeMulticall(SCORE, calls);
+            if (results == null) {
+                return runScoresSeparately(scoreNameAndWeight, hostIDs, vmIDs, propertiesMap);
+            }
+
+            List<WeightResultEntry> scores = new ArrayList<>();
+            for (Object multicallResult : results) {
+                Object result = getCallResult(multicallResult);
+                if (result != null) {
+                    scores.addAll(ExternalSchedulerBrokerObjectBuilder.getScoreResult(result).getHosts());
+                }
+            }
+            return scores;
+
+        } catch (XmlRpcException e) {
+            log.error("Error communicating with the external scheduler while running weight modules: {}",
+                    e.getMessage());
+            log.debug("Exception", e);
+            auditLogFailedToConnect();
+            return Collections.emptyList();
+        }
+    }
+
+    private List<WeightResultEntry> runScoresSeparately(List<Pair<String, Integer>> scoreNameAndWeight,
+            List<Guid> hostIDs,
+            List<Guid> vmIDs,
+            Map<String, String> propertiesMap) {
+        List<WeightResultEntry> scores = new ArrayList<>();
+        for (Guid vmID : vmIDs) {
+            scores.addAll(runScores(scoreNameAndWeight, hostIDs, vmID, propertiesMap));
+        }
+        return scores;
+    }
+
+    private Object[] createScoreArgs(List<Pair<String, Integer>> scoreNameAndWeight,
+            String[] hostIDs,
             Guid vmID,
             Map<String, String> propertiesMap) {
         Object[] sentObject = new Object[4];
@@ -166,11 +340,7 @@ public class ExternalSchedulerBrokerImpl implements ExternalSchedulerBroker {
         // score name + weight pairs
         sentObject[0] = pairs;
         // hosts ids
-        String[] arr = new String[hostIDs.size()];
-        for (int i = 0; i < arr.length; i++) {
-            arr[i] = hostIDs.get(i).toString();
-        }
-        sentObject[1] = arr;
+        sentObject[1] = hostIDs;
         // vm id
         sentObject[2] = vmID.toString();
         // additional args
@@ -183,8 +353,6 @@ public class ExternalSchedulerBrokerImpl implements ExternalSchedulerBroker {
     @Override
     public Optional<BalanceResult> runBalance(String balanceName, List<Guid> hostIDs, Map<String, String> propertiesMap) {
         try {
-            XmlRpcClient client = new XmlRpcClient();
-            client.setConfig(config);
             Object result =
                     client.execute(BALANCE, createBalanceArgs(balanceName, hostIDs, propertiesMap));
             return Optional.of(ExternalSchedulerBrokerObjectBuilder.getBalanceResult(result));
@@ -202,11 +370,7 @@ public class ExternalSchedulerBrokerImpl implements ExternalSchedulerBroker {
         // balance name
         sentObject[0] = balanceName;
         // hosts ids
-        String[] arr = new String[hostIDs.size()];
-        for (int i = 0; i < arr.length; i++) {
-            arr[i] = hostIDs.get(i).toString();
-        }
-        sentObject[1] = arr;
+        sentObject[1] = toStringArray(hostIDs);
         // additional args
         sentObject[2] = propertiesMap;
 
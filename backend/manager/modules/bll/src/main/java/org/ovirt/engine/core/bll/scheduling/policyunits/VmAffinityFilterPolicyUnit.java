@@ -13,6 +13,7 @@ import javax.inject.Inject;
 import org.ovirt.engine.core.bll.scheduling.PolicyUnitImpl;
 import org.ovirt.engine.core.bll.scheduling.SchedulingContext;
 import org.ovirt.engine.core.bll.scheduling.SchedulingUnit;
+import org.ovirt.engine.core.bll.scheduling.arem.AffinityGroupIndexManager;
 import org.ovirt.engine.core.bll.scheduling.pending.PendingResourceManager;
 import org.ovirt.engine.core.bll.scheduling.pending.PendingVM;
 import org.ovirt.engine.core.common.businessentities.VDS;
@@ -24,7 +25,6 @@ import org.ovirt.engine.core.common.scheduling.PolicyUnit;
 import org.ovirt.engine.core.common.scheduling.PolicyUnitType;
 import org.ovirt.engine.core.compat.Guid;
 import org.ovirt.engine.core.dao.VmDao;
-import org.ovirt.engine.core.dao.scheduling.AffinityGroupDao;
 import org.ovirt.engine.core.utils.MemoizingSupplier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,7 +40,7 @@ public class VmAffinityFilterPolicyUnit extends PolicyUnitImpl {
     private static final Logger log = LoggerFactory.getLogger(VmAffinityFilterPolicyUnit.class);
 
     @Inject
-    private AffinityGroupDao affinityGroupDao;
+    private AffinityGroupIndexManager affinityGroupIndexManager;
     @Inject
     private VmDao vmDao;
 
@@ -56,8 +56,8 @@ public class VmAffinityFilterPolicyUnit extends PolicyUnitImpl {
         }
 
         Set<AffinityGroup> affinityGroups = new HashSet<>();
-        // TODO - get all affinity gorups in 1 DB call
-        vmGroup.forEach(vm -> affinityGroups.addAll(affinityGroupDao.getAllAffinityGroupsWithFlatLabelsByVmId(vm.getId())));
+        vmGroup.forEach(vm -> affinityGroups.addAll(affinityGroupIndexManager.getIndex(vm.getClusterId())
+                .getGroupsForVm(vm.getId(), false)));
 
         // no affinity groups found for VM group return all hosts
         if (affinityGroups.isEmpty()) {
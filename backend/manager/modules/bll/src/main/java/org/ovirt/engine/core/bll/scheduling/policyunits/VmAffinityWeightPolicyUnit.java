@@ -16,6 +16,7 @@ import javax.inject.Inject;
 import org.ovirt.engine.core.bll.scheduling.PolicyUnitImpl;
 import org.ovirt.engine.core.bll.scheduling.SchedulingContext;
 import org.ovirt.engine.core.bll.scheduling.SchedulingUnit;
+import org.ovirt.engine.core.bll.scheduling.arem.AffinityGroupIndexManager;
 import org.ovirt.engine.core.bll.scheduling.pending.PendingResourceManager;
 import org.ovirt.engine.core.bll.scheduling.pending.PendingVM;
 import org.ovirt.engine.core.common.businessentities.MigrationSupport;
@@ -28,7 +29,6 @@ import org.ovirt.engine.core.common.utils.ListUtils;
 import org.ovirt.engine.core.common.utils.Pair;
 import org.ovirt.engine.core.compat.Guid;
 import org.ovirt.engine.core.dao.VmDao;
-import org.ovirt.engine.core.dao.scheduling.AffinityGroupDao;
 
 @SchedulingUnit(
         guid = "84e6ddee-ab0d-42dd-82f0-c297779db567",
@@ -41,7 +41,7 @@ public class VmAffinityWeightPolicyUnit extends PolicyUnitImpl {
     private static final int DEFAULT_SCORE = 1;
 
     @Inject
-    private AffinityGroupDao affinityGroupDao;
+    private AffinityGroupIndexManager affinityGroupIndexManager;
     @Inject
     private VmDao vmDao;
 
@@ -82,8 +82,8 @@ public class VmAffinityWeightPolicyUnit extends PolicyUnitImpl {
 
     private List<HostInfo> getHostInfos(List<VM> vmGroup, List<VDS> hosts) {
         Set<AffinityGroup> affinityGroups = new HashSet<>();
-        // TODO - get all affinity gorups in 1 DB call
-        vmGroup.forEach(vm -> affinityGroups.addAll(affinityGroupDao.getAllAffinityGroupsWithFlatLabelsByVmId(vm.getId()).stream()
+        vmGroup.forEach(vm -> affinityGroups.addAll(affinityGroupIndexManager.getIndex(vm.getClusterId())
+                .getGroupsForVm(vm.getId(), false).stream()
                 .filter(AffinityGroup::isVmAffinityEnabled)
                 .collect(Collectors.toList())));
 
@@ -1,6 +1,5 @@
 package org.ovirt.engine.core.bll.scheduling.policyunits;
 
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -11,10 +10,10 @@ import javax.inject.Inject;
 import org.ovirt.engine.core.bll.scheduling.PolicyUnitImpl;
 import org.ovirt.engine.core.bll.scheduling.SchedulingContext;
 import org.ovirt.engine.core.bll.scheduling.SchedulingUnit;
-import org.ovirt.engine.core.bll.scheduling.arem.AffinityRulesUtils;
+import org.ovirt.engine.core.bll.scheduling.arem.AffinityGroupIndex;
+import org.ovirt.engine.core.bll.scheduling.arem.AffinityGroupIndexManager;
 import org.ovirt.engine.core.bll.scheduling.pending.PendingResourceManager;
 import org.ovirt.engine.core.common.FeatureSupported;
-import org.ovirt.engine.core.common.businessentities.Label;
 import org.ovirt.engine.core.common.businessentities.VDS;
 import org.ovirt.engine.core.common.businessentities.VM;
 import org.ovirt.engine.core.common.errors.EngineMessage;
@@ -23,8 +22,6 @@ import org.ovirt.engine.core.common.scheduling.PerHostMessages;
 import org.ovirt.engine.core.common.scheduling.PolicyUnit;
 import org.ovirt.engine.core.common.scheduling.PolicyUnitType;
 import org.ovirt.engine.core.compat.Guid;
-import org.ovirt.engine.core.dao.LabelDao;
-import org.ovirt.engine.core.dao.scheduling.AffinityGroupDao;
 
 @SchedulingUnit(
         guid = "e69808a9-8a41-40f1-94ba-dd5d385d82d8",
@@ -37,9 +34,7 @@ import org.ovirt.engine.core.dao.scheduling.AffinityGroupDao;
 public class VmToHostAffinityFilterPolicyUnit extends PolicyUnitImpl {
 
     @Inject
-    private AffinityGroupDao affinityGroupDao;
-    @Inject
-    private LabelDao labelDao;
+    private AffinityGroupIndexManager affinityGroupIndexManager;
 
     public VmToHostAffinityFilterPolicyUnit(PolicyUnit policyUnit,
             PendingResourceManager pendingResourceManager) {
@@ -52,15 +47,14 @@ public class VmToHostAffinityFilterPolicyUnit extends PolicyUnitImpl {
             VM vm,
             PerHostMessages messages) {
 
-        List<AffinityGroup> affinityGroups = affinityGroupDao.getAllAffinityGroupsWithFlatLabelsByVmId(vm.getId()).stream()
+        // The groups created from the affinity labels are hard positive groups, so they are kept by the filter
+        boolean withLabelGroups =
+                FeatureSupported.isImplicitAffinityGroupSupported(context.getCluster().getCompatibilityVersion());
+        AffinityGroupIndex index = affinityGroupIndexManager.getIndex(vm.getClusterId());
+        List<AffinityGroup> affinityGroups = index.getGroupsForVm(vm.getId(), withLabelGroups).stream()
                 .filter(ag -> ag.isVdsEnforcing() && ag.isVdsAffinityEnabled())
                 .collect(Collectors.toList());
 
-        if (FeatureSupported.isImplicitAffinityGroupSupported(context.getCluster().getCompatibilityVersion()) ) {
-            List<Label> labels = labelDao.getAllByEntityIds(Collections.singleton(vm.getId()));
-            affinityGroups.addAll(AffinityRulesUtils.affinityGroupsFromLabels(labels, context.getCluster().getId()));
-        }
-
         // no affinity groups found for VM return all hosts with no violations
         if (affinityGroups.isEmpty()) {
             return hosts;
@@ -68,11 +62,10 @@ public class VmToHostAffinityFilterPolicyUnit extends PolicyUnitImpl {
 
         Set<Guid> hostViolations = new HashSet<>();
         for (AffinityGroup affinityGroup : affinityGroups) {
-            List<Guid> vdsIds = affinityGroup.getVdsIds();
             if (affinityGroup.isVdsPositive()) {
                 // log and score hosts that violate the positive affinity rules
                 hosts.stream()
-                        .filter(host -> !vdsIds.contains(host.getId()))
+                        .filter(host -> !index.isHostInGroup(host.getId(), affinityGroup))
                         .forEach(host -> {
                             // TODO compute the affinity rule names
                             messages.addMessage(host.getId(), String.format("$affinityRules %1$s", ""));
@@ -82,7 +75,7 @@ public class VmToHostAffinityFilterPolicyUnit extends PolicyUnitImpl {
             } else {
                 // log and score hosts that violate the negative affinity rules
                 hosts.stream()
-                        .filter(host -> vdsIds.contains(host.getId()))
+                        .filter(host -> index.isHostInGroup(host.getId(), affinityGroup))
                         .forEach(host -> {
                             // TODO compute the affinity rule names
                             messages.addMessage(host.getId(), String.format("$affinityRules %1$s", ""));
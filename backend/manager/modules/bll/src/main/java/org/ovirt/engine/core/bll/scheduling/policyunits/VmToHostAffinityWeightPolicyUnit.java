@@ -10,6 +10,8 @@ import javax.inject.Inject;
 import org.ovirt.engine.core.bll.scheduling.PolicyUnitImpl;
 import org.ovirt.engine.core.bll.scheduling.SchedulingContext;
 import org.ovirt.engine.core.bll.scheduling.SchedulingUnit;
+import org.ovirt.engine.core.bll.scheduling.arem.AffinityGroupIndex;
+import org.ovirt.engine.core.bll.scheduling.arem.AffinityGroupIndexManager;
 import org.ovirt.engine.core.bll.scheduling.pending.PendingResourceManager;
 import org.ovirt.engine.core.common.businessentities.VDS;
 import org.ovirt.engine.core.common.businessentities.VM;
@@ -19,7 +21,6 @@ import org.ovirt.engine.core.common.scheduling.PolicyUnitType;
 import org.ovirt.engine.core.common.utils.ListUtils;
 import org.ovirt.engine.core.common.utils.Pair;
 import org.ovirt.engine.core.compat.Guid;
-import org.ovirt.engine.core.dao.scheduling.AffinityGroupDao;
 
 @SchedulingUnit(
         guid = "427aed70-dae3-48ba-8fe9-a902a9d563c8",
@@ -34,7 +35,7 @@ public class VmToHostAffinityWeightPolicyUnit extends PolicyUnitImpl {
     private static final int DEFAULT_SCORE = 1;
 
     @Inject
-    private AffinityGroupDao affinityGroupDao;
+    private AffinityGroupIndexManager affinityGroupIndexManager;
 
     public VmToHostAffinityWeightPolicyUnit(PolicyUnit policyUnit,
             PendingResourceManager pendingResourceManager) {
@@ -43,8 +44,8 @@ public class VmToHostAffinityWeightPolicyUnit extends PolicyUnitImpl {
 
     @Override
     public List<Pair<Guid, Integer>> score(SchedulingContext context, List<VDS> hosts, VM vm) {
-        // TODO - cache affinity groups in scheduling context
-        List<AffinityGroup> affinityGroups = affinityGroupDao.getAllAffinityGroupsWithFlatLabelsByVmId(vm.getId()).stream()
+        AffinityGroupIndex index = affinityGroupIndexManager.getIndex(vm.getClusterId());
+        List<AffinityGroup> affinityGroups = index.getGroupsForVm(vm.getId(), false).stream()
                 .filter(ag -> ag.isVdsAffinityEnabled() && !ag.isVdsEnforcing())
                 .collect(Collectors.toList());
 
@@ -55,7 +56,7 @@ public class VmToHostAffinityWeightPolicyUnit extends PolicyUnitImpl {
         List<Pair<Guid, List<Long>>> hostViolations = new ArrayList<>(hosts.size());
         for (VDS host : hosts) {
             List<Long> brokenGroupPriorities = affinityGroups.stream()
-                    .filter(ag -> ag.getVdsIds().contains(host.getId()) != ag.isVdsPositive())
+                    .filter(ag -> index.isHostInGroup(host.getId(), ag) != ag.isVdsPositive())
                     .map(AffinityGroup::getPriority)
                     .sorted(Comparator.reverseOrder())
                     .collect(Collectors.toList());
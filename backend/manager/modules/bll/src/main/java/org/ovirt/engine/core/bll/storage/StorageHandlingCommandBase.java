@@ -89,6 +89,7 @@ import org.ovirt.engine.core.utils.ovf.OvfInfoFileConstants;
 import org.ovirt.engine.core.utils.ovf.OvfParser;
 import org.ovirt.engine.core.utils.transaction.TransactionMethod;
 import org.ovirt.engine.core.utils.transaction.TransactionSupport;
+import org.ovirt.engine.core.vdsbroker.irsbroker.IrsProxyManager;
 import org.ovirt.engine.core.vdsbroker.irsbroker.SpmStopOnIrsVDSCommandParameters;
 
 public abstract class StorageHandlingCommandBase<T extends StoragePoolParametersBase> extends CommandBase<T> {
@@ -134,6 +135,8 @@ public abstract class StorageHandlingCommandBase<T extends StoragePoolParameters
     protected StorageHelperDirector storageHelperDirector;
     @Inject
     protected StoragePoolStatusHandler storagePoolStatusHandler;
+    @Inject
+    private IrsProxyManager irsProxyManager;
 
     protected StorageHandlingCommandBase(T parameters, CommandContext commandContext) {
         super(parameters, commandContext);
@@ -674,6 +677,22 @@ public abstract class StorageHandlingCommandBase<T extends StoragePoolParameters
             getCompensationContext().stateChanged();
             return null;
         });
+        domainStatusesChanged();
+    }
+
+    /**
+     * Must be called after the statuses of domains of the pool were changed, or domains were attached to or detached
+     * from the pool, so the domain monitoring of the pool handles the next reports of the hosts accordingly.
+     */
+    protected void domainStatusesChanged() {
+        irsProxyManager.domainStatusesChanged(getStoragePoolId());
+    }
+
+    @Override
+    protected void compensate() {
+        super.compensate();
+        // the compensation might have restored the previous statuses of the domains
+        domainStatusesChanged();
     }
 
     protected void masterDomainDetachWithDestroyPool(StorageDomain masterDomain) {
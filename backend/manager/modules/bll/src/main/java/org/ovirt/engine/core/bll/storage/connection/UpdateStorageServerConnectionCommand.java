@@ -42,6 +42,7 @@ import org.ovirt.engine.core.dao.StorageServerConnectionDao;
 import org.ovirt.engine.core.dao.VmDao;
 import org.ovirt.engine.core.utils.transaction.TransactionMethod;
 import org.ovirt.engine.core.utils.transaction.TransactionSupport;
+import org.ovirt.engine.core.vdsbroker.irsbroker.IrsProxyManager;
 
 @NonTransactiveCommandAttribute(forceCompensation = true)
 public class UpdateStorageServerConnectionCommand<T extends StorageServerConnectionParametersBase> extends ConnectStorageToVdsCommand<T> {
@@ -58,6 +59,8 @@ public class UpdateStorageServerConnectionCommand<T extends StorageServerConnect
     private StorageDomainDynamicDao storageDomainDynamicDao;
     @Inject
     private VmDao vmDao;
+    @Inject
+    private IrsProxyManager irsProxyManager;
 
     private List<StorageDomain> domains = new ArrayList<>();
     private List<LUNs> luns = new ArrayList<>();
@@ -302,6 +305,7 @@ public class UpdateStorageServerConnectionCommand<T extends StorageServerConnect
         log.info("Setting domain '{}' to status '{}'", map.getId(), status.name());
         map.setStatus(status);
         storagePoolIsoMapDao.updateStatus(map.getId(), map.getStatus());
+        irsProxyManager.domainStatusesChanged(map.getStoragePoolId());
     }
 
     protected void executeInNewTransaction(TransactionMethod<?> method) {
@@ -1,14 +1,15 @@
 package org.ovirt.engine.core.bll.storage.disk.image;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.net.Socket;
 import java.nio.charset.StandardCharsets;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 import javax.ws.rs.HttpMethod;
 
@@ -20,138 +21,332 @@ import org.apache.http.HttpResponse;
 import org.apache.http.HttpVersion;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.DefaultBHttpClientConnection;
+import org.apache.http.impl.DefaultConnectionReuseStrategy;
 import org.apache.http.message.BasicHttpEntityEnclosingRequest;
 import org.apache.http.message.BasicHttpRequest;
+import org.apache.http.protocol.BasicHttpContext;
 import org.apache.http.util.EntityUtils;
 import org.ovirt.engine.core.common.businessentities.storage.ImageTicket;
 import org.ovirt.engine.core.common.businessentities.storage.ImageTicketInformation;
 import org.ovirt.engine.core.compat.Guid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+/**
+ * Client of the control service of an ovirt-imageio daemon.
+ * <p>
+ * The clients of the same daemon share a pool of persistent keep-alive connections, so the tickets operations do not
+ * need to establish a new connection for every request. The number of concurrent connections to a single daemon is
+ * bounded by {@link #MAX_CONNECTIONS_PER_DAEMON}, requests exceeding it wait for a connection to be released. The pool
+ * of a daemon which was not used for a while is closed and dropped when a new client is created, a client whose pool
+ * was dropped meanwhile takes the current pool of its daemon on its next request.
+ */
 public class ImageioClient {
 
+    private static final Logger log = LoggerFactory.getLogger(ImageioClient.class);
+
     public static final String TICKETS_URI = "/tickets/";
     public static final int CLIENT_BUFFER_SIZE = 4 * 1024;
+    public static final int MAX_CONNECTIONS_PER_DAEMON = 10;
+
+    private static final long CONNECTION_WAIT_SECONDS = 60;
+    private static final long MAX_IDLE_MILLIS = TimeUnit.SECONDS.toMillis(30);
 
-    private String hostname;
-    private int port;
+    private static final Map<String, ConnectionPool> pools = new ConcurrentHashMap<>();
+
+    private final String hostname;
+    private final int port;
+    private volatile ConnectionPool pool;
 
     public ImageioClient(String hostname, int port) {
         this.hostname = hostname;
         this.port = port;
+        pools.keySet().forEach(key -> pools.computeIfPresent(key, (k, p) -> p.closeIfUnused() ? null : p));
+        this.pool = getPool();
+    }
+
+    /**
+     * Returns the open pool of the daemon, creating it if needed. The pool is marked as used within the update of the
+     * map, so it can't be found unused and closed before the client sends its first request.
+     */
+    private ConnectionPool getPool() {
+        return pools.compute(hostname + ":" + port, (key, current) -> {
+            ConnectionPool result = current == null || current.closed ? new ConnectionPool(hostname, port) : current;
+            result.lastUsed = System.currentTimeMillis();
+            return result;
+        });
     }
 
     public ImageTicketInformation getTicket(Guid ticketUUID) {
-        // Create request
-        BasicHttpRequest request = new BasicHttpRequest(
-                HttpMethod.GET, TICKETS_URI + ticketUUID, HttpVersion.HTTP_1_1);
-        String responseContent;
-
-        try (DefaultBHttpClientConnection conn = getConnection()) {
-            HttpEntity response = executeRequest(request, conn);
-            responseContent = readContent(response.getContent());
-            EntityUtils.consume(response);
-        } catch (IOException e) {
-            throw new RuntimeException(e.getMessage(), e);
-        }
-        return ImageTicketInformationHelper.fromJson(responseContent);
+        Response response = send(new BasicHttpRequest(
+                HttpMethod.GET, TICKETS_URI + ticketUUID, HttpVersion.HTTP_1_1));
+        return ImageTicketInformationHelper.fromJson(response.content);
     }
 
     public void putTicket(ImageTicket ticket) {
         BasicHttpEntityEnclosingRequest request = new BasicHttpEntityEnclosingRequest(
                 HttpMethod.PUT, TICKETS_URI + ticket.getId(), HttpVersion.HTTP_1_1);
 
-        try (DefaultBHttpClientConnection conn = getConnection()) {
+        try {
             // Populate ticket in the request
-            StringEntity entity = new StringEntity(
-                    new ObjectMapper().writeValueAsString(ticket.toDict()), StandardCharsets.UTF_8);
-            request.setEntity(entity);
-            request.setHeader(HttpHeaders.CONTENT_LENGTH, String.valueOf(entity.getContentLength()));
-            EntityUtils.consume(executeRequest(request, conn));
+            setEntity(request, new ObjectMapper().writeValueAsString(ticket.toDict()));
         } catch (IOException e) {
             throw new RuntimeException(e.getMessage(), e);
         }
+        send(request);
     }
 
     public void extendTicket(Guid ticketUUID, long timeout) {
         BasicHttpEntityEnclosingRequest request = new BasicHttpEntityEnclosingRequest(
                 HttpMethod.PATCH, TICKETS_URI + ticketUUID, HttpVersion.HTTP_1_1);
 
-        try (DefaultBHttpClientConnection conn = getConnection()) {
+        try {
             // Populate timeout in the request
             Map<String, Object> timeoutDict = new HashMap<>();
             timeoutDict.put("timeout", timeout);
-            StringEntity entity = new StringEntity(
-                    new ObjectMapper().writeValueAsString(timeoutDict), StandardCharsets.UTF_8);
-            request.setEntity(entity);
-            request.setHeader(HttpHeaders.CONTENT_LENGTH, String.valueOf(entity.getContentLength()));
-            EntityUtils.consume(executeRequest(request, conn));
+            setEntity(request, new ObjectMapper().writeValueAsString(timeoutDict));
         } catch (IOException e) {
             throw new RuntimeException(e.getMessage(), e);
         }
+        send(request);
     }
 
     public void deleteTicket(Guid ticketUUID) {
-        BasicHttpRequest request = new BasicHttpRequest(
-                HttpMethod.DELETE, TICKETS_URI + ticketUUID, HttpVersion.HTTP_1_1);
+        send(new BasicHttpRequest(HttpMethod.DELETE, TICKETS_URI + ticketUUID, HttpVersion.HTTP_1_1));
+    }
 
-        try (DefaultBHttpClientConnection conn = getConnection()) {
-            EntityUtils.consume(executeRequest(request, conn));
-        } catch (IOException e) {
-            throw new RuntimeException(e.getMessage(), e);
-        }
+    private void setEntity(BasicHttpEntityEnclosingRequest request, String content) {
+        StringEntity entity = new StringEntity(content, StandardCharsets.UTF_8);
+        request.setEntity(entity);
+        request.setHeader(HttpHeaders.CONTENT_LENGTH, String.valueOf(entity.getContentLength()));
     }
 
-    private DefaultBHttpClientConnection getConnection() {
-        DefaultBHttpClientConnection conn;
+    /**
+     * Sends the request on a pooled connection.
+     */
+    private Response send(BasicHttpRequest request) {
+        PooledConnection conn;
+        while ((conn = pool.acquire()) == null) {
+            pool = getPool();
+        }
+        boolean reusable = false;
         try {
-            Socket socket = new Socket(hostname, port);
-            // Bind socket to HTTP client
-            conn = new DefaultBHttpClientConnection(CLIENT_BUFFER_SIZE);
-            conn.bind(socket);
-        } catch (IOException e) {
-            throw new RuntimeException(e.getMessage(), e);
+            Response response = execute(conn, request);
+            reusable = response.keepAlive;
+            return response.check();
+        } finally {
+            pool.release(conn, reusable);
         }
-        return conn;
     }
 
-    protected HttpEntity executeRequest(BasicHttpRequest request, DefaultBHttpClientConnection conn) {
+    /**
+     * The daemon may close an idle keep-alive connection at any time, so a request failing on a reused connection is
+     * sent again once on a new connection.
+     */
+    private Response execute(PooledConnection pooledConnection, BasicHttpRequest request) {
         try {
-            // Send the request
-            conn.sendRequestHeader(request);
-            if (request instanceof HttpEntityEnclosingRequest) {
-                conn.sendRequestEntity((HttpEntityEnclosingRequest) request);
+            try {
+                return execute(pooledConnection.connection, request);
+            } catch (IOException e) {
+                if (!pooledConnection.reused) {
+                    throw e;
+                }
+                log.debug("Reused connection to imageio daemon {} failed, retrying on a new connection: {}",
+                        pool.address,
+                        e.getMessage());
+                pooledConnection.reconnect();
+                return execute(pooledConnection.connection, request);
             }
-            conn.flush();
+        } catch (HttpException | IOException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    private Response execute(DefaultBHttpClientConnection conn, BasicHttpRequest request)
+            throws HttpException, IOException {
+        // Send the request
+        conn.sendRequestHeader(request);
+        if (request instanceof HttpEntityEnclosingRequest) {
+            conn.sendRequestEntity((HttpEntityEnclosingRequest) request);
+        }
+        conn.flush();
 
-            // Get the response
-            HttpResponse response = conn.receiveResponseHeader();
-            conn.receiveResponseEntity(response);
+        // Get the response, the entity has to be consumed entirely for the connection to be reused
+        HttpResponse response = conn.receiveResponseHeader();
+        conn.receiveResponseEntity(response);
+        HttpEntity entity = response.getEntity();
+        String content = entity == null ? null : EntityUtils.toString(entity, StandardCharsets.UTF_8);
 
-            // Check status
-            if (response.getStatusLine().getStatusCode() >= 300) {
+        return new Response(response.getStatusLine().getStatusCode(),
+                response.getStatusLine().getReasonPhrase(),
+                content,
+                DefaultConnectionReuseStrategy.INSTANCE.keepAlive(response, new BasicHttpContext()));
+    }
+
+    private static final class Response {
+        private final int statusCode;
+        private final String reasonPhrase;
+        private final String content;
+        private final boolean keepAlive;
+
+        Response(int statusCode, String reasonPhrase, String content, boolean keepAlive) {
+            this.statusCode = statusCode;
+            this.reasonPhrase = reasonPhrase;
+            this.content = content;
+            this.keepAlive = keepAlive;
+        }
+
+        Response check() {
+            if (statusCode >= 300) {
                 throw new RuntimeException(String.format(
                         "ImageioClient request failed. Status: %s, Reason: %s, Error: %s.",
-                        response.getStatusLine().getStatusCode(),
-                        response.getStatusLine().getReasonPhrase(),
-                        readContent(response.getEntity().getContent())));
+                        statusCode,
+                        reasonPhrase,
+                        content));
             }
-
-            HttpEntity entity = response.getEntity();
-            if (entity == null) {
+            if (content == null) {
                 throw new RuntimeException("Empty response");
             }
+            return this;
+        }
+    }
 
-            // Return the HTTP entity
-            return entity;
-        } catch (HttpException | IOException e) {
-            throw new RuntimeException(e.getMessage(), e);
+    private static final class PooledConnection {
+        private final ConnectionPool pool;
+        private DefaultBHttpClientConnection connection;
+        private long lastUsed;
+        private boolean reused;
+
+        PooledConnection(ConnectionPool pool) {
+            this.pool = pool;
+            this.connection = pool.connect();
+        }
+
+        void reconnect() {
+            close();
+            connection = pool.connect();
+            reused = false;
+        }
+
+        boolean isReusable() {
+            return connection.isOpen()
+                    && System.currentTimeMillis() - lastUsed < MAX_IDLE_MILLIS
+                    && !connection.isStale();
+        }
+
+        void close() {
+            try {
+                connection.close();
+            } catch (IOException e) {
+                log.debug("Failed to close imageio connection: {}", e.getMessage());
+            }
         }
     }
 
-    private String readContent(InputStream inputStream) {
-        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-        return reader.lines().collect(Collectors.joining());
+    private static final class ConnectionPool {
+        private final String hostname;
+        private final int port;
+        private final String address;
+        private final Semaphore permits = new Semaphore(MAX_CONNECTIONS_PER_DAEMON, true);
+        private final Deque<PooledConnection> idleConnections = new ConcurrentLinkedDeque<>();
+        private volatile long lastUsed = System.currentTimeMillis();
+        private volatile boolean closed;
+
+        ConnectionPool(String hostname, int port) {
+            this.hostname = hostname;
+            this.port = port;
+            this.address = hostname + ":" + port;
+        }
+
+        /**
+         * Closes the pool if none of its connections was used for {@link #MAX_IDLE_MILLIS}, which is the time the idle
+         * connections are kept for anyway. All the permits are held while checking, so no connection can be acquired
+         * meanwhile.
+         *
+         * @return {@code true} if the pool was closed
+         */
+        boolean closeIfUnused() {
+            if (!permits.tryAcquire(MAX_CONNECTIONS_PER_DAEMON)) {
+                return false;
+            }
+            try {
+                if (System.currentTimeMillis() - lastUsed < MAX_IDLE_MILLIS) {
+                    return false;
+                }
+                closed = true;
+            } finally {
+                permits.release(MAX_CONNECTIONS_PER_DAEMON);
+            }
+            PooledConnection conn;
+            while ((conn = idleConnections.pollFirst()) != null) {
+                conn.close();
+            }
+            return true;
+        }
+
+        /**
+         * Returns the most recently used idle connection which is still usable or a new connection. Every acquired
+         * connection must be released by {@link #release(PooledConnection, boolean)}.
+         *
+         * @return the connection, or {@code null} if the pool was closed
+         */
+        PooledConnection acquire() {
+            try {
+                if (!permits.tryAcquire(CONNECTION_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                    throw new RuntimeException(String.format(
+                            "Timed out waiting for a connection to imageio daemon %s", address));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e.getMessage(), e);
+            }
+            if (closed) {
+                permits.release();
+                return null;
+            }
+
+            try {
+                PooledConnection conn;
+                while ((conn = idleConnections.pollFirst()) != null) {
+                    if (conn.isReusable()) {
+                        conn.reused = true;
+                        return conn;
+                    }
+                    conn.close();
+                }
+                return new PooledConnection(this);
+            } catch (RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        DefaultBHttpClientConnection connect() {
+            try {
+                Socket socket = new Socket(hostname, port);
+                // Bind socket to HTTP client
+                DefaultBHttpClientConnection conn = new DefaultBHttpClientConnection(CLIENT_BUFFER_SIZE);
+                conn.bind(socket);
+                return conn;
+            } catch (IOException e) {
+                throw new RuntimeException(e.getMessage(), e);
+            }
+        }
+
+        void release(PooledConnection conn, boolean reusable) {
+            lastUsed = System.currentTimeMillis();
+            try {
+                if (reusable) {
+                    conn.lastUsed = System.currentTimeMillis();
+                    idleConnections.offerFirst(conn);
+                } else {
+                    conn.close();
+                }
+            } finally {
+                permits.release();
+            }
+        }
     }
 }
@@ -130,6 +130,7 @@ public class ActivateStorageDomainCommand<T extends StorageDomainPoolParametersB
             }
             return null;
         });
+        domainStatusesChanged();
         refreshAllVdssInPool();
 
         log.info("ActivateStorage Domain. After change storage pool status in vds. Time: {}",
@@ -131,6 +131,7 @@ public class AttachStorageDomainToPoolCommand<T extends AttachStorageDomainToPoo
                     getCompensationContext().stateChanged();
                     return null;
                 });
+                domainStatusesChanged();
 
                 List<Pair<Guid, Boolean>> hostsConnectionResults = connectHostsInUpToDomainStorageServer();
                 if (isAllHostConnectionFailed(hostsConnectionResults)) {
@@ -216,6 +217,7 @@ public class AttachStorageDomainToPoolCommand<T extends AttachStorageDomainToPoo
                     updateStorageDomainFormatIfNeeded(getStorageDomain());
                     return null;
                 });
+                domainStatusesChanged();
 
                 if (getParameters().getActivate()) {
                     attemptToActivateDomain();
@@ -429,6 +429,7 @@ public class DeactivateStorageDomainCommand<T extends StorageDomainPoolParameter
             }
             return null;
         });
+        domainStatusesChanged();
 
         if (!getParameters().isSkipChecks()) {
             notifyAsyncTasks();
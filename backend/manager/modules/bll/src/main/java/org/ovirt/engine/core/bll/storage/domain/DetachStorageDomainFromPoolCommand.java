@@ -172,6 +172,7 @@ public class DetachStorageDomainFromPoolCommand<T extends DetachStorageDomainFro
         storagePoolIsoMapDao.remove(new StoragePoolIsoMapId(mapToRemove.getStorageId(),
                 mapToRemove.getStoragePoolId()));
         getCompensationContext().stateChanged();
+        domainStatusesChanged();
     }
 
     private void detachCinderStorageDomain() {
@@ -31,6 +31,8 @@ public class ForceRemoveStorageDomainCommand<T extends StorageDomainParametersBa
 
     @Inject
     private StorageDomainDao storageDomainDao;
+    @Inject
+    private IsoDomainListSynchronizer isoDomainListSynchronizer;
 
     @Inject
     private VmDao vmDao;
@@ -83,6 +85,7 @@ public class ForceRemoveStorageDomainCommand<T extends StorageDomainParametersBa
                 .storageDomainRemoved(getStorageDomain().getStorageStaticData());
 
         storageDomainDao.remove(getStorageDomain().getId());
+        isoDomainListSynchronizer.domainRemoved(getStorageDomain().getId());
 
         if (isAttachedStorageDomain()) {
             // if iso reset path for pool
@@ -1,22 +1,30 @@
 package org.ovirt.engine.core.bll.storage.domain;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
-import org.apache.commons.lang.mutable.MutableLong;
 import org.ovirt.engine.core.bll.VmHandler;
 import org.ovirt.engine.core.bll.provider.ProviderProxyFactory;
 import org.ovirt.engine.core.bll.provider.storage.OpenStackImageProviderProxy;
@@ -49,7 +57,7 @@ import org.ovirt.engine.core.dao.StorageDomainDao;
 import org.ovirt.engine.core.dao.StoragePoolIsoMapDao;
 import org.ovirt.engine.core.dao.provider.ProviderDao;
 import org.ovirt.engine.core.utils.threadpool.ThreadPoolUtil;
-import org.ovirt.engine.core.utils.transaction.TransactionMethod;
+import org.ovirt.engine.core.utils.transaction.TransactionSuccessListener;
 import org.ovirt.engine.core.utils.transaction.TransactionSupport;
 import org.ovirt.engine.core.vdsbroker.vdsbroker.VdsProperties;
 import org.slf4j.Logger;
@@ -61,6 +69,11 @@ import org.slf4j.LoggerFactory;
  * The cache is being refreshed with quartz scheduler which run by configuration value AutoRepoDomainRefreshTime. The
  * cache procedure using VDSM to fetch the Iso files from all the Data Centers and update the DB cache table with the
  * appropriate file data.<BR/>
+ * Only the files which were added, removed or changed since the previous refresh are written to the DB cache table,
+ * which is also kept in memory and written through. A single refresh of a domain and file type runs at a time, and
+ * once the list of a domain and file type was refreshed successfully, expired lists, and lists requested to be
+ * refreshed, are refreshed in the background while the cached list is returned. After a failed refresh, the next
+ * request waits for the refresh again.<BR/>
  */
 @SuppressWarnings("synthetic-access")
 @Singleton
@@ -73,7 +86,12 @@ public class IsoDomainListSynchronizer implements BackendService {
     private static final Pattern FLOPPY_FILE_PATTERN_REGEX = Pattern.compile("^.*\\.vfd$", Pattern.CASE_INSENSITIVE);
     private static final String ALL_FILES_PATTERN = "*";
 
-    private ConcurrentMap<Guid, MutableLong> domainsLastRefreshedTime = new ConcurrentHashMap<>();
+    /**
+     * The time of the last successful refresh of each domain and file type, -1 until the list was refreshed and after
+     * a refresh failed.
+     */
+    private final ConcurrentMap<Pair<Guid, ImageFileType>, AtomicLong> domainsLastRefreshedTime =
+            new ConcurrentHashMap<>();
 
     @Inject
     private AuditLogDirector auditLogDirector;
@@ -101,6 +119,26 @@ public class IsoDomainListSynchronizer implements BackendService {
 
     private final ConcurrentMap<Object, Lock> syncDomainForFileTypeMap = new ConcurrentHashMap<>();
 
+    /**
+     * The repository files of each domain and file type, as they are stored in the DB cache table. The cached lists
+     * are replaced when they are refreshed and are never changed.
+     */
+    private final ConcurrentMap<Pair<Guid, ImageFileType>, List<RepoImage>> cachedRepoImages =
+            new ConcurrentHashMap<>();
+
+    /**
+     * The locks of the cached lists of each domain. A list is read from the DB and is replaced while holding the lock
+     * of its domain, so a list read before a refresh was written can't be cached after the refresh evicted it.
+     */
+    private final ConcurrentMap<Guid, Object> cachedRepoImagesLocks = new ConcurrentHashMap<>();
+
+    /**
+     * The refreshes in progress of each domain and file type, which are joined by the requests for the same refresh
+     * instead of starting another one.
+     */
+    private final ConcurrentMap<Pair<Guid, ImageFileType>, CompletableFuture<Boolean>> refreshesInProgress =
+            new ConcurrentHashMap<>();
+
     public static final String TOOL_CLUSTER_LEVEL = "clusterLevel";
     public static final String TOOL_VERSION = "toolVersion";
 
@@ -125,7 +163,8 @@ public class IsoDomainListSynchronizer implements BackendService {
      * @param imageType
      *            - The imageType we want to fetch the files from the cache.
      * @param forceRefresh
-     *            - Indicates if the domain should be refreshed from VDSM.
+     *            - Indicates if the domain should be refreshed from VDSM, even if the cached list did not expire. Once
+     *            the list of the domain was refreshed, the cached list is returned while it is refreshed.
      * @return List of RepoFilesMetaData files.
      * @throws EngineException
      *             - if a problem occurs when refreshing the image repo cache.
@@ -145,20 +184,74 @@ public class IsoDomainListSynchronizer implements BackendService {
     }
 
     private void refreshReposIfNeeded(Guid storageDomainId, ImageFileType imageType, Boolean forceRefresh) {
-        MutableLong lastRefreshed = domainsLastRefreshedTime.computeIfAbsent(storageDomainId, k -> new MutableLong(-1));
-
-        if (shouldForceRefresh(forceRefresh) || shouldInvalidateCache(lastRefreshed.longValue())) {
-            synchronized (lastRefreshed) {
-                // Double check as another thread might have already finished a refresh and released the lock
-                if (shouldForceRefresh(forceRefresh) || shouldInvalidateCache(lastRefreshed.longValue())) {
-                    boolean refreshSucceeded = refreshRepos(storageDomainId, imageType);
-                    lastRefreshed.setValue(System.currentTimeMillis());
-                    if (!refreshSucceeded) {
-                        throw new EngineException(EngineError.IMAGES_NOT_SUPPORTED_ERROR);
-                    }
-                }
+        AtomicLong lastRefreshed = domainsLastRefreshedTime.computeIfAbsent(new Pair<>(storageDomainId, imageType),
+                k -> new AtomicLong(-1));
+        if (!shouldForceRefresh(forceRefresh) && !shouldInvalidateCache(lastRefreshed.get())) {
+            return;
+        }
+
+        // A list which was already refreshed is returned while it is refreshed in the background, so the requests,
+        // which are forced by default, don't wait for the domain each time; only the first refresh, and the refresh
+        // after a failed one, are waited for
+        if (lastRefreshed.get() != -1) {
+            refreshRepos(storageDomainId, imageType, lastRefreshed, ThreadPoolUtil::execute)
+                    .whenComplete((refreshSucceeded, e) -> {
+                        if (e != null) {
+                            log.warn("Failed refreshing storage domain '{}' in the background: {}",
+                                    storageDomainId,
+                                    e.getMessage());
+                            log.debug("Exception", e);
+                        }
+                    });
+            return;
+        }
+
+        boolean refreshSucceeded;
+        try {
+            refreshSucceeded = refreshRepos(storageDomainId, imageType, lastRefreshed, Runnable::run).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
             }
+            throw e;
         }
+        if (!refreshSucceeded) {
+            throw new EngineException(EngineError.IMAGES_NOT_SUPPORTED_ERROR);
+        }
+    }
+
+    /**
+     * Refreshes the given file type of the given storage domain with the given executor, unless it is already being
+     * refreshed.
+     *
+     * @return the refresh in progress, which completes with its result
+     */
+    private CompletableFuture<Boolean> refreshRepos(Guid storageDomainId,
+            ImageFileType imageType,
+            AtomicLong lastRefreshed,
+            Executor executor) {
+        Pair<Guid, ImageFileType> key = new Pair<>(storageDomainId, imageType);
+        CompletableFuture<Boolean> refresh = new CompletableFuture<>();
+        CompletableFuture<Boolean> refreshInProgress = refreshesInProgress.putIfAbsent(key, refresh);
+        if (refreshInProgress != null) {
+            return refreshInProgress;
+        }
+
+        executor.execute(() -> {
+            try {
+                boolean refreshSucceeded = refreshRepos(storageDomainId, imageType);
+                // After a failed refresh the list is not served from the cache, so the next request waits for the
+                // refresh and gets the error
+                lastRefreshed.set(refreshSucceeded ? System.currentTimeMillis() : -1);
+                refresh.complete(refreshSucceeded);
+            } catch (RuntimeException e) {
+                lastRefreshed.set(-1);
+                refresh.completeExceptionally(e);
+            } finally {
+                refreshesInProgress.remove(key, refresh);
+            }
+        });
+        return refresh;
     }
 
     private boolean shouldForceRefresh(Boolean forceRefresh) {
@@ -169,7 +262,7 @@ public class IsoDomainListSynchronizer implements BackendService {
         return System.currentTimeMillis() > lastRefreshed + getInvalidateCachePeriodFromConfig();
     }
 
-    private boolean refreshRepos(Guid storageDomainId, ImageFileType imageType) {
+    boolean refreshRepos(Guid storageDomainId, ImageFileType imageType) {
         boolean refreshResult;
         List<RepoImage> tempProblematicRepoFileList = new ArrayList<>();
         StorageDomain storageDomain = storageDomainDao.get(storageDomainId);
@@ -202,10 +295,8 @@ public class IsoDomainListSynchronizer implements BackendService {
         Lock syncObject = getSyncObject(storageDomain.getId(), imageType);
         try {
             syncObject.lock();
-            return TransactionSupport.executeInScope(TransactionScopeOption.RequiresNew,
+            List<RepoImage> cachedImages = TransactionSupport.executeInScope(TransactionScopeOption.RequiresNew,
                     () -> {
-                        repoFileMetaDataDao.removeRepoDomainFileList(storageDomain.getId(), imageType);
-
                         Integer totalListSize = Config.<Integer> getValue(ConfigValues.GlanceImageTotalListSize);
                         List<RepoImage> repoImages = client.getAllImagesAsRepoImages(
                                 Config.<Integer> getValue(ConfigValues.GlanceImageListSize), totalListSize);
@@ -219,13 +310,21 @@ public class IsoDomainListSynchronizer implements BackendService {
                             auditLogDirector.log(logable, AuditLogType.REFRESH_REPOSITORY_IMAGE_LIST_INCOMPLETE);
                         }
 
+                        long currentTime = System.currentTimeMillis();
                         for (RepoImage repoImage : repoImages) {
                             repoImage.setRepoDomainId(storageDomain.getId());
-                            repoFileMetaDataDao.addRepoFileMap(repoImage);
+                            repoImage.setLastRefreshed(currentTime);
+                        }
+                        if (imageType != ImageFileType.All) {
+                            repoImages = repoImages.stream()
+                                    .filter(repoImage -> repoImage.getFileType() == imageType)
+                                    .collect(Collectors.toList());
                         }
 
-                        return true;
+                        return updateRepoFileList(storageDomain.getId(), imageType, repoImages, currentTime);
                     });
+            setCachedRepoImages(storageDomain.getId(), imageType, cachedImages);
+            return true;
         } finally {
             syncObject.unlock();
         }
@@ -382,12 +481,57 @@ public class IsoDomainListSynchronizer implements BackendService {
             ImageFileType imageType) {
         List<RepoImage> fileListMD = new ArrayList<>();
         if (isoStorageDomainId != null) {
-            fileListMD =
-                    repoFileMetaDataDao.getRepoListForStorageDomain(isoStorageDomainId, imageType);
+            ImageFileType fileType = imageType != null ? imageType : ImageFileType.All;
+            Pair<Guid, ImageFileType> key = new Pair<>(isoStorageDomainId, fileType);
+            List<RepoImage> repoImages = cachedRepoImages.get(key);
+            if (repoImages == null) {
+                synchronized (getCachedRepoImagesLock(isoStorageDomainId)) {
+                    repoImages = cachedRepoImages.computeIfAbsent(key,
+                            k -> repoFileMetaDataDao.getRepoListForStorageDomain(isoStorageDomainId, fileType));
+                }
+            }
+            fileListMD.addAll(repoImages);
         }
         return fileListMD;
     }
 
+    /**
+     * Drops the cached lists and refresh times of a removed domain. They are dropped again once the current
+     * transaction is committed, so a list read from the DB before the domain was removed is not kept.
+     */
+    public void domainRemoved(Guid storageDomainId) {
+        evictDomain(storageDomainId);
+        if (TransactionSupport.current() != null) {
+            TransactionSupport.registerRollbackHandler(
+                    (TransactionSuccessListener) () -> evictDomain(storageDomainId));
+        }
+    }
+
+    private void evictDomain(Guid storageDomainId) {
+        synchronized (getCachedRepoImagesLock(storageDomainId)) {
+            cachedRepoImages.keySet().removeIf(key -> key.getFirst().equals(storageDomainId));
+        }
+        domainsLastRefreshedTime.keySet().removeIf(key -> key.getFirst().equals(storageDomainId));
+        syncDomainForFileTypeMap.keySet().removeIf(key -> ((Pair<?, ?>) key).getFirst().equals(storageDomainId));
+        cachedRepoImagesLocks.remove(storageDomainId);
+    }
+
+    private Object getCachedRepoImagesLock(Guid storageDomainId) {
+        return cachedRepoImagesLocks.computeIfAbsent(storageDomainId, k -> new Object());
+    }
+
+    /**
+     * Replaces the cached list of the given domain and file type with the given list, which was written to the DB. The
+     * lists of the domain which contain the given file type or are contained by it are evicted.
+     */
+    private void setCachedRepoImages(Guid storageDomainId, ImageFileType imageType, List<RepoImage> repoImages) {
+        synchronized (getCachedRepoImagesLock(storageDomainId)) {
+            cachedRepoImages.keySet().removeIf(key -> key.getFirst().equals(storageDomainId)
+                    && (imageType == ImageFileType.All || key.getSecond() == ImageFileType.All));
+            cachedRepoImages.put(new Pair<>(storageDomainId, imageType), repoImages);
+        }
+    }
+
     /**
      * Print information on the problematic storage domain. Mainly transfer the business entity to list, for handling
      * the error uniformly.
@@ -498,30 +642,17 @@ public class IsoDomainListSynchronizer implements BackendService {
         Lock syncObject = getSyncObject(repoStorageDomainId, imageType);
         try {
             syncObject.lock();
-            return (Boolean) TransactionSupport.executeInScope(TransactionScopeOption.RequiresNew,
-                    new TransactionMethod<Object>() {
-                        @Override
-                        public Object runInTransaction() {
-                            long currentTime = System.currentTimeMillis();
-                            repoFileMetaDataDao.removeRepoDomainFileList(repoStorageDomainId, imageType);
-                            for (Map.Entry<String, Map<String, Object>> entry : fileStats.entrySet()) {
-                                repoFileMetaDataDao.addRepoFileMap(newRepoImage(currentTime, entry));
-                            }
-                            return true;
-                        }
-
-                        public RepoImage newRepoImage(long currentTime, Map.Entry<String, Map<String, Object>> entry) {
-                            RepoImage repo_md = new RepoImage();
-                            repo_md.setLastRefreshed(currentTime);
-                            repo_md.setSize(retrieveIsoFileSize(entry));
-                            repo_md.setRepoDomainId(repoStorageDomainId);
-                            repo_md.setDateCreated(null);
-                            repo_md.setRepoImageId(entry.getKey());
-                            repo_md.setRepoImageName(null);
-                            repo_md.setFileType(imageType);
-                            return repo_md;
+            List<RepoImage> cachedImages = TransactionSupport.executeInScope(TransactionScopeOption.RequiresNew,
+                    () -> {
+                        long currentTime = System.currentTimeMillis();
+                        List<RepoImage> repoImages = new ArrayList<>(fileStats.size());
+                        for (Map.Entry<String, Map<String, Object>> entry : fileStats.entrySet()) {
+                            repoImages.add(newRepoImage(repoStorageDomainId, imageType, currentTime, entry));
                         }
+                        return updateRepoFileList(repoStorageDomainId, imageType, repoImages, currentTime);
                     });
+            setCachedRepoImages(repoStorageDomainId, imageType, cachedImages);
+            return true;
         } catch (Exception e) {
             log.warn("Updating repository content to DB failed for repoStorageDomainId={}, imageType={}: {}",
                     repoStorageDomainId,
@@ -534,6 +665,84 @@ public class IsoDomainListSynchronizer implements BackendService {
         }
     }
 
+    private static RepoImage newRepoImage(Guid repoStorageDomainId,
+            ImageFileType imageType,
+            long currentTime,
+            Map.Entry<String, Map<String, Object>> entry) {
+        RepoImage repo_md = new RepoImage();
+        repo_md.setLastRefreshed(currentTime);
+        repo_md.setSize(retrieveIsoFileSize(entry));
+        repo_md.setRepoDomainId(repoStorageDomainId);
+        repo_md.setDateCreated(null);
+        repo_md.setRepoImageId(entry.getKey());
+        repo_md.setRepoImageName(null);
+        repo_md.setFileType(imageType);
+        return repo_md;
+    }
+
+    /**
+     * Updates the DB cache table of the given domain and file type to contain the given repository files. Only the
+     * files which were added, removed or changed are written, the refresh time of the rest is updated at once.
+     *
+     * @return the given repository files, as they are stored in the DB cache table
+     */
+    List<RepoImage> updateRepoFileList(Guid repoStorageDomainId,
+            ImageFileType imageType,
+            List<RepoImage> repoImages,
+            long currentTime) {
+        Map<String, RepoImage> storedRepoImages =
+                repoFileMetaDataDao.getRepoListForStorageDomain(repoStorageDomainId, imageType)
+                        .stream()
+                        .collect(Collectors.toMap(RepoImage::getRepoImageId, Function.identity()));
+        Map<String, RepoImage> refreshedRepoImages = new LinkedHashMap<>();
+        for (RepoImage repoImage : repoImages) {
+            refreshedRepoImages.put(repoImage.getRepoImageId(), repoImage);
+        }
+
+        List<String> removedRepoImageIds = new ArrayList<>();
+        for (RepoImage storedRepoImage : storedRepoImages.values()) {
+            RepoImage refreshedRepoImage = refreshedRepoImages.get(storedRepoImage.getRepoImageId());
+            if (refreshedRepoImage == null || !isSameRepoFile(storedRepoImage, refreshedRepoImage)) {
+                removedRepoImageIds.add(storedRepoImage.getRepoImageId());
+            }
+        }
+        List<RepoImage> addedRepoImages = new ArrayList<>();
+        for (RepoImage refreshedRepoImage : refreshedRepoImages.values()) {
+            RepoImage storedRepoImage = storedRepoImages.get(refreshedRepoImage.getRepoImageId());
+            if (storedRepoImage == null || !isSameRepoFile(storedRepoImage, refreshedRepoImage)) {
+                addedRepoImages.add(refreshedRepoImage);
+            }
+        }
+
+        if (!removedRepoImageIds.isEmpty()) {
+            repoFileMetaDataDao.removeRepoFiles(repoStorageDomainId, removedRepoImageIds);
+        }
+        repoFileMetaDataDao.updateRepoDomainFileListLastRefreshed(repoStorageDomainId, imageType, currentTime);
+        for (RepoImage repoImage : addedRepoImages) {
+            repoFileMetaDataDao.addRepoFileMap(repoImage);
+        }
+        log.debug("Refreshed {} files of type '{}' of storage domain '{}', {} removed or changed, {} added or changed.",
+                refreshedRepoImages.size(),
+                imageType,
+                repoStorageDomainId,
+                removedRepoImageIds.size(),
+                addedRepoImages.size());
+
+        return new ArrayList<>(refreshedRepoImages.values());
+    }
+
+    private static boolean isSameRepoFile(RepoImage storedRepoImage, RepoImage refreshedRepoImage) {
+        return Objects.equals(storedRepoImage.getRepoImageName(), refreshedRepoImage.getRepoImageName())
+                && Objects.equals(storedRepoImage.getSize(), refreshedRepoImage.getSize())
+                && storedRepoImage.getFileType() == refreshedRepoImage.getFileType()
+                && Objects.equals(getTime(storedRepoImage.getDateCreated()),
+                        getTime(refreshedRepoImage.getDateCreated()));
+    }
+
+    private static Long getTime(Date date) {
+        return date != null ? date.getTime() : null;
+    }
+
     private static Long retrieveIsoFileSize(Map.Entry<String, Map<String, Object>> fileStats) {
         try {
             Object fileSize = fileStats.getValue().get(VdsProperties.size);
@@ -43,6 +43,8 @@ public class RemoveStorageDomainCommand<T extends RemoveStorageDomainParameters>
     private StoragePoolIsoMapDao storagePoolIsoMapDao;
     @Inject
     private StorageDomainDao storageDomainDao;
+    @Inject
+    private IsoDomainListSynchronizer isoDomainListSynchronizer;
 
     public RemoveStorageDomainCommand(T parameters, CommandContext commandContext) {
         super(parameters, commandContext);
@@ -86,6 +88,7 @@ public class RemoveStorageDomainCommand<T extends RemoveStorageDomainParameters>
             storageDomainDao.remove(dom.getId());
             return null;
         });
+        isoDomainListSynchronizer.domainRemoved(dom.getId());
 
         setSucceeded(true);
     }
@@ -216,6 +216,7 @@ public abstract class StorageDomainCommandBase<T extends StorageDomainParameters
             }
             getStorageDomain().setStatus(status);
             storagePoolIsoMapDao.updateStatus(map.getId(), status);
+            domainStatusesChanged();
         }
     }
 
@@ -384,6 +385,7 @@ public abstract class StorageDomainCommandBase<T extends StorageDomainParameters
             context.stateChanged();
             return null;
         });
+        domainStatusesChanged();
     }
 
     protected void changeDomainStatusWithCompensation(StoragePoolIsoMap map, StorageDomainStatus compensateStatus,
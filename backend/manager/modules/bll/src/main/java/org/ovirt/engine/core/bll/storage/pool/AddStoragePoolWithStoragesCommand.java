@@ -214,6 +214,7 @@ public class AddStoragePoolWithStoragesCommand<T extends StoragePoolWithStorages
             getCompensationContext().stateChanged();
             return true;
         });
+        domainStatusesChanged();
         return result && masterStorageDomain != null;
     }
 
@@ -247,6 +248,7 @@ public class AddStoragePoolWithStoragesCommand<T extends StoragePoolWithStorages
                             StorageDomainStatus.Inactive);
                     return null;
                 });
+                domainStatusesChanged();
             }
         }
 
@@ -129,6 +129,7 @@ public class RecoveryStoragePoolCommand extends StorageDomainCommandBase<Reconst
                         if (!reconstructVerbExecuted) {
                             storagePoolIsoMapDao.remove(domainPoolMap.getId());
                         }
+                        domainStatusesChanged();
 
                         if (returnVal.getSucceeded()) {
                             updateStorageDomainFormatIfNeeded(loadTargetedMasterDomain());
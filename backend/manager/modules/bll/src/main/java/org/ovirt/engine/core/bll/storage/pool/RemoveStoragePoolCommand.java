@@ -9,9 +9,11 @@ import javax.inject.Inject;
 
 import org.ovirt.engine.core.bll.LockMessagesMatchUtil;
 import org.ovirt.engine.core.bll.NonTransactiveCommandAttribute;
+import org.ovirt.engine.core.bll.PermissionResolver;
 import org.ovirt.engine.core.bll.context.CommandContext;
 import org.ovirt.engine.core.bll.network.ExternalNetworkManagerFactory;
 import org.ovirt.engine.core.bll.storage.StorageHandlingCommandBase;
+import org.ovirt.engine.core.bll.storage.domain.IsoDomainListSynchronizer;
 import org.ovirt.engine.core.bll.validator.storage.StoragePoolValidator;
 import org.ovirt.engine.core.common.AuditLogType;
 import org.ovirt.engine.core.common.action.ActionType;
@@ -57,11 +59,15 @@ public class RemoveStoragePoolCommand<T extends StoragePoolParametersBase> exten
     @Inject
     private StorageDomainDao storageDomainDao;
     @Inject
+    private IsoDomainListSynchronizer isoDomainListSynchronizer;
+    @Inject
     private StoragePoolDao storagePoolDao;
     @Inject
     private VmNicDao vmNicDao;
     @Inject
     private VdsDao vdsDao;
+    @Inject
+    private PermissionResolver permissionResolver;
 
     private Map<String, Pair<String, String>> sharedLocks;
 
@@ -108,6 +114,7 @@ public class RemoveStoragePoolCommand<T extends StoragePoolParametersBase> exten
         TransactionSupport.executeInNewTransaction(() -> {
             getCompensationContext().snapshotEntity(getStoragePool());
             storagePoolDao.remove(getStoragePool().getId());
+            permissionResolver.parentsChanged(getStoragePool().getId());
             getCompensationContext().stateChanged();
 
             return null;
@@ -216,6 +223,7 @@ public class RemoveStoragePoolCommand<T extends StoragePoolParametersBase> exten
             storageDomainDao.remove(domain.getId());
             return null;
         });
+        isoDomainListSynchronizer.domainRemoved(domain.getId());
 
     }
 
@@ -193,6 +193,7 @@ public class SwitchMasterStorageDomainCommand<T extends SwitchMasterStorageDomai
         mapOfDomain.setStatus(StorageDomainStatus.Active);
         storageDomainStaticDao.update(sd.getStorageStaticData());
         storagePoolIsoMapDao.updateStatus(mapOfDomain.getId(), mapOfDomain.getStatus());
+        domainStatusesChanged();
     }
 
     protected StorageDomain getCurrentMasterStorageDomain() {
@@ -2,10 +2,12 @@ package org.ovirt.engine.core.bll.tasks;
 
 import java.io.Serializable;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -19,26 +21,33 @@ import org.ovirt.engine.core.compat.Guid;
 import org.ovirt.engine.core.dao.CommandEntityDao;
 import org.ovirt.engine.core.utils.transaction.TransactionSupport;
 
+/**
+ * Keeps the persisted commands in memory.
+ * <p>
+ * The commands are loaded from the DB on first use, with their parameters and return values left serialized until
+ * they are requested, so the engine doesn't deserialize every persisted command on startup. The commands are kept in a
+ * concurrent map, so looking up and updating commands does not block each other, only the first use waits for the
+ * commands to be loaded.
+ */
 @Singleton
 public class CommandsCacheImpl implements CommandsCache {
 
-    private Map<Guid, CommandEntity> commandMap;
+    private final ConcurrentMap<Guid, CommandEntity> commandMap = new ConcurrentHashMap<>();
     private volatile boolean cacheInitialized;
-    private Object LOCK = new Object();
+    private final Object LOCK = new Object();
 
-    @Inject
-    private CommandEntityDao commandEntityDao;
+    private final CommandEntityDao commandEntityDao;
 
-    public CommandsCacheImpl() {
-        commandMap = new HashMap<>();
+    @Inject
+    public CommandsCacheImpl(CommandEntityDao commandEntityDao) {
+        this.commandEntityDao = commandEntityDao;
     }
 
     private void initializeCache() {
         if (!cacheInitialized) {
             synchronized(LOCK) {
                 if (!cacheInitialized) {
-                    List<CommandEntity> cmdEntities = commandEntityDao.getAll();
-                    for (CommandEntity cmdEntity : cmdEntities) {
+                    for (CommandEntity cmdEntity : commandEntityDao.getAll()) {
                         commandMap.put(cmdEntity.getId(), cmdEntity);
                     }
                     cacheInitialized = true;
@@ -61,12 +70,14 @@ public class CommandsCacheImpl implements CommandsCache {
 
     @Override
     public void remove(final Guid commandId) {
+        initializeCache();
         commandMap.remove(commandId);
         commandEntityDao.remove(commandId);
     }
 
     @Override
     public void put(final CommandEntity cmdEntity) {
+        initializeCache();
         commandMap.put(cmdEntity.getId(), cmdEntity);
         saveOrUpdateWithoutTransaction(cmdEntity);
     }
@@ -74,8 +85,15 @@ public class CommandsCacheImpl implements CommandsCache {
     @Override
     public void removeAllCommandsBeforeDate(DateTime cutoff) {
         commandEntityDao.removeAllBeforeDate(cutoff);
-        cacheInitialized = false;
-        initializeCache();
+        if (!cacheInitialized) {
+            return;
+        }
+
+        // Only the commands created before the cutoff may have been removed, so only the ids of the ones that were
+        // kept, since they still have tasks, are read
+        Set<Guid> remainingCmdIds = new HashSet<>(commandEntityDao.getIdsCreatedBeforeDate(cutoff));
+        commandMap.values().removeIf(cmdEntity -> cmdEntity.getCreatedAt().before(cutoff)
+                && !remainingCmdIds.contains(cmdEntity.getId()));
     }
 
     @Override
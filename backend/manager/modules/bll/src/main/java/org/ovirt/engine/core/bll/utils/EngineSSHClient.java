@@ -28,6 +28,7 @@ import org.ovirt.engine.core.di.Injector;
 import org.ovirt.engine.core.utils.crypt.EngineEncryptionUtils;
 import org.ovirt.engine.core.uutils.ssh.OpenSSHUtils;
 import org.ovirt.engine.core.uutils.ssh.SSHClient;
+import org.ovirt.engine.core.uutils.ssh.SSHSessionPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,6 +39,8 @@ public class EngineSSHClient extends SSHClient {
 
     private static final Logger log = LoggerFactory.getLogger(EngineSSHClient.class);
 
+    private static SSHSessionPool sessionPool;
+
     private final AtomicReference<VDS> vdsHolder = new AtomicReference<>();
     private final AtomicReference<PublicKey> hostPublicKeyHolder = new AtomicReference<>();
 
@@ -51,6 +54,25 @@ public class EngineSSHClient extends SSHClient {
                 TimeUnit.SECONDS.toMillis(Config.<Integer> getValue(ConfigValues.SSHInactivityHardTimeoutSeconds)));
         setSoftTimeout(
                 TimeUnit.SECONDS.toMillis(Config.<Integer> getValue(ConfigValues.SSHInactivityTimeoutSeconds)));
+        setSessionPool(getSessionPool());
+    }
+
+    /**
+     * Get the pool of the sessions authenticated by key, shared by all the clients.
+     *
+     * @return the pool, {@code null} if sessions are not reused.
+     */
+    private static synchronized SSHSessionPool getSessionPool() {
+        if (sessionPool == null) {
+            int idleTimeout = Config.<Integer> getValue(ConfigValues.SSHSessionPoolIdleTimeoutSeconds);
+            if (idleTimeout > 0) {
+                sessionPool = new SSHSessionPool(
+                        Config.<Integer> getValue(ConfigValues.SSHSessionPoolMaxSessionsPerHost),
+                        SSHSessionPool.DEFAULT_MAX_CHANNELS_PER_SESSION,
+                        TimeUnit.SECONDS.toMillis(idleTimeout));
+            }
+        }
+        return sessionPool;
     }
 
     @Override
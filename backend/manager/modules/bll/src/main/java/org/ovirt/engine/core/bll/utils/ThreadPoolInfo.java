@@ -47,7 +47,7 @@ public class ThreadPoolInfo {
                 threadStateMap.getOrDefault(Thread.State.BLOCKED, ZERO).get();
         int waitingThreads = threadStateMap.getOrDefault(Thread.State.TIMED_WAITING, ZERO).get() +
                 threadStateMap.getOrDefault(Thread.State.WAITING, ZERO).get();
-        return "engine".equals(poolName)
+        return "engine".equals(poolName) && ThreadPoolUtil.getExecutorService() instanceof InternalThreadExecutor
                 ? String.format(engineMsg,
                         poolName,
                         usedThreads,
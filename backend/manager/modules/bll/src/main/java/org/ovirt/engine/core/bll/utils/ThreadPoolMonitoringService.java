@@ -4,7 +4,10 @@ import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadInfo;
 import java.lang.management.ThreadMXBean;
 import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
 
@@ -15,6 +18,7 @@ import javax.inject.Singleton;
 
 import org.ovirt.engine.core.common.BackendService;
 import org.ovirt.engine.core.utils.EngineLocalConfig;
+import org.ovirt.engine.core.utils.threadpool.ThreadPoolUtil;
 import org.ovirt.engine.core.utils.threadpool.ThreadPools;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,6 +28,11 @@ public class ThreadPoolMonitoringService implements BackendService {
 
     private static Logger log = LoggerFactory.getLogger(ThreadPoolMonitoringService.class);
 
+    private static final String CARRIER_THREAD_PREFIX = "ForkJoinPool-";
+    private static final String CONTINUATION_CLASS = "jdk.internal.vm.Continuation";
+    private static final Set<Thread.State> BLOCKED_STATES =
+            EnumSet.of(Thread.State.BLOCKED, Thread.State.WAITING, Thread.State.TIMED_WAITING);
+
     @Inject
     @ThreadPools(ThreadPools.ThreadPoolType.EngineThreadMonitoringThreadPool)
     private ManagedScheduledExecutorService executor;
@@ -32,6 +41,12 @@ public class ThreadPoolMonitoringService implements BackendService {
 
     private Map<String, ThreadPoolInfo> threadPoolInfoMap = new TreeMap<>();
 
+    /**
+     * The location in native code of the carrier threads found running a virtual thread in native code by the last
+     * monitoring, by their id.
+     */
+    private Map<Long, StackTraceElement> carriersInNative = new HashMap<>();
+
     @PostConstruct
     public void init() {
         try {
@@ -63,12 +78,56 @@ public class ThreadPoolMonitoringService implements BackendService {
             threadPoolInfoMap.entrySet()
                     .stream()
                     .forEach(entry -> log.info(entry.getValue().toString()));
+            if (ThreadPoolUtil.isVirtualThreadsEnabled()) {
+                monitorCarrierThreads();
+            }
         } catch (Exception ex) {
             log.info("Error fetching thread pools data: {}", ex.getMessage());
             log.debug("Exception", ex);
         }
     }
 
+    /**
+     * A virtual thread blocking inside a synchronized block or a native call stays mounted and blocks the carrier
+     * thread it runs on too, when all the carrier threads are pinned no other virtual thread can run. A carrier thread
+     * running a virtual thread, i.e. which has a continuation in its stack, while being blocked is reported.
+     * <p>
+     * A virtual thread blocked in native I/O, e.g. reading a file or a socket through JNI, leaves its carrier thread
+     * RUNNABLE in native code, so such a carrier thread is reported too. As carrier threads run short native calls all
+     * the time, it is reported only when it is found in native code at the same location by two monitorings in a row.
+     */
+    private void monitorCarrierThreads() {
+        long[] carrierIds = Arrays.stream(threadMXBean.getThreadInfo(threadMXBean.getAllThreadIds()))
+                .filter(tInfo -> tInfo != null && tInfo.getThreadName().startsWith(CARRIER_THREAD_PREFIX))
+                .mapToLong(ThreadInfo::getThreadId)
+                .toArray();
+        Map<Long, StackTraceElement> inNative = new HashMap<>();
+        Arrays.stream(threadMXBean.getThreadInfo(carrierIds, Integer.MAX_VALUE))
+                .filter(tInfo -> tInfo != null && tInfo.getStackTrace().length > 0)
+                .filter(tInfo -> Arrays.stream(tInfo.getStackTrace())
+                        .anyMatch(frame -> CONTINUATION_CLASS.equals(frame.getClassName())))
+                .forEach(tInfo -> {
+                    StackTraceElement location = tInfo.getStackTrace()[0];
+                    if (BLOCKED_STATES.contains(tInfo.getThreadState())) {
+                        logPinnedCarrierThread(tInfo, location);
+                    } else if (tInfo.getThreadState() == Thread.State.RUNNABLE && tInfo.isInNative()) {
+                        inNative.put(tInfo.getThreadId(), location);
+                        if (location.equals(carriersInNative.get(tInfo.getThreadId()))) {
+                            logPinnedCarrierThread(tInfo, location);
+                        }
+                    }
+                });
+        carriersInNative = inNative;
+    }
+
+    private static void logPinnedCarrierThread(ThreadInfo tInfo, StackTraceElement location) {
+        log.warn("Carrier thread '{}' is pinned by a virtual thread in state {}{} at {}",
+                tInfo.getThreadName(),
+                tInfo.getThreadState(),
+                tInfo.isInNative() ? " (in native code)" : "",
+                location);
+    }
+
     private void processThread(ThreadInfo[] threadInfo) {
         Arrays.asList(threadInfo)
                 .stream()
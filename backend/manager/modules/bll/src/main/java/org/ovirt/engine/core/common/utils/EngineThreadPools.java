@@ -1,7 +1,10 @@
 package org.ovirt.engine.core.common.utils;
 
+import java.util.concurrent.Executor;
+
 import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
+import javax.enterprise.concurrent.ContextService;
 import javax.enterprise.concurrent.ManagedExecutorService;
 import javax.enterprise.concurrent.ManagedScheduledExecutorService;
 import javax.enterprise.concurrent.ManagedThreadFactory;
@@ -10,8 +13,10 @@ import javax.inject.Singleton;
 
 import org.ovirt.engine.core.common.BackendService;
 import org.ovirt.engine.core.utils.EngineLocalConfig;
+import org.ovirt.engine.core.utils.threadpool.PerKeyConcurrencyLimiter;
 import org.ovirt.engine.core.utils.threadpool.ThreadPoolUtil;
 import org.ovirt.engine.core.utils.threadpool.ThreadPools;
+import org.ovirt.engine.core.utils.threadpool.VirtualThreadExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -27,6 +32,7 @@ public class EngineThreadPools implements BackendService {
     public static final String ENGINE_THREAD_MONITORING_POOL_NAME =
             "java:jboss/ee/concurrency/scheduler/engineThreadMonitoringThreadPool";
     public static final String ENGINE_THREAD_FACTORY_NAME = "java:jboss/ee/concurrency/factory/engine";
+    public static final String DEFAULT_CONTEXT_SERVICE_NAME = "java:jboss/ee/concurrency/context/default";
 
     @Resource(lookup = EngineThreadPools.COMMAND_COORDINATOR_POOL_NAME)
     private ManagedExecutorService cocoPool;
@@ -43,8 +49,28 @@ public class EngineThreadPools implements BackendService {
     @Resource(lookup = ENGINE_THREAD_FACTORY_NAME)
     private static ManagedThreadFactory threadFactory;
 
+    @Resource(lookup = DEFAULT_CONTEXT_SERVICE_NAME)
+    private ContextService contextService;
+
     @PostConstruct
     private void init() {
+        EngineLocalConfig config = EngineLocalConfig.getInstance();
+        if (config.getBoolean("ENGINE_THREAD_POOL_VIRTUAL_THREADS", false)) {
+            if (VirtualThreadExecutor.isSupported()) {
+                log.info("Running engine thread pool tasks on virtual threads");
+                // The context service is the one of the engine thread factory, so the tasks get the same naming,
+                // security and transaction context on the virtual threads as on the threads of the factory
+                Executor taskContext = contextService.createContextualProxy((Executor) Runnable::run, Executor.class);
+                ThreadPoolUtil.setExecutorService(VirtualThreadExecutor.create("org.ovirt.thread.virtual-",
+                        taskContext));
+                ThreadPoolUtil.setHostConcurrencyLimiter(new PerKeyConcurrencyLimiter<>(
+                        config.getInteger("ENGINE_VIRTUAL_THREADS_MAX_CALLS_PER_HOST", 20)));
+                return;
+            }
+            log.warn("Virtual threads are not supported by the running Java version '{}', using the engine thread pool",
+                    System.getProperty("java.version"));
+        }
+
         // initialize ThreadPoolUtil
         ThreadPoolUtil.setExecutorService(
                 new InternalThreadExecutor(
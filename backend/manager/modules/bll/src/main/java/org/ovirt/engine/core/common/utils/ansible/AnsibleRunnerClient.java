@@ -9,8 +9,8 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -19,8 +19,6 @@ import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.function.BiConsumer;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import javax.inject.Singleton;
 
@@ -30,13 +28,16 @@ import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 
 @Singleton
 public class AnsibleRunnerClient {
     private static Logger log = LoggerFactory.getLogger(AnsibleRunnerClient.class);
+    private static final ObjectReader eventReader = new ObjectMapper().reader();
     private ObjectMapper mapper;
+    private Path runnerPath;
     private static final int POLL_INTERVAL = 3000;
 
     public AnsibleRunnerClient() {
@@ -47,61 +48,75 @@ public class AnsibleRunnerClient {
                 .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
     }
 
-    public Boolean playHasEnded(String uuid, int lastEventId) {
-        // get current status, but new events might have appeared since last processing
-        PlaybookStatus currentPlaybookStatus = getPlaybookStatus(uuid);
-        String msg = currentPlaybookStatus.getMsg();
-        return !msg.equalsIgnoreCase("running") && !(lastEventId < getTotalEvents(uuid));
+    /**
+     * @param runnerPath
+     *            the directory of the plays, instead of {@link AnsibleConstants#ANSIBLE_RUNNER_PATH}
+     */
+    AnsibleRunnerClient(Path runnerPath) {
+        this();
+        this.runnerPath = runnerPath;
     }
 
+    private Path getRunnerPath() {
+        return runnerPath != null ? runnerPath : AnsibleConstants.ANSIBLE_RUNNER_PATH;
+    }
+
+    /**
+     * Processes the events of the play as they are written, until the play ends. New events are awaited by watching
+     * the events directory of the play, so they are handled once written rather than on the next poll.
+     */
     public void artifactHandler(AnsibleReturnValue returnValue,
             int timeout,
             BiConsumer<String, String> fn,
             AnsibleRunnerLogger runnerLogger) throws Exception {
-        int executionTime = 0;
-        while (!playHasEnded(returnValue.getPlayUuid(), returnValue.getLastEventId())) {
-            processEvents(returnValue, fn, runnerLogger);
-            if (returnValue.getLastEventId() == -1) {
-                return;
-            }
-            executionTime += POLL_INTERVAL / 1000;
-            if (executionTime > timeout * 60) {
-                // Cancel playbook, and raise exception in case timeout occur:
-                cancelPlaybook(returnValue.getPlayUuid(), timeout);
-                throw new TimeoutException(
-                        "Play execution has reached timeout");
-            }
-            Thread.sleep(POLL_INTERVAL);
+        long deadline = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(timeout);
+        try (AnsibleRunnerEventsTail eventsTail = createEventsTail(returnValue.getPlayUuid(), true)) {
+            boolean playHasEnded;
+            do {
+                // the status is written after the last event, so the events processed next are all the events
+                playHasEnded = !getPlaybookStatus(returnValue.getPlayUuid()).getMsg().equalsIgnoreCase("running");
+                processEvents(returnValue, fn, runnerLogger, eventsTail);
+                if (returnValue.getLastEventId() == -1) {
+                    return;
+                }
+                if (!playHasEnded) {
+                    if (System.currentTimeMillis() > deadline) {
+                        // Cancel playbook, and raise exception in case timeout occur:
+                        cancelPlaybook(returnValue.getPlayUuid(), timeout);
+                        throw new TimeoutException(
+                                "Play execution has reached timeout");
+                    }
+                    eventsTail.awaitEvents(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                }
+            } while (!playHasEnded);
         }
         returnValue.setAnsibleReturnCode(AnsibleReturnCode.OK);
     }
 
-    public String getEventFileName(String playUuid, int eventId) {
-        String jobEvents = getJobEventsDir(playUuid);
-        if (!Files.exists(Paths.get(jobEvents))) {
-            return null;
-        }
-        // ignoring incompleted json files, add to list only events that haven't been handles yet.
-        return Stream.of(new File(jobEvents).listFiles())
-                .map(File::getName)
-                .filter(item -> !item.contains("partial"))
-                .filter(item -> !item.endsWith(".tmp"))
-                .filter(item -> item.startsWith(eventId + "-"))
-                .findFirst()
-                .orElse(null);
+    AnsibleRunnerEventsTail createEventsTail(String playUuid, boolean watch) {
+        return new AnsibleRunnerEventsTail(Paths.get(getJobEventsDir(playUuid)), watch);
     }
 
     public String getJobEventsDir(String playUuid) {
-        return String.format("%1$s/%2$s/artifacts/%2$s/job_events/", AnsibleConstants.ANSIBLE_RUNNER_PATH, playUuid);
+        return String.format("%1$s/%2$s/artifacts/%2$s/job_events/", getRunnerPath(), playUuid);
     }
 
     public void processEvents(AnsibleReturnValue returnValue,
             BiConsumer<String, String> fn,
             AnsibleRunnerLogger runnerLogger) {
+        try (AnsibleRunnerEventsTail eventsTail = createEventsTail(returnValue.getPlayUuid(), false)) {
+            processEvents(returnValue, fn, runnerLogger, eventsTail);
+        }
+    }
+
+    private void processEvents(AnsibleReturnValue returnValue,
+            BiConsumer<String, String> fn,
+            AnsibleRunnerLogger runnerLogger,
+            AnsibleRunnerEventsTail eventsTail) {
         String jobEvents = getJobEventsDir(returnValue.getPlayUuid());
         while(true){
             // get next event
-            String event = getEventFileName(returnValue.getPlayUuid(), returnValue.getLastEventId() + 1);
+            String event = eventsTail.getEventFileName(returnValue.getLastEventId() + 1);
             if (event == null) {
                 break;
             }
@@ -171,18 +186,8 @@ public class AnsibleRunnerClient {
         }
     }
 
-    private Boolean jsonIsValid(String content) {
-        try {
-            final ObjectMapper mapper = new ObjectMapper();
-            mapper.readTree(content);
-            return true;
-        } catch (IOException e) {
-            return false;
-        }
-    }
-
     public void cancelPlaybook(String uuid, int timeout) throws Exception {
-        File privateDataDir = new File(String.format("%1$s/%2$s/", AnsibleConstants.ANSIBLE_RUNNER_PATH, uuid));
+        File privateDataDir = new File(String.format("%1$s/%2$s/", getRunnerPath(), uuid));
         File output = new File(String.format("%1$s/output.log", privateDataDir));
         String command = String.format("ansible-runner stop %1$s", privateDataDir);
         Process ansibleProcess;
@@ -208,7 +213,7 @@ public class AnsibleRunnerClient {
     }
 
     public void runPlaybook(List<String> command, int timeout, String uuid) throws Exception {
-        File output = new File(String.format("%1$s/%2$s/output.log", AnsibleConstants.ANSIBLE_RUNNER_PATH, uuid));
+        File output = new File(String.format("%1$s/%2$s/output.log", getRunnerPath(), uuid));
         ProcessBuilder ansibleProcessBuilder =
                 new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(output);
         Process ansibleProcess = ansibleProcessBuilder.start();
@@ -244,8 +249,8 @@ public class AnsibleRunnerClient {
     public PlaybookStatus getPlaybookStatus(String playUuid) {
         String status = "";
         String rc = "";
-        String privateRunDir = String.format("%1$s/%2$s/", AnsibleConstants.ANSIBLE_RUNNER_PATH, playUuid);
-        String playData = String.format("%1$s/%2$s/artifacts/%2$s/", AnsibleConstants.ANSIBLE_RUNNER_PATH, playUuid);
+        String privateRunDir = String.format("%1$s/%2$s/", getRunnerPath(), playUuid);
+        String playData = String.format("%1$s/%2$s/artifacts/%2$s/", getRunnerPath(), playUuid);
         try {
             // regardless if we run sync or async playbook we launch ansible-runner the same way,
             // "status" and "rc" are created only once the playbook finishes
@@ -269,42 +274,27 @@ public class AnsibleRunnerClient {
         return new PlaybookStatus(rc, status);
     }
 
-    private List<String> getEvents(String playUuid) {
-        List<String> sortedEvents = new ArrayList<>();
-        File jobEvents = new File(getJobEventsDir(playUuid));
-        if (jobEvents.exists()) {
-            sortedEvents = Stream.of(jobEvents.listFiles())
-                .map(File::getName)
-                .filter(item -> !item.contains("partial"))
-                .filter(item -> !item.endsWith(".tmp"))
-                .sorted()
-                .collect(Collectors.toList());
-        }
-        return sortedEvents;
-    }
-
     public int getTotalEvents(String playUuid) {
-        List<String> events = getEvents(playUuid);
         // if playbook artifacts directory is not yet populated, return 0
-        return events.size();
+        try (AnsibleRunnerEventsTail eventsTail = createEventsTail(playUuid, false)) {
+            return eventsTail.getTotalEvents();
+        }
     }
 
     private JsonNode getEvent(String eventPath) {
         // Fetch the event info:
         JsonNode currentNode = null;
-        ObjectMapper mapper = new ObjectMapper();
         try {
-            String jsonOutput = Files.readString(Paths.get(eventPath), StandardCharsets.UTF_8);
-            if (!jsonIsValid(jsonOutput)) {
-                throw new AnsibleRunnerCallException(
-                        "Failed to fetch info about event: %1$s",
-                        eventPath
-                );
-            }
-            currentNode = mapper.readTree(jsonOutput);
+            currentNode = eventReader.readTree(Files.readString(Paths.get(eventPath), StandardCharsets.UTF_8));
         } catch(Exception ex) {
             throw new AnsibleRunnerCallException("Failed to read event: %1$s", eventPath);
         }
+        if (currentNode == null || currentNode.isMissingNode()) {
+            throw new AnsibleRunnerCallException(
+                    "Failed to fetch info about event: %1$s",
+                    eventPath
+            );
+        }
         return currentNode;
     }
 
@@ -0,0 +1,207 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.engine.core.common.utils.ansible;
+
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.ProviderMismatchException;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Follows the event files which ansible-runner writes to the {@code job_events} directory of a play.
+ * <p>
+ * The event files are named {@code <counter>-<uuid>.json}, where the counter is the id of the event, starting at 1
+ * and increasing by one for each event. The tail keeps the names of the events which were not consumed yet, so the
+ * next event is found without listing the directory again. When watching, new events are reported by the
+ * {@link AnsibleRunnerEventsWatcher} shared by all the plays, and the directory is listed only once it is created and
+ * whenever the watcher loses events. Otherwise, or if the directory cannot be watched, the directory is listed
+ * whenever the next event is not known yet.
+ */
+class AnsibleRunnerEventsTail implements AutoCloseable, AnsibleRunnerEventsWatcher.Listener {
+
+    private static final Logger log = LoggerFactory.getLogger(AnsibleRunnerEventsTail.class);
+    private static final int DIRECTORY_POLL_INTERVAL = 100;
+
+    private final Path jobEventsDir;
+    private boolean watch;
+    private AnsibleRunnerEventsWatcher watcher;
+    private WatchKey watchKey;
+    private final NavigableMap<Integer, String> eventFiles = new TreeMap<>();
+    // the events received from the watcher and whether the directory is still watched, guarded by the list
+    private final List<WatchEvent<?>> receivedEvents = new ArrayList<>();
+    private boolean watchKeyValid = true;
+    private int consumedEventId;
+    private int lastEventId;
+
+    /**
+     * @param jobEventsDir
+     *            the {@code job_events} directory of the play, which might not exist yet
+     * @param watch
+     *            {@code true} to watch the directory for new events, {@code false} to list it
+     */
+    AnsibleRunnerEventsTail(Path jobEventsDir, boolean watch) {
+        this.jobEventsDir = jobEventsDir;
+        this.watch = watch;
+    }
+
+    /**
+     * Returns the name of the file of the event, or {@code null} if the event was not written yet. The events before
+     * it are considered consumed and are forgotten.
+     */
+    String getEventFileName(int eventId) {
+        consumedEventId = eventId - 1;
+        eventFiles.headMap(eventId).clear();
+        if (!eventFiles.containsKey(eventId)) {
+            refresh();
+        }
+        return eventFiles.get(eventId);
+    }
+
+    /**
+     * Returns the highest id of an event written so far, which is the number of events of the play.
+     */
+    int getTotalEvents() {
+        refresh();
+        return lastEventId;
+    }
+
+    /**
+     * Waits until new events are written or the timeout passes, whichever comes first.
+     */
+    void awaitEvents(long timeout, TimeUnit unit) throws InterruptedException {
+        if (watchKey == null && watch) {
+            // the directory is not created yet, it is watched once it is
+            long deadline = System.currentTimeMillis() + unit.toMillis(timeout);
+            while (!Files.isDirectory(jobEventsDir) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(DIRECTORY_POLL_INTERVAL);
+            }
+            return;
+        }
+        if (watchKey == null) {
+            unit.sleep(timeout);
+            return;
+        }
+        synchronized (receivedEvents) {
+            if (receivedEvents.isEmpty() && watchKeyValid) {
+                unit.timedWait(receivedEvents, timeout);
+            }
+        }
+        handleReceivedEvents();
+    }
+
+    /**
+     * Adds the events written since the last refresh.
+     */
+    void refresh() {
+        if (watchKey != null) {
+            handleReceivedEvents();
+            return;
+        }
+        if (!Files.isDirectory(jobEventsDir)) {
+            return;
+        }
+        if (watch) {
+            startWatching();
+        }
+        // events written before the directory was watched are found only by listing it
+        listEvents();
+    }
+
+    private void startWatching() {
+        try {
+            watcher = AnsibleRunnerEventsWatcher.getInstance();
+            watchKey = watcher.register(jobEventsDir, this);
+        } catch (IOException | UnsupportedOperationException | ProviderMismatchException e) {
+            log.warn("Failed to watch Ansible events at '{}', polling them instead: {}", jobEventsDir, e.getMessage());
+            log.debug("Exception", e);
+            watch = false;
+        }
+    }
+
+    /**
+     * Called by the watcher thread, the events are handled by the thread following the play.
+     */
+    @Override
+    public void eventsReceived(List<WatchEvent<?>> events, boolean valid) {
+        synchronized (receivedEvents) {
+            receivedEvents.addAll(events);
+            watchKeyValid &= valid;
+            receivedEvents.notifyAll();
+        }
+    }
+
+    private void handleReceivedEvents() {
+        List<WatchEvent<?>> events;
+        boolean valid;
+        synchronized (receivedEvents) {
+            events = new ArrayList<>(receivedEvents);
+            receivedEvents.clear();
+            valid = watchKeyValid;
+        }
+        for (WatchEvent<?> event : events) {
+            if (event.kind() == OVERFLOW) {
+                listEvents();
+            } else {
+                addEvent(((Path) event.context()).getFileName().toString());
+            }
+        }
+        if (!valid) {
+            // the directory was removed, nothing more will be written to it
+            close();
+            watch = false;
+        }
+    }
+
+    private void listEvents() {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(jobEventsDir)) {
+            files.forEach(file -> addEvent(file.getFileName().toString()));
+        } catch (IOException e) {
+            throw new AnsibleRunnerCallException(String.format("Failed to list events at: %1$s", jobEventsDir), e);
+        }
+    }
+
+    private void addEvent(String fileName) {
+        // ignoring incomplete json files
+        if (fileName.contains("partial") || fileName.endsWith(".tmp")) {
+            return;
+        }
+        int separator = fileName.indexOf('-');
+        if (separator <= 0) {
+            return;
+        }
+        int eventId;
+        try {
+            eventId = Integer.parseInt(fileName.substring(0, separator));
+        } catch (NumberFormatException e) {
+            return;
+        }
+        if (eventId > consumedEventId) {
+            eventFiles.putIfAbsent(eventId, fileName);
+        }
+        lastEventId = Math.max(lastEventId, eventId);
+    }
+
+    @Override
+    public void close() {
+        if (watchKey != null) {
+            watcher.unregister(watchKey, this);
+            watchKey = null;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.engine.core.common.utils.ansible;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Watches the {@code job_events} directories of the running plays with a single {@link WatchService}, which is
+ * shared by all the plays rather than created for each of them. On Linux every watch service is an inotify instance,
+ * and their number is limited per user ({@code fs.inotify.max_user_instances}), while the number of watched
+ * directories is limited far less.
+ * <p>
+ * A daemon thread takes the signalled keys of the watch service and hands their events to the listeners of the
+ * watched directory, so the listeners must not block.
+ */
+class AnsibleRunnerEventsWatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(AnsibleRunnerEventsWatcher.class);
+
+    private static AnsibleRunnerEventsWatcher instance;
+
+    private final WatchService watchService;
+    // guarded by this
+    private final Map<WatchKey, Set<Listener>> listeners = new HashMap<>();
+
+    /**
+     * Receives the events of a watched directory.
+     */
+    interface Listener {
+        /**
+         * @param events
+         *            the events of the directory, which might be an overflow of events
+         * @param valid
+         *            {@code false} if the directory is no longer watched, e.g. since it was removed
+         */
+        void eventsReceived(List<WatchEvent<?>> events, boolean valid);
+    }
+
+    private AnsibleRunnerEventsWatcher(WatchService watchService) {
+        this.watchService = watchService;
+        Thread thread = new Thread(this::dispatchEvents, "ansible-runner-events-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Returns the watcher of the default file system, which is created on first use.
+     *
+     * @throws IOException
+     *             if the watch service cannot be created
+     */
+    static synchronized AnsibleRunnerEventsWatcher getInstance() throws IOException {
+        if (instance == null) {
+            instance = new AnsibleRunnerEventsWatcher(FileSystems.getDefault().newWatchService());
+        }
+        return instance;
+    }
+
+    /**
+     * Starts watching the given directory for created and modified files. Listeners registered for the same
+     * directory share its key.
+     */
+    synchronized WatchKey register(Path directory, Listener listener) throws IOException {
+        WatchKey key = directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+        listeners.computeIfAbsent(key, k -> new HashSet<>()).add(listener);
+        return key;
+    }
+
+    /**
+     * Stops handing the events of the directory of the key to the given listener. The directory is no longer watched
+     * once its last listener is unregistered.
+     */
+    synchronized void unregister(WatchKey key, Listener listener) {
+        Set<Listener> keyListeners = listeners.get(key);
+        if (keyListeners != null && keyListeners.remove(listener) && keyListeners.isEmpty()) {
+            listeners.remove(key);
+            key.cancel();
+        }
+    }
+
+    /**
+     * @return the number of directories being watched
+     */
+    synchronized int getWatchedDirectories() {
+        return listeners.size();
+    }
+
+    private void dispatchEvents() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                log.warn("Stopped watching Ansible events: {}", e.getMessage());
+                return;
+            }
+            List<WatchEvent<?>> events = key.pollEvents();
+            boolean valid = key.reset();
+            List<Listener> keyListeners;
+            synchronized (this) {
+                Set<Listener> registered = valid ? listeners.get(key) : listeners.remove(key);
+                keyListeners = registered == null ? Collections.emptyList() : new ArrayList<>(registered);
+            }
+            for (Listener listener : keyListeners) {
+                try {
+                    listener.eventsReceived(events, valid);
+                } catch (RuntimeException e) {
+                    log.error("Failed to handle Ansible events: {}", e.getMessage());
+                    log.debug("Exception", e);
+                }
+            }
+        }
+    }
+}
@@ -25,6 +25,9 @@ public abstract class AbstractRolesCommandTestBase extends BaseCommandTest {
     @Mock
     private RoleGroupMapDao roleGroupMapDaoMock;
 
+    @Mock
+    private PermissionResolver permissionResolverMock;
+
     @BeforeEach
     public void setUp() {
         role = new Role();
@@ -58,4 +61,8 @@ public abstract class AbstractRolesCommandTestBase extends BaseCommandTest {
     protected RoleGroupMapDao getRoleGroupMapDaoMock() {
         return roleGroupMapDaoMock;
     }
+
+    protected PermissionResolver getPermissionResolverMock() {
+        return permissionResolverMock;
+    }
 }
@@ -123,6 +123,7 @@ public class AttachActionGroupsToRoleCommandTest extends AbstractRolesCommandTes
         if (roleStatusChanged) {
             verify(getRoleDaoMock()).update(getRole());
         }
+        verify(getPermissionResolverMock()).actionGroupsAttached(getParams().getActionGroups());
         verifyNoMoreInteractions(getRoleGroupMapDaoMock());
     }
 }
@@ -1,21 +1,31 @@
 package org.ovirt.engine.core.bll;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -24,8 +34,17 @@ import org.mockito.quality.Strictness;
 import org.ovirt.engine.core.bll.interfaces.BackendInternal;
 import org.ovirt.engine.core.bll.network.NetworkVdsmNameMapper;
 import org.ovirt.engine.core.common.action.ActionType;
+import org.ovirt.engine.core.common.action.VdsActionParameters;
+import org.ovirt.engine.core.common.businessentities.NonOperationalReason;
 import org.ovirt.engine.core.common.businessentities.StorageDomain;
 import org.ovirt.engine.core.common.businessentities.VDS;
+import org.ovirt.engine.core.common.businessentities.network.InterfaceStatus;
+import org.ovirt.engine.core.common.businessentities.network.Network;
+import org.ovirt.engine.core.common.businessentities.network.NetworkAttachment;
+import org.ovirt.engine.core.common.businessentities.network.NetworkCluster;
+import org.ovirt.engine.core.common.businessentities.network.NetworkStatus;
+import org.ovirt.engine.core.common.businessentities.network.Nic;
+import org.ovirt.engine.core.common.businessentities.network.VdsNetworkInterface;
 import org.ovirt.engine.core.common.config.Config;
 import org.ovirt.engine.core.common.config.ConfigValues;
 import org.ovirt.engine.core.common.interfaces.VDSBrokerFrontend;
@@ -38,6 +57,7 @@ import org.ovirt.engine.core.dao.network.NetworkAttachmentDao;
 import org.ovirt.engine.core.dao.network.NetworkDao;
 import org.ovirt.engine.core.utils.MockConfigDescriptor;
 import org.ovirt.engine.core.utils.MockConfigExtension;
+import org.ovirt.engine.core.vdsbroker.monitoring.NetworkMonitoringHelper;
 import org.ovirt.engine.core.vdsbroker.vdsbroker.VdsBrokerObjectsBuilder;
 
 @ExtendWith({MockitoExtension.class, MockConfigExtension.class})
@@ -109,6 +129,39 @@ public class AutoRecoveryManagerTest {
         verify(backendMock, times(storageDomains.size())).runInternalAction(eq(ActionType.ConnectDomainToStorage), any());
     }
 
+    /**
+     * Recovers hosts of a large inventory, where only some of the hosts have their networks configured as required by
+     * their clusters. The recovered hosts are the ones the host-by-host checks select, but the DAOs are queried once
+     * rather than per host or per cluster.
+     */
+    @Test
+    public void recoverHostsOfLargeInventory() {
+        Config.<Map<String, String>> getValue(ConfigValues.AutoRecoveryAllowedTypes).put("hosts",
+                Boolean.TRUE.toString());
+        Inventory inventory = new Inventory(20, 50);
+        when(vdsDaoMock.listFailedAutorecoverables()).thenReturn(inventory.hosts);
+        List<Guid> recoverableHosts = inventory.filterRecoverableHostsOneByOne().stream()
+                .map(VDS::getId)
+                .collect(Collectors.toList());
+        clearInvocations(interfaceDaoMock, networkDaoMock, networkAttachmentDao);
+
+        manager.recover();
+
+        assertEquals(inventory.hosts.size() / Inventory.HOST_KINDS, recoverableHosts.size());
+        ArgumentCaptor<VdsActionParameters> params = ArgumentCaptor.forClass(VdsActionParameters.class);
+        verify(backendMock, times(recoverableHosts.size()))
+                .runInternalAction(eq(ActionType.ActivateVds), params.capture());
+        assertEquals(recoverableHosts,
+                params.getAllValues().stream().map(VdsActionParameters::getVdsId).collect(Collectors.toList()));
+
+        verify(interfaceDaoMock).getAllInterfacesForMultipleVds(any());
+        verify(networkDaoMock).getAllForClusters(any());
+        verify(networkAttachmentDao).getAllForHosts(any());
+        verify(interfaceDaoMock, never()).getAllInterfacesForVds(any());
+        verify(networkDaoMock, never()).getAllForCluster(any());
+        verify(networkAttachmentDao, never()).getAllForHost(any());
+    }
+
     @Test
     public void onTimerFalseConfig() {
         Config.<Map<String, String>> getValue(ConfigValues.AutoRecoveryAllowedTypes).put("storage domains",
@@ -119,4 +172,139 @@ public class AutoRecoveryManagerTest {
         verify(backendMock, never()).runInternalAction(eq(ActionType.ActivateVds), any());
         verify(backendMock, never()).runInternalAction(eq(ActionType.ConnectDomainToStorage), any());
     }
+
+    /**
+     * Hosts in clusters with a required VM network and a required non-VM network. The hosts of each cluster are of
+     * {@link #HOST_KINDS} kinds: a host with its networks configured as required, a host with the NIC of a required
+     * network down, a host without a required network attached, a hosted engine host moved out of its cluster and a
+     * host with a VM network that is not bridged.
+     */
+    private class Inventory {
+
+        private static final int HOST_KINDS = 5;
+
+        private final List<VDS> hosts = new ArrayList<>();
+        private final List<Guid> clusterIds = new ArrayList<>();
+        private final Map<Guid, List<Network>> clusterNetworks = new HashMap<>();
+        private final Map<Guid, List<VdsNetworkInterface>> hostNics = new HashMap<>();
+        private final Map<Guid, List<NetworkAttachment>> hostAttachments = new HashMap<>();
+
+        Inventory(int clusterCount, int hostsPerCluster) {
+            for (int c = 0; c < clusterCount; c++) {
+                Guid clusterId = Guid.newGuid();
+                clusterIds.add(clusterId);
+                List<Network> networks = Arrays.asList(createNetwork("vm" + c, true, true),
+                        createNetwork("storage" + c, false, true),
+                        createNetwork("display" + c, true, false));
+                clusterNetworks.put(clusterId, networks);
+                for (int h = 0; h < hostsPerCluster; h++) {
+                    hosts.add(createHost(clusterId, networks, h % HOST_KINDS));
+                }
+            }
+
+            doAnswer(invocation -> hostNics.getOrDefault(invocation.getArgument(0), Collections.emptyList()))
+                    .when(interfaceDaoMock).getAllInterfacesForVds(any());
+            doAnswer(invocation -> hostAttachments.getOrDefault(invocation.getArgument(0), Collections.emptyList()))
+                    .when(networkAttachmentDao).getAllForHost(any());
+            doAnswer(invocation -> clusterNetworks.get(invocation.<Guid> getArgument(0)))
+                    .when(networkDaoMock).getAllForCluster(any());
+            doAnswer(invocation -> invocation.<Collection<Guid>> getArgument(0).stream()
+                    .filter(hostNics::containsKey)
+                    .collect(Collectors.toMap(Function.identity(), hostNics::get)))
+                    .when(interfaceDaoMock).getAllInterfacesForMultipleVds(any());
+            doAnswer(invocation -> invocation.<Collection<Guid>> getArgument(0).stream()
+                    .flatMap(hostId -> hostAttachments.getOrDefault(hostId, Collections.emptyList()).stream())
+                    .collect(Collectors.toList()))
+                    .when(networkAttachmentDao).getAllForHosts(any());
+            doAnswer(invocation -> invocation.<Collection<Guid>> getArgument(0).stream()
+                    .collect(Collectors.toMap(Function.identity(), clusterNetworks::get)))
+                    .when(networkDaoMock).getAllForClusters(any());
+        }
+
+        private Network createNetwork(String name, boolean vmNetwork, boolean required) {
+            Network network = new Network();
+            network.setId(Guid.newGuid());
+            network.setName(name);
+            network.setVmNetwork(vmNetwork);
+            network.setCluster(new NetworkCluster(required));
+            network.getCluster().setStatus(NetworkStatus.OPERATIONAL);
+            return network;
+        }
+
+        private VDS createHost(Guid clusterId, List<Network> networks, int kind) {
+            VDS host = new VDS();
+            host.setId(Guid.newGuid());
+            host.setClusterId(clusterId);
+            if (kind == 3) {
+                host.setNonOperationalReason(NonOperationalReason.HE_HOST_IN_NON_HE_CLUSTER);
+            }
+
+            List<VdsNetworkInterface> nics = new ArrayList<>();
+            List<NetworkAttachment> attachments = new ArrayList<>();
+            for (int i = 0; i < networks.size(); i++) {
+                Network network = networks.get(i);
+                VdsNetworkInterface nic = new Nic();
+                nic.setId(Guid.newGuid());
+                nic.setVdsId(host.getId());
+                nic.setName("eth" + i);
+                nic.setNetworkName(network.getName());
+                nic.setBridged(network.isVmNetwork() && kind != 4);
+                nic.getStatistics().setStatus(kind == 1 && i == 1 ? InterfaceStatus.DOWN : InterfaceStatus.UP);
+                nics.add(nic);
+                host.getInterfaces().add(nic);
+                if (kind != 2 || i != 1) {
+                    NetworkAttachment attachment = new NetworkAttachment();
+                    attachment.setId(Guid.newGuid());
+                    attachment.setNicId(nic.getId());
+                    attachment.setNetworkId(network.getId());
+                    attachments.add(attachment);
+                }
+            }
+            hostNics.put(host.getId(), nics);
+            hostAttachments.put(host.getId(), attachments);
+            return host;
+        }
+
+        /**
+         * The checks of the hosts as they were done host by host, the hosts are grouped by cluster so each host is
+         * checked against the networks of its cluster
+         */
+        private List<VDS> filterRecoverableHostsOneByOne() {
+            NetworkMonitoringHelper networkMonitoringHelper = new NetworkMonitoringHelper();
+            List<VDS> filtered = new ArrayList<>();
+            List<Network> clusterNetworks = new ArrayList<>();
+            Map<Guid, Network> networkMap = new HashMap<>();
+            Map<Guid, List<Network>> clusterNetworksMap = new HashMap<>();
+            for (VDS vds : hosts) {
+                if (vds.getNonOperationalReason() == NonOperationalReason.HE_HOST_IN_NON_HE_CLUSTER) {
+                    continue;
+                }
+                List<VdsNetworkInterface> nics = interfaceDaoMock.getAllInterfacesForVds(vds.getId());
+                Guid clusterId = vds.getClusterId();
+                if (!clusterNetworksMap.containsKey(clusterId)) {
+                    clusterNetworks = networkDaoMock.getAllForCluster(vds.getClusterId());
+                    clusterNetworksMap.put(clusterId, clusterNetworks);
+                    networkMap.putAll(clusterNetworks.stream()
+                            .collect(Collectors.toMap(Network::getId, network -> network)));
+                }
+                if (!networkMonitoringHelper.determineProblematicNics(nics, clusterNetworksMap.get(clusterId))
+                        .isEmpty()) {
+                    continue;
+                }
+                Set<String> attachedNetworkNames = networkAttachmentDao.getAllForHost(vds.getId())
+                        .stream()
+                        .map(networkAttachment -> networkMap.get(networkAttachment.getNetworkId()).getName())
+                        .collect(Collectors.toSet());
+                if (networkMonitoringHelper.getMissingOperationalClusterNetworks(attachedNetworkNames,
+                        clusterNetworks).length() > 0) {
+                    continue;
+                }
+                if (networkMonitoringHelper.getVmNetworksImplementedAsBridgeless(vds, clusterNetworks).length() > 0) {
+                    continue;
+                }
+                filtered.add(vds);
+            }
+            return filtered;
+        }
+    }
 }
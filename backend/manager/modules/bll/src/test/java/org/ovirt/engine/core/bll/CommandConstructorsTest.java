@@ -0,0 +1,54 @@
+package org.ovirt.engine.core.bll;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+import org.ovirt.engine.core.bll.context.EngineContext;
+import org.ovirt.engine.core.common.queries.IdQueryParameters;
+import org.ovirt.engine.core.common.queries.QueryType;
+import org.ovirt.engine.core.compat.Guid;
+
+public class CommandConstructorsTest {
+
+    private final CommandConstructors constructors = CommandConstructors.getInstance();
+
+    @Test
+    public void testGeneratedConstructorsAreLoaded() {
+        assertFalse(constructors.getActionConstructors().isEmpty(), "No generated action constructors");
+        assertFalse(constructors.getQueryConstructors().isEmpty(), "No generated query constructors");
+    }
+
+    @Test
+    public void testActionConstructorResolvedFromActionTypeClass() {
+        assertNotNull(constructors.getActionConstructor(CommandsFactory.getCommandClass("CreateUserSession")));
+    }
+
+    @Test
+    public void testCompensationConstructorResolvedFromClassName() {
+        assertNotNull(constructors.getCompensationConstructor(AddPermissionCommand.class.getName()));
+        assertNotNull(constructors.getCompensationConstructor(AddVmCommand.class.getName()));
+    }
+
+    @Test
+    public void testQueryConstructorCreatesQuery() {
+        IdQueryParameters parameters = new IdQueryParameters(Guid.newGuid());
+        CommandConstructors.QueryConstructor constructor =
+                constructors.getQueryConstructor(CommandsFactory.getQueryClass(QueryType.GetVmByVmId.name()));
+
+        QueriesCommandBase<?> query = constructor.create(parameters, new EngineContext());
+
+        assertEquals(GetVmByVmIdQuery.class, query.getClass());
+        assertSame(parameters, query.getParameters());
+    }
+
+    @Test
+    public void testUnknownTypeFallsBackToReflection() {
+        assertNull(constructors.getActionConstructor(null));
+        assertNull(constructors.getActionConstructor(CommandBase.class));
+        assertNull(constructors.getCompensationConstructor(Object.class.getName()));
+    }
+}
@@ -94,6 +94,7 @@ public class DetachActionGroupsFromRoleCommandTest extends AbstractRolesCommandT
             verify(getRoleDaoMock()).update(getRole());
         }
 
+        verify(getPermissionResolverMock()).actionGroupsDetached(getParams().getActionGroups());
         verifyNoMoreInteractions(getRoleGroupMapDaoMock());
     }
 }
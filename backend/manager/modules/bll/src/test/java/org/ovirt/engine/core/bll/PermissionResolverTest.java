@@ -0,0 +1,433 @@
+package org.ovirt.engine.core.bll;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.Transaction;
+import javax.transaction.TransactionManager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.ovirt.engine.core.common.VdcObjectType;
+import org.ovirt.engine.core.common.businessentities.ActionGroup;
+import org.ovirt.engine.core.common.businessentities.EntityPermission;
+import org.ovirt.engine.core.common.businessentities.Permission;
+import org.ovirt.engine.core.common.config.ConfigValues;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.dao.PermissionDao;
+import org.ovirt.engine.core.utils.InjectedMock;
+import org.ovirt.engine.core.utils.InjectorExtension;
+import org.ovirt.engine.core.utils.MockConfigDescriptor;
+import org.ovirt.engine.core.utils.MockConfigExtension;
+import org.ovirt.engine.core.utils.MockedConfig;
+
+@ExtendWith({MockitoExtension.class, MockConfigExtension.class, InjectorExtension.class})
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class PermissionResolverTest {
+
+    private static final List<ActionGroup> ACTION_GROUPS =
+            Arrays.asList(ActionGroup.RUN_VM, ActionGroup.MIGRATE_VM, ActionGroup.EDIT_VM_PROPERTIES);
+
+    public static Stream<MockConfigDescriptor<?>> mockConfiguration() {
+        return Stream.of(MockConfigDescriptor.of(ConfigValues.PermissionCacheExpirationInSeconds, 300));
+    }
+
+    public static Stream<MockConfigDescriptor<?>> mockDisabledConfiguration() {
+        return Stream.of(MockConfigDescriptor.of(ConfigValues.PermissionCacheExpirationInSeconds, 0));
+    }
+
+    @InjectedMock
+    @Mock
+    public TransactionManager transactionManager;
+
+    @Mock
+    private PermissionDao permissionDao;
+
+    @InjectMocks
+    private PermissionResolver permissionResolver;
+
+    private final Random random = new Random(17);
+    private final Model model = new Model();
+
+    @BeforeEach
+    public void setUp() {
+        model.build(3, 2, 5, 4, 3);
+
+        when(permissionDao.getEntityPermissions(any(), any(), any(), any())).thenAnswer(invocation ->
+                model.getPermission(invocation.getArgument(0),
+                        invocation.getArgument(1),
+                        invocation.getArgument(2),
+                        invocation.getArgument(3)));
+        when(permissionDao.getEntityPermissionsForObjects(any(), any(), any(), any())).thenAnswer(invocation -> {
+            Guid userId = invocation.getArgument(0);
+            ActionGroup actionGroup = invocation.getArgument(1);
+            Collection<Guid> objectIds = invocation.getArgument(2);
+            VdcObjectType objectType = invocation.getArgument(3);
+            return objectIds.stream()
+                    .distinct()
+                    .map(objectId -> new EntityPermission(objectId,
+                            model.getParents(objectId, objectType),
+                            model.getPermission(userId, actionGroup, objectId, objectType)))
+                    .collect(Collectors.toList());
+        });
+    }
+
+    /**
+     * Checks random VMs of random users after random changes of the permissions, the roles, the hierarchy of the
+     * entities and the groups of the users, and compares the results with those of the DB.
+     */
+    @Test
+    public void checksMatchDbAcrossChanges() {
+        for (int i = 0; i < 3000; i++) {
+            switch (random.nextInt(10)) {
+            case 5:
+                addPermission();
+                break;
+            case 6:
+                removePermission();
+                break;
+            case 7:
+                changeRole();
+                break;
+            case 8:
+                moveEntity();
+                break;
+            case 9:
+                changeUserGroups();
+                break;
+            default:
+                checkVms();
+            }
+        }
+    }
+
+    @Test
+    public void repeatedChecksReadDbOnce() {
+        Guid userId = model.users.get(0);
+        List<Guid> vmIds = new ArrayList<>(model.vmCluster.keySet());
+
+        Map<Guid, Guid> first = permissionResolver.getPermissions(userId, ActionGroup.RUN_VM, VdcObjectType.VM, vmIds);
+        Map<Guid, Guid> second = permissionResolver.getPermissions(userId, ActionGroup.RUN_VM, VdcObjectType.VM, vmIds);
+        for (Guid vmId : vmIds) {
+            assertEquals(first.get(vmId), permissionResolver.getPermission(userId,
+                    ActionGroup.RUN_VM,
+                    vmId,
+                    VdcObjectType.VM));
+        }
+
+        assertEquals(first, second);
+        assertEquals(vmIds.size(), first.size());
+        verify(permissionDao).getEntityPermissionsForObjects(any(), any(), any(), any());
+        verify(permissionDao, never()).getEntityPermissions(any(), any(), any(), any());
+    }
+
+    @Test
+    public void uncachedTypeIsReadFromDbEachTime() {
+        Guid userId = model.users.get(0);
+        Guid diskId = Guid.newGuid();
+
+        permissionResolver.getPermission(userId, ActionGroup.ATTACH_DISK, diskId, VdcObjectType.Disk);
+        permissionResolver.getPermission(userId, ActionGroup.ATTACH_DISK, diskId, VdcObjectType.Disk);
+
+        verify(permissionDao, times(2))
+                .getEntityPermissions(userId, ActionGroup.ATTACH_DISK, diskId, VdcObjectType.Disk);
+        verify(permissionDao, never()).getEntityPermissionsForObjects(any(), any(), any(), any());
+    }
+
+    @Test
+    @MockedConfig("mockDisabledConfiguration")
+    public void checksAreNotKeptWhenDisabled() {
+        Guid userId = model.users.get(0);
+        Guid vmId = model.vmCluster.keySet().iterator().next();
+
+        permissionResolver.getPermission(userId, ActionGroup.RUN_VM, vmId, VdcObjectType.VM);
+        permissionResolver.getPermission(userId, ActionGroup.RUN_VM, vmId, VdcObjectType.VM);
+        permissionResolver.prefetch(userId, ActionGroup.RUN_VM, VdcObjectType.VM, model.vmCluster.keySet());
+
+        verify(permissionDao, times(2)).getEntityPermissions(userId, ActionGroup.RUN_VM, vmId, VdcObjectType.VM);
+        verify(permissionDao, never()).getEntityPermissionsForObjects(any(), any(), any(), any());
+    }
+
+    @Test
+    public void checkDoneDuringChangeIsNotKept() {
+        Guid userId = model.users.get(0);
+        Guid vmId = model.vmCluster.keySet().iterator().next();
+        Permission permission = new Permission(userId, model.roleWith(ActionGroup.RUN_VM), vmId, VdcObjectType.VM);
+
+        doAnswer(invocation -> {
+            Collection<Guid> objectIds = invocation.getArgument(2);
+            List<EntityPermission> denied = objectIds.stream()
+                    .map(objectId -> new EntityPermission(objectId, model.getParents(objectId, VdcObjectType.VM), null))
+                    .collect(Collectors.toList());
+            // the permission is added while the DB is read
+            model.permissions.add(permission);
+            permissionResolver.permissionAdded(permission);
+            return denied;
+        }).when(permissionDao).getEntityPermissionsForObjects(any(), any(), any(), any());
+
+        assertNull(permissionResolver.getPermissions(userId,
+                ActionGroup.RUN_VM,
+                VdcObjectType.VM,
+                Collections.singletonList(vmId)).get(vmId));
+
+        doReturn(Collections.singletonList(new EntityPermission(vmId,
+                model.getParents(vmId, VdcObjectType.VM),
+                permission.getId())))
+                .when(permissionDao).getEntityPermissionsForObjects(any(), any(), any(), any());
+        assertEquals(permission.getId(),
+                permissionResolver.getPermission(userId, ActionGroup.RUN_VM, vmId, VdcObjectType.VM));
+    }
+
+    @Test
+    public void checksAreDroppedAgainAfterCommit() throws Exception {
+        Guid userId = model.users.get(0);
+        Guid vmId = model.vmCluster.keySet().iterator().next();
+        Permission permission = new Permission(userId, model.roleWith(ActionGroup.RUN_VM), vmId, VdcObjectType.VM);
+        assertNull(model.getPermission(userId, ActionGroup.RUN_VM, vmId, VdcObjectType.VM));
+
+        Transaction transaction = mock(Transaction.class);
+        when(transactionManager.getTransaction()).thenReturn(transaction);
+        permissionResolver.permissionAdded(permission);
+        ArgumentCaptor<Synchronization> synchronization = ArgumentCaptor.forClass(Synchronization.class);
+        verify(transaction).registerSynchronization(synchronization.capture());
+        when(transactionManager.getTransaction()).thenReturn(null);
+
+        // the permission is not committed yet, so it is not seen by other checks
+        assertFalse(permissionResolver.canPerform(userId,
+                ActionGroup.RUN_VM,
+                VdcObjectType.VM,
+                Collections.singletonList(vmId)));
+
+        model.permissions.add(permission);
+        synchronization.getValue().afterCompletion(Status.STATUS_COMMITTED);
+
+        assertTrue(permissionResolver.canPerform(userId,
+                ActionGroup.RUN_VM,
+                VdcObjectType.VM,
+                Collections.singletonList(vmId)));
+    }
+
+    private void checkVms() {
+        Guid userId = pick(model.users);
+        ActionGroup actionGroup = pick(ACTION_GROUPS);
+        List<Guid> allVms = new ArrayList<>(model.vmCluster.keySet());
+        Set<Guid> vmIds = new LinkedHashSet<>();
+        int count = 1 + random.nextInt(8);
+        for (int i = 0; i < count; i++) {
+            vmIds.add(pick(allVms));
+        }
+
+        Map<Guid, Guid> permissions = permissionResolver.getPermissions(userId, actionGroup, VdcObjectType.VM, vmIds);
+        assertEquals(vmIds, permissions.keySet());
+        for (Guid vmId : vmIds) {
+            Guid expected = model.getPermission(userId, actionGroup, vmId, VdcObjectType.VM);
+            Guid actual = permissions.get(vmId);
+            if (expected == null) {
+                assertNull(actual, "unexpected permission on VM " + vmId);
+            } else {
+                assertNotNull(actual, "missing permission on VM " + vmId);
+                assertTrue(model.grants(actual, userId, actionGroup, vmId, VdcObjectType.VM),
+                        "permission " + actual + " does not grant " + actionGroup + " on VM " + vmId);
+            }
+        }
+    }
+
+    private void addPermission() {
+        Guid adElementId = random.nextBoolean() ? pick(model.users) : pick(model.groups);
+        Guid roleId = pick(new ArrayList<>(model.roleGroups.keySet()));
+        Permission permission;
+        switch (random.nextInt(4)) {
+        case 0:
+            permission = new Permission(adElementId,
+                    roleId,
+                    MultiLevelAdministrationHandler.SYSTEM_OBJECT_ID,
+                    VdcObjectType.System);
+            break;
+        case 1:
+            permission = new Permission(adElementId, roleId, pick(model.dcs), VdcObjectType.StoragePool);
+            break;
+        case 2:
+            permission = new Permission(adElementId,
+                    roleId,
+                    pick(new ArrayList<>(model.clusterDc.keySet())),
+                    VdcObjectType.Cluster);
+            break;
+        default:
+            permission = new Permission(adElementId,
+                    roleId,
+                    pick(new ArrayList<>(model.vmCluster.keySet())),
+                    VdcObjectType.VM);
+        }
+        model.permissions.add(permission);
+        permissionResolver.permissionAdded(permission);
+    }
+
+    private void removePermission() {
+        if (model.permissions.isEmpty()) {
+            return;
+        }
+        Permission permission = model.permissions.remove(random.nextInt(model.permissions.size()));
+        permissionResolver.permissionRemoved(permission);
+    }
+
+    private void changeRole() {
+        Set<ActionGroup> actionGroups = model.roleGroups.get(pick(new ArrayList<>(model.roleGroups.keySet())));
+        ActionGroup actionGroup = pick(ACTION_GROUPS);
+        if (actionGroups.remove(actionGroup)) {
+            permissionResolver.actionGroupsDetached(Collections.singletonList(actionGroup));
+        } else {
+            actionGroups.add(actionGroup);
+            permissionResolver.actionGroupsAttached(Collections.singletonList(actionGroup));
+        }
+    }
+
+    private void moveEntity() {
+        if (random.nextBoolean()) {
+            Guid vmId = pick(new ArrayList<>(model.vmCluster.keySet()));
+            model.vmCluster.put(vmId, pick(new ArrayList<>(model.clusterDc.keySet())));
+            permissionResolver.parentsChanged(vmId);
+        } else {
+            Guid clusterId = pick(new ArrayList<>(model.clusterDc.keySet()));
+            model.clusterDc.put(clusterId, pick(model.dcs));
+            permissionResolver.parentsChanged(clusterId);
+        }
+    }
+
+    private void changeUserGroups() {
+        Guid userId = pick(model.users);
+        Guid groupId = pick(model.groups);
+        Set<Guid> userGroups = model.userGroups.get(userId);
+        if (!userGroups.remove(groupId)) {
+            userGroups.add(groupId);
+        }
+        permissionResolver.userChanged(userId);
+    }
+
+    private <T> T pick(List<T> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    /**
+     * The entities, the roles and the permissions, checked as the permission query of the DB does.
+     */
+    private class Model {
+        private final List<Guid> dcs = new ArrayList<>();
+        private final Map<Guid, Guid> clusterDc = new HashMap<>();
+        private final Map<Guid, Guid> vmCluster = new HashMap<>();
+        private final List<Guid> users = new ArrayList<>();
+        private final List<Guid> groups = new ArrayList<>();
+        private final Map<Guid, Set<Guid>> userGroups = new HashMap<>();
+        private final Map<Guid, Set<ActionGroup>> roleGroups = new HashMap<>();
+        private final List<Permission> permissions = new ArrayList<>();
+
+        void build(int dcCount, int clustersPerDc, int vmsPerCluster, int userCount, int groupCount) {
+            for (int i = 0; i < dcCount; i++) {
+                Guid dcId = Guid.newGuid();
+                dcs.add(dcId);
+                for (int j = 0; j < clustersPerDc; j++) {
+                    Guid clusterId = Guid.newGuid();
+                    clusterDc.put(clusterId, dcId);
+                    for (int k = 0; k < vmsPerCluster; k++) {
+                        vmCluster.put(Guid.newGuid(), clusterId);
+                    }
+                }
+            }
+            for (int i = 0; i < groupCount; i++) {
+                groups.add(Guid.newGuid());
+            }
+            for (int i = 0; i < userCount; i++) {
+                Guid userId = Guid.newGuid();
+                users.add(userId);
+                userGroups.put(userId, new HashSet<>(Collections.singleton(groups.get(i % groupCount))));
+            }
+            for (ActionGroup actionGroup : ACTION_GROUPS) {
+                roleGroups.put(Guid.newGuid(), new HashSet<>(Collections.singleton(actionGroup)));
+            }
+            roleGroups.put(Guid.newGuid(), new HashSet<>(ACTION_GROUPS));
+        }
+
+        Guid roleWith(ActionGroup actionGroup) {
+            return roleGroups.entrySet()
+                    .stream()
+                    .filter(e -> e.getValue().contains(actionGroup))
+                    .map(Map.Entry::getKey)
+                    .findFirst()
+                    .orElseThrow(IllegalStateException::new);
+        }
+
+        Set<Guid> getParents(Guid objectId, VdcObjectType objectType) {
+            Set<Guid> parents = new HashSet<>();
+            parents.add(MultiLevelAdministrationHandler.SYSTEM_OBJECT_ID);
+            parents.add(objectId);
+            Guid clusterId = null;
+            if (objectType == VdcObjectType.VM) {
+                clusterId = vmCluster.get(objectId);
+            } else if (objectType == VdcObjectType.Cluster) {
+                clusterId = objectId;
+            }
+            if (clusterId != null) {
+                parents.add(clusterId);
+                parents.add(clusterDc.get(clusterId));
+            }
+            return parents;
+        }
+
+        Guid getPermission(Guid userId, ActionGroup actionGroup, Guid objectId, VdcObjectType objectType) {
+            return permissions.stream()
+                    .filter(p -> grants(p.getId(), userId, actionGroup, objectId, objectType))
+                    .map(Permission::getId)
+                    .findFirst()
+                    .orElse(null);
+        }
+
+        boolean grants(Guid permissionId,
+                Guid userId,
+                ActionGroup actionGroup,
+                Guid objectId,
+                VdcObjectType objectType) {
+            Set<Guid> principals = new HashSet<>(userGroups.get(userId));
+            principals.add(userId);
+            principals.add(MultiLevelAdministrationHandler.EVERYONE_OBJECT_ID);
+            Set<Guid> parents = getParents(objectId, objectType);
+            return permissions.stream()
+                    .anyMatch(p -> p.getId().equals(permissionId)
+                            && principals.contains(p.getAdElementId())
+                            && parents.contains(p.getObjectId())
+                            && roleGroups.get(p.getRoleId()).contains(actionGroup));
+        }
+    }
+}
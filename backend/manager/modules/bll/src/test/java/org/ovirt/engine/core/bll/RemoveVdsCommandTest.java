@@ -30,6 +30,7 @@ import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import org.mockito.verification.VerificationMode;
+import org.ovirt.engine.core.bll.scheduling.arem.AffinityGroupIndexManager;
 import org.ovirt.engine.core.bll.utils.ClusterUtils;
 import org.ovirt.engine.core.bll.utils.GlusterUtil;
 import org.ovirt.engine.core.common.AuditLogType;
@@ -64,6 +65,7 @@ import org.ovirt.engine.core.dao.VmStaticDao;
 import org.ovirt.engine.core.dao.gluster.GlusterBrickDao;
 import org.ovirt.engine.core.dao.gluster.GlusterHooksDao;
 import org.ovirt.engine.core.dao.gluster.GlusterVolumeDao;
+import org.ovirt.engine.core.vdsbroker.NetworkOutOfSyncIndex;
 
 @MockitoSettings(strictness = Strictness.LENIENT)
 public class RemoveVdsCommandTest extends BaseCommandTest {
@@ -127,6 +129,12 @@ public class RemoveVdsCommandTest extends BaseCommandTest {
     @Mock
     private TagDao tagDao;
 
+    @Mock
+    private AffinityGroupIndexManager affinityGroupIndexManager;
+
+    @Mock
+    private NetworkOutOfSyncIndex networkOutOfSyncIndex;
+
     /**
      * The command under test.
      */
@@ -384,6 +392,7 @@ public class RemoveVdsCommandTest extends BaseCommandTest {
         verify(vdsDynamicDao).remove(command.getParameters().getVdsId());
         verify(vdsStatisticsDao).remove(command.getParameters().getVdsId());
         verify(tagDao).detachVdsFromAllTags(command.getParameters().getVdsId());
+        verify(affinityGroupIndexManager).invalidate();
         VerificationMode multipleHostsRemovedVerificationMode = multipleHosts ? never() : times(1);
         verify(volumeDao, multipleHostsRemovedVerificationMode).removeByClusterId(any());
         verify(hooksDao, multipleHostsRemovedVerificationMode).removeAllInCluster(any());
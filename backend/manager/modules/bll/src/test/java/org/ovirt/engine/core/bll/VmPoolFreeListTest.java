@@ -0,0 +1,153 @@
+package org.ovirt.engine.core.bll;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ovirt.engine.core.common.businessentities.VMStatus;
+import org.ovirt.engine.core.compat.Guid;
+
+public class VmPoolFreeListTest {
+
+    private static final Guid POOL_ID = Guid.newGuid();
+    private static final Guid VM1 = Guid.newGuid();
+    private static final Guid VM2 = Guid.newGuid();
+
+    private long now;
+    private VmPoolFreeList freeList;
+
+    @BeforeEach
+    public void setUp() {
+        freeList = new VmPoolFreeList(() -> now);
+    }
+
+    @Test
+    public void pollHandsOutLoadedVmsOnce() {
+        freeList.load(POOL_ID, VMStatus.Down, Arrays.asList(VM1, VM2));
+
+        assertEquals(VM1, freeList.poll(POOL_ID, VMStatus.Down));
+        assertEquals(VM2, freeList.poll(POOL_ID, VMStatus.Down));
+        assertNull(freeList.poll(POOL_ID, VMStatus.Down));
+        assertNull(freeList.poll(POOL_ID, VMStatus.Up));
+    }
+
+    @Test
+    public void loadSkipsVmsHandedOutRecently() {
+        freeList.load(POOL_ID, VMStatus.Down, Arrays.asList(VM1, VM2));
+        freeList.poll(POOL_ID, VMStatus.Down);
+
+        freeList.load(POOL_ID, VMStatus.Down, Arrays.asList(VM1, VM2));
+
+        assertEquals(VM2, freeList.poll(POOL_ID, VMStatus.Down));
+        assertNull(freeList.poll(POOL_ID, VMStatus.Down));
+    }
+
+    @Test
+    public void loadAddsVmsHandedOutBeforeTimeout() {
+        freeList.load(POOL_ID, VMStatus.Down, Collections.singletonList(VM1));
+        freeList.poll(POOL_ID, VMStatus.Down);
+
+        now += VmPoolFreeList.HANDED_OUT_TIMEOUT;
+        freeList.load(POOL_ID, VMStatus.Down, Collections.singletonList(VM1));
+
+        assertEquals(VM1, freeList.poll(POOL_ID, VMStatus.Down));
+    }
+
+    @Test
+    public void addedVmIsHandedOutAgain() {
+        freeList.load(POOL_ID, VMStatus.Up, Collections.singletonList(VM1));
+        freeList.poll(POOL_ID, VMStatus.Up);
+
+        freeList.add(POOL_ID, VMStatus.Up, VM1);
+
+        assertEquals(VM1, freeList.poll(POOL_ID, VMStatus.Up));
+    }
+
+    @Test
+    public void releasedVmIsHandedOutAgain() {
+        freeList.load(POOL_ID, VMStatus.Down, Arrays.asList(VM1, VM2));
+        freeList.poll(POOL_ID, VMStatus.Down);
+
+        freeList.release(POOL_ID, VMStatus.Down, VM1);
+        freeList.load(POOL_ID, VMStatus.Down, Arrays.asList(VM1, VM2));
+
+        assertEquals(VM2, freeList.poll(POOL_ID, VMStatus.Down));
+        assertEquals(VM1, freeList.poll(POOL_ID, VMStatus.Down));
+        assertNull(freeList.poll(POOL_ID, VMStatus.Down));
+    }
+
+    @Test
+    public void releaseIgnoresVmNotHandedOut() {
+        freeList.load(POOL_ID, VMStatus.Down, Collections.singletonList(VM1));
+
+        freeList.release(POOL_ID, VMStatus.Down, VM2);
+        freeList.release(POOL_ID, VMStatus.Up, VM1);
+
+        assertEquals(VM1, freeList.poll(POOL_ID, VMStatus.Down));
+        assertNull(freeList.poll(POOL_ID, VMStatus.Down));
+        assertNull(freeList.poll(POOL_ID, VMStatus.Up));
+    }
+
+    @Test
+    public void removedVmIsNotHandedOut() {
+        freeList.load(POOL_ID, VMStatus.Up, Arrays.asList(VM1, VM2));
+
+        freeList.remove(POOL_ID, VMStatus.Up, VM1);
+
+        assertEquals(VM2, freeList.poll(POOL_ID, VMStatus.Up));
+        assertNull(freeList.poll(POOL_ID, VMStatus.Up));
+    }
+
+    @Test
+    public void vmMovedToUpIsHandedOutUnlessHandedOutRecently() {
+        freeList.load(POOL_ID, VMStatus.Up, Collections.singletonList(VM1));
+        freeList.poll(POOL_ID, VMStatus.Up);
+        freeList.load(POOL_ID, VMStatus.Down, Collections.singletonList(VM2));
+
+        // as done by VmPoolHandler.vmMovedToUp, e.g. when both VMs were migrated or VM2 was run by an admin
+        for (Guid vmId : Arrays.asList(VM1, VM2)) {
+            freeList.remove(POOL_ID, VMStatus.Down, vmId);
+            freeList.load(POOL_ID, VMStatus.Up, Collections.singletonList(vmId));
+        }
+
+        assertNull(freeList.poll(POOL_ID, VMStatus.Down));
+        assertEquals(VM2, freeList.poll(POOL_ID, VMStatus.Up));
+        assertNull(freeList.poll(POOL_ID, VMStatus.Up));
+    }
+
+    @Test
+    public void concurrentPollsHandOutDistinctVms() throws InterruptedException {
+        List<Guid> vmIds = IntStream.range(0, 1000).mapToObj(i -> Guid.newGuid()).collect(Collectors.toList());
+        freeList.load(POOL_ID, VMStatus.Down, vmIds);
+        Set<Guid> handedOut = ConcurrentHashMap.newKeySet();
+        CountDownLatch done = new CountDownLatch(vmIds.size());
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (int i = 0; i < vmIds.size(); i++) {
+                executor.execute(() -> {
+                    handedOut.add(freeList.poll(POOL_ID, VMStatus.Down));
+                    done.countDown();
+                });
+            }
+            done.await(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(new HashSet<>(vmIds), handedOut);
+    }
+}
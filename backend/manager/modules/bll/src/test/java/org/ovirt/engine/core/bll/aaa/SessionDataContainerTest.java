@@ -21,6 +21,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.ovirt.engine.core.bll.PermissionResolver;
 import org.ovirt.engine.core.common.businessentities.aaa.DbUser;
 import org.ovirt.engine.core.common.config.ConfigValues;
 import org.ovirt.engine.core.dao.EngineSessionDao;
@@ -48,6 +49,9 @@ public class SessionDataContainerTest {
     @Mock
     private EngineSessionDao engineSessionDao;
 
+    @Mock
+    private PermissionResolver permissionResolver;
+
     @InjectMocks
     private SessionDataContainer container;
 
@@ -1,19 +1,37 @@
 package org.ovirt.engine.core.bll.gluster;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import javax.transaction.TransactionManager;
@@ -69,6 +87,8 @@ import org.ovirt.engine.core.utils.InjectedMock;
 import org.ovirt.engine.core.utils.InjectorExtension;
 import org.ovirt.engine.core.utils.MockConfigDescriptor;
 import org.ovirt.engine.core.utils.MockConfigExtension;
+import org.ovirt.engine.core.utils.MockedConfig;
+import org.ovirt.engine.core.utils.threadpool.ThreadPoolUtil;
 
 @ExtendWith({MockitoExtension.class, MockConfigExtension.class, InjectorExtension.class})
 @MockitoSettings(strictness = Strictness.LENIENT)
@@ -78,11 +98,26 @@ public class GlusterSyncJobTest {
 
     private static final String DIST_VOL_NAME = "dist-vol";
 
+    private static final int MAX_CONCURRENT_CLUSTERS = 4;
+    private static final int CLUSTER_COUNT = 8;
+    private static final int VOLUMES_PER_CLUSTER = 5;
+
     @Mock
     private GlusterUtil glusterUtil;
 
     public static Stream<MockConfigDescriptor<?>> mockConfiguration() {
-        return Stream.of(MockConfigDescriptor.of(ConfigValues.GlusterMetaVolumeName, "gluster_shared_storage"));
+        return mockConfiguration(300);
+    }
+
+    public static Stream<MockConfigDescriptor<?>> mockConfigurationWithoutRefreshInterval() {
+        return mockConfiguration(0);
+    }
+
+    private static Stream<MockConfigDescriptor<?>> mockConfiguration(int refreshRate) {
+        return Stream.of(MockConfigDescriptor.of(ConfigValues.GlusterMetaVolumeName, "gluster_shared_storage"),
+                MockConfigDescriptor.of(ConfigValues.GlusterRefreshMaxConcurrentClusters, MAX_CONCURRENT_CLUSTERS),
+                MockConfigDescriptor.of(ConfigValues.GlusterRefreshRateLight, refreshRate),
+                MockConfigDescriptor.of(ConfigValues.GlusterRefreshRateHeavy, refreshRate));
     }
 
     @Spy
@@ -318,10 +353,10 @@ public class GlusterSyncJobTest {
         // remove detached bricks
         inOrder.verify(brickDao, times(1)).removeAll(argThat(containsRemovedBricks()));
         // add new bricks
-        inOrder.verify(brickDao, times(2)).save(argThat(isAddedBrick()));
+        inOrder.verify(brickDao, times(1)).saveAllInBatch(argThat(areAddedBricks()));
 
         // add new options
-        inOrder.verify(optionDao, times(1)).saveAll(argThat(areAddedOptions()));
+        inOrder.verify(optionDao, times(1)).saveAllInBatch(argThat(areAddedOptions()));
 
         // update modified options
         Map<String, GlusterVolumeOptionEntity> existingOptions = new HashMap<>();
@@ -329,20 +364,23 @@ public class GlusterSyncJobTest {
         existingOptions.put(OPTION_NFS_DISABLE, existingReplVol.getOption(OPTION_NFS_DISABLE));
         List<GlusterVolumeOptionEntity> list = new ArrayList<>(existingOptions.values());
         Collections.sort(list);
-        inOrder.verify(optionDao, times(1)).updateAll("UpdateGlusterVolumeOption", list);
+        inOrder.verify(optionDao, times(1)).updateAllInBatch(list);
 
         // delete removed options
         inOrder.verify(optionDao, times(1)).removeAll(argThat(areRemovedOptions()));
 
         // release lock on the cluster
         inOrder.verify(glusterManager, times(1)).releaseLock(CLUSTER_ID);
+
+        // existing volumes are taken from the volumes of the cluster, and not loaded one by one
+        verify(volumeDao, never()).getById(any());
+        verify(brickDao, never()).save(any());
     }
 
     private void mockDaos() {
         doReturn(Collections.singletonList(existingCluster)).when(clusterDao).getAll();
         doReturn(existingCluster).when(clusterDao).get(any());
         doReturn(existingServers).when(vdsDao).getAllForCluster(CLUSTER_ID);
-        doReturn(existingReplVol).when(volumeDao).getById(EXISTING_VOL_REPL_ID);
         doReturn(existingVolumes).when(volumeDao).getByClusterId(CLUSTER_ID);
     }
 
@@ -368,8 +406,9 @@ public class GlusterSyncJobTest {
         return ids -> ids.size() == removedBrickIds.size() && removedBrickIds.containsAll(ids);
     }
 
-    private ArgumentMatcher<GlusterBrickEntity> isAddedBrick() {
-        return argument -> addedBrickIds.contains(argument.getId());
+    private ArgumentMatcher<Collection<GlusterBrickEntity>> areAddedBricks() {
+        return bricks -> bricks.size() == addedBrickIds.size()
+                && bricks.stream().allMatch(brick -> addedBrickIds.contains(brick.getId()));
     }
 
     private GlusterVolumeAdvancedDetails getVolumeAdvancedDetails(GlusterVolumeEntity volume) {
@@ -463,6 +502,8 @@ public class GlusterSyncJobTest {
         createCluster();
         setupMocks();
         doReturn(getGlusterServer()).when(glusterServerDao).getByServerId(any());
+        // the fetched replicate volume was added to the existing volumes too
+        doReturn(Arrays.asList(existingDistVol, existingReplVol)).when(volumeDao).getByClusterId(CLUSTER_ID);
 
         glusterManager.refreshLightWeightData();
         verifyMocksForLightWeight();
@@ -476,6 +517,180 @@ public class GlusterSyncJobTest {
         verifyMocksForHeavyWeight();
     }
 
+    @Test
+    public void testRefreshLightWeightOfManyClusters() {
+        Map<Guid, Map<Guid, GlusterVolumeEntity>> fetchedVolumesByCluster = mockClusters();
+        AtomicInteger refreshingClusters = new AtomicInteger();
+        AtomicInteger maxRefreshingClusters = new AtomicInteger();
+        CountDownLatch allThreadsRefreshing = new CountDownLatch(MAX_CONCURRENT_CLUSTERS);
+        AtomicBoolean timedOut = new AtomicBoolean();
+        doAnswer(invocation -> {
+            maxRefreshingClusters.accumulateAndGet(refreshingClusters.incrementAndGet(), Math::max);
+            try {
+                // the first clusters are released only once all the threads are refreshing a cluster
+                allThreadsRefreshing.countDown();
+                if (!allThreadsRefreshing.await(10, TimeUnit.SECONDS)) {
+                    timedOut.set(true);
+                }
+                return fetchedVolumesByCluster.get(invocation.<VDS> getArgument(0).getClusterId());
+            } finally {
+                refreshingClusters.decrementAndGet();
+            }
+        }).when(glusterManager).fetchVolumes(any());
+
+        ExecutorService previousExecutor = ThreadPoolUtil.getExecutorService();
+        ExecutorService executor = Executors.newFixedThreadPool(MAX_CONCURRENT_CLUSTERS);
+        ThreadPoolUtil.setExecutorService(executor);
+        try {
+            glusterManager.refreshLightWeightData();
+        } finally {
+            executor.shutdownNow();
+            ThreadPoolUtil.setExecutorService(previousExecutor);
+        }
+
+        assertFalse(timedOut.get());
+        assertEquals(MAX_CONCURRENT_CLUSTERS, maxRefreshingClusters.get());
+
+        // a single call per cluster to get its volumes, and a single batch of each kind per volume
+        int volumeCount = CLUSTER_COUNT * VOLUMES_PER_CLUSTER;
+        verify(volumeDao, times(CLUSTER_COUNT)).getByClusterId(any());
+        verify(volumeDao, never()).getById(any());
+        verify(brickDao, times(volumeCount)).saveAllInBatch(argThat(bricks -> bricks.size() == 1));
+        verify(brickDao, times(volumeCount)).updateBrickOrders(argThat(bricks -> bricks.size() == 1));
+        verify(brickDao, never()).save(any());
+        verify(brickDao, never()).updateBrickOrder(any(), anyInt());
+        verify(optionDao, times(volumeCount)).saveAllInBatch(argThat(options -> options.size() == 1));
+        verify(optionDao, times(volumeCount)).updateAllInBatch(argThat(options -> options.size() == 1));
+        verify(optionDao, never()).saveAll(any());
+        verify(optionDao, never()).updateAll(any(), any());
+    }
+
+    @Test
+    public void testSlowClusterDoesNotDelayOtherClusters() {
+        Map<Guid, Map<Guid, GlusterVolumeEntity>> fetchedVolumesByCluster = mockClusters();
+        Guid slowClusterId = clusterDao.getAll().get(0).getId();
+        CountDownLatch otherClustersRefreshed = new CountDownLatch(CLUSTER_COUNT - 1);
+        AtomicBoolean slowClusterWaited = new AtomicBoolean();
+        doAnswer(invocation -> {
+            Guid clusterId = invocation.<VDS> getArgument(0).getClusterId();
+            if (slowClusterId.equals(clusterId)) {
+                // the other clusters are refreshed by the other threads while this one is refreshed
+                slowClusterWaited.set(otherClustersRefreshed.await(10, TimeUnit.SECONDS));
+            } else {
+                otherClustersRefreshed.countDown();
+            }
+            return fetchedVolumesByCluster.get(clusterId);
+        }).when(glusterManager).fetchVolumes(any());
+
+        ExecutorService previousExecutor = ThreadPoolUtil.getExecutorService();
+        ExecutorService executor = Executors.newFixedThreadPool(MAX_CONCURRENT_CLUSTERS);
+        ThreadPoolUtil.setExecutorService(executor);
+        try {
+            glusterManager.refreshLightWeightData();
+        } finally {
+            executor.shutdownNow();
+            ThreadPoolUtil.setExecutorService(previousExecutor);
+        }
+
+        assertTrue(slowClusterWaited.get());
+        verify(volumeDao, times(CLUSTER_COUNT)).getByClusterId(any());
+    }
+
+    @Test
+    @MockedConfig("mockConfigurationWithoutRefreshInterval")
+    public void testClustersLeftByOverrunRefreshAreRefreshedFirst() {
+        Map<Guid, Map<Guid, GlusterVolumeEntity>> fetchedVolumesByCluster = mockClusters();
+        Set<Guid> refreshedClusters = ConcurrentHashMap.newKeySet();
+        doAnswer(invocation -> {
+            Guid clusterId = invocation.<VDS> getArgument(0).getClusterId();
+            refreshedClusters.add(clusterId);
+            return fetchedVolumesByCluster.get(clusterId);
+        }).when(glusterManager).fetchVolumes(any());
+
+        ExecutorService previousExecutor = ThreadPoolUtil.getExecutorService();
+        ExecutorService executor = Executors.newFixedThreadPool(MAX_CONCURRENT_CLUSTERS);
+        ThreadPoolUtil.setExecutorService(executor);
+        try {
+            // the refresh interval elapses right away, so each thread refreshes a single cluster
+            glusterManager.refreshLightWeightData();
+            Set<Guid> firstRefresh = new HashSet<>(refreshedClusters);
+            assertEquals(MAX_CONCURRENT_CLUSTERS, firstRefresh.size());
+
+            refreshedClusters.clear();
+            glusterManager.refreshLightWeightData();
+            Set<Guid> deferred = clusterDao.getAll().stream()
+                    .map(Cluster::getId)
+                    .filter(id -> !firstRefresh.contains(id))
+                    .collect(Collectors.toSet());
+            assertEquals(deferred, refreshedClusters);
+        } finally {
+            executor.shutdownNow();
+            ThreadPoolUtil.setExecutorService(previousExecutor);
+        }
+    }
+
+    /**
+     * Mocks clusters with a single server and {@link #VOLUMES_PER_CLUSTER} volumes each, and returns the volumes of
+     * each cluster as if they were fetched from glusterfs. In each fetched volume a brick was added, the order of a
+     * brick was changed, an option was set and the value of an option was changed.
+     */
+    private Map<Guid, Map<Guid, GlusterVolumeEntity>> mockClusters() {
+        List<Cluster> clusters = new ArrayList<>();
+        Map<Guid, Map<Guid, GlusterVolumeEntity>> fetchedVolumesByCluster = new HashMap<>();
+        for (int i = 0; i < CLUSTER_COUNT; i++) {
+            Cluster cluster = new Cluster();
+            cluster.setId(Guid.newGuid());
+            cluster.setName("cluster" + i);
+            cluster.setGlusterService(true);
+            cluster.setVirtService(false);
+            clusters.add(cluster);
+
+            VDS server = createServer(Guid.newGuid(), "server" + i);
+            server.setClusterId(cluster.getId());
+            doReturn(new ArrayList<>(Collections.singletonList(server))).when(vdsDao)
+                    .getAllForCluster(cluster.getId());
+            doReturn(server).when(glusterUtil).getUpServer(cluster.getId());
+            doReturn(Collections.singletonList(
+                    new GlusterServerInfo(server.getId(), server.getHostName(), PeerStatus.CONNECTED)))
+                    .when(glusterManager).fetchServers(server);
+
+            List<GlusterVolumeEntity> volumes = new ArrayList<>();
+            Map<Guid, GlusterVolumeEntity> fetchedVolumes = new HashMap<>();
+            for (int j = 0; j < VOLUMES_PER_CLUSTER; j++) {
+                GlusterVolumeEntity volume = createVolume("vol" + j, server, cluster.getId());
+                volume.setOption(OPTION_NFS_DISABLE, OPTION_VALUE_OFF);
+                volumes.add(volume);
+
+                GlusterVolumeEntity fetchedVolume = createVolume("vol" + j, server, cluster.getId());
+                fetchedVolume.setId(volume.getId());
+                fetchedVolume.getBricks().get(1).setBrickOrder(2);
+                fetchedVolume.addBrick(createBrick(volume.getId(), server, "/export/vol" + j + "/dir3"));
+                fetchedVolume.setOption(OPTION_NFS_DISABLE, OPTION_VALUE_ON);
+                fetchedVolume.setOption(OPTION_AUTH_REJECT, AUTH_REJECT_IP);
+                fetchedVolumes.put(fetchedVolume.getId(), fetchedVolume);
+            }
+            doReturn(volumes).when(volumeDao).getByClusterId(cluster.getId());
+            fetchedVolumesByCluster.put(cluster.getId(), fetchedVolumes);
+        }
+        doReturn(clusters).when(clusterDao).getAll();
+        doNothing().when(glusterManager).acquireLock(any());
+        doNothing().when(glusterManager).releaseLock(any());
+        doAnswer(invocation -> new GlusterServer(invocation.getArgument(0), invocation.getArgument(0)))
+                .when(glusterServerDao).getByServerId(any());
+        return fetchedVolumesByCluster;
+    }
+
+    private GlusterVolumeEntity createVolume(String volName, VDS server, Guid clusterId) {
+        GlusterVolumeEntity volume = createVolume(volName, Guid.newGuid());
+        volume.setClusterId(clusterId);
+        for (int i = 0; i < 2; i++) {
+            GlusterBrickEntity brick = createBrick(volume.getId(), server, "/export/" + volName + "/dir" + i);
+            brick.setBrickOrder(i);
+            volume.addBrick(brick);
+        }
+        return volume;
+    }
+
     private void verifyMocksForHeavyWeight() {
         InOrder inOrder = inOrder(clusterDao, glusterUtil, volumeDao, glusterManager, brickDao);
 
@@ -0,0 +1,278 @@
+package org.ovirt.engine.core.bll.job;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import javax.transaction.TransactionManager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.ovirt.engine.core.common.VdcObjectType;
+import org.ovirt.engine.core.common.job.Job;
+import org.ovirt.engine.core.common.job.JobExecutionStatus;
+import org.ovirt.engine.core.common.job.Step;
+import org.ovirt.engine.core.common.job.StepEnum;
+import org.ovirt.engine.core.common.job.StepSubjectEntity;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.dao.JobDao;
+import org.ovirt.engine.core.dao.JobSubjectEntityDao;
+import org.ovirt.engine.core.dao.StepDao;
+import org.ovirt.engine.core.dao.StepSubjectEntityDao;
+import org.ovirt.engine.core.utils.InjectedMock;
+import org.ovirt.engine.core.utils.InjectorExtension;
+
+@ExtendWith({MockitoExtension.class, InjectorExtension.class})
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class JobRepositoryPendingStepsTest {
+
+    private static final int DISK_COUNT = 50;
+
+    @InjectedMock
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    public TransactionManager transactionManager;
+
+    @Mock
+    private JobDao jobDao;
+
+    @Mock
+    private JobSubjectEntityDao jobSubjectEntityDao;
+
+    @Mock
+    private StepDao stepDao;
+
+    @Mock
+    private StepSubjectEntityDao stepSubjectEntityDao;
+
+    private JobRepository jobRepository;
+
+    private Job job;
+
+    @BeforeEach
+    public void setUp() {
+        jobRepository = new JobRepositoryImpl(jobDao, jobSubjectEntityDao, stepDao, stepSubjectEntityDao);
+        job = new Job();
+        job.setId(Guid.newGuid());
+    }
+
+    /**
+     * Replays the step events of a job that copies {@link #DISK_COUNT} disks: a step and a task step are added for each
+     * disk, the description of the disk step is changed once the host is selected, the tasks end and then the disk
+     * steps end, and the job is finalized.
+     * <p>
+     * When every event was written in its own transaction, the replay took 5 * {@link #DISK_COUNT} + 4 transactions
+     * and 11 * {@link #DISK_COUNT} + 9 statements. Now the new steps and the changes in running steps are written
+     * together, and only the ended steps are written right away.
+     */
+    @Test
+    public void stepEventsOfJobAreWrittenTogether() {
+        Step executingStep = job.addStep(StepEnum.EXECUTING, null);
+        jobRepository.saveStep(executingStep);
+
+        List<Step> diskSteps = new ArrayList<>();
+        List<Step> taskSteps = new ArrayList<>();
+        for (int i = 0; i < DISK_COUNT; i++) {
+            Step diskStep = executingStep.addStep(StepEnum.COPY_VOLUME, "Copying disk " + i);
+            jobRepository.saveStep(diskStep);
+            Step taskStep = diskStep.addStep(StepEnum.ALLOCATE_VOLUME, "Allocating volume " + i);
+            jobRepository.saveStep(taskStep);
+            jobRepository.updateStepProgress(taskStep.getId(), 0);
+            diskStep.setDescription("Copying disk " + i + " on host");
+            jobRepository.updateStep(diskStep);
+            diskSteps.add(diskStep);
+            taskSteps.add(taskStep);
+        }
+
+        for (int i = 0; i < DISK_COUNT; i++) {
+            taskSteps.get(i).markStepEnded(true);
+            jobRepository.updateStep(taskSteps.get(i));
+            diskSteps.get(i).markStepEnded(true);
+            jobRepository.updateStep(diskSteps.get(i));
+        }
+
+        executingStep.markStepEnded(true);
+        Step finalizingStep = job.addStep(StepEnum.FINALIZING, null);
+        jobRepository.updateExistingStepAndSaveNewStep(executingStep, finalizingStep);
+        finalizingStep.markStepEnded(true);
+        jobRepository.updateStep(finalizingStep);
+        job.markJobEnded(true);
+        jobRepository.updateCompletedJobAndSteps(job);
+
+        // all the new steps are inserted together, with the first ended step
+        verify(stepDao).saveAllInBatch(argThat(steps -> steps.size() == 2 * DISK_COUNT + 1));
+        verify(stepDao, never()).save(any());
+        verify(stepDao, never()).update(any());
+        verify(stepDao, never()).updateStepProgress(any(), any());
+        assertTrue(taskSteps.stream().allMatch(step -> Integer.valueOf(0).equals(step.getProgress())));
+
+        assertEquals(2 * DISK_COUNT + 3, countTransactions());
+        assertEquals(4 * DISK_COUNT + 7, countStatements());
+        assertTrue(countTransactions() < (5 * DISK_COUNT + 4) / 2);
+        assertTrue(countStatements() < (11 * DISK_COUNT + 9) / 2);
+    }
+
+    @Test
+    public void readsSeePendingSteps() {
+        Step step = job.addStep(StepEnum.EXECUTING, null);
+        jobRepository.saveStep(step);
+        verify(stepDao, never()).saveAllInBatch(anyCollection());
+
+        doReturn(job).when(jobDao).get(job.getId());
+        jobRepository.getJobWithSteps(job.getId());
+        jobRepository.getStep(step.getId(), false);
+
+        InOrder inOrder = inOrder(stepDao);
+        inOrder.verify(stepDao).saveAllInBatch(Collections.singletonList(step));
+        inOrder.verify(stepDao).getStepsByJobId(job.getId());
+        inOrder.verify(stepDao).get(step.getId());
+        verify(stepDao, times(1)).saveAllInBatch(anyCollection());
+    }
+
+    @Test
+    public void endedStepIsWrittenRightAway() {
+        Step step = job.addStep(StepEnum.EXECUTING, null);
+        jobRepository.saveStep(step);
+        Step subStep = step.addStep(StepEnum.VALIDATING, null);
+        jobRepository.saveStep(subStep);
+
+        subStep.markStepEnded(false);
+        jobRepository.updateStep(subStep);
+
+        verify(jobDao).updateJobLastUpdateTime(eq(job.getId()), any());
+        verify(stepDao).saveAllInBatch(argThat(steps -> steps.size() == 2
+                && steps.stream().anyMatch(s -> s.getStatus() == JobExecutionStatus.FAILED)));
+        assertEquals(1, countTransactions());
+    }
+
+    @Test
+    public void stepWithSubjectEntitiesIsWrittenRightAway() {
+        Step step = job.addStep(StepEnum.EXECUTING, null);
+        List<StepSubjectEntity> subjectEntities =
+                Collections.singletonList(new StepSubjectEntity(VdcObjectType.Disk, Guid.newGuid(), 100));
+        jobRepository.saveStep(step, subjectEntities);
+
+        InOrder inOrder = inOrder(stepDao, stepSubjectEntityDao);
+        inOrder.verify(stepDao).saveAllInBatch(Collections.singletonList(step));
+        inOrder.verify(stepSubjectEntityDao).saveAll(subjectEntities);
+        assertEquals(step.getId(), subjectEntities.get(0).getStepId());
+    }
+
+    @Test
+    public void pendingStepsAreWrittenBeforeJobEnds() {
+        Step step = job.addStep(StepEnum.EXECUTING, null);
+        jobRepository.saveStep(step);
+        job.markJobEnded(true);
+        jobRepository.updateCompletedJobAndSteps(job);
+
+        InOrder inOrder = inOrder(stepDao, jobDao);
+        inOrder.verify(stepDao).saveAllInBatch(Collections.singletonList(step));
+        inOrder.verify(jobDao).update(job);
+        inOrder.verify(stepDao).updateJobStepsCompleted(job.getId(), job.getStatus(), job.getEndTime());
+    }
+
+    @Test
+    public void stepsAreWrittenOneByOneWhenBatchFails() {
+        Step step = job.addStep(StepEnum.EXECUTING, null);
+        jobRepository.saveStep(step);
+        Step failingStep = step.addStep(StepEnum.VALIDATING, null);
+        jobRepository.saveStep(failingStep);
+        Step subStep = step.addStep(StepEnum.VALIDATING, null);
+        jobRepository.saveStep(subStep);
+        doThrow(new RuntimeException("batch failure")).when(stepDao).saveAllInBatch(anyCollection());
+        doThrow(new RuntimeException("step failure")).when(stepDao).save(failingStep);
+
+        subStep.markStepEnded(true);
+        jobRepository.updateStep(subStep);
+
+        // the batch and the failing step were rolled back
+        verify(transactionManager, times(2)).rollback();
+        verify(stepDao).save(step);
+        verify(stepDao).save(subStep);
+        verify(stepSubjectEntityDao, times(2)).saveAll(Collections.emptyList());
+        assertEquals(4, countTransactions());
+
+        // the steps were written, the next write of the job doesn't retry them
+        jobRepository.getStepsByJobId(job.getId());
+        verify(stepDao, times(1)).saveAllInBatch(anyCollection());
+        verify(stepDao, times(3)).save(any());
+    }
+
+    @Test
+    public void stepsAreAddedWhileTheJobIsWritten() throws Exception {
+        Step step = job.addStep(StepEnum.EXECUTING, null);
+        jobRepository.saveStep(step);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch written = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            written.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(stepDao).saveAllInBatch(Collections.singletonList(step));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> write = executor.submit(() -> jobRepository.getStepsByJobId(job.getId()));
+            assertTrue(writing.await(10, TimeUnit.SECONDS));
+
+            // a step is added and its progress is updated while the previous steps of the job are written
+            Step subStep = step.addStep(StepEnum.VALIDATING, null);
+            executor.submit(() -> {
+                jobRepository.saveStep(subStep);
+                jobRepository.updateStepProgress(subStep.getId(), 50);
+            }).get(10, TimeUnit.SECONDS);
+            assertTrue(jobRepository.stepExists(subStep.getId()));
+
+            written.countDown();
+            write.get(10, TimeUnit.SECONDS);
+            jobRepository.getStepsByJobId(job.getId());
+
+            InOrder inOrder = inOrder(stepDao);
+            inOrder.verify(stepDao).saveAllInBatch(Collections.singletonList(step));
+            inOrder.verify(stepDao).saveAllInBatch(Collections.singletonList(subStep));
+            verify(stepDao, never()).updateStepProgress(any(), any());
+            assertEquals(Integer.valueOf(50), subStep.getProgress());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int countTransactions() {
+        return (int) mockingDetails(transactionManager).getInvocations().stream()
+                .filter(invocation -> invocation.getMethod().getName().equals("begin"))
+                .count();
+    }
+
+    private int countStatements() {
+        return Stream.of(jobDao, stepDao, stepSubjectEntityDao)
+                .mapToInt(dao -> mockingDetails(dao).getInvocations().size())
+                .sum();
+    }
+}
@@ -32,10 +32,10 @@ import org.ovirt.engine.core.dao.VdsStaticDao;
 import org.ovirt.engine.core.dao.network.DnsResolverConfigurationDao;
 import org.ovirt.engine.core.dao.network.HostNetworkQosDao;
 import org.ovirt.engine.core.dao.network.InterfaceDao;
-import org.ovirt.engine.core.dao.network.NetworkDao;
 import org.ovirt.engine.core.utils.MockConfigDescriptor;
 import org.ovirt.engine.core.utils.MockConfigExtension;
 import org.ovirt.engine.core.vdsbroker.EffectiveHostNetworkQos;
+import org.ovirt.engine.core.vdsbroker.NetworkOutOfSyncIndex;
 
 @ExtendWith({MockitoExtension.class, MockConfigExtension.class})
 public class ReportedConfigurationsFillerTest {
@@ -47,7 +47,7 @@ public class ReportedConfigurationsFillerTest {
     private InterfaceDao interfaceDao;
 
     @Mock
-    private NetworkDao networkDao;
+    private NetworkOutOfSyncIndex networkOutOfSyncIndex;
 
     @Mock
     private ClusterDao clusterDao;
@@ -155,7 +155,7 @@ public class ReportedConfigurationsFillerTest {
     private void testFillReportedConfiguration(Network network, VdsNetworkInterface nic, HostNetworkQos networkQos) {
         nic.setNetworkName(network.getName());
         when(interfaceDao.getAllInterfacesForVds(eq(hostId))).thenReturn(Arrays.asList(baseNic, vlanNic));
-        when(networkDao.getAllForCluster(eq(clusterId))).thenReturn(Collections.singletonList(network));
+        when(networkOutOfSyncIndex.getClusterNetworks(eq(clusterId))).thenReturn(Collections.singletonList(network));
 
 
         NetworkAttachment networkAttachment = new NetworkAttachment();
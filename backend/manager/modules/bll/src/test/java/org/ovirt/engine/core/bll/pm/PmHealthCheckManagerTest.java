@@ -0,0 +1,277 @@
+package org.ovirt.engine.core.bll.pm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.ovirt.engine.core.common.AuditLogType;
+import org.ovirt.engine.core.common.businessentities.VDS;
+import org.ovirt.engine.core.common.businessentities.pm.FenceActionType;
+import org.ovirt.engine.core.common.businessentities.pm.FenceAgent;
+import org.ovirt.engine.core.common.businessentities.pm.FenceOperationResult;
+import org.ovirt.engine.core.common.businessentities.pm.FenceOperationResult.Status;
+import org.ovirt.engine.core.common.businessentities.pm.PowerStatus;
+import org.ovirt.engine.core.common.config.ConfigValues;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AlertDirector;
+import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AuditLogDirector;
+import org.ovirt.engine.core.dao.FenceAgentDao;
+import org.ovirt.engine.core.dao.VdsDao;
+import org.ovirt.engine.core.utils.MockConfigDescriptor;
+import org.ovirt.engine.core.utils.MockConfigExtension;
+import org.ovirt.engine.core.utils.threadpool.ThreadPoolUtil;
+
+/**
+ * Runs the health check of hundreds of hosts against fake fence agents. The hosts are grouped in chassis of
+ * {@link #HOSTS_PER_CHASSIS} hosts which share the same fence agent, the agent of one chassis never answers and the
+ * agents of some other chassis fail.
+ */
+@ExtendWith({MockitoExtension.class, MockConfigExtension.class})
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class PmHealthCheckManagerTest {
+
+    private static final int HOST_COUNT = 200;
+    private static final int HOSTS_PER_CHASSIS = 4;
+    private static final int CHASSIS_COUNT = HOST_COUNT / HOSTS_PER_CHASSIS;
+    private static final int CLUSTER_COUNT = 8;
+    private static final int PROXY_COUNT = 4;
+    private static final int MAX_CONCURRENT_HOSTS = 20;
+    private static final int MAX_CHECKS_PER_PROXY = 2;
+    private static final long CHECK_MILLIS = 20;
+    private static final int SLOW_CHASSIS = 3;
+    private static final long SLOW_CHECK_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    public static Stream<MockConfigDescriptor<?>> mockConfiguration() {
+        return Stream.of(MockConfigDescriptor.of(ConfigValues.PMHealthCheckMaxConcurrentHosts, MAX_CONCURRENT_HOSTS),
+                MockConfigDescriptor.of(ConfigValues.PMHealthCheckMaxConcurrentChecksPerProxy, MAX_CHECKS_PER_PROXY),
+                MockConfigDescriptor.of(ConfigValues.PMHealthCheckAgentTimeoutInSec, 1));
+    }
+
+    @Mock
+    private VdsDao vdsDao;
+
+    @Mock
+    private FenceAgentDao fenceAgentDao;
+
+    @Mock
+    private AuditLogDirector auditLogDirector;
+
+    @Mock
+    private AlertDirector alertDirector;
+
+    @Spy
+    @InjectMocks
+    private PmHealthCheckManager manager;
+
+    private final List<VDS> proxies = new ArrayList<>();
+    private final List<Guid> clusterIds = new ArrayList<>();
+    private final Map<Guid, Integer> clusterIndexes = new ConcurrentHashMap<>();
+    private final Map<Guid, AtomicInteger> runningChecksByProxy = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> checksByAgent = new ConcurrentHashMap<>();
+    private final AtomicInteger runningChecks = new AtomicInteger();
+    private final AtomicInteger maxRunningChecks = new AtomicInteger();
+    private final AtomicInteger maxRunningChecksOfProxy = new AtomicInteger();
+
+    private ExecutorService previousExecutor;
+    private ExecutorService executor;
+    private ExecutorService agentsExecutor;
+
+    @BeforeEach
+    public void setUp() {
+        previousExecutor = ThreadPoolUtil.getExecutorService();
+        executor = Executors.newCachedThreadPool();
+        ThreadPoolUtil.setExecutorService(executor);
+        agentsExecutor = Executors.newFixedThreadPool(MAX_CONCURRENT_HOSTS);
+        doReturn(agentsExecutor).when(manager).createAgentsExecutor();
+
+        for (int i = 0; i < PROXY_COUNT; i++) {
+            VDS proxy = new VDS();
+            proxy.setId(Guid.newGuid());
+            proxy.setHostName("proxy" + i);
+            proxies.add(proxy);
+        }
+        for (int i = 0; i < CLUSTER_COUNT; i++) {
+            clusterIds.add(Guid.newGuid());
+            clusterIndexes.put(clusterIds.get(i), i);
+        }
+
+        List<VDS> hosts = IntStream.range(0, HOST_COUNT).mapToObj(this::createHost).collect(Collectors.toList());
+        doReturn(hosts).when(vdsDao).getAll();
+        doAnswer(invocation -> createHostAgents(hosts, invocation.getArgument(0)))
+                .when(fenceAgentDao).getFenceAgentsForHost(any());
+        doAnswer(invocation -> new FakeFenceAgentExecutor(invocation.getArgument(0)))
+                .when(manager).createAgentExecutor(any());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+        agentsExecutor.shutdownNow();
+        ThreadPoolUtil.setExecutorService(previousExecutor);
+    }
+
+    @Test
+    public void hostsAreCheckedConcurrently() {
+        long start = System.currentTimeMillis();
+        manager.pmHealthCheck();
+        long duration = System.currentTimeMillis() - start;
+
+        // Checking the hosts one after the other takes at least that long, even without the slow agents
+        assertTrue(duration < HOST_COUNT * CHECK_MILLIS, "The health check took " + duration + " ms");
+        assertTrue(maxRunningChecks.get() > MAX_CHECKS_PER_PROXY);
+    }
+
+    @Test
+    public void proxiesRunLimitedNumberOfChecks() {
+        manager.pmHealthCheck();
+
+        assertTrue(maxRunningChecksOfProxy.get() <= MAX_CHECKS_PER_PROXY,
+                "A proxy ran " + maxRunningChecksOfProxy.get() + " checks at the same time");
+    }
+
+    @Test
+    public void sharedAgentIsCheckedOnce() {
+        manager.pmHealthCheck();
+
+        assertEquals(CHASSIS_COUNT, checksByAgent.size());
+        checksByAgent.forEach((agent, checks) -> {
+            if (!isFailingAgent(agent)) {
+                assertEquals(1, checks.get(), "Agent " + agent + " was checked " + checks.get() + " times");
+            }
+        });
+    }
+
+    @Test
+    public void slowAndFailingAgentsRaiseAlerts() {
+        manager.pmHealthCheck();
+
+        int unhealthyHosts = (int) IntStream.range(0, HOST_COUNT)
+                .filter(i -> isSlowAgent(agentIp(i)) || isFailingAgent(agentIp(i)))
+                .count();
+        assertTrue(unhealthyHosts > 0);
+        verify(auditLogDirector, times(unhealthyHosts))
+                .log(any(), eq(AuditLogType.VDS_ALERT_PM_HEALTH_CHECK_START_MIGHT_FAIL));
+        verify(auditLogDirector, times(unhealthyHosts))
+                .log(any(), eq(AuditLogType.VDS_ALERT_PM_HEALTH_CHECK_STOP_MIGHT_FAIL));
+        verify(alertDirector, times(HOST_COUNT - unhealthyHosts))
+                .removeVdsAlert(any(), eq(AuditLogType.VDS_ALERT_PM_HEALTH_CHECK_START_MIGHT_FAIL));
+        verify(alertDirector, times(HOST_COUNT - unhealthyHosts))
+                .removeVdsAlert(any(), eq(AuditLogType.VDS_ALERT_PM_HEALTH_CHECK_STOP_MIGHT_FAIL));
+    }
+
+    private VDS createHost(int index) {
+        VDS host = new VDS();
+        host.setId(Guid.newGuid());
+        host.setVdsName("host" + index);
+        host.setHostName("host" + index);
+        host.setClusterId(clusterIds.get(chassis(index) % CLUSTER_COUNT));
+        host.setPmEnabled(true);
+        return host;
+    }
+
+    private List<FenceAgent> createHostAgents(List<VDS> hosts, Guid hostId) {
+        int index = IntStream.range(0, hosts.size()).filter(i -> hosts.get(i).getId().equals(hostId)).findFirst()
+                .orElseThrow(IllegalArgumentException::new);
+        FenceAgent agent = new FenceAgent();
+        agent.setId(Guid.newGuid());
+        agent.setHostId(hostId);
+        agent.setOrder(1);
+        agent.setType("ipmilan");
+        agent.setIp(agentIp(index));
+        return Collections.singletonList(agent);
+    }
+
+    private static int chassis(int hostIndex) {
+        return hostIndex / HOSTS_PER_CHASSIS;
+    }
+
+    private static String agentIp(int hostIndex) {
+        return "chassis" + chassis(hostIndex);
+    }
+
+    private static boolean isSlowAgent(String ip) {
+        return Integer.parseInt(ip.substring("chassis".length())) == SLOW_CHASSIS;
+    }
+
+    private static boolean isFailingAgent(String ip) {
+        return Integer.parseInt(ip.substring("chassis".length())) % 10 == 7;
+    }
+
+    private static void updateMax(AtomicInteger max, int value) {
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Runs the status checks on the proxy of the cluster of the host, with the latency and the result of the agent
+     */
+    private class FakeFenceAgentExecutor extends FenceAgentExecutor {
+
+        private final VDS fencedHost;
+
+        FakeFenceAgentExecutor(VDS fencedHost) {
+            super(fencedHost, null);
+            this.fencedHost = fencedHost;
+        }
+
+        @Override
+        protected FenceProxyLocator getProxyLocator() {
+            return new FenceProxyLocator(fencedHost) {
+                @Override
+                public VDS findProxyHost(boolean withRetries, Guid excludedHostId) {
+                    return excludedHostId == null
+                            ? proxies.get(clusterIndexes.get(fencedHost.getClusterId()) % PROXY_COUNT)
+                            : null;
+                }
+            };
+        }
+
+        @Override
+        protected FenceOperationResult executeFenceAction(FenceActionType action, FenceAgent agent, VDS proxyHost) {
+            checksByAgent.computeIfAbsent(agent.getIp(), ip -> new AtomicInteger()).incrementAndGet();
+            AtomicInteger runningChecksOfProxy =
+                    runningChecksByProxy.computeIfAbsent(proxyHost.getId(), id -> new AtomicInteger());
+            updateMax(maxRunningChecksOfProxy, runningChecksOfProxy.incrementAndGet());
+            updateMax(maxRunningChecks, runningChecks.incrementAndGet());
+            try {
+                Thread.sleep(isSlowAgent(agent.getIp()) ? SLOW_CHECK_MILLIS : CHECK_MILLIS);
+                return isFailingAgent(agent.getIp())
+                        ? new FenceOperationResult(Status.ERROR, PowerStatus.UNKNOWN, "Failed to connect")
+                        : new FenceOperationResult(Status.SUCCESS, PowerStatus.ON);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new FenceOperationResult(Status.ERROR, PowerStatus.UNKNOWN, "Interrupted");
+            } finally {
+                runningChecks.decrementAndGet();
+                runningChecksOfProxy.decrementAndGet();
+            }
+        }
+    }
+}
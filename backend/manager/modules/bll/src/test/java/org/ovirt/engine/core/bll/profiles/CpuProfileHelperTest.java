@@ -14,13 +14,13 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.ovirt.engine.core.bll.PermissionResolver;
 import org.ovirt.engine.core.bll.ValidationResult;
 import org.ovirt.engine.core.common.businessentities.VmBase;
 import org.ovirt.engine.core.common.businessentities.profiles.CpuProfile;
 import org.ovirt.engine.core.common.businessentities.profiles.ProfileType;
 import org.ovirt.engine.core.common.errors.EngineMessage;
 import org.ovirt.engine.core.compat.Guid;
-import org.ovirt.engine.core.dao.PermissionDao;
 import org.ovirt.engine.core.dao.profiles.CpuProfileDao;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,7 +35,7 @@ public class CpuProfileHelperTest {
     private CpuProfileDao cpuProfileDao;
 
     @Mock
-    private PermissionDao permissionDao;
+    private PermissionResolver permissionResolver;
 
     @InjectMocks
     private CpuProfileHelper cpuProfileHelper;
@@ -0,0 +1,183 @@
+package org.ovirt.engine.core.bll.scheduling.arem;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ovirt.engine.core.common.scheduling.AffinityGroup;
+import org.ovirt.engine.core.common.scheduling.EntityAffinityRule;
+import org.ovirt.engine.core.compat.Guid;
+
+public class AffinityGroupIndexTest {
+
+    private static final int VM_COUNT = 3000;
+    private static final int GROUP_COUNT = 1000;
+    private static final int LABEL_GROUP_COUNT = 200;
+    private static final int MAX_VMS_IN_GROUP = 20;
+    private static final int HOST_COUNT = 50;
+    private static final int MAX_HOSTS_IN_GROUP = 5;
+
+    private Random random;
+    private List<Guid> vmIds;
+    private List<Guid> hostIds;
+    private List<AffinityGroup> groups;
+    private List<AffinityGroup> labelGroups;
+    private AffinityGroupIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        random = new Random(42);
+        vmIds = IntStream.range(0, VM_COUNT).mapToObj(i -> Guid.newGuid()).collect(Collectors.toList());
+        hostIds = IntStream.range(0, HOST_COUNT).mapToObj(i -> Guid.newGuid()).collect(Collectors.toList());
+        groups = createGroups(random, GROUP_COUNT);
+        labelGroups = createGroups(random, LABEL_GROUP_COUNT);
+        index = new AffinityGroupIndex(groups, labelGroups);
+    }
+
+    @Test
+    public void groupsForVmMatchAllGroupsScan() {
+        for (Guid vmId : vmIds) {
+            assertEquals(scanGroupsForVm(groups.stream(), vmId), index.getGroupsForVm(vmId, false));
+            assertEquals(scanGroupsForVm(Stream.concat(groups.stream(), labelGroups.stream()), vmId),
+                    index.getGroupsForVm(vmId, true));
+        }
+    }
+
+    @Test
+    public void groupsForUnknownVmAreEmpty() {
+        assertTrue(index.getGroupsForVm(Guid.newGuid(), true).isEmpty());
+    }
+
+    @Test
+    public void groupsAreInLoadOrder() {
+        assertEquals(groups, index.getGroups(false));
+        assertThat(index.getGroups(true)).containsExactlyElementsOf(
+                Stream.concat(groups.stream(), labelGroups.stream()).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void copiedGroupsDoNotChangeIndex() {
+        List<AffinityGroup> copies = index.copyGroups(true);
+        assertEquals(index.getGroups(true), copies);
+
+        AffinityGroup copy = copies.get(0);
+        assertNotSame(groups.get(0), copy);
+        copy.getVmIds().clear();
+        assertThat(index.getGroupsForVm(groups.get(0).getVmIds().get(0), false)).contains(groups.get(0));
+    }
+
+    @Test
+    public void hostsInGroupsMatchHostsOfGroups() {
+        for (AffinityGroup group : index.getGroups(true)) {
+            for (Guid hostId : hostIds) {
+                assertEquals(group.getVdsIds().contains(hostId), index.isHostInGroup(hostId, group));
+            }
+        }
+    }
+
+    @Test
+    public void vmToHostViolationsMatchFullRecompute() {
+        Map<Guid, Guid> vmToHost = new HashMap<>();
+        vmIds.forEach(vmId -> vmToHost.put(vmId, hostIds.get(random.nextInt(HOST_COUNT))));
+
+        VmToHostAffinityViolations violations = index.getVmToHostViolations(true);
+        assertEquals(VM_COUNT, violations.update(vmToHost));
+        assertViolations(violations, vmToHost);
+
+        // Migrate some VMs and stop others, only those are recalculated
+        int changed = 0;
+        for (int i = 0; i < 100; i++) {
+            Guid hostId = hostIds.get(random.nextInt(HOST_COUNT));
+            if (!hostId.equals(vmToHost.put(vmIds.get(i), hostId))) {
+                changed++;
+            }
+        }
+        for (int i = 100; i < 150; i++) {
+            vmToHost.remove(vmIds.get(i));
+            changed++;
+        }
+        assertEquals(changed, violations.update(vmToHost));
+        assertViolations(violations, vmToHost);
+        assertEquals(0, violations.update(vmToHost));
+    }
+
+    private void assertViolations(VmToHostAffinityViolations violations, Map<Guid, Guid> vmToHost) {
+        for (boolean enforcing : new boolean[] { true, false }) {
+            Map<Guid, Integer> expected = scanVmToHostViolations(index.getGroups(true), vmToHost, enforcing);
+            List<Guid> violatingVms = violations.getViolatingVms(enforcing);
+            assertEquals(expected.keySet(), new HashSet<>(violatingVms));
+            // The VMs are sorted by the number of broken groups
+            for (int i = 1; i < violatingVms.size(); i++) {
+                assertThat(expected.get(violatingVms.get(i - 1)))
+                        .isLessThanOrEqualTo(expected.get(violatingVms.get(i)));
+            }
+        }
+    }
+
+    private List<AffinityGroup> createGroups(Random random, int count) {
+        List<AffinityGroup> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            AffinityGroup group = new AffinityGroup();
+            group.setId(Guid.newGuid());
+            group.setName("group" + i);
+            // A narrow range of priorities, so many groups have the same priority
+            group.setPriority(random.nextInt(10));
+            group.setVmIds(random.ints(1 + random.nextInt(MAX_VMS_IN_GROUP), 0, VM_COUNT)
+                    .distinct()
+                    .mapToObj(vmIds::get)
+                    .collect(Collectors.toCollection(ArrayList::new)));
+            group.setVdsIds(random.ints(random.nextInt(MAX_HOSTS_IN_GROUP + 1), 0, HOST_COUNT)
+                    .distinct()
+                    .mapToObj(hostIds::get)
+                    .collect(Collectors.toCollection(ArrayList::new)));
+            group.setVdsAffinityRule(EntityAffinityRule.values()[random.nextInt(EntityAffinityRule.values().length)]);
+            group.setVdsEnforcing(random.nextBoolean());
+            result.add(group);
+        }
+        return result;
+    }
+
+    /**
+     * Selects the groups of the VM the way the enforcer did before the index, by going over all the groups
+     */
+    private static List<AffinityGroup> scanGroupsForVm(Stream<AffinityGroup> groups, Guid vmId) {
+        return groups.filter(group -> group.getVmIds().contains(vmId))
+                .sorted(Comparator.comparingLong(AffinityGroup::getPriority).reversed())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Counts the VM to host affinity violations the way the enforcer did before they were tracked incrementally, by
+     * going over all the groups and their VMs
+     */
+    private static Map<Guid, Integer> scanVmToHostViolations(List<AffinityGroup> groups,
+            Map<Guid, Guid> vmToHost,
+            boolean enforcing) {
+        Map<Guid, Integer> violations = new HashMap<>();
+        groups.stream()
+                .filter(AffinityGroup::isVdsAffinityEnabled)
+                .filter(group -> !group.getVdsIds().isEmpty() && !group.getVmIds().isEmpty())
+                .filter(group -> group.isVdsEnforcing() == enforcing)
+                .forEach(group -> group.getVmIds().forEach(vmId -> {
+                    Guid hostId = vmToHost.get(vmId);
+                    if (hostId != null && group.getVdsIds().contains(hostId) != group.isVdsPositive()) {
+                        violations.merge(vmId, 1, Integer::sum);
+                    }
+                }));
+        return violations;
+    }
+}
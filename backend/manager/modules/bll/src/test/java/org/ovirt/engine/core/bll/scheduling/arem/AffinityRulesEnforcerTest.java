@@ -40,18 +40,14 @@ import org.ovirt.engine.core.common.scheduling.AffinityGroup;
 import org.ovirt.engine.core.common.scheduling.EntityAffinityRule;
 import org.ovirt.engine.core.compat.Guid;
 import org.ovirt.engine.core.compat.Version;
-import org.ovirt.engine.core.dao.LabelDao;
 import org.ovirt.engine.core.dao.VmDao;
-import org.ovirt.engine.core.dao.scheduling.AffinityGroupDao;
 
 @ExtendWith(MockitoExtension.class)
 @MockitoSettings(strictness = Strictness.LENIENT)
 public class AffinityRulesEnforcerTest {
 
     @Mock
-    private AffinityGroupDao affinityGroupDao;
-    @Mock
-    private LabelDao labelDao;
+    private AffinityGroupIndexManager affinityGroupIndexManager;
     @Mock
     private SchedulingManager schedulingManager;
     @Mock
@@ -110,8 +106,8 @@ public class AffinityRulesEnforcerTest {
         possibleHosts = Stream.of(vm1, vm2, vm3, vm4, vm5, vm6)
                 .collect(Collectors.toMap(VM::getId, vm -> Arrays.asList(host1, host2, host3)));
 
-        when(affinityGroupDao.getAllAffinityGroupsWithFlatLabelsByClusterId(any())).thenAnswer(invocation -> copyGroups());
-        when(labelDao.getAllByClusterId(any())).thenReturn(labels);
+        when(affinityGroupIndexManager.getIndex(any())).thenAnswer(invocation -> new AffinityGroupIndex(copyGroups(),
+                AffinityRulesUtils.affinityGroupsFromLabels(labels, cluster.getId())));
 
         when(schedulingManager.canSchedule(eq(cluster), any(), any(), any(), anyBoolean(), anyBoolean(), any())).thenReturn(possibleHosts);
         when(schedulingManager.prepareCall(eq(cluster))).thenCallRealMethod();
@@ -141,6 +137,18 @@ public class AffinityRulesEnforcerTest {
         ));
     }
 
+    @Test
+    public void shouldSkipRemovedVms() {
+        // the index may still refer to a VM removed since it was loaded
+        VM removedVm = createVM(host3, Up, "removed");
+        affinityGroups.add(createAffinityGroup(cluster, EntityAffinityRule.POSITIVE, vm1, vm2, vm4, removedVm));
+
+        assertVmsToMigrateGroups(Arrays.asList(
+                Arrays.asList(vm4),
+                Arrays.asList(vm1, vm2)
+        ));
+    }
+
     @Test
     public void shouldMigrateCandidateFromNegativeGroup() {
         AffinityGroup positiveSatisfiedGroup =
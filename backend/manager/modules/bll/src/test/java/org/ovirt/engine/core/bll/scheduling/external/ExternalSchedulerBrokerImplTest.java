@@ -0,0 +1,141 @@
+package org.ovirt.engine.core.bll.scheduling.external;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.ovirt.engine.core.common.AuditLogType;
+import org.ovirt.engine.core.common.utils.Pair;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AuditLogDirector;
+import org.ovirt.engine.core.utils.InjectedMock;
+import org.ovirt.engine.core.utils.InjectorExtension;
+
+@ExtendWith({MockitoExtension.class, InjectorExtension.class})
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class ExternalSchedulerBrokerImplTest {
+
+    private static final int HOST_COUNT = 50;
+    private static final int VM_COUNT = 20;
+    private static final List<String> FILTERS = Collections.singletonList("fake_filter");
+    private static final List<Pair<String, Integer>> SCORES = Collections.singletonList(new Pair<>("fake_score", 1));
+
+    private final FakeExternalScheduler scheduler = new FakeExternalScheduler(true);
+    private final FakeExternalScheduler schedulerWithoutMulticall = new FakeExternalScheduler(false);
+
+    @Mock
+    @InjectedMock
+    public AuditLogDirector auditLogDirector;
+
+    @InjectMocks
+    private ExternalSchedulerBrokerImpl broker = new ExternalSchedulerBrokerImpl(scheduler);
+
+    @InjectMocks
+    private ExternalSchedulerBrokerImpl brokerWithoutMulticall =
+            new ExternalSchedulerBrokerImpl(schedulerWithoutMulticall);
+
+    private List<Guid> hostIds;
+    private List<Guid> vmIds;
+
+    @BeforeEach
+    public void setUp() {
+        hostIds = IntStream.range(0, HOST_COUNT).mapToObj(i -> Guid.newGuid()).collect(Collectors.toList());
+        vmIds = IntStream.range(0, VM_COUNT).mapToObj(i -> Guid.newGuid()).collect(Collectors.toList());
+        for (int i = 0; i < VM_COUNT; i++) {
+            for (int j = 0; j < HOST_COUNT; j += i + 2) {
+                scheduler.excludeHost(vmIds.get(i).toString(), hostIds.get(j).toString());
+                schedulerWithoutMulticall.excludeHost(vmIds.get(i).toString(), hostIds.get(j).toString());
+            }
+        }
+    }
+
+    @Test
+    public void filtersOfAllVmsSentInOneRequest() {
+        Map<Guid, List<Guid>> filteredHosts = broker.runFiltersForVms(FILTERS, hostIds, vmIds, Collections.emptyMap());
+
+        assertEquals(1, scheduler.getRoundTrips());
+        assertEquals(runFiltersSeparately(broker), filteredHosts);
+    }
+
+    @Test
+    public void scoresOfAllVmsSentInOneRequest() {
+        List<WeightResultEntry> scores = broker.runScoresForVms(SCORES, hostIds, vmIds, Collections.emptyMap());
+
+        assertEquals(1, scheduler.getRoundTrips());
+        assertEquals(toStrings(runScoresSeparately(broker)), toStrings(scores));
+    }
+
+    @Test
+    public void vmsSentInSeparateRequestsWithoutMulticall() {
+        Map<Guid, List<Guid>> filteredHosts =
+                brokerWithoutMulticall.runFiltersForVms(FILTERS, hostIds, vmIds, Collections.emptyMap());
+        assertEquals(1 + VM_COUNT, schedulerWithoutMulticall.getRoundTrips());
+
+        // The multicall is not tried again
+        List<WeightResultEntry> scores =
+                brokerWithoutMulticall.runScoresForVms(SCORES, hostIds, vmIds, Collections.emptyMap());
+        assertEquals(1 + 2 * VM_COUNT, schedulerWithoutMulticall.getRoundTrips());
+
+        assertEquals(runFiltersSeparately(broker), filteredHosts);
+        assertEquals(toStrings(runScoresSeparately(broker)), toStrings(scores));
+    }
+
+    @Test
+    public void failedCallDoesNotFilterHostsOfVm() {
+        Guid failingVm = vmIds.get(0);
+        scheduler.failCallsOfVm(failingVm.toString());
+
+        Map<Guid, List<Guid>> filteredHosts = broker.runFiltersForVms(FILTERS, hostIds, vmIds, Collections.emptyMap());
+
+        assertEquals(hostIds, filteredHosts.get(failingVm));
+        assertEquals(broker.runFilters(FILTERS, hostIds, vmIds.get(1), Collections.emptyMap()),
+                filteredHosts.get(vmIds.get(1)));
+    }
+
+    @Test
+    public void unreachableSchedulerDoesNotFilterHosts() {
+        scheduler.setUnreachable(true);
+
+        Map<Guid, List<Guid>> filteredHosts = broker.runFiltersForVms(FILTERS, hostIds, vmIds, Collections.emptyMap());
+
+        assertEquals(1, scheduler.getRoundTrips());
+        vmIds.forEach(vmId -> assertEquals(hostIds, filteredHosts.get(vmId)));
+        verify(auditLogDirector).log(any(), eq(AuditLogType.FAILED_TO_CONNECT_TO_SCHEDULER_PROXY));
+    }
+
+    private Map<Guid, List<Guid>> runFiltersSeparately(ExternalSchedulerBroker broker) {
+        Map<Guid, List<Guid>> filteredHosts = new LinkedHashMap<>();
+        vmIds.forEach(vmId -> filteredHosts.put(vmId,
+                broker.runFilters(FILTERS, hostIds, vmId, Collections.emptyMap())));
+        return filteredHosts;
+    }
+
+    private List<WeightResultEntry> runScoresSeparately(ExternalSchedulerBroker broker) {
+        List<WeightResultEntry> scores = new ArrayList<>();
+        vmIds.forEach(vmId -> scores.addAll(broker.runScores(SCORES, hostIds, vmId, Collections.emptyMap())));
+        return scores;
+    }
+
+    private static List<String> toStrings(List<WeightResultEntry> scores) {
+        return scores.stream()
+                .map(entry -> entry.getWeightUnit() + ":" + entry.getHost() + ":" + entry.getWeight())
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,110 @@
+package org.ovirt.engine.core.bll.scheduling.external;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.xmlrpc.XmlRpcException;
+import org.apache.xmlrpc.client.XmlRpcClient;
+
+/**
+ * An in-JVM external scheduler, which answers the requests of {@link ExternalSchedulerBrokerImpl} without a network
+ * connection and counts the round trips to it.
+ * <p>
+ * A host passes the filters for a VM unless the host was excluded for the VM, and the score of a host is computed
+ * from the IDs of the VM and the host, so the results differ between the VMs. The calls for the VMs set by
+ * {@link #failCallsOfVm(String)} fail within multicall requests.
+ */
+public class FakeExternalScheduler extends XmlRpcClient {
+
+    private static final String UNIT_NAME = "fake_unit";
+
+    private final boolean multicallSupported;
+    private final Map<String, Set<String>> excludedHosts = new HashMap<>();
+    private final Set<String> failingVms = new HashSet<>();
+    private final AtomicInteger roundTrips = new AtomicInteger();
+    private boolean unreachable;
+
+    public FakeExternalScheduler(boolean multicallSupported) {
+        this.multicallSupported = multicallSupported;
+    }
+
+    public void excludeHost(String vmId, String hostId) {
+        excludedHosts.computeIfAbsent(vmId, k -> new HashSet<>()).add(hostId);
+    }
+
+    public void failCallsOfVm(String vmId) {
+        failingVms.add(vmId);
+    }
+
+    public void setUnreachable(boolean unreachable) {
+        this.unreachable = unreachable;
+    }
+
+    public int getRoundTrips() {
+        return roundTrips.get();
+    }
+
+    @Override
+    public Object execute(String methodName, Object[] params) throws XmlRpcException {
+        roundTrips.incrementAndGet();
+        if (unreachable) {
+            throw new XmlRpcException("Failed to read server's response", new IOException("Connection refused"));
+        }
+
+        if ("system.multicall".equals(methodName)) {
+            if (!multicallSupported) {
+                throw new XmlRpcException(1, "method \"system.multicall\" is not supported");
+            }
+            return multicall((Object[]) params[0]);
+        }
+        return call(methodName, params);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object[] multicall(Object[] calls) throws XmlRpcException {
+        Object[] results = new Object[calls.length];
+        for (int i = 0; i < calls.length; i++) {
+            Map<String, Object> call = (Map<String, Object>) calls[i];
+            Object[] params = (Object[]) call.get("params");
+            if (failingVms.contains(params[2])) {
+                Map<String, Object> fault = new HashMap<>();
+                fault.put("faultCode", 1);
+                fault.put("faultString", "Plugin failed");
+                results[i] = fault;
+            } else {
+                results[i] = new Object[] { call((String) call.get("methodName"), params) };
+            }
+        }
+        return results;
+    }
+
+    private Object call(String methodName, Object[] params) throws XmlRpcException {
+        String vmId = (String) params[2];
+        String[] hostIds = (String[]) params[1];
+        Object[] result;
+        switch (methodName) {
+        case "runFilters":
+            Set<String> excluded = excludedHosts.getOrDefault(vmId, new HashSet<>());
+            result = Arrays.stream(hostIds).filter(hostId -> !excluded.contains(hostId)).toArray();
+            break;
+        case "runCostFunctions":
+            result = new Object[hostIds.length];
+            for (int i = 0; i < hostIds.length; i++) {
+                result[i] = new Object[] { hostIds[i], (vmId + hostIds[i]).hashCode() % 100, UNIT_NAME };
+            }
+            break;
+        default:
+            throw new XmlRpcException(1, "method \"" + methodName + "\" is not supported");
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("result_code", 0);
+        response.put("result", result);
+        return response;
+    }
+}
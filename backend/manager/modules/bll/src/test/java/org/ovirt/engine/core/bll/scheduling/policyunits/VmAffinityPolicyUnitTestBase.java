@@ -14,6 +14,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.ovirt.engine.core.bll.scheduling.SchedulingContext;
+import org.ovirt.engine.core.bll.scheduling.arem.AffinityGroupIndex;
+import org.ovirt.engine.core.bll.scheduling.arem.AffinityGroupIndexManager;
 import org.ovirt.engine.core.bll.scheduling.pending.PendingResourceManager;
 import org.ovirt.engine.core.common.businessentities.Cluster;
 import org.ovirt.engine.core.common.businessentities.VDS;
@@ -24,7 +26,6 @@ import org.ovirt.engine.core.common.scheduling.AffinityGroup;
 import org.ovirt.engine.core.common.scheduling.EntityAffinityRule;
 import org.ovirt.engine.core.compat.Guid;
 import org.ovirt.engine.core.dao.VmDao;
-import org.ovirt.engine.core.dao.scheduling.AffinityGroupDao;
 import org.ovirt.engine.core.utils.MockConfigDescriptor;
 import org.ovirt.engine.core.utils.MockConfigExtension;
 
@@ -38,7 +39,7 @@ public class VmAffinityPolicyUnitTestBase {
     @Mock
     protected PendingResourceManager pendingResourceManager;
     @Mock
-    protected AffinityGroupDao affinityGroupDao;
+    protected AffinityGroupIndexManager affinityGroupIndexManager;
     @Mock
     protected VmDao vmDao;
 
@@ -67,7 +68,8 @@ public class VmAffinityPolicyUnitTestBase {
         newVm = createVMDown(cluster);
 
         when(pendingResourceManager.pendingResources(any())).thenReturn(Collections.emptyList());
-        when(affinityGroupDao.getAllAffinityGroupsWithFlatLabelsByVmId(any())).thenReturn(affinityGroups);
+        when(affinityGroupIndexManager.getIndex(any()))
+                .thenAnswer(invocation -> new AffinityGroupIndex(affinityGroups, Collections.emptyList()));
         when(vmDao.getAllRunningByCluster(any())).thenReturn(runningVMs);
     }
 
@@ -1,5 +1,9 @@
 package org.ovirt.engine.core.bll.scheduling.policyunits;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -10,7 +14,11 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.ovirt.engine.core.bll.scheduling.SchedulingContext;
+import org.ovirt.engine.core.bll.scheduling.arem.AffinityGroupIndex;
+import org.ovirt.engine.core.bll.scheduling.arem.AffinityGroupIndexManager;
+import org.ovirt.engine.core.bll.scheduling.arem.AffinityRulesUtils;
 import org.ovirt.engine.core.common.businessentities.Cluster;
+import org.ovirt.engine.core.common.businessentities.Label;
 import org.ovirt.engine.core.common.businessentities.VDS;
 import org.ovirt.engine.core.common.businessentities.VM;
 import org.ovirt.engine.core.common.config.ConfigValues;
@@ -18,7 +26,6 @@ import org.ovirt.engine.core.common.scheduling.AffinityGroup;
 import org.ovirt.engine.core.common.scheduling.EntityAffinityRule;
 import org.ovirt.engine.core.compat.Guid;
 import org.ovirt.engine.core.compat.Version;
-import org.ovirt.engine.core.dao.scheduling.AffinityGroupDao;
 import org.ovirt.engine.core.utils.MockConfigDescriptor;
 import org.ovirt.engine.core.utils.MockConfigExtension;
 
@@ -29,7 +36,7 @@ public abstract class VmToHostAffinityPolicyUnitBaseTest {
     }
 
     @Mock
-    AffinityGroupDao affinityGroupDao;
+    AffinityGroupIndexManager affinityGroupIndexManager;
 
     protected Cluster cluster;
     protected SchedulingContext context;
@@ -40,6 +47,8 @@ public abstract class VmToHostAffinityPolicyUnitBaseTest {
     protected List<VDS> hosts;
     protected AffinityGroup positive_enforcing_group;
     protected AffinityGroup negative_enforcing_group;
+    protected List<AffinityGroup> clusterAffinityGroups = new ArrayList<>();
+    protected List<Label> labels = new ArrayList<>();
 
     @BeforeEach
     public void setUp() {
@@ -76,6 +85,23 @@ public abstract class VmToHostAffinityPolicyUnitBaseTest {
         negative_enforcing_group.setVdsAffinityRule(EntityAffinityRule.NEGATIVE);
         negative_enforcing_group.setVdsEnforcing(true);
 
+        when(affinityGroupIndexManager.getIndex(any())).thenAnswer(invocation -> new AffinityGroupIndex(
+                clusterAffinityGroups,
+                AffinityRulesUtils.affinityGroupsFromLabels(labels, cluster.getId())));
+    }
+
+    /**
+     * Sets the affinity groups of the cluster, each of them containing the VM.
+     */
+    protected void mockAffinityGroups(List<AffinityGroup> groups) {
+        for (AffinityGroup group : groups) {
+            if (!group.getVmIds().contains(vm.getId())) {
+                List<Guid> vmIds = new ArrayList<>(group.getVmIds());
+                vmIds.add(vm.getId());
+                group.setVmIds(vmIds);
+            }
+        }
+        clusterAffinityGroups.addAll(groups);
     }
 
     protected VDS createHost(Cluster cluster) {
@@ -42,6 +42,7 @@ import org.ovirt.engine.core.dao.StorageDomainDao;
 import org.ovirt.engine.core.dao.StorageDomainDynamicDao;
 import org.ovirt.engine.core.dao.StoragePoolIsoMapDao;
 import org.ovirt.engine.core.dao.VmDao;
+import org.ovirt.engine.core.vdsbroker.irsbroker.IrsProxyManager;
 
 @MockitoSettings(strictness = Strictness.LENIENT)
 public class UpdateStorageServerConnectionCommandTest extends
@@ -50,6 +51,9 @@ public class UpdateStorageServerConnectionCommandTest extends
     @Mock
     protected ISCSIStorageHelper iscsiStorageHelper;
 
+    @Mock
+    private IrsProxyManager irsProxyManager;
+
     @Override
     protected UpdateStorageServerConnectionCommand<StorageServerConnectionParametersBase> createCommand() {
         parameters = new StorageServerConnectionParametersBase();
@@ -8,6 +8,8 @@ import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Collections;
@@ -44,6 +46,7 @@ import org.ovirt.engine.core.dao.StorageDomainStaticDao;
 import org.ovirt.engine.core.dao.StoragePoolDao;
 import org.ovirt.engine.core.dao.StoragePoolIsoMapDao;
 import org.ovirt.engine.core.dao.VdsDao;
+import org.ovirt.engine.core.vdsbroker.irsbroker.IrsProxyManager;
 
 @MockitoSettings(strictness = Strictness.LENIENT)
 public class AttachStorageDomainToPoolCommandTest extends BaseCommandTest {
@@ -67,6 +70,8 @@ public class AttachStorageDomainToPoolCommandTest extends BaseCommandTest {
     private VDS vds;
     @Mock
     private StoragePoolStatusHandler storagePoolStatusHandler;
+    @Mock
+    private IrsProxyManager irsProxyManager;
     private StoragePoolIsoMap map;
 
     @Spy
@@ -115,6 +120,8 @@ public class AttachStorageDomainToPoolCommandTest extends BaseCommandTest {
         cmd.executeCommand();
         assertNotNull(map);
         assertEquals(StorageDomainStatus.Maintenance, map.getStatus());
+        // once when the domain was locked and once when it was moved to maintenance
+        verify(irsProxyManager, times(2)).domainStatusesChanged(poolId);
     }
 
     private void mockAttachStorageDomainVdsCommand() {
@@ -5,7 +5,9 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Collections;
@@ -47,6 +49,7 @@ import org.ovirt.engine.core.dao.StoragePoolDao;
 import org.ovirt.engine.core.dao.StoragePoolIsoMapDao;
 import org.ovirt.engine.core.dao.VdsDao;
 import org.ovirt.engine.core.dao.VmStaticDao;
+import org.ovirt.engine.core.vdsbroker.irsbroker.IrsProxyManager;
 
 @MockitoSettings(strictness = Strictness.LENIENT)
 public class DeactivateStorageDomainCommandTest extends BaseCommandTest {
@@ -73,6 +76,8 @@ public class DeactivateStorageDomainCommandTest extends BaseCommandTest {
     private StoragePoolStatusHandler storagePoolStatusHandler;
     @Mock
     private ImageTransferDao imageTransferDao;
+    @Mock
+    private IrsProxyManager irsProxyManager;
 
     private StoragePoolIsoMap map;
     private StorageDomain domain;
@@ -107,6 +112,7 @@ public class DeactivateStorageDomainCommandTest extends BaseCommandTest {
         cmd.setCompensationContext(mock(CompensationContext.class));
         cmd.executeCommand();
         assertEquals(StorageDomainStatus.Maintenance, map.getStatus());
+        verify(irsProxyManager, atLeastOnce()).domainStatusesChanged(params.getStoragePoolId());
     }
 
     @Test
@@ -0,0 +1,241 @@
+package org.ovirt.engine.core.bll.storage.domain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.transaction.TransactionManager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.ovirt.engine.core.common.businessentities.storage.ImageFileType;
+import org.ovirt.engine.core.common.businessentities.storage.RepoImage;
+import org.ovirt.engine.core.common.config.ConfigValues;
+import org.ovirt.engine.core.common.errors.EngineException;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.dao.RepoFileMetaDataDao;
+import org.ovirt.engine.core.utils.ExecutorServiceExtension;
+import org.ovirt.engine.core.utils.InjectedMock;
+import org.ovirt.engine.core.utils.InjectorExtension;
+import org.ovirt.engine.core.utils.MockConfigDescriptor;
+import org.ovirt.engine.core.utils.MockConfigExtension;
+import org.ovirt.engine.core.utils.threadpool.ThreadPoolUtil;
+
+@ExtendWith({MockitoExtension.class, MockConfigExtension.class, ExecutorServiceExtension.class, InjectorExtension.class})
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class IsoDomainListSynchronizerTest {
+
+    private static final Guid DOMAIN_ID = Guid.newGuid();
+    private static final long REFRESH_TIME = 1000L;
+
+    public static Stream<MockConfigDescriptor<?>> mockConfiguration() {
+        return Stream.of(
+                MockConfigDescriptor.of(ConfigValues.RepoDomainInvalidateCacheTimeInMinutes, 5),
+                MockConfigDescriptor.of(ConfigValues.ForceRefreshDomainFilesListByDefault, true));
+    }
+
+    @Mock
+    private RepoFileMetaDataDao repoFileMetaDataDao;
+
+    @Mock
+    @InjectedMock
+    public TransactionManager transactionManager;
+
+    @Spy
+    @InjectMocks
+    private IsoDomainListSynchronizer synchronizer;
+
+    private final List<RepoImage> storedRepoImages = Arrays.asList(
+            newRepoImage("unchanged.iso", 1L),
+            newRepoImage("changed.iso", 2L),
+            newRepoImage("removed.iso", 3L));
+
+    @BeforeEach
+    public void setUp() {
+        when(repoFileMetaDataDao.getRepoListForStorageDomain(DOMAIN_ID, ImageFileType.ISO))
+                .thenReturn(storedRepoImages);
+    }
+
+    @Test
+    public void testUpdateRepoFileListWritesChangedFilesOnly() {
+        RepoImage changed = newRepoImage("changed.iso", 4L);
+        RepoImage added = newRepoImage("added.iso", 5L);
+        List<RepoImage> refreshedRepoImages = Arrays.asList(newRepoImage("unchanged.iso", 1L), changed, added);
+
+        List<RepoImage> repoImages =
+                synchronizer.updateRepoFileList(DOMAIN_ID, ImageFileType.ISO, refreshedRepoImages, REFRESH_TIME);
+
+        assertEquals(refreshedRepoImages, repoImages);
+        ArgumentCaptor<Collection<String>> removedIds = ArgumentCaptor.forClass(Collection.class);
+        verify(repoFileMetaDataDao).removeRepoFiles(eq(DOMAIN_ID), removedIds.capture());
+        assertEquals(new HashSet<>(Arrays.asList("changed.iso", "removed.iso")), new HashSet<>(removedIds.getValue()));
+        verify(repoFileMetaDataDao).updateRepoDomainFileListLastRefreshed(DOMAIN_ID, ImageFileType.ISO, REFRESH_TIME);
+        verify(repoFileMetaDataDao).addRepoFileMap(changed);
+        verify(repoFileMetaDataDao).addRepoFileMap(added);
+        verify(repoFileMetaDataDao, times(2)).addRepoFileMap(any());
+    }
+
+    @Test
+    public void testUpdateRepoFileListWithoutChanges() {
+        List<RepoImage> refreshedRepoImages = storedRepoImages.stream()
+                .map(repoImage -> newRepoImage(repoImage.getRepoImageId(), repoImage.getSize()))
+                .collect(Collectors.toList());
+
+        synchronizer.updateRepoFileList(DOMAIN_ID, ImageFileType.ISO, refreshedRepoImages, REFRESH_TIME);
+
+        verify(repoFileMetaDataDao, never()).removeRepoFiles(any(), anyCollection());
+        verify(repoFileMetaDataDao, never()).addRepoFileMap(any());
+        verify(repoFileMetaDataDao).updateRepoDomainFileListLastRefreshed(DOMAIN_ID, ImageFileType.ISO, REFRESH_TIME);
+    }
+
+    @Test
+    public void testFailedFirstRefreshIsReported() {
+        doReturn(false).when(synchronizer).refreshRepos(DOMAIN_ID, ImageFileType.ISO);
+
+        assertThrows(EngineException.class,
+                () -> synchronizer.getUserRequestForStorageDomainRepoFileList(DOMAIN_ID, ImageFileType.ISO, true));
+        assertThrows(EngineException.class,
+                () -> synchronizer.getUserRequestForStorageDomainRepoFileList(DOMAIN_ID, ImageFileType.ISO, true));
+        verify(synchronizer, times(2)).refreshRepos(DOMAIN_ID, ImageFileType.ISO);
+    }
+
+    @Test
+    public void testConcurrentRequestsShareRefresh() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return true;
+        }).when(synchronizer).refreshRepos(DOMAIN_ID, ImageFileType.ISO);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<RepoImage>> first = executor.submit(
+                    () -> synchronizer.getUserRequestForStorageDomainRepoFileList(DOMAIN_ID, ImageFileType.ISO, true));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            Future<List<RepoImage>> second = executor.submit(
+                    () -> synchronizer.getUserRequestForStorageDomainRepoFileList(DOMAIN_ID, ImageFileType.ISO, true));
+            // give the second request a chance to join the refresh in progress
+            Thread.sleep(100);
+            release.countDown();
+
+            assertEquals(storedRepoImages, first.get(10, TimeUnit.SECONDS));
+            assertEquals(storedRepoImages, second.get(10, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+        verify(synchronizer).refreshRepos(DOMAIN_ID, ImageFileType.ISO);
+    }
+
+    @Test
+    public void testRefreshedListIsServedWhileRefreshed() throws Exception {
+        doReturn(true).when(synchronizer).refreshRepos(DOMAIN_ID, ImageFileType.ISO);
+        assertEquals(storedRepoImages,
+                synchronizer.getUserRequestForStorageDomainRepoFileList(DOMAIN_ID, ImageFileType.ISO, true));
+
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return true;
+        }).when(synchronizer).refreshRepos(DOMAIN_ID, ImageFileType.ISO);
+        try {
+            assertEquals(storedRepoImages,
+                    synchronizer.getUserRequestForStorageDomainRepoFileList(DOMAIN_ID, ImageFileType.ISO, true));
+            assertEquals(storedRepoImages,
+                    synchronizer.getUserRequestForStorageDomainRepoFileList(DOMAIN_ID, ImageFileType.ISO, null));
+        } finally {
+            release.countDown();
+        }
+        // the request made while the list was refreshed in the background joined that refresh
+        verify(synchronizer, timeout(10000).times(2)).refreshRepos(DOMAIN_ID, ImageFileType.ISO);
+        Thread.sleep(100);
+        verify(synchronizer, times(2)).refreshRepos(DOMAIN_ID, ImageFileType.ISO);
+    }
+
+    @Test
+    public void testFailedBackgroundRefreshIsReported() throws Exception {
+        doReturn(true).when(synchronizer).refreshRepos(DOMAIN_ID, ImageFileType.ISO);
+        synchronizer.getUserRequestForStorageDomainRepoFileList(DOMAIN_ID, ImageFileType.ISO, true);
+
+        doReturn(false).when(synchronizer).refreshRepos(DOMAIN_ID, ImageFileType.ISO);
+        assertEquals(storedRepoImages,
+                synchronizer.getUserRequestForStorageDomainRepoFileList(DOMAIN_ID, ImageFileType.ISO, true));
+        // the single thread of the pool runs this task once the background refresh is done
+        ThreadPoolUtil.getExecutorService().submit(() -> null).get(10, TimeUnit.SECONDS);
+
+        assertThrows(EngineException.class,
+                () -> synchronizer.getUserRequestForStorageDomainRepoFileList(DOMAIN_ID, ImageFileType.ISO, true));
+        verify(synchronizer, times(3)).refreshRepos(DOMAIN_ID, ImageFileType.ISO);
+    }
+
+    @Test
+    public void testFileTypesAreRefreshedSeparately() {
+        doReturn(true).when(synchronizer).refreshRepos(eq(DOMAIN_ID), any());
+        synchronizer.getUserRequestForStorageDomainRepoFileList(DOMAIN_ID, ImageFileType.ISO, true);
+
+        synchronizer.getUserRequestForStorageDomainRepoFileList(DOMAIN_ID, ImageFileType.Floppy, false);
+        verify(synchronizer).refreshRepos(DOMAIN_ID, ImageFileType.Floppy);
+    }
+
+    @Test
+    public void testRemovedDomainIsEvicted() {
+        assertEquals(storedRepoImages, synchronizer.getCachedIsoListByDomainId(DOMAIN_ID, ImageFileType.ISO));
+        synchronizer.domainRemoved(DOMAIN_ID);
+
+        when(repoFileMetaDataDao.getRepoListForStorageDomain(DOMAIN_ID, ImageFileType.ISO))
+                .thenReturn(Collections.emptyList());
+        assertEquals(Collections.emptyList(), synchronizer.getCachedIsoListByDomainId(DOMAIN_ID, ImageFileType.ISO));
+    }
+
+    @Test
+    public void testUnexpiredListIsNotRefreshed() {
+        doReturn(true).when(synchronizer).refreshRepos(DOMAIN_ID, ImageFileType.ISO);
+        synchronizer.getUserRequestForStorageDomainRepoFileList(DOMAIN_ID, ImageFileType.ISO, true);
+
+        assertEquals(storedRepoImages,
+                synchronizer.getUserRequestForStorageDomainRepoFileList(DOMAIN_ID, ImageFileType.ISO, false));
+        verify(synchronizer).refreshRepos(DOMAIN_ID, ImageFileType.ISO);
+    }
+
+    private static RepoImage newRepoImage(String repoImageId, Long size) {
+        RepoImage repoImage = new RepoImage(repoImageId);
+        repoImage.setRepoDomainId(DOMAIN_ID);
+        repoImage.setFileType(ImageFileType.ISO);
+        repoImage.setSize(size);
+        repoImage.setDateCreated(null);
+        return repoImage;
+    }
+}
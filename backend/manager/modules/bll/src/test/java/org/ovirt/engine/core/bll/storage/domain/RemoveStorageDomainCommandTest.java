@@ -5,6 +5,8 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Collections;
@@ -56,6 +58,9 @@ public class RemoveStorageDomainCommandTest extends BaseCommandTest {
     @Mock
     private VDSBrokerFrontend vdsBrokerFrontend;
 
+    @Mock
+    private IsoDomainListSynchronizer isoDomainListSynchronizer;
+
     private StorageDomain storageDomain;
 
     @BeforeEach
@@ -167,6 +172,7 @@ public class RemoveStorageDomainCommandTest extends BaseCommandTest {
         command.executeCommand();
 
         CommandAssertUtils.checkSucceeded(command, !shouldFormatFail);
+        verify(isoDomainListSynchronizer, times(shouldFormatFail ? 0 : 1)).domainRemoved(storageDomain.getId());
     }
 
     private void setUpStorageHelper() {
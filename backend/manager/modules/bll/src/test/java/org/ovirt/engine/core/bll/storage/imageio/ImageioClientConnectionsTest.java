@@ -0,0 +1,114 @@
+package org.ovirt.engine.core.bll.storage.imageio;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ovirt.engine.core.bll.storage.disk.image.ImageioClient;
+import org.ovirt.engine.core.compat.Guid;
+
+/**
+ * Checks the connections {@link ImageioClient} opens, against a minimal HTTP server which answers every request on a
+ * keep-alive connection.
+ */
+class ImageioClientConnectionsTest {
+
+    private static final String RESPONSE = "HTTP/1.1 200 OK\r\n"
+            + "Content-Type: application/json\r\n"
+            + "Content-Length: 2\r\n"
+            + "\r\n"
+            + "{}";
+
+    private final AtomicInteger openedConnections = new AtomicInteger();
+    private final ExecutorService serverExecutor = Executors.newCachedThreadPool();
+    private ServerSocket serverSocket;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        serverSocket = new ServerSocket(0);
+        serverExecutor.execute(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    openedConnections.incrementAndGet();
+                    serverExecutor.execute(() -> serve(socket));
+                } catch (IOException e) {
+                    // the server was stopped
+                }
+            }
+        });
+    }
+
+    @AfterEach
+    void stopServer() throws IOException {
+        serverSocket.close();
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void reuseConnection() {
+        ImageioClient imageioClient = new ImageioClient("localhost", serverSocket.getLocalPort());
+        for (int i = 0; i < 3 * ImageioClient.MAX_CONNECTIONS_PER_DAEMON; i++) {
+            imageioClient.deleteTicket(Guid.newGuid());
+        }
+        assertEquals(1, openedConnections.get());
+
+        // another client of the same daemon shares the connection
+        new ImageioClient("localhost", serverSocket.getLocalPort()).deleteTicket(Guid.newGuid());
+        assertEquals(1, openedConnections.get());
+    }
+
+    @Test
+    void concurrentRequestsAreBounded() throws Exception {
+        ImageioClient imageioClient = new ImageioClient("localhost", serverSocket.getLocalPort());
+        int requests = 10 * ImageioClient.MAX_CONNECTIONS_PER_DAEMON;
+        ExecutorService executor = Executors.newFixedThreadPool(2 * ImageioClient.MAX_CONNECTIONS_PER_DAEMON);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                results.add(executor.submit(() -> imageioClient.deleteTicket(Guid.newGuid())));
+            }
+            for (Future<?> result : results) {
+                result.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(openedConnections.get() <= ImageioClient.MAX_CONNECTIONS_PER_DAEMON);
+    }
+
+    private static void serve(Socket socket) {
+        try (Socket s = socket;
+                BufferedReader reader =
+                        new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII))) {
+            OutputStream out = s.getOutputStream();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // the requests of the test have no body, a request ends with an empty line
+                if (line.isEmpty()) {
+                    out.write(RESPONSE.getBytes(StandardCharsets.US_ASCII));
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            // the client closed the connection
+        }
+    }
+}
@@ -77,6 +77,14 @@ class ImageioClientTest {
         assertTrue(exception.getMessage().contains("Not Found"));
     }
 
+    @Test
+    void reuseConnection() {
+        imageioClient.putTicket(imageTicket);
+        for (int i = 0; i < 3 * ImageioClient.MAX_CONNECTIONS_PER_DAEMON; i++) {
+            assertEquals(imageTicket.getId(), imageioClient.getTicket(imageTicket.getId()).getId());
+        }
+    }
+
     private ImageTicket getTestTicket() {
         ImageTicket ticket = new ImageTicket();
         ticket.setId(Guid.createGuidFromString("799030aa-97c3-4354-871e-0adf0556fcbf"));
@@ -0,0 +1,234 @@
+package org.ovirt.engine.core.common.utils.ansible;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Runs {@link AnsibleRunnerClient#artifactHandler} against fake plays, which write their events the way ansible-runner
+ * does while the events are handled.
+ */
+public class AnsibleRunnerClientEventsTest {
+
+    private static final int PLAY_COUNT = 20;
+    private static final int EVENT_COUNT = 1000;
+    private static final int TIMEOUT_IN_MINUTES = 1;
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    @TempDir
+    public Path runnerPath;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void eventsOfConcurrentPlaysAreHandledInOrder() throws Exception {
+        AnsibleRunnerClient client = new AnsibleRunnerClient(runnerPath);
+        List<FakePlay> plays = IntStream.range(0, PLAY_COUNT)
+                .mapToObj(i -> new FakePlay(EVENT_COUNT, 0))
+                .collect(Collectors.toList());
+        List<Future<List<String>>> handledTasks = new ArrayList<>();
+        for (FakePlay play : plays) {
+            play.start();
+            handledTasks.add(executor.submit(() -> handleEvents(client, play)));
+            executor.submit(play);
+        }
+
+        for (int i = 0; i < PLAY_COUNT; i++) {
+            assertEquals(plays.get(i).getOkTasks(), handledTasks.get(i).get(TIMEOUT_IN_MINUTES, TimeUnit.MINUTES));
+        }
+    }
+
+    @Test
+    public void eventsAreHandledWithoutWatching() throws Exception {
+        AnsibleRunnerClient client = new AnsibleRunnerClient(runnerPath) {
+            @Override
+            AnsibleRunnerEventsTail createEventsTail(String playUuid, boolean watch) {
+                return super.createEventsTail(playUuid, false);
+            }
+        };
+        FakePlay play = new FakePlay(EVENT_COUNT, 0);
+        play.start();
+        play.call();
+
+        assertEquals(play.getOkTasks(), handleEvents(client, play));
+    }
+
+    @Test
+    public void playsShareTheEventsWatcher() throws Exception {
+        AnsibleRunnerEventsWatcher watcher = AnsibleRunnerEventsWatcher.getInstance();
+        int watchedDirectories = watcher.getWatchedDirectories();
+        AnsibleRunnerClient client = new AnsibleRunnerClient(runnerPath);
+        List<AnsibleRunnerEventsTail> tails = new ArrayList<>();
+        for (int i = 0; i < PLAY_COUNT; i++) {
+            FakePlay play = new FakePlay(1, 0);
+            play.start();
+            play.call();
+            AnsibleRunnerEventsTail tail = client.createEventsTail(play.uuid, true);
+            tails.add(tail);
+            assertEquals(1, tail.getTotalEvents());
+        }
+
+        assertEquals(watchedDirectories + PLAY_COUNT, watcher.getWatchedDirectories());
+        tails.forEach(AnsibleRunnerEventsTail::close);
+        assertEquals(watchedDirectories, watcher.getWatchedDirectories());
+    }
+
+    @Test
+    public void failedTaskStopsHandling() throws Exception {
+        AnsibleRunnerClient client = new AnsibleRunnerClient(runnerPath);
+        int failedEventId = EVENT_COUNT / 2;
+        FakePlay play = new FakePlay(EVENT_COUNT, failedEventId);
+        play.start();
+        play.call();
+
+        AnsibleReturnValue returnValue = createReturnValue(play);
+        List<String> tasks = new ArrayList<>();
+        assertThrows(AnsibleRunnerCallException.class,
+                () -> client.artifactHandler(returnValue,
+                        TIMEOUT_IN_MINUTES,
+                        (taskName, eventUrl) -> tasks.add(taskName),
+                        createLogger(play)));
+
+        assertEquals(AnsibleReturnCode.FAIL, returnValue.getAnsibleReturnCode());
+        assertEquals(failedEventId - 1, returnValue.getLastEventId());
+        assertEquals(play.getOkTasks().subList(0, tasks.size()), tasks);
+    }
+
+    private List<String> handleEvents(AnsibleRunnerClient client, FakePlay play) throws Exception {
+        AnsibleReturnValue returnValue = createReturnValue(play);
+        List<String> tasks = new ArrayList<>();
+        client.artifactHandler(returnValue,
+                TIMEOUT_IN_MINUTES,
+                (taskName, eventUrl) -> tasks.add(taskName),
+                createLogger(play));
+        assertEquals(AnsibleReturnCode.OK, returnValue.getAnsibleReturnCode());
+        assertEquals(EVENT_COUNT, returnValue.getLastEventId());
+        return tasks;
+    }
+
+    private AnsibleReturnValue createReturnValue(FakePlay play) {
+        AnsibleReturnValue returnValue = new AnsibleReturnValue(AnsibleReturnCode.ERROR);
+        returnValue.setPlayUuid(play.uuid);
+        returnValue.setLastEventId(0);
+        return returnValue;
+    }
+
+    private AnsibleRunnerLogger createLogger(FakePlay play) {
+        return new AnsibleRunnerLogger(runnerPath.resolve(play.uuid + ".log"));
+    }
+
+    /**
+     * Writes the events of a play like ansible-runner: each event is written to a temporary file which is then renamed
+     * to {@code <counter>-<uuid>.json}, and the status of the play is written after the last event. Odd events start
+     * a task and even events complete it, the last event is the statistics of the play.
+     */
+    private class FakePlay implements Callable<Void> {
+
+        private final String uuid = UUID.randomUUID().toString();
+        private final int eventCount;
+        private final int failedEventId;
+        private final Path privateDataDir;
+        private final Path jobEventsDir;
+
+        /**
+         * @param failedEventId
+         *            the id of an event of a task which fails the play, 0 for a successful play
+         */
+        FakePlay(int eventCount, int failedEventId) {
+            this.eventCount = eventCount;
+            this.failedEventId = failedEventId;
+            privateDataDir = runnerPath.resolve(uuid);
+            jobEventsDir = privateDataDir.resolve("artifacts").resolve(uuid).resolve("job_events");
+        }
+
+        /**
+         * Starts the play, its events are not written yet
+         */
+        void start() throws IOException {
+            Files.createDirectories(privateDataDir);
+            Files.writeString(privateDataDir.resolve("daemon.log"), "started");
+        }
+
+        @Override
+        public Void call() throws Exception {
+            Files.createDirectories(jobEventsDir);
+            for (int id = 1; id <= eventCount; id++) {
+                writeEvent(id);
+                if (id % 100 == 0) {
+                    Thread.sleep(5);
+                }
+            }
+            Path artifactsDir = jobEventsDir.getParent();
+            Files.writeString(artifactsDir.resolve("rc"), failedEventId == 0 ? "0" : "2");
+            Files.writeString(artifactsDir.resolve("status"), failedEventId == 0 ? "successful" : "failed");
+            return null;
+        }
+
+        List<String> getOkTasks() {
+            return IntStream.rangeClosed(1, eventCount - 1)
+                    .filter(id -> id % 2 == 0 && id != failedEventId)
+                    .mapToObj(this::getTaskName)
+                    .collect(Collectors.toList());
+        }
+
+        private String getTaskName(int eventId) {
+            return "Task " + (eventId + 1) / 2;
+        }
+
+        private void writeEvent(int id) throws IOException {
+            ObjectNode event = mapper.createObjectNode();
+            event.put("uuid", UUID.randomUUID().toString());
+            event.put("counter", id);
+            ObjectNode eventData = event.putObject("event_data");
+            if (id == eventCount) {
+                event.put("event", "playbook_on_stats");
+                event.put("stdout", "PLAY RECAP");
+            } else {
+                event.put("event", id % 2 == 0 ? (id == failedEventId ? "runner_on_failed" : "runner_on_ok")
+                        : "playbook_on_task_start");
+                event.put("stdout", "TASK [" + getTaskName(id) + "]");
+                eventData.put("task", getTaskName(id));
+                eventData.put("task_action", "command");
+                eventData.put("ignore_errors", false);
+            }
+
+            String fileName = id + "-" + event.get("uuid").textValue() + ".json";
+            Path tmpFile = jobEventsDir.resolve(fileName + ".tmp");
+            Files.writeString(tmpFile, mapper.writeValueAsString(event), StandardCharsets.UTF_8);
+            Files.move(tmpFile, jobEventsDir.resolve(fileName), StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+}
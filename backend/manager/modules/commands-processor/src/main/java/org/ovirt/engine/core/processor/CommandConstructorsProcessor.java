@@ -0,0 +1,211 @@
+package org.ovirt.engine.core.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates, for the module containing the engine commands and queries, the classes registering a direct constructor
+ * reference for every concrete command and query into {@code org.ovirt.engine.core.bll.CommandConstructors}, so the
+ * commands factory does not need to go through reflection on every invocation.
+ * <p>
+ * Only public, top level, concrete classes with exactly one accessible constructor of the expected shape are registered,
+ * anything else is left to the reflective lookup of the commands factory. The processor does nothing when the
+ * commands base classes are not among the sources being compiled.
+ */
+@SupportedAnnotationTypes("*")
+public class CommandConstructorsProcessor extends AbstractProcessor {
+
+    static final String PACKAGE = "org.ovirt.engine.core.bll";
+    static final String GENERATED_ACTIONS = "GeneratedActionConstructors";
+    static final String GENERATED_QUERIES = "GeneratedQueryConstructors";
+    static final String GENERATED_COMPENSATIONS = "GeneratedCompensationConstructors";
+
+    private static final String COMMAND_BASE = PACKAGE + ".CommandBase";
+    private static final String QUERIES_COMMAND_BASE = PACKAGE + ".QueriesCommandBase";
+    private static final String COMMAND_CONTEXT = PACKAGE + ".context.CommandContext";
+    private static final String ENGINE_CONTEXT = PACKAGE + ".context.EngineContext";
+    private static final String ACTION_PARAMETERS_BASE = "org.ovirt.engine.core.common.action.ActionParametersBase";
+    private static final String QUERY_PARAMETERS_BASE = "org.ovirt.engine.core.common.queries.QueryParametersBase";
+    private static final String GUID = "org.ovirt.engine.core.compat.Guid";
+
+    private boolean generated;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (generated || roundEnv.processingOver()) {
+            return false;
+        }
+        TypeElement commandBase = processingEnv.getElementUtils().getTypeElement(COMMAND_BASE);
+        TypeElement queriesCommandBase = processingEnv.getElementUtils().getTypeElement(QUERIES_COMMAND_BASE);
+        if (commandBase == null || queriesCommandBase == null) {
+            return false;
+        }
+        // The base classes also resolve from the classpath when compiling modules depending on the commands, such as
+        // the tests of the commands module, which must not get registries of their own shadowing the real ones
+        if (!roundEnv.getRootElements().contains(commandBase)) {
+            return false;
+        }
+        generated = true;
+
+        List<Registration> actions = new ArrayList<>();
+        List<Registration> queries = new ArrayList<>();
+        List<Registration> compensations = new ArrayList<>();
+        for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+            if (!isCandidate(type)) {
+                continue;
+            }
+            if (isSubclass(type, commandBase)) {
+                addRegistration(actions, type, findConstructor(type, ACTION_PARAMETERS_BASE, COMMAND_CONTEXT));
+                addRegistration(compensations, type, findConstructor(type, GUID));
+            } else if (isSubclass(type, queriesCommandBase)) {
+                addRegistration(queries, type, findConstructor(type, QUERY_PARAMETERS_BASE, ENGINE_CONTEXT));
+            }
+        }
+
+        write(GENERATED_ACTIONS,
+                "registerAction",
+                "(parameters, context) -> new %s((%s) parameters, context)",
+                actions);
+        write(GENERATED_QUERIES,
+                "registerQuery",
+                "(parameters, context) -> new %s((%s) parameters, context)",
+                queries);
+        write(GENERATED_COMPENSATIONS,
+                "registerCompensation",
+                "commandId -> new %s(commandId)",
+                compensations);
+        return false;
+    }
+
+    private boolean isCandidate(TypeElement type) {
+        return type.getKind() == ElementKind.CLASS
+                && type.getNestingKind() == NestingKind.TOP_LEVEL
+                && type.getModifiers().contains(Modifier.PUBLIC)
+                && !type.getModifiers().contains(Modifier.ABSTRACT);
+    }
+
+    private boolean isSubclass(TypeElement type, TypeElement base) {
+        Types types = processingEnv.getTypeUtils();
+        return types.isSubtype(types.erasure(type.asType()), types.erasure(base.asType()));
+    }
+
+    /**
+     * Returns the only accessible constructor which parameters are assignable to the given types, ignoring the type if
+     * there is more than one such constructor since the reflective lookup would then depend on the runtime type of
+     * the parameters. Constructors declaring checked exceptions can not be wrapped in a lambda and are ignored too.
+     */
+    private ExecutableElement findConstructor(TypeElement type, String... parameterTypes) {
+        Types types = processingEnv.getTypeUtils();
+        ExecutableElement found = null;
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (!isAccessible(type, constructor)
+                    || !constructor.getThrownTypes().isEmpty()
+                    || constructor.getParameters().size() != parameterTypes.length) {
+                continue;
+            }
+            boolean matches = true;
+            for (int i = 0; i < parameterTypes.length && matches; i++) {
+                TypeElement expected = processingEnv.getElementUtils().getTypeElement(parameterTypes[i]);
+                TypeMirror actual = types.erasure(constructor.getParameters().get(i).asType());
+                matches = expected != null && types.isAssignable(actual, types.erasure(expected.asType()));
+            }
+            if (matches) {
+                if (found != null) {
+                    return null;
+                }
+                found = constructor;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * The generated classes reside in {@link #PACKAGE}, so in addition to public constructors they can also invoke the
+     * non private ones of the classes of that package.
+     */
+    private boolean isAccessible(TypeElement type, ExecutableElement constructor) {
+        Set<Modifier> modifiers = constructor.getModifiers();
+        return modifiers.contains(Modifier.PUBLIC)
+                || !modifiers.contains(Modifier.PRIVATE)
+                        && PACKAGE.equals(processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString());
+    }
+
+    private void addRegistration(List<Registration> registrations, TypeElement type, ExecutableElement constructor) {
+        if (constructor == null) {
+            return;
+        }
+        String className = type.getQualifiedName().toString();
+        String instantiated = type.getTypeParameters().isEmpty() ? className : className + "<>";
+        String parameterType = processingEnv.getTypeUtils()
+                .erasure(constructor.getParameters().get(0).asType())
+                .toString();
+        registrations.add(new Registration(className, instantiated, parameterType));
+    }
+
+    private void write(String simpleName, String method, String lambda, List<Registration> registrations) {
+        registrations.sort(Comparator.comparing(r -> r.className));
+        String name = PACKAGE + "." + simpleName;
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(name, new Element[0]);
+            try (PrintWriter out = new PrintWriter(file.openWriter())) {
+                out.println("package " + PACKAGE + ";");
+                out.println();
+                out.println("// Generated by " + getClass().getName() + ", do not edit.");
+                out.println("@SuppressWarnings({ \"cast\", \"rawtypes\", \"unchecked\" })");
+                out.println("public final class " + simpleName + " implements CommandConstructors.Provider {");
+                out.println();
+                out.println("    @Override");
+                out.println("    public void registerTo(CommandConstructors constructors) {");
+                for (Registration registration : registrations) {
+                    out.println(String.format("        constructors.%s(%s.class, " + lambda + ");",
+                            method,
+                            registration.className,
+                            registration.instantiated,
+                            registration.parameterType));
+                }
+                out.println("    }");
+                out.println("}");
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Failed to generate " + name + ": " + e.getMessage());
+        }
+    }
+
+    private static class Registration {
+        private final String className;
+        private final String instantiated;
+        private final String parameterType;
+
+        Registration(String className, String instantiated, String parameterType) {
+            this.className = className;
+            this.instantiated = instantiated;
+            this.parameterType = parameterType;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.ovirt.engine.core.common.businessentities;
+
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+import org.ovirt.engine.core.compat.Guid;
+
+/**
+ * The permission of a user to perform an action group on an entity, together with the parents of the entity which the
+ * permission could be granted on.
+ */
+public class EntityPermission implements Serializable {
+    private static final long serialVersionUID = 2395729460176834210L;
+
+    private Guid entityId;
+    private Set<Guid> parentIds;
+    private Guid permissionId;
+
+    public EntityPermission() {
+        parentIds = new HashSet<>();
+    }
+
+    public EntityPermission(Guid entityId, Set<Guid> parentIds, Guid permissionId) {
+        this.entityId = entityId;
+        this.parentIds = parentIds;
+        this.permissionId = permissionId;
+    }
+
+    public Guid getEntityId() {
+        return entityId;
+    }
+
+    public void setEntityId(Guid entityId) {
+        this.entityId = entityId;
+    }
+
+    /**
+     * @return the entity and all its parents up to the system root
+     */
+    public Set<Guid> getParentIds() {
+        return parentIds;
+    }
+
+    public void setParentIds(Set<Guid> parentIds) {
+        this.parentIds = parentIds;
+    }
+
+    /**
+     * @return a permission granting the action group on the entity, {@code null} if the user has none
+     */
+    public Guid getPermissionId() {
+        return permissionId;
+    }
+
+    public void setPermissionId(Guid permissionId) {
+        this.permissionId = permissionId;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(
+                entityId,
+                parentIds,
+                permissionId
+        );
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof EntityPermission)) {
+            return false;
+        }
+        EntityPermission other = (EntityPermission) obj;
+        return Objects.equals(entityId, other.entityId)
+                && Objects.equals(parentIds, other.parentIds)
+                && Objects.equals(permissionId, other.permissionId);
+    }
+}
@@ -80,6 +80,11 @@ public interface IVdsEventListener {
      */
     void updateSlaPolicies(List<Guid> vmIds, Guid vdsId);
 
+    /**
+     * Makes the VMs of VM pools that moved to Up available to the users of their pools
+     */
+    void processOnVmsUp(List<Guid> vmIds);
+
     void refreshHostIfAnyVmHasHostDevices(List<Guid> succeededToRunVms, List<Guid> movedToDownVms, Guid hostId);
 
     void refreshHostCapabilities(Guid hostId);
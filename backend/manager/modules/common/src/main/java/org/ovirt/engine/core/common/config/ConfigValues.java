@@ -501,6 +501,12 @@ public enum ConfigValues {
     @TypeConverterAttribute(Integer.class)
     UserSessionTimeOutInterval(ClientAccessLevel.User),
 
+    /**
+     * Time a permission check of a user is kept by the engine, 0 to check the permissions in the DB every time.
+     */
+    @TypeConverterAttribute(Integer.class)
+    PermissionCacheExpirationInSeconds,
+
     @TypeConverterAttribute(String.class)
     UserDefinedVMProperties(ClientAccessLevel.User),
 
@@ -819,6 +825,18 @@ public enum ConfigValues {
     @TypeConverterAttribute(Integer.class)
     SSHInactivityHardTimeoutSeconds,
 
+    /**
+     * Time an unused SSH session to a host is kept open for reuse, 0 to close the sessions when done.
+     */
+    @TypeConverterAttribute(Integer.class)
+    SSHSessionPoolIdleTimeoutSeconds,
+
+    /**
+     * Maximum number of SSH sessions kept open for reuse per host.
+     */
+    @TypeConverterAttribute(Integer.class)
+    SSHSessionPoolMaxSessionsPerHost,
+
     @TypeConverterAttribute(String.class)
     GlusterVolumeOptionGroupVirtValue(ClientAccessLevel.Admin),
 
@@ -882,6 +900,12 @@ public enum ConfigValues {
     @TypeConverterAttribute(Integer.class)
     GlusterRefreshRateHeavy,
 
+    /**
+     * Maximum number of clusters whose gluster data is refreshed at the same time.
+     */
+    @TypeConverterAttribute(Integer.class)
+    GlusterRefreshMaxConcurrentClusters,
+
     /**
      * Refresh rate (in seconds) for gluster self heal info . 'gluster self heal info' command will be used to fetch
      * heal info, and it adds a considerable overhead on the GlusterFS processes.
@@ -1217,6 +1241,25 @@ public enum ConfigValues {
     @TypeConverterAttribute(Long.class)
     PMHealthCheckIntervalInSec,
 
+    /**
+     * Maximum number of hosts whose power management is checked or recovered at the same time.
+     */
+    @TypeConverterAttribute(Integer.class)
+    PMHealthCheckMaxConcurrentHosts,
+
+    /**
+     * Maximum number of power management health checks a single proxy host runs at the same time.
+     */
+    @TypeConverterAttribute(Integer.class)
+    PMHealthCheckMaxConcurrentChecksPerProxy,
+
+    /**
+     * Time to wait for the status of a fence agent in a power management health check, before the agent is considered
+     * unhealthy.
+     */
+    @TypeConverterAttribute(Integer.class)
+    PMHealthCheckAgentTimeoutInSec,
+
     @TypeConverterAttribute(String.class)
     ClusterRequiredRngSourcesDefault(ClientAccessLevel.User),
 
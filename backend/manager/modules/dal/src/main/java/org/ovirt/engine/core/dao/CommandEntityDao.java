@@ -21,6 +21,8 @@ public interface CommandEntityDao extends GenericDao<CommandEntity, Guid> {
 
     void removeAllBeforeDate(Date cutoff);
 
+    List<Guid> getIdsCreatedBeforeDate(Date cutoff);
+
     List<CommandEntity> getCmdEntitiesByParentCmdId(Guid parentId);
 
     List<Guid> getCommandIdsByEntity(Guid entityId);
@@ -42,23 +42,25 @@ public class CommandEntityDaoImpl extends DefaultGenericDao<CommandEntity, Guid>
     };
 
     private static RowMapper<CommandEntity> mapper = (resultSet, rowNum) -> {
-        CommandEntity result = new CommandEntity();
+        // The parameters and the return value are deserialized only when they are requested
+        CommandEntity result = new LazyCommandEntity(resultSet.getString("command_parameters"),
+                resultSet.getString("command_params_class"),
+                resultSet.getString("return_value"),
+                resultSet.getString("return_value_class"));
         result.setEngineSessionSeqId(resultSet.getLong("engine_session_seq_id"));
         result.setUserId(Guid.createGuidFromString(resultSet.getString("user_id")));
         result.setId(Guid.createGuidFromString(resultSet.getString("command_id")));
-        result.setCommandContext(SerializationFactory.getDeserializer().deserialize(
+        result.setCommandContext(SerializationFactory.getPersistenceDeserializer().deserialize(
                 resultSet.getString("command_context"), PersistedCommandContext.class));
         result.setCreatedAt(DbFacadeUtils.fromDate(resultSet.getTimestamp("created_at")));
         result.setCommandType(ActionType.forValue(resultSet.getInt("command_type")));
         result.setParentCommandId(Guid.createGuidFromString(resultSet.getString("parent_command_id")));
         result.setRootCommandId(Guid.createGuidFromString(resultSet.getString("root_command_id")));
-        result.setCommandParameters(deserializeParameters(resultSet.getString("command_parameters"), resultSet.getString("command_params_class")));
-        result.setReturnValue(deserializeReturnValue(resultSet.getString("return_value"), resultSet.getString("return_value_class")));
         result.setCommandStatus(getCommandStatus(resultSet.getString("status")));
         result.setExecuted(resultSet.getBoolean("executed"));
         result.setCallbackEnabled(resultSet.getBoolean("callback_enabled"));
         result.setCallbackNotified(resultSet.getBoolean("callback_notified"));
-        result.setData(SerializationFactory.getDeserializer().deserialize(resultSet.getString("data"), HashMap.class));
+        result.setData(SerializationFactory.getPersistenceDeserializer().deserialize(resultSet.getString("data"), HashMap.class));
         return result;
     };
 
@@ -92,7 +94,7 @@ public class CommandEntityDaoImpl extends DefaultGenericDao<CommandEntity, Guid>
                 .addValue("command_type", entity.getCommandType().getValue())
                 .addValue("parent_command_id", entity.getParentCommandId())
                 .addValue("root_command_id", Guid.isNullOrEmpty(entity.getRootCommandId()) ? Guid.Empty : entity.getRootCommandId())
-                .addValue("command_context", SerializationFactory.getSerializer().serialize(entity.getCommandContext()))
+                .addValue("command_context", SerializationFactory.getPersistenceSerializer().serialize(entity.getCommandContext()))
                 .addValue("command_parameters", serializeParameters(entity.getCommandParameters()))
                 .addValue("command_params_class", entity.getCommandParameters() == null ? null : entity.getCommandParameters().getClass().getName())
                 .addValue("created_at", entity.getCreatedAt())
@@ -101,34 +103,34 @@ public class CommandEntityDaoImpl extends DefaultGenericDao<CommandEntity, Guid>
                 .addValue("callback_enabled", entity.isCallbackEnabled())
                 .addValue("return_value", serializeReturnValue(entity.getReturnValue()))
                 .addValue("return_value_class", entity.getReturnValue() == null ? null : entity.getReturnValue().getClass().getName())
-                .addValue("data", SerializationFactory.getSerializer().serialize(entity.getData()));
+                .addValue("data", SerializationFactory.getPersistenceSerializer().serialize(entity.getData()));
     }
 
-    private String serializeReturnValue(ActionReturnValue retVal) {
-        return SerializationFactory.getSerializer().serialize(retVal);
+    private Object serializeReturnValue(ActionReturnValue retVal) {
+        return SerializationFactory.getPersistenceSerializer().serialize(retVal);
     }
 
-    private String serializeParameters(ActionParametersBase params) {
-        return SerializationFactory.getSerializer().serialize(params);
+    private Object serializeParameters(ActionParametersBase params) {
+        return SerializationFactory.getPersistenceSerializer().serialize(params);
     }
 
     @SuppressWarnings("unchecked")
-    private static ActionReturnValue deserializeReturnValue(String payload, String className) {
+    static ActionReturnValue deserializeReturnValue(String payload, String className) {
         if (className == null) {
             return null;
         }
         Class<Serializable> retValueClass = (Class<Serializable>) ReflectionUtils.getClassFor(className);
-        return (ActionReturnValue) SerializationFactory.getDeserializer().deserialize(payload,
+        return (ActionReturnValue) SerializationFactory.getPersistenceDeserializer().deserialize(payload,
                 retValueClass);
     }
 
     @SuppressWarnings("unchecked")
-    private static ActionParametersBase deserializeParameters(String payload, String className) {
+    static ActionParametersBase deserializeParameters(String payload, String className) {
         if (className == null) {
             return null;
         }
         Class<Serializable> actionParamsClass = (Class<Serializable>) ReflectionUtils.getClassFor(className);
-        return (ActionParametersBase) SerializationFactory.getDeserializer().deserialize(payload,
+        return (ActionParametersBase) SerializationFactory.getPersistenceDeserializer().deserialize(payload,
                 actionParamsClass);
     }
 
@@ -171,6 +173,15 @@ public class CommandEntityDaoImpl extends DefaultGenericDao<CommandEntity, Guid>
         getCallsHandler().executeModification("DeleteCommandEntitiesOlderThanDate", parameterSource);
     }
 
+    @Override
+    public List<Guid> getIdsCreatedBeforeDate(Date cutoff) {
+        MapSqlParameterSource parameterSource = getCustomMapSqlParameterSource()
+                .addValue("date", cutoff);
+        return getCallsHandler().executeReadList("GetCommandIdsOlderThanDate",
+                idRowMapper,
+                parameterSource);
+    }
+
     @Override
     public List<CommandEntity> getCmdEntitiesByParentCmdId(Guid parentId) {
         MapSqlParameterSource parameterSource = getCustomMapSqlParameterSource()
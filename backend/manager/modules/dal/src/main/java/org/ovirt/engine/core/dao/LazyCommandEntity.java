@@ -0,0 +1,77 @@
+package org.ovirt.engine.core.dao;
+
+import org.ovirt.engine.core.common.action.ActionParametersBase;
+import org.ovirt.engine.core.common.action.ActionReturnValue;
+import org.ovirt.engine.core.common.businessentities.CommandEntity;
+
+/**
+ * A {@link CommandEntity} read from the DB, that keeps the persisted parameters and return value of the command and
+ * deserializes them only when they are first requested.
+ * <p>
+ * Most of the persisted commands are loaded only to be scanned by their status, type and hierarchy, so deserializing
+ * their parameters and return values up front is wasted.
+ */
+public class LazyCommandEntity extends CommandEntity {
+
+    private static final long serialVersionUID = -2946587370359447183L;
+
+    private String parametersPayload;
+    private String parametersClassName;
+    private String returnValuePayload;
+    private String returnValueClassName;
+
+    /**
+     * @param parametersPayload
+     *            the persisted parameters of the command
+     * @param parametersClassName
+     *            the class of the parameters, {@code null} if the command has no parameters
+     * @param returnValuePayload
+     *            the persisted return value of the command
+     * @param returnValueClassName
+     *            the class of the return value, {@code null} if the command has no return value
+     */
+    public LazyCommandEntity(String parametersPayload,
+            String parametersClassName,
+            String returnValuePayload,
+            String returnValueClassName) {
+        this.parametersPayload = parametersPayload;
+        this.parametersClassName = parametersClassName;
+        this.returnValuePayload = returnValuePayload;
+        this.returnValueClassName = returnValueClassName;
+    }
+
+    @Override
+    public synchronized ActionParametersBase getCommandParameters() {
+        if (parametersClassName != null) {
+            super.setCommandParameters(
+                    CommandEntityDaoImpl.deserializeParameters(parametersPayload, parametersClassName));
+            parametersPayload = null;
+            parametersClassName = null;
+        }
+        return super.getCommandParameters();
+    }
+
+    @Override
+    public synchronized void setCommandParameters(ActionParametersBase value) {
+        parametersPayload = null;
+        parametersClassName = null;
+        super.setCommandParameters(value);
+    }
+
+    @Override
+    public synchronized ActionReturnValue getReturnValue() {
+        if (returnValueClassName != null) {
+            super.setReturnValue(CommandEntityDaoImpl.deserializeReturnValue(returnValuePayload, returnValueClassName));
+            returnValuePayload = null;
+            returnValueClassName = null;
+        }
+        return super.getReturnValue();
+    }
+
+    @Override
+    public synchronized void setReturnValue(ActionReturnValue returnValue) {
+        returnValuePayload = null;
+        returnValueClassName = null;
+        super.setReturnValue(returnValue);
+    }
+}
@@ -5,6 +5,7 @@ import java.util.List;
 
 import org.ovirt.engine.core.common.VdcObjectType;
 import org.ovirt.engine.core.common.businessentities.ActionGroup;
+import org.ovirt.engine.core.common.businessentities.EntityPermission;
 import org.ovirt.engine.core.common.businessentities.Permission;
 import org.ovirt.engine.core.compat.Guid;
 
@@ -173,6 +174,25 @@ public interface PermissionDao extends GenericDao<Permission, Guid> {
 
     Guid getEntityPermissions(Guid adElementId, ActionGroup actionGroup, Guid objectId, VdcObjectType vdcObjectType);
 
+    /**
+     * Retrieves the permissions of a user to perform an action group on multiple entities of the same type, as
+     * {@link #getEntityPermissions(Guid, ActionGroup, Guid, VdcObjectType)} does for each of them, in a single call.
+     *
+     * @param adElementId
+     *            the user
+     * @param actionGroup
+     *            the action group
+     * @param objectIds
+     *            the entities
+     * @param vdcObjectType
+     *            the type of the entities
+     * @return the permission and the parents of each entity
+     */
+    List<EntityPermission> getEntityPermissionsForObjects(Guid adElementId,
+            ActionGroup actionGroup,
+            Collection<Guid> objectIds,
+            VdcObjectType vdcObjectType);
+
     Guid getEntityPermissionsForUserAndGroups(Guid userId,
                                               String groupIds,
                                               ActionGroup actionGroup,
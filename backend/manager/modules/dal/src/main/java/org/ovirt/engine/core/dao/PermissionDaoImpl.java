@@ -1,13 +1,17 @@
 package org.ovirt.engine.core.dao;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 import javax.inject.Named;
 import javax.inject.Singleton;
 
 import org.ovirt.engine.core.common.VdcObjectType;
 import org.ovirt.engine.core.common.businessentities.ActionGroup;
+import org.ovirt.engine.core.common.businessentities.EntityPermission;
 import org.ovirt.engine.core.common.businessentities.Permission;
 import org.ovirt.engine.core.common.businessentities.RoleType;
 import org.ovirt.engine.core.common.config.Config;
@@ -223,6 +227,21 @@ public class PermissionDaoImpl extends BaseDao implements PermissionDao {
                 parameterSource);
     }
 
+    @Override
+    public List<EntityPermission> getEntityPermissionsForObjects(Guid adElementId,
+            ActionGroup actionGroup,
+            Collection<Guid> objectIds,
+            VdcObjectType vdcObjectType) {
+        MapSqlParameterSource parameterSource = getCustomMapSqlParameterSource().addValue("user_id", adElementId)
+                .addValue("action_group_id", actionGroup.getId())
+                .addValue("object_ids", createArrayOfUUIDs(objectIds))
+                .addValue("object_type_id", vdcObjectType.getValue());
+
+        return getCallsHandler().executeReadList("get_entity_permissions_for_objects",
+                entityPermissionRowMapper,
+                parameterSource);
+    }
+
     @Override
     public Guid getEntityPermissionsForUserAndGroups(Guid userId,
                                                      String groupIds,
@@ -299,4 +318,16 @@ public class PermissionDaoImpl extends BaseDao implements PermissionDao {
 
         return entity;
     };
+
+    private static final RowMapper<EntityPermission> entityPermissionRowMapper = (rs, rowNum) -> {
+        EntityPermission entity = new EntityPermission();
+        entity.setEntityId(getGuid(rs, "object_id"));
+        entity.setParentIds(Arrays.stream((String[]) rs.getArray("parent_ids").getArray())
+                // parents which are not set, as the data center of a cluster which is not attached to any
+                .filter(Objects::nonNull)
+                .map(Guid::new)
+                .collect(Collectors.toSet()));
+        entity.setPermissionId(getGuid(rs, "permission_id"));
+        return entity;
+    };
 }
@@ -1,5 +1,6 @@
 package org.ovirt.engine.core.dao;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.ovirt.engine.core.common.businessentities.storage.ImageFileType;
@@ -19,6 +20,24 @@ public interface RepoFileMetaDataDao extends Dao {
      */
     void removeRepoDomainFileList(Guid id, ImageFileType filetype);
 
+    /**
+     * Remove the given repository files from cache table, of domain with the specified id.
+     *
+     * @param id - The domain id.
+     * @param repoImageIds - The ids of the files which should be removed.
+     */
+    void removeRepoFiles(Guid id, Collection<String> repoImageIds);
+
+    /**
+     * Set the time the repository files with the specified file extension, of domain with the specified id, were last
+     * refreshed.
+     *
+     * @param id - The domain id.
+     * @param fileType - The file Extension, which should be updated.
+     * @param lastRefreshed - The time of the refresh.
+     */
+    void updateRepoDomainFileListLastRefreshed(Guid id, ImageFileType fileType, long lastRefreshed);
+
     /**
      * Add repository file to cache table.
      *
@@ -1,5 +1,6 @@
 package org.ovirt.engine.core.dao;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
@@ -34,6 +35,30 @@ public class RepoFileMetaDataDaoImpl extends BaseDao implements RepoFileMetaData
         getCallsHandler().executeModification("DeleteRepo_domain_file_list", parameterSource);
     }
 
+    @Override
+    public void removeRepoFiles(Guid id, Collection<String> repoImageIds) {
+        MapSqlParameterSource parameterSource = getCustomMapSqlParameterSource()
+                .addValue("storage_domain_id", id)
+                .addValue("repo_image_ids", createArrayOf("varchar", repoImageIds.toArray()));
+
+        getCallsHandler().executeModification("DeleteRepo_domain_files", parameterSource);
+    }
+
+    @Override
+    public void updateRepoDomainFileListLastRefreshed(Guid id, ImageFileType fileType, long lastRefreshed) {
+        MapSqlParameterSource parameterSource = getCustomMapSqlParameterSource()
+                .addValue("storage_domain_id", id)
+                .addValue("last_refreshed", lastRefreshed);
+
+        if (fileType == null || fileType == ImageFileType.All) {
+            parameterSource.addValue("file_type", null);
+        } else {
+            parameterSource.addValue("file_type", fileType.getValue());
+        }
+
+        getCallsHandler().executeModification("UpdateRepo_domain_file_list_last_refreshed", parameterSource);
+    }
+
     @Override
     public void addRepoFileMap(RepoImage map) {
         MapSqlParameterSource parameterSource =
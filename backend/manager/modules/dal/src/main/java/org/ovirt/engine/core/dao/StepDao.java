@@ -9,7 +9,7 @@ import org.ovirt.engine.core.common.job.JobExecutionStatus;
 import org.ovirt.engine.core.common.job.Step;
 import org.ovirt.engine.core.compat.Guid;
 
-public interface StepDao extends GenericDao<Step, Guid> {
+public interface StepDao extends GenericDao<Step, Guid>, MassOperationsDao<Step, Guid> {
 
     /**
      * Check if the {@link Step} with the given id exists or not.
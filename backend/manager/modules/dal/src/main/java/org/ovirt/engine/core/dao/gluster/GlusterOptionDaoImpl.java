@@ -37,6 +37,8 @@ public class GlusterOptionDaoImpl extends MassOperationsGenericDao<GlusterVolume
     public GlusterOptionDaoImpl() {
         super("GlusterOption");
         setProcedureNameForGet("GetGlusterOptionById");
+        setProcedureNameForSave("InsertGlusterVolumeOption");
+        setProcedureNameForUpdate("UpdateGlusterVolumeOption");
     }
 
     @Override
@@ -76,6 +76,15 @@ public interface InterfaceDao extends Dao {
      */
     List<VdsNetworkInterface> getAllInterfacesForVds(Guid id);
 
+    /**
+     * Retrieves all interfaces for the given VDS ids.
+     *
+     * @param ids
+     *            the VDS ids
+     * @return map of VDS id and its interfaces, VDSs without interfaces are missing
+     */
+    Map<Guid, List<VdsNetworkInterface>> getAllInterfacesForMultipleVds(Collection<Guid> ids);
+
     /**
      * Retrieves all networks names for the given Cluster id,
      * aggregated by its hosts.
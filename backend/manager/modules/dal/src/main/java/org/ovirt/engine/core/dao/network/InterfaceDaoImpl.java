@@ -161,6 +161,15 @@ public class InterfaceDaoImpl extends BaseDao implements InterfaceDao {
         return getAllInterfacesForVds(id, null, false);
     }
 
+    @Override
+    public Map<Guid, List<VdsNetworkInterface>> getAllInterfacesForMultipleVds(Collection<Guid> ids) {
+        List<VdsNetworkInterface> interfaces = getCallsHandler().executeReadList("GetInterfaceViewWithQosByVdsIds",
+                interfaceWithQosMapper,
+                getCustomMapSqlParameterSource().addValue("vds_ids", createArrayOfUUIDs(ids)));
+
+        return interfaces.stream().collect(Collectors.groupingBy(VdsNetworkInterface::getVdsId));
+    }
+
     @Override
     public Map<Guid, List<String>> getHostNetworksByCluster(Guid clusterId) {
         MapSqlParameterSource parameterSource = getCustomMapSqlParameterSource()
@@ -1,5 +1,6 @@
 package org.ovirt.engine.core.dao.network;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.ovirt.engine.core.common.businessentities.network.NetworkAttachment;
@@ -37,6 +38,15 @@ public interface NetworkAttachmentDao extends GenericDao<NetworkAttachment, Guid
      */
     List<NetworkAttachment> getAllForHost(Guid hostId);
 
+    /**
+     * Retrieves all network attachments associated with the given hosts.
+     *
+     * @param hostIds
+     *            the host IDs
+     * @return the list of network attachments
+     */
+    List<NetworkAttachment> getAllForHosts(Collection<Guid> hostIds);
+
     /**
      * Removed network attachment related to given networkId.
      */
@@ -4,6 +4,7 @@ import static org.ovirt.engine.core.dao.network.HostNetworkQosDaoImpl.HostNetwor
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -140,6 +141,13 @@ public class NetworkAttachmentDaoImpl extends DefaultGenericDao<NetworkAttachmen
                 getCustomMapSqlParameterSource().addValue("host_id", hostId));
     }
 
+    @Override
+    public List<NetworkAttachment> getAllForHosts(Collection<Guid> hostIds) {
+        return getCallsHandler().executeReadList("GetNetworkAttachmentsWithQosByHostIds",
+                attachmentWithQosMapper,
+                getCustomMapSqlParameterSource().addValue("host_ids", createArrayOfUUIDs(hostIds)));
+    }
+
     @Override
     public void remove(Guid id) {
         hostNetworkQosDao.remove(id);
@@ -1,5 +1,6 @@
 package org.ovirt.engine.core.dao.network;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -87,6 +88,16 @@ public interface NetworkDao extends GenericDao<Network, Guid> {
      */
     List<Network> getAllForCluster(Guid id, Guid userID, boolean isFiltered);
 
+    /**
+     * Retrieves all networks for the given clusters.
+     *
+     * @param ids
+     *            the clusters
+     * @return map of cluster id and its networks, ordered by name like {@link #getAllForCluster(Guid)}; clusters
+     *         without networks are missing
+     */
+    Map<Guid, List<Network>> getAllForClusters(Collection<Guid> ids);
+
     /**
      * Retrieves all networks using a given QoS entity.
      *
@@ -2,6 +2,7 @@ package org.ovirt.engine.core.dao.network;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
@@ -22,6 +23,7 @@ import org.ovirt.engine.core.common.businessentities.network.Network;
 import org.ovirt.engine.core.common.businessentities.network.NetworkCluster;
 import org.ovirt.engine.core.common.businessentities.network.NetworkStatus;
 import org.ovirt.engine.core.common.businessentities.network.ProviderNetwork;
+import org.ovirt.engine.core.common.utils.Pair;
 import org.ovirt.engine.core.compat.Guid;
 import org.ovirt.engine.core.dao.DefaultGenericDao;
 import org.springframework.jdbc.core.RowMapper;
@@ -126,6 +128,17 @@ public class NetworkDaoImpl extends DefaultGenericDao<Network, Guid> implements
                         .addValue("is_filtered", isFiltered));
     }
 
+    @Override
+    public Map<Guid, List<Network>> getAllForClusters(Collection<Guid> ids) {
+        List<Pair<Guid, Network>> clusterNetworks = getCallsHandler().executeReadList("GetAllNetworkByClusterIds",
+                (rs, rowNum) -> new Pair<>(getGuid(rs, "cluster_id"), networkClusterRowMapper.mapRow(rs, rowNum)),
+                getCustomMapSqlParameterSource().addValue("ids", createArrayOfUUIDs(ids)));
+
+        return clusterNetworks.stream()
+                .collect(Collectors.groupingBy(Pair::getFirst,
+                        Collectors.mapping(Pair::getSecond, Collectors.toList())));
+    }
+
     @Override
     public List<Network> getAllForQos(Guid qosId) {
         return getCallsHandler().executeReadList("GetAllNetworksByQosId",
@@ -6,6 +6,7 @@ import static org.hamcrest.Matchers.hasSize;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.Serializable;
@@ -19,6 +20,7 @@ import java.util.Set;
 import org.junit.jupiter.api.Test;
 import org.ovirt.engine.core.common.VdcObjectType;
 import org.ovirt.engine.core.common.action.ActionParametersBase;
+import org.ovirt.engine.core.common.action.ActionReturnValue;
 import org.ovirt.engine.core.common.action.ActionType;
 import org.ovirt.engine.core.common.businessentities.CommandAssociatedEntity;
 import org.ovirt.engine.core.common.businessentities.CommandEntity;
@@ -64,6 +66,16 @@ public class CommandEntityDaoTest extends BaseGenericDaoTestCase<Guid, CommandEn
         return 3;
     }
 
+    @Test
+    public void testGetIdsCreatedBeforeDate() {
+        CommandEntity cmdEntity = generateNewEntity();
+        dao.save(cmdEntity);
+
+        List<Guid> cmdIds = dao.getIdsCreatedBeforeDate(new Date(cmdEntity.getCreatedAt().getTime() - 1000));
+        assertThat(cmdIds, hasSize(getEntitiesTotalCount()));
+        assertThat(cmdIds, hasItems(getExistingEntityId()));
+    }
+
     @Test
     public void testRemove() {
         CommandEntity cmd = dao.get(getExistingEntityId());
@@ -80,6 +92,24 @@ public class CommandEntityDaoTest extends BaseGenericDaoTestCase<Guid, CommandEn
         assertTrue(cmds.size() > 0);
     }
 
+    @Test
+    public void testGetDeserializesParametersAndReturnValue() {
+        CommandEntity cmdEntity = generateNewEntity();
+        cmdEntity.getCommandParameters().setCorrelationId("correlation");
+        ActionReturnValue returnValue = new ActionReturnValue();
+        returnValue.setDescription("description");
+        cmdEntity.setReturnValue(returnValue);
+        dao.save(cmdEntity);
+
+        CommandEntity result = dao.get(cmdEntity.getId());
+        assertEquals("correlation", result.getCommandParameters().getCorrelationId());
+        assertEquals("description", result.getReturnValue().getDescription());
+
+        ActionParametersBase params = new ActionParametersBase();
+        result.setCommandParameters(params);
+        assertSame(params, result.getCommandParameters());
+    }
+
     @Test
     public void testGetCommandIdsByEntity() {
         Guid storageId = Guid.newGuid();
@@ -107,7 +107,7 @@ public class FixturesTool {
     /**
      * Predefined vds group.
      */
-    protected static final Guid CLUSTER_RHEL6_NFS_2 = new Guid("eba797fb-8e3b-4777-b63c-92e7a5957d7c");
+    public static final Guid CLUSTER_RHEL6_NFS_2 = new Guid("eba797fb-8e3b-4777-b63c-92e7a5957d7c");
 
     /**
      * Predefined vds group for LocalFS storage pool
@@ -7,6 +7,7 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -18,6 +19,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.ovirt.engine.core.common.VdcObjectType;
 import org.ovirt.engine.core.common.businessentities.ActionGroup;
+import org.ovirt.engine.core.common.businessentities.EntityPermission;
 import org.ovirt.engine.core.common.businessentities.Permission;
 import org.ovirt.engine.core.common.config.ConfigValues;
 import org.ovirt.engine.core.common.mode.ApplicationMode;
@@ -586,6 +588,61 @@ public class PermissionDaoTest extends BaseDaoTestCase<PermissionDao> {
                 false));
     }
 
+    /**
+     * Ensures that checking multiple entities at once gives the same results as checking each of them.
+     */
+    @Test
+    public void testGetEntityPermissionsForObjects() {
+        List<Guid> adElementIds = Arrays.asList(DIRECTORY_ELEMENT_ID_WITH_BASIC_PERMISSIONS,
+                FixturesTool.USER_EXISTING_ID,
+                Guid.newGuid());
+        List<ActionGroup> actionGroups = Arrays.asList(ActionGroup.RUN_VM,
+                ActionGroup.CREATE_TEMPLATE,
+                ActionGroup.MIGRATE_VM);
+        List<Guid> vmIds = Arrays.asList(VM_ENTITY_ID,
+                VM_TEMPLATE_ENTITY_ID,
+                FixturesTool.VM_RHEL5_POOL_57,
+                FixturesTool.VM_RHEL5_POOL_59,
+                FixturesTool.VM_WITH_NO_ATTACHED_DISKS);
+
+        int granted = 0;
+        for (Guid adElementId : adElementIds) {
+            for (ActionGroup actionGroup : actionGroups) {
+                List<EntityPermission> result =
+                        dao.getEntityPermissionsForObjects(adElementId, actionGroup, vmIds, VdcObjectType.VM);
+
+                assertEquals(vmIds.size(), result.size());
+                for (EntityPermission entityPermission : result) {
+                    Guid expected = dao.getEntityPermissions(adElementId,
+                            actionGroup,
+                            entityPermission.getEntityId(),
+                            VdcObjectType.VM);
+                    assertEquals(expected == null, entityPermission.getPermissionId() == null);
+                    if (expected != null) {
+                        granted++;
+                    }
+                }
+            }
+        }
+        assertTrue(granted > 0);
+    }
+
+    /**
+     * Ensures that the parents of the checked entities are returned with the checks.
+     */
+    @Test
+    public void testGetEntityPermissionsForObjectsParents() {
+        List<EntityPermission> result = dao.getEntityPermissionsForObjects(DIRECTORY_ELEMENT_ID_WITH_BASIC_PERMISSIONS,
+                ActionGroup.RUN_VM,
+                Collections.singletonList(VM_ENTITY_ID),
+                VdcObjectType.VM);
+
+        assertEquals(1, result.size());
+        assertEquals(VM_ENTITY_ID, result.get(0).getEntityId());
+        assertTrue(result.get(0).getParentIds().contains(VM_ENTITY_ID));
+        assertTrue(result.get(0).getParentIds().contains(FixturesTool.CLUSTER));
+    }
+
     /**
      * Ensures that saving a permission works as expected.
      */
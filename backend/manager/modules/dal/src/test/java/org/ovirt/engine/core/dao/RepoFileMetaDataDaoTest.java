@@ -7,6 +7,7 @@ import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.Collections;
 import java.util.List;
 
 import javax.inject.Inject;
@@ -138,6 +139,44 @@ public class RepoFileMetaDataDaoTest extends BaseDaoTestCase<RepoFileMetaDataDao
         assertNotSame(oldRepoImageId, newRepoFile.getRepoImageId());
     }
 
+    /**
+     * Test remove of specific repo files from storage domain.
+     */
+    @Test
+    public void testRemoveRepoFiles() {
+        RepoImage removed = getNewIsoRepoFile();
+        dao.addRepoFileMap(removed);
+        RepoImage kept = getNewIsoRepoFile();
+        kept.setRepoImageId("keptIsoDomain.iso");
+        dao.addRepoFileMap(kept);
+
+        dao.removeRepoFiles(FixturesTool.STORAGE_DOMAIN_NFS_ISO, Collections.singletonList(removed.getRepoImageId()));
+
+        List<RepoImage> listOfRepoFiles =
+                dao.getRepoListForStorageDomain(FixturesTool.STORAGE_DOMAIN_NFS_ISO, ImageFileType.ISO);
+        assertEquals(1, listOfRepoFiles.size());
+        assertEquals(kept.getRepoImageId(), listOfRepoFiles.get(0).getRepoImageId());
+    }
+
+    /**
+     * Test update of the refresh time of the repo files of storage domain.
+     */
+    @Test
+    public void testUpdateRepoDomainFileListLastRefreshed() {
+        RepoImage newRepoFileMap = getNewIsoRepoFile();
+        dao.addRepoFileMap(newRepoFileMap);
+        long lastRefreshed = newRepoFileMap.getLastRefreshed() + 1000;
+
+        dao.updateRepoDomainFileListLastRefreshed(FixturesTool.STORAGE_DOMAIN_NFS_ISO,
+                ImageFileType.ISO,
+                lastRefreshed);
+
+        List<RepoImage> listOfRepoFiles =
+                dao.getRepoListForStorageDomain(FixturesTool.STORAGE_DOMAIN_NFS_ISO, ImageFileType.ISO);
+        assertEquals(1, listOfRepoFiles.size());
+        assertEquals(lastRefreshed, listOfRepoFiles.get(0).getLastRefreshed());
+    }
+
     /**
      * Test that the list returns is not null.
      */
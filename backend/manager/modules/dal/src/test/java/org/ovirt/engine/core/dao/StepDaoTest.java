@@ -132,6 +132,27 @@ public class StepDaoTest extends BaseGenericDaoTestCase<Guid, Step, StepDao> {
         assertEquals(IN_PROGRESS_REBALANCING_GLUSTER_VOLUME_TASK_ID, externalIds.get(0), "Invalid TaskId");
     }
 
+    @Test
+    public void saveAllInBatch() {
+        Step step = generateNewEntity();
+        Step subStep = step.addStep(StepEnum.VALIDATING, "Validation step");
+        dao.saveAllInBatch(Arrays.asList(step, subStep));
+
+        assertEquals(step, dao.get(step.getId()));
+        assertEquals(subStep, dao.get(subStep.getId()));
+    }
+
+    @Test
+    public void updateAllInBatch() {
+        Step step = dao.get(IN_PROGRESS_STEP_ID);
+        step.markStepEnded(true);
+        existingEntity.setProgress(30);
+        dao.updateAllInBatch(Arrays.asList(step, existingEntity));
+
+        assertEquals(step, dao.get(IN_PROGRESS_STEP_ID));
+        assertEquals(existingEntity.getProgress(), dao.get(EXISTING_STEP_ID).getProgress());
+    }
+
     @Test
     public void updateStepProgress(){
         Integer newProgress = 74;
@@ -6,6 +6,7 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.jupiter.api.Test;
@@ -398,6 +399,36 @@ public class GlusterBrickDaoTest extends BaseDaoTestCase<GlusterBrickDao> {
         assertNotNull(bricks);
     }
 
+    @Test
+    public void testUpdateBrickOrders() {
+        GlusterBrickEntity existingBrick = dao.getById(FixturesTool.GLUSTER_BRICK_UUID1);
+        GlusterBrickEntity existingBrick1 = dao.getById(FixturesTool.GLUSTER_BRICK_UUID2);
+        assertNotNull(existingBrick);
+        assertNotNull(existingBrick1);
+
+        existingBrick.setBrickOrder(existingBrick1.getBrickOrder());
+        existingBrick1.setBrickOrder(existingBrick.getBrickOrder() + 1);
+        dao.updateBrickOrders(Arrays.asList(existingBrick, existingBrick1));
+
+        assertEquals(existingBrick.getBrickOrder(), dao.getById(FixturesTool.GLUSTER_BRICK_UUID1).getBrickOrder());
+        assertEquals(existingBrick1.getBrickOrder(), dao.getById(FixturesTool.GLUSTER_BRICK_UUID2).getBrickOrder());
+    }
+
+    @Test
+    public void testUpdateBrickNetworkIds() {
+        GlusterBrickEntity existingBrick = dao.getById(FixturesTool.GLUSTER_BRICK_UUID1);
+        GlusterBrickEntity existingBrick1 = dao.getById(FixturesTool.GLUSTER_BRICK_UUID2);
+        assertNotNull(existingBrick);
+        assertNotNull(existingBrick1);
+
+        existingBrick.setNetworkId(FixturesTool.NETWORK_ENGINE);
+        existingBrick1.setNetworkId(FixturesTool.NETWORK_ENGINE);
+        dao.updateBrickNetworkIds(Arrays.asList(existingBrick, existingBrick1));
+
+        assertEquals(FixturesTool.NETWORK_ENGINE, dao.getById(FixturesTool.GLUSTER_BRICK_UUID1).getNetworkId());
+        assertEquals(FixturesTool.NETWORK_ENGINE, dao.getById(FixturesTool.GLUSTER_BRICK_UUID2).getNetworkId());
+    }
+
     @Test
     public void testGetAllByClusterAndNetworkId() {
         dao.updateBrickNetworkId(FixturesTool.GLUSTER_BRICK_UUID1, FixturesTool.NETWORK_ENGINE);
@@ -105,6 +105,20 @@ public class InterfaceDaoImplTest extends BaseDaoTestCase<InterfaceDao> {
         testQosAppendedToResultSet(result);
     }
 
+    /**
+     * Ensures the interfaces of all the given hosts are returned, grouped by host.
+     */
+    @Test
+    public void testGetAllInterfacesForMultipleVds() {
+        Map<Guid, List<VdsNetworkInterface>> result =
+                dao.getAllInterfacesForMultipleVds(Arrays.asList(VDS_ID, FixturesTool.HOST_ID, Guid.newGuid()));
+
+        assertEquals(2, result.size());
+        assertEquals(Set.copyOf(dao.getAllInterfacesForVds(VDS_ID)), Set.copyOf(result.get(VDS_ID)));
+        assertEquals(Set.copyOf(dao.getAllInterfacesForVds(FixturesTool.HOST_ID)),
+                Set.copyOf(result.get(FixturesTool.HOST_ID)));
+    }
+
     private void testQosAppendedToResultSet(List<VdsNetworkInterface> result) {
         result.forEach(r-> {
             if (r.getQos() == null) {
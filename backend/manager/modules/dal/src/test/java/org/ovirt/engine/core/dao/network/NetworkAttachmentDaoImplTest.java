@@ -128,6 +128,17 @@ public class NetworkAttachmentDaoImplTest extends BaseDaoTestCase<NetworkAttachm
         assertEquals(2, result.size());
     }
 
+    /**
+     * Ensures that the network attachments of all the given hosts are returned.
+     */
+    @Test
+    public void testGetAllForHosts() {
+        List<NetworkAttachment> result =
+                dao.getAllForHosts(Arrays.asList(FixturesTool.NETWORK_ATTACHMENT_HOST, Guid.newGuid()));
+
+        assertEquals(dao.getAllForHost(FixturesTool.NETWORK_ATTACHMENT_HOST), result);
+    }
+
     /**
      * Ensures that network attachments are returned.
      */
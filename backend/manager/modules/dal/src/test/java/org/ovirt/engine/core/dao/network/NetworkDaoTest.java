@@ -7,7 +7,9 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.inject.Inject;
@@ -179,6 +181,20 @@ public class NetworkDaoTest extends BaseDaoTestCase<NetworkDao> {
         assertGetAllForClusterResult(result);
     }
 
+    /**
+     * Ensures the networks of each of the given clusters are returned like they are for a single cluster.
+     */
+    @Test
+    public void testGetAllForClusters() {
+        Map<Guid, List<Network>> result = dao.getAllForClusters(
+                Arrays.asList(FixturesTool.CLUSTER, FixturesTool.CLUSTER_RHEL6_NFS_2, Guid.newGuid()));
+
+        assertEquals(2, result.size());
+        assertEquals(dao.getAllForCluster(FixturesTool.CLUSTER), result.get(FixturesTool.CLUSTER));
+        assertEquals(dao.getAllForCluster(FixturesTool.CLUSTER_RHEL6_NFS_2),
+                result.get(FixturesTool.CLUSTER_RHEL6_NFS_2));
+    }
+
     /**
      * Ensures the right set of networks are returned for the given cluster,
      * with a privileged user
@@ -0,0 +1,100 @@
+package org.ovirt.engine.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.ovirt.engine.core.utils.threadpool.VirtualThreadExecutor;
+
+/**
+ * <p> Benchmarks the time it takes to complete a burst of tasks blocking like VDSM calls do, comparing the engine
+ * thread pool with the virtual threads execution mode.</p>
+ * <p> The pool is configured like the engine thread pool with its default sizes, including running the tasks exceeding
+ * its queue on the submitting thread. The virtual threads variant requires running the benchmark on Java 21 or later.
+ * </p>
+ *
+ * @see VirtualThreadExecutor
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BlockingTasksBenchmark {
+
+    private static final long BLOCKING_MILLIS = 20;
+
+    @Benchmark
+    public void threadPool(BenchmarkState state, Blackhole blackhole) throws Exception {
+        runTasks(state.threadPool, state.tasks, blackhole);
+    }
+
+    @Benchmark
+    public void virtualThreads(BenchmarkState state, Blackhole blackhole) throws Exception {
+        runTasks(state.virtualThreads, state.tasks, blackhole);
+    }
+
+    private static void runTasks(ExecutorService executor, int tasks, Blackhole blackhole) throws Exception {
+        List<Future<Long>> futures = new ArrayList<>(tasks);
+        for (int i = 0; i < tasks; i++) {
+            futures.add(executor.submit(() -> {
+                Thread.sleep(BLOCKING_MILLIS);
+                return System.nanoTime();
+            }));
+        }
+        for (Future<Long> future : futures) {
+            blackhole.consume(future.get());
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class BenchmarkState {
+
+        @Param({ "100", "1000", "5000" })
+        private int tasks;
+
+        private ExecutorService threadPool;
+        private ExecutorService virtualThreads;
+
+        @Setup
+        public void setup() {
+            // paranoia check
+            if (!VirtualThreadExecutor.isSupported()) {
+                throw new IllegalStateException("This benchmark is illegal because "
+                        + " virtual threads are not supported by Java " + System.getProperty("java.version"));
+            }
+
+            // the defaults of ENGINE_THREAD_POOL_MIN_SIZE, ENGINE_THREAD_POOL_MAX_SIZE and ENGINE_THREAD_POOL_QUEUE_SIZE
+            threadPool = new ThreadPoolExecutor(50,
+                    500,
+                    60L,
+                    TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(100),
+                    Executors.defaultThreadFactory(),
+                    new ThreadPoolExecutor.CallerRunsPolicy());
+            virtualThreads = VirtualThreadExecutor.create("benchmark-virtual-");
+        }
+
+        @TearDown
+        public void tearDown() {
+            threadPool.shutdownNow();
+            virtualThreads.shutdownNow();
+        }
+    }
+}
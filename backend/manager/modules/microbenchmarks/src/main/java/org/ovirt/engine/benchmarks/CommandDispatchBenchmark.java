@@ -0,0 +1,102 @@
+package org.ovirt.engine.benchmarks;
+
+import java.lang.reflect.Constructor;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.ovirt.engine.core.bll.CommandConstructors;
+import org.ovirt.engine.core.bll.CommandsFactory;
+import org.ovirt.engine.core.bll.context.CommandContext;
+import org.ovirt.engine.core.bll.context.EngineContext;
+import org.ovirt.engine.core.common.action.ActionType;
+import org.ovirt.engine.core.common.action.PermissionsOperationsParameters;
+import org.ovirt.engine.core.common.queries.IdQueryParameters;
+import org.ovirt.engine.core.common.queries.QueryType;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.utils.ReflectionUtils;
+
+/**
+ * <p> Benchmarks the per call cost of instantiating commands and queries by {@link CommandsFactory}, comparing the
+ * reflective constructor invocation with the build time generated {@link CommandConstructors}.</p>
+ * <p> Both variants resolve the command class from the action or query type name on each call, like the factory does,
+ * the reflective variant is given an already looked up {@link Constructor}, so only the invocation is measured.
+ * Member injection is not part of the benchmark since it requires the container.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CommandDispatchBenchmark {
+
+    @Benchmark
+    public void reflectiveAction(BenchmarkState state, Blackhole blackhole) throws Exception {
+        CommandsFactory.getCommandClass(ActionType.AddPermission.name());
+        blackhole.consume(state.actionConstructor.newInstance(state.actionParameters, state.commandContext));
+    }
+
+    @Benchmark
+    public void generatedAction(BenchmarkState state, Blackhole blackhole) {
+        Class<?> type = CommandsFactory.getCommandClass(ActionType.AddPermission.name());
+        blackhole.consume(state.constructors.getActionConstructor(type)
+                .create(state.actionParameters, state.commandContext));
+    }
+
+    @Benchmark
+    public void reflectiveQuery(BenchmarkState state, Blackhole blackhole) throws Exception {
+        CommandsFactory.getQueryClass(QueryType.GetVmByVmId.name());
+        blackhole.consume(state.queryConstructor.newInstance(state.queryParameters, state.engineContext));
+    }
+
+    @Benchmark
+    public void generatedQuery(BenchmarkState state, Blackhole blackhole) {
+        Class<?> type = CommandsFactory.getQueryClass(QueryType.GetVmByVmId.name());
+        blackhole.consume(state.constructors.getQueryConstructor(type)
+                .create(state.queryParameters, state.engineContext));
+    }
+
+    @State(Scope.Thread)
+    public static class BenchmarkState {
+
+        private CommandConstructors constructors;
+        private Constructor<?> actionConstructor;
+        private Constructor<?> queryConstructor;
+        private PermissionsOperationsParameters actionParameters;
+        private IdQueryParameters queryParameters;
+        private CommandContext commandContext;
+        private EngineContext engineContext;
+
+        @Setup
+        public void setup() {
+            constructors = CommandConstructors.getInstance();
+            actionParameters = new PermissionsOperationsParameters();
+            actionParameters.setCommandId(Guid.newGuid());
+            queryParameters = new IdQueryParameters(Guid.newGuid());
+            queryParameters.setCorrelationId("benchmark");
+            engineContext = new EngineContext();
+            commandContext = new CommandContext(engineContext);
+
+            Class<?> actionClass = CommandsFactory.getCommandClass(ActionType.AddPermission.name());
+            Class<?> queryClass = CommandsFactory.getQueryClass(QueryType.GetVmByVmId.name());
+            actionConstructor = ReflectionUtils.findConstructor(actionClass,
+                    PermissionsOperationsParameters.class,
+                    CommandContext.class);
+            queryConstructor = ReflectionUtils.findConstructor(queryClass, IdQueryParameters.class, EngineContext.class);
+
+            // paranoia check
+            if (constructors.getActionConstructor(actionClass) == null
+                    || constructors.getQueryConstructor(queryClass) == null) {
+                throw new IllegalStateException("This benchmark is illegal because "
+                        + " the generated constructors are not available");
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package org.ovirt.engine.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.ovirt.engine.core.bll.tasks.CommandsCacheImpl;
+import org.ovirt.engine.core.common.action.ActionReturnValue;
+import org.ovirt.engine.core.common.action.ActionType;
+import org.ovirt.engine.core.common.action.RunVmParams;
+import org.ovirt.engine.core.common.businessentities.CommandEntity;
+import org.ovirt.engine.core.compat.CommandStatus;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.dao.CommandEntityDao;
+import org.ovirt.engine.core.dao.LazyCommandEntity;
+import org.ovirt.engine.core.utils.SerializationFactory;
+
+/**
+ * <p> Benchmarks {@link CommandsCacheImpl} with a large backlog of persisted commands.</p>
+ * <p> The startup benchmarks measure the first use of a new cache, which loads all the commands. The rows are kept in
+ * memory, so only the mapping of the rows is measured: the eager variant deserializes the parameters and the return
+ * value of every command, like the DAO did before {@link LazyCommandEntity}.</p>
+ * <p> The lookup benchmarks measure concurrent lookups of commands by their id, the way the callbacks poller reads
+ * the status of the commands, comparing the cache with a map guarded by a single lock. Updates are not measured since
+ * they write to the DB.</p>
+ */
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class CommandsCacheBenchmark {
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void eagerStartup(BenchmarkState state, Blackhole blackhole) {
+        blackhole.consume(new CommandsCacheImpl(state.createDao(BenchmarkState::toEagerEntity)).keySet());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void lazyStartup(BenchmarkState state, Blackhole blackhole) {
+        blackhole.consume(new CommandsCacheImpl(state.createDao(BenchmarkState::toLazyEntity)).keySet());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Threads(4)
+    public CommandStatus cacheLookup(BenchmarkState state) {
+        return state.cache.get(state.randomCommandId()).getCommandStatus();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Threads(4)
+    public CommandStatus lockedLookup(BenchmarkState state) {
+        return state.lockedMap.get(state.randomCommandId()).getCommandStatus();
+    }
+
+    @State(Scope.Benchmark)
+    public static class BenchmarkState {
+
+        @Param({ "100000" })
+        private int commands;
+
+        private List<String[]> rows;
+        private List<Guid> commandIds;
+        private CommandsCacheImpl cache;
+        private Map<Guid, CommandEntity> lockedMap;
+
+        @Setup
+        public void setup() {
+            rows = new ArrayList<>(commands);
+            commandIds = new ArrayList<>(commands);
+            for (int i = 0; i < commands; i++) {
+                Guid commandId = Guid.newGuid();
+                RunVmParams params = new RunVmParams(Guid.newGuid());
+                params.setCommandId(commandId);
+                params.setCorrelationId(Guid.newGuid().toString());
+                params.setParentCommand(ActionType.RunVmOnce);
+                ActionReturnValue returnValue = new ActionReturnValue();
+                returnValue.setDescription("Running VM " + i);
+                rows.add(new String[] {
+                        commandId.toString(),
+                        (String) SerializationFactory.getPersistenceSerializer().serialize(params),
+                        RunVmParams.class.getName(),
+                        (String) SerializationFactory.getPersistenceSerializer().serialize(returnValue),
+                        ActionReturnValue.class.getName()
+                });
+                commandIds.add(commandId);
+            }
+
+            cache = new CommandsCacheImpl(createDao(BenchmarkState::toLazyEntity));
+            cache.keySet();
+            lockedMap = Collections.synchronizedMap(new HashMap<>(rows.stream()
+                    .map(BenchmarkState::toLazyEntity)
+                    .collect(Collectors.toMap(CommandEntity::getId, Function.identity()))));
+
+            // paranoia check
+            RunVmParams params = (RunVmParams) cache.get(commandIds.get(0)).getCommandParameters();
+            if (!commandIds.get(0).equals(params.getCommandId())) {
+                throw new IllegalStateException("This benchmark is illegal because "
+                        + " the lazily loaded parameters are different than the persisted ones");
+            }
+        }
+
+        private Guid randomCommandId() {
+            return commandIds.get(ThreadLocalRandom.current().nextInt(commandIds.size()));
+        }
+
+        /**
+         * @return a DAO that maps the rows to entities on every {@code getAll()} and fails on any other call
+         */
+        private CommandEntityDao createDao(Function<String[], CommandEntity> rowMapper) {
+            return (CommandEntityDao) Proxy.newProxyInstance(CommandEntityDao.class.getClassLoader(),
+                    new Class<?>[] { CommandEntityDao.class },
+                    (proxy, method, args) -> {
+                        if (!method.getName().equals("getAll")) {
+                            throw new UnsupportedOperationException(method.getName());
+                        }
+                        return rows.stream().map(rowMapper).collect(Collectors.toList());
+                    });
+        }
+
+        private static CommandEntity toEagerEntity(String[] row) {
+            CommandEntity entity = new CommandEntity();
+            fillMetadata(entity, row);
+            entity.setCommandParameters(SerializationFactory.getPersistenceDeserializer()
+                    .deserialize(row[1], RunVmParams.class));
+            entity.setReturnValue(SerializationFactory.getPersistenceDeserializer()
+                    .deserialize(row[3], ActionReturnValue.class));
+            return entity;
+        }
+
+        private static CommandEntity toLazyEntity(String[] row) {
+            CommandEntity entity = new LazyCommandEntity(row[1], row[2], row[3], row[4]);
+            fillMetadata(entity, row);
+            return entity;
+        }
+
+        private static void fillMetadata(CommandEntity entity, String[] row) {
+            entity.setId(Guid.createGuidFromString(row[0]));
+            entity.setCommandType(ActionType.RunVm);
+            entity.setCommandStatus(CommandStatus.ACTIVE);
+            entity.setCallbackEnabled(true);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package org.ovirt.engine.benchmarks;
+
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.ovirt.engine.core.utils.ovf.xml.XmlTextWriter;
+
+/**
+ * <p> Benchmark's the writing of a document shaped like the libvirt domain XML of a VM, which is built for every VM
+ * that is run, migrated or exported.</p>
+ * <p> The baseline looks up the StAX factory and grows the buffer for every document, like the writer did before it
+ * shared the factory, and is compared with the writer used by the domain XML builder with and without an initial
+ * buffer size.</p>
+ *
+ * @see XmlTextWriter
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DomainXmlWriterBenchmark {
+
+    @Benchmark
+    public void baseline(BenchmarkState state, Blackhole blackhole) throws XMLStreamException {
+        StringWriter stream = new StringWriter();
+        XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(stream);
+        writer.writeStartDocument("UTF-8", "1.0");
+        writer.writeStartElement("domain");
+        writer.writeAttribute("type", "kvm");
+        writer.writeStartElement("devices");
+        for (int i = 0; i < state.devices; i++) {
+            writer.writeStartElement("disk");
+            writer.writeAttribute("type", "file");
+            writer.writeAttribute("device", "disk");
+            writer.writeStartElement("source");
+            writer.writeAttribute("file", "/rhev/data-center/mnt/storage/images/" + i);
+            writer.writeEndElement();
+            writer.writeStartElement("target");
+            writer.writeAttribute("dev", "vd" + i);
+            writer.writeAttribute("bus", "virtio");
+            writer.writeEndElement();
+            writer.writeStartElement("alias");
+            writer.writeAttribute("name", "ua-" + i);
+            writer.writeEndElement();
+            writer.writeEndElement();
+        }
+        writer.writeEndElement();
+        writer.writeEndElement();
+        writer.writeEndDocument();
+        writer.flush();
+        blackhole.consume(stream.toString());
+    }
+
+    @Benchmark
+    public void xmlTextWriter(BenchmarkState state, Blackhole blackhole) {
+        blackhole.consume(writeDomain(new XmlTextWriter(), state.devices));
+    }
+
+    @Benchmark
+    public void sizedXmlTextWriter(BenchmarkState state, Blackhole blackhole) {
+        blackhole.consume(writeDomain(new XmlTextWriter(16 * 1024), state.devices));
+    }
+
+    private static String writeDomain(XmlTextWriter writer, int devices) {
+        writer.writeStartElement("domain");
+        writer.writeAttributeString("type", "kvm");
+        writer.writeStartElement("devices");
+        for (int i = 0; i < devices; i++) {
+            writer.writeStartElement("disk");
+            writer.writeAttributeString("type", "file");
+            writer.writeAttributeString("device", "disk");
+            writer.writeStartElement("source");
+            writer.writeAttributeString("file", "/rhev/data-center/mnt/storage/images/" + i);
+            writer.writeEndElement();
+            writer.writeStartElement("target");
+            writer.writeAttributeString("dev", "vd" + i);
+            writer.writeAttributeString("bus", "virtio");
+            writer.writeEndElement();
+            writer.writeStartElement("alias");
+            writer.writeAttributeString("name", "ua-" + i);
+            writer.writeEndElement();
+            writer.writeEndElement();
+        }
+        writer.writeEndElement();
+        // the domain element is ended by the writer
+        return writer.getStringXML();
+    }
+
+    @State(Scope.Benchmark)
+    public static class BenchmarkState {
+
+        @Param({ "10", "100" })
+        private int devices;
+    }
+}
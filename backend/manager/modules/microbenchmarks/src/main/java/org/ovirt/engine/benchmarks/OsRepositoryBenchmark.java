@@ -0,0 +1,97 @@
+package org.ovirt.engine.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.ovirt.engine.core.common.businessentities.ChipsetType;
+import org.ovirt.engine.core.compat.Version;
+import org.ovirt.engine.core.utils.OsRepositoryImpl;
+import org.ovirt.engine.core.utils.osinfo.OsInfoPreferencesLoader;
+
+/**
+ * <p> Benchmark's the lookups of {@link OsRepositoryImpl} which are done for every VM when building its devices, its
+ * libvirt XML and when it is listed by the search queries and the REST API.</p>
+ * <p> The repository is loaded from the osinfo defaults shipped with the engine, the looked up os is derived from a
+ * chain of other oses so the inherited values are exercised.</p>
+ *
+ * @see OsRepositoryImpl
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OsRepositoryBenchmark {
+
+    @Benchmark
+    public void getDiskInterfaces(BenchmarkState state, Blackhole blackhole) {
+        blackhole.consume(OsRepositoryImpl.INSTANCE.getDiskInterfaces(state.osId, Version.v4_7, ChipsetType.Q35));
+    }
+
+    @Benchmark
+    public void getNetworkDevices(BenchmarkState state, Blackhole blackhole) {
+        blackhole.consume(OsRepositoryImpl.INSTANCE.getNetworkDevices(state.osId, Version.v4_7));
+    }
+
+    @Benchmark
+    public void isLinux(BenchmarkState state, Blackhole blackhole) {
+        blackhole.consume(OsRepositoryImpl.INSTANCE.isLinux(state.osId));
+    }
+
+    @Benchmark
+    public void getMinimumRam(BenchmarkState state, Blackhole blackhole) {
+        blackhole.consume(OsRepositoryImpl.INSTANCE.getMinimumRam(state.osId, Version.v4_7));
+    }
+
+    @Benchmark
+    public void getOsName(BenchmarkState state, Blackhole blackhole) {
+        blackhole.consume(OsRepositoryImpl.INSTANCE.getOsName(state.osId));
+    }
+
+    @State(Scope.Benchmark)
+    public static class BenchmarkState {
+
+        @Param({ "rhel_8x64", "windows_2019x64" })
+        private String uniqueOsName;
+
+        private int osId;
+        private Path osinfoDir;
+
+        @Setup
+        public void setup() throws IOException {
+            osinfoDir = Files.createTempDirectory("benchmarktmp");
+            try (InputStream defaults = ClassLoader.getSystemResourceAsStream("osinfo-defaults.properties")) {
+                Files.copy(defaults, osinfoDir.resolve("00-defaults.properties"));
+            }
+            OsInfoPreferencesLoader.INSTANCE.init(osinfoDir);
+            OsRepositoryImpl.INSTANCE.init(OsInfoPreferencesLoader.INSTANCE.getPreferences());
+            osId = OsRepositoryImpl.INSTANCE.getOsIdByUniqueName(uniqueOsName);
+
+            // paranoia check
+            if (osId == 0 || OsRepositoryImpl.INSTANCE.getNetworkDevices(osId, Version.v4_7).isEmpty()) {
+                throw new IllegalStateException("This benchmark is illegal because "
+                        + " the os '" + uniqueOsName + "' is not found in the osinfo defaults");
+            }
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(osinfoDir.resolve("00-defaults.properties"));
+            Files.deleteIfExists(osinfoDir);
+        }
+    }
+}
@@ -9,6 +9,7 @@ import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
@@ -36,6 +37,21 @@ public class RestInvocationBenchmark {
         blackhole.consume(state.systemService.hostsService().list().send());
     }
 
+    @Benchmark
+    public void getLargeVmsList(LargeListState state, Blackhole blackhole) {
+        blackhole.consume(state.systemService.vmsService().list().max(state.max).send());
+    }
+
+    @Benchmark
+    public void getLargeHostsList(LargeListState state, Blackhole blackhole) {
+        blackhole.consume(state.systemService.hostsService().list().max(state.max).send());
+    }
+
+    @Benchmark
+    public void getLargeEventsList(LargeListState state, Blackhole blackhole) {
+        blackhole.consume(state.systemService.eventsService().list().max(state.max).send());
+    }
+
     @Benchmark
     public void addExternalEvent(BenchmarkState state, Blackhole blackhole) {
         blackhole.consume(state.systemService.eventsService()
@@ -51,7 +67,7 @@ public class RestInvocationBenchmark {
     @State(Scope.Thread)
     public static class BenchmarkState {
 
-        private SystemService systemService;
+        SystemService systemService;
         private Connection connection;
 
         @Setup
@@ -75,4 +91,15 @@ public class RestInvocationBenchmark {
             connection.close();
         }
     }
+
+    /**
+     * Lists up to {@code max} entities, which requires an engine populated with enough VMs, hosts and events, so the
+     * streaming of large collections by the API is measured, see {@code ENGINE_API_STREAMING_COLLECTION_MIN_SIZE}.
+     */
+    @State(Scope.Thread)
+    public static class LargeListState extends BenchmarkState {
+
+        @Param({ "1000", "10000", "20000" })
+        private int max;
+    }
 }
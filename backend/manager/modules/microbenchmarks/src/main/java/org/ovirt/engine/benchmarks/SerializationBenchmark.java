@@ -0,0 +1,104 @@
+package org.ovirt.engine.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.ovirt.engine.core.common.action.ActionType;
+import org.ovirt.engine.core.common.action.RunVmParams;
+import org.ovirt.engine.core.common.businessentities.InitializationType;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.utils.serialization.binary.BinaryObjectDeserializer;
+import org.ovirt.engine.core.utils.serialization.binary.BinaryObjectSerializer;
+import org.ovirt.engine.core.utils.serialization.json.JsonObjectDeserializer;
+import org.ovirt.engine.core.utils.serialization.json.JsonObjectSerializer;
+
+/**
+ * <p> Compares the JSON and the binary persistence formats used for command parameters and compensation snapshots.</p>
+ * <p> The parameters graph is a {@link RunVmParams} with a configurable number of VDSM tasks and job weights, which is
+ * representative of what mass operations persist. The serialized sizes are printed once per trial.</p>
+ *
+ * @see BinaryObjectSerializer
+ * @see JsonObjectSerializer
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SerializationBenchmark {
+
+    @Benchmark
+    public void jsonSerialize(BenchmarkState state, Blackhole blackhole) {
+        blackhole.consume(state.jsonSerializer.serialize(state.params));
+    }
+
+    @Benchmark
+    public void binarySerialize(BenchmarkState state, Blackhole blackhole) {
+        blackhole.consume(state.binarySerializer.serialize(state.params));
+    }
+
+    @Benchmark
+    public void jsonDeserialize(BenchmarkState state, Blackhole blackhole) {
+        blackhole.consume(state.jsonDeserializer.deserialize(state.json, RunVmParams.class));
+    }
+
+    @Benchmark
+    public void binaryDeserialize(BenchmarkState state, Blackhole blackhole) {
+        blackhole.consume(state.binaryDeserializer.deserialize(state.binary, RunVmParams.class));
+    }
+
+    @State(Scope.Benchmark)
+    public static class BenchmarkState {
+
+        @Param({ "0", "10", "100" })
+        private int tasks;
+
+        private JsonObjectSerializer jsonSerializer = new JsonObjectSerializer();
+        private JsonObjectDeserializer jsonDeserializer = new JsonObjectDeserializer();
+        private BinaryObjectSerializer binarySerializer = new BinaryObjectSerializer();
+        private BinaryObjectDeserializer binaryDeserializer = new BinaryObjectDeserializer();
+
+        private RunVmParams params;
+        private String json;
+        private String binary;
+
+        @Setup
+        public void setup() {
+            params = new RunVmParams(Guid.newGuid());
+            params.setCommandId(Guid.newGuid());
+            params.setCorrelationId(Guid.newGuid().toString());
+            params.setInitializationType(InitializationType.CloudInit);
+            params.setRunAsStateless(true);
+            params.setDiskPath("/rhev/data-center/mnt/iso/" + Guid.newGuid() + ".iso");
+            params.setParentCommand(ActionType.RunVmOnce);
+            params.setVdsmTaskIds(new ArrayList<>());
+            Map<String, Integer> operationsJobWeight = new HashMap<>();
+            for (int i = 0; i < tasks; i++) {
+                params.getVdsmTaskIds().add(Guid.newGuid());
+                operationsJobWeight.put("disk-" + i, i);
+            }
+            params.setOperationsJobWeight(operationsJobWeight);
+
+            json = jsonSerializer.serialize(params);
+            binary = binarySerializer.serialize(params);
+
+            // paranoia check
+            if (!params.equals(binaryDeserializer.deserialize(binary, RunVmParams.class))) {
+                throw new IllegalStateException("This benchmark is illegal because "
+                        + " the binary format yields parameters which are different than the source");
+            }
+        }
+    }
+}
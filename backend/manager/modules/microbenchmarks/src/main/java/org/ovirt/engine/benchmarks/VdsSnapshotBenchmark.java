@@ -0,0 +1,70 @@
+package org.ovirt.engine.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.ovirt.engine.core.common.businessentities.VDS;
+import org.ovirt.engine.core.common.businessentities.VDSStatus;
+import org.ovirt.engine.core.compat.Guid;
+
+/**
+ * <p> Benchmark's the reads of the cached host of a host manager during a monitoring cycle, in which the host is
+ * read by every VM analyzed and every VM event and is changed once by the monitoring.</p>
+ * <p> The baseline copies the host on every read, like {@code VdsManager.getCopyVds()}, and is compared with the
+ * snapshot returned by {@code VdsManager.getVdsSnapshot()}, which is copied once when the monitoring cycle ends. Run
+ * with {@code -prof gc} to compare the allocation rates.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class VdsSnapshotBenchmark {
+
+    @Benchmark
+    public void copyOnEveryRead(BenchmarkState state, Blackhole blackhole) {
+        for (int i = 0; i < state.readsPerCycle; i++) {
+            blackhole.consume(state.vds.clone().isBalloonEnabled());
+        }
+        state.vds.setStatus(VDSStatus.Up);
+    }
+
+    @Benchmark
+    public void sharedSnapshot(BenchmarkState state, Blackhole blackhole) {
+        for (int i = 0; i < state.readsPerCycle; i++) {
+            blackhole.consume(state.snapshot.isBalloonEnabled());
+        }
+        state.vds.setStatus(VDSStatus.Up);
+        state.snapshot = state.vds.clone();
+    }
+
+    @State(Scope.Benchmark)
+    public static class BenchmarkState {
+
+        @Param({ "10", "200" })
+        private int readsPerCycle;
+
+        private VDS vds;
+        private volatile VDS snapshot;
+
+        @Setup
+        public void setup() {
+            vds = new VDS();
+            vds.setId(Guid.newGuid());
+            vds.setVdsName("host");
+            vds.setHostName("host.example.com");
+            vds.setStatus(VDSStatus.Up);
+            vds.setCpuFlags("fpu,vme,de,pse,tsc,msr,pae,mce,cx8,apic,sep,mtrr,pge,mca,cmov,pat,pse36,clflush,mmx");
+            snapshot = vds.clone();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package org.ovirt.engine.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.ovirt.engine.core.bll.VmPoolFreeList;
+import org.ovirt.engine.core.common.businessentities.VMStatus;
+import org.ovirt.engine.core.compat.Guid;
+
+/**
+ * <p> Benchmark's the selection of VMs for users that log in to a large VM pool at the same time, in which every
+ * request of AttachUserToVmFromPoolAndRun selects a free VM of the pool and attaches it to the user.</p>
+ * <p> Every validation of a VM and every load of the VMs of the pool stands for a DB round trip. The baseline goes
+ * over the VMs of the pool and validates them until it finds a free one, like the selection did before the free list,
+ * and is compared with the selection from {@link VmPoolFreeList}.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class VmPoolAllocationBenchmark {
+
+    private static final long DB_ROUND_TRIP_TOKENS = 1000;
+
+    @Benchmark
+    public void scanPool(BenchmarkState state, Blackhole blackhole) throws Exception {
+        state.runRequests(blackhole, () -> {
+            Blackhole.consumeCPU(DB_ROUND_TRIP_TOKENS);
+            for (Guid vmId : state.vmIds) {
+                Blackhole.consumeCPU(DB_ROUND_TRIP_TOKENS);
+                if (state.attachedVms.add(vmId)) {
+                    return vmId;
+                }
+            }
+            return Guid.Empty;
+        });
+    }
+
+    @Benchmark
+    public void freeList(BenchmarkState state, Blackhole blackhole) throws Exception {
+        state.runRequests(blackhole, () -> {
+            boolean loaded = false;
+            while (true) {
+                Guid vmId = state.freeList.poll(state.vmPoolId, VMStatus.Down);
+                if (vmId == null) {
+                    if (loaded) {
+                        return Guid.Empty;
+                    }
+                    Blackhole.consumeCPU(DB_ROUND_TRIP_TOKENS);
+                    state.freeList.load(state.vmPoolId, VMStatus.Down, state.vmIds);
+                    loaded = true;
+                    continue;
+                }
+
+                Blackhole.consumeCPU(DB_ROUND_TRIP_TOKENS);
+                if (state.attachedVms.add(vmId)) {
+                    return vmId;
+                }
+            }
+        });
+    }
+
+    @State(Scope.Benchmark)
+    public static class BenchmarkState {
+
+        @Param({ "1000", "5000" })
+        private int poolSize;
+
+        @Param({ "200" })
+        private int requests;
+
+        @Param({ "16" })
+        private int threads;
+
+        private final Guid vmPoolId = Guid.newGuid();
+        private List<Guid> vmIds;
+        private ExecutorService executor;
+        private Set<Guid> attachedVms;
+        private VmPoolFreeList freeList;
+
+        @Setup
+        public void setup() {
+            vmIds = IntStream.range(0, poolSize).mapToObj(i -> Guid.newGuid()).collect(Collectors.toList());
+            executor = Executors.newFixedThreadPool(threads);
+        }
+
+        @Setup(Level.Invocation)
+        public void setupInvocation() {
+            attachedVms = ConcurrentHashMap.newKeySet();
+            freeList = new VmPoolFreeList();
+        }
+
+        @TearDown
+        public void tearDown() {
+            executor.shutdown();
+        }
+
+        private void runRequests(Blackhole blackhole, Callable<Guid> request)
+                throws InterruptedException, ExecutionException {
+            List<Future<Guid>> results = new ArrayList<>(requests);
+            for (int i = 0; i < requests; i++) {
+                results.add(executor.submit(request));
+            }
+            for (Future<Guid> result : results) {
+                blackhole.consume(result.get());
+            }
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package org.ovirt.engine.api.utils;
 
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import org.ovirt.engine.api.model.ActionableResource;
 import org.ovirt.engine.api.model.BaseResources;
@@ -38,4 +41,63 @@ public class EntityHelper {
         //should never happen
         throw new IllegalStateException("Collection-type entity does not contian a method which returns a list");
     }
+
+    /**
+     * For 'collection' type entities, this method returns the collection of
+     * entities it contains, for example: for a 'Vms' entity, this method will
+     * return the result of the getVms() method.
+     */
+    @SuppressWarnings("unchecked")
+    public static Collection<Object> getCollection(BaseResources entity) {
+        Method getter = getCollectionGetter(entity);
+        try {
+            return (Collection<Object>) getter.invoke(entity);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Can't get the entities of " + entity.getClass().getSimpleName()
+                    + " entity.", e);
+        }
+    }
+
+    /**
+     * For 'collection' type entities, this method replaces the list of entities
+     * it contains with the given one, for example a list that maps the entities
+     * only when they are accessed.
+     */
+    public static void setCollection(BaseResources entity, List<?> entities) {
+        Field field = getCollectionField(entity);
+        try {
+            field.setAccessible(true);
+            field.set(entity, entities);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Can't set the entities of " + entity.getClass().getSimpleName()
+                    + " entity.", e);
+        }
+    }
+
+    /**
+     * For 'collection' type entities, this method moves the list of entities out
+     * of the entity and returns it, so that the remaining 'header' of the
+     * collection (size, actions...) can be serialized separately from the
+     * entities it contains, which can then be serialized one by one. The list
+     * isn't copied, so entities that are mapped lazily are still mapped one by
+     * one as they are serialized.
+     */
+    @SuppressWarnings("unchecked")
+    public static List<Object> detachCollection(BaseResources entity) {
+        List<Object> entities = (List<Object>) getCollection(entity);
+        setCollection(entity, new ArrayList<>());
+        return entities;
+    }
+
+    private static Field getCollectionField(BaseResources entity) {
+        for (Class<?> current = entity.getClass(); current != null; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (Collection.class.isAssignableFrom(field.getType())) {
+                    return field;
+                }
+            }
+        }
+        //should never happen
+        throw new IllegalStateException("Collection-type entity does not contain a field which holds a list");
+    }
 }
@@ -28,6 +28,7 @@ public class LocalConfig {
     private static final String DEFAULT_VERSION = "ENGINE_API_DEFAULT_VERSION";
     private static final String FILTER_BY_DEFAULT = "ENGINE_API_FILTER_BY_DEFAULT";
     private static final String EXPLORER_DIRECTORY = "ENGINE_API_EXPLORER_DIRECTORY";
+    private static final String STREAMING_COLLECTION_MIN_SIZE = "ENGINE_API_STREAMING_COLLECTION_MIN_SIZE";
 
     // Reference to the engine local configuration, as that is what is used to actually read the configuration:
     private EngineLocalConfig config;
@@ -98,4 +99,12 @@ public class LocalConfig {
     public String getExplorerDirectory() {
         return config.getProperty(EXPLORER_DIRECTORY);
     }
+
+    /**
+     * Returns the minimum number of entities of a collection that is written to the response entity by entity, zero
+     * or less when collections should always be written as a whole.
+     */
+    public int getStreamingCollectionMinSize() {
+        return config.getInteger(STREAMING_COLLECTION_MIN_SIZE, 100);
+    }
 }
@@ -5,20 +5,128 @@
 
 package org.ovirt.engine.api.restapi.json;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import javax.ws.rs.Consumes;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.ext.Provider;
 
+import org.ovirt.engine.api.model.BaseResources;
+import org.ovirt.engine.api.restapi.LocalConfig;
+import org.ovirt.engine.api.utils.EntityHelper;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.jaxrs.json.JacksonJsonProvider;
 
 @Provider
 @Consumes(MediaType.APPLICATION_JSON)
 @Produces(MediaType.APPLICATION_JSON)
 public class JSONProvider extends JacksonJsonProvider {
+
+    /**
+     * The minimum number of entities of a collection that is streamed, entity by entity, instead of being serialized
+     * as a whole.
+     */
+    private final int streamingMinSize;
+
+    /**
+     * A index of the names of the properties that contain the entities of each collection type.
+     */
+    private final Map<Class<?>, String> collectionPropertyNames = new ConcurrentHashMap<>();
+
     public JSONProvider() {
+        this(LocalConfig.getInstance().getStreamingCollectionMinSize());
+    }
+
+    // visible for testing
+    JSONProvider(int streamingMinSize) {
         super();
         setMapper(CustomObjectMapperFactory.create());
+        this.streamingMinSize = streamingMinSize;
     }
 
+    @Override
+    public void writeTo(Object value, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+            MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException {
+        if (value instanceof BaseResources && isStreamed((BaseResources) value)) {
+            writeCollection((BaseResources) value, locateMapper(type, mediaType), entityStream);
+        } else {
+            super.writeTo(value, type, genericType, annotations, mediaType, httpHeaders, entityStream);
+        }
+    }
+
+    private boolean isStreamed(BaseResources collection) {
+        return streamingMinSize > 0 && EntityHelper.getCollection(collection).size() >= streamingMinSize;
+    }
+
+    /**
+     * Writes the given collection entity by entity, so that the first bytes of large collections are sent earlier,
+     * and the model objects of the entities that were already written can be released while the rest are written.
+     * The output is equivalent to the output of serializing the complete collection.
+     */
+    private void writeCollection(BaseResources collection, ObjectMapper mapper, OutputStream entityStream)
+            throws IOException {
+        String entitiesName = getCollectionPropertyName(mapper, collection.getClass());
+        List<Object> entities = EntityHelper.detachCollection(collection);
+        ObjectNode header = mapper.valueToTree(collection);
+        header.remove(entitiesName);
+
+        ObjectWriter writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(entityStream, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            if (mapper.isEnabled(SerializationFeature.INDENT_OUTPUT)) {
+                generator.useDefaultPrettyPrinter();
+            }
+            generator.writeStartObject();
+            Iterator<Map.Entry<String, JsonNode>> fields = header.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                generator.writeFieldName(field.getKey());
+                generator.writeTree(field.getValue());
+            }
+            generator.writeArrayFieldStart(entitiesName);
+            for (int i = 0; i < entities.size(); i++) {
+                writer.writeValue(generator, entities.set(i, null));
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Returns the name of the property that contains the entities of the given collection type, as it is named by
+     * the annotations of the model.
+     */
+    private String getCollectionPropertyName(ObjectMapper mapper, Class<?> collectionType) {
+        return collectionPropertyNames.computeIfAbsent(collectionType, type -> {
+            BeanDescription description = mapper.getSerializationConfig().introspect(mapper.constructType(type));
+            for (BeanPropertyDefinition property : description.findProperties()) {
+                AnnotatedMember accessor = property.getAccessor();
+                if (accessor != null && Collection.class.isAssignableFrom(accessor.getRawType())) {
+                    return property.getName();
+                }
+            }
+            throw new IllegalStateException("Collection-type entity " + type.getSimpleName()
+                    + " does not contain a property which returns a list");
+        });
+    }
 }
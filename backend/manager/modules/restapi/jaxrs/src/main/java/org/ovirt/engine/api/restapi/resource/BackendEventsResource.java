@@ -11,6 +11,8 @@ import org.ovirt.engine.api.resource.ActionResource;
 import org.ovirt.engine.api.resource.EventResource;
 import org.ovirt.engine.api.resource.EventsResource;
 import org.ovirt.engine.api.restapi.types.ExternalStatusMapper;
+import org.ovirt.engine.api.restapi.util.MappedList;
+import org.ovirt.engine.api.utils.EntityHelper;
 import org.ovirt.engine.core.common.action.ActionParametersBase;
 import org.ovirt.engine.core.common.action.ActionType;
 import org.ovirt.engine.core.common.action.AddExternalEventParameters;
@@ -35,9 +37,7 @@ public class BackendEventsResource
 
     private Events mapCollection(List<AuditLog> entities) {
         Events collection = new Events();
-        for (AuditLog entity : entities) {
-            collection.getEvents().add(addLinks(map(entity)));
-        }
+        EntityHelper.setCollection(collection, new MappedList<>(entities, entity -> addLinks(map(entity))));
         return collection;
     }
 
@@ -12,7 +12,9 @@ import org.ovirt.engine.api.model.HostedEngine;
 import org.ovirt.engine.api.model.Hosts;
 import org.ovirt.engine.api.resource.HostResource;
 import org.ovirt.engine.api.resource.HostsResource;
+import org.ovirt.engine.api.restapi.util.MappedList;
 import org.ovirt.engine.api.restapi.util.ParametersHelper;
+import org.ovirt.engine.api.utils.EntityHelper;
 import org.ovirt.engine.core.common.action.ActionType;
 import org.ovirt.engine.core.common.action.VdsOperationActionParameters;
 import org.ovirt.engine.core.common.action.hostdeploy.AddVdsActionParameters;
@@ -138,9 +140,8 @@ public class BackendHostsResource extends AbstractBackendCollectionResource<Host
 
     private Hosts mapCollection(List<VDS> entities) {
         Hosts collection = new Hosts();
-        for (VDS entity : entities) {
-            collection.getHosts().add(addLinks(populate(map(entity), entity)));
-        }
+        EntityHelper.setCollection(collection,
+                new MappedList<>(entities, entity -> addLinks(populate(map(entity), entity))));
         return collection;
     }
 
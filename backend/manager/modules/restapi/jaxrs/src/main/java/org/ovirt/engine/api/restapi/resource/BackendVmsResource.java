@@ -53,9 +53,11 @@ import org.ovirt.engine.api.restapi.types.RngDeviceMapper;
 import org.ovirt.engine.api.restapi.types.VmMapper;
 import org.ovirt.engine.api.restapi.util.DisplayHelper;
 import org.ovirt.engine.api.restapi.util.IconHelper;
+import org.ovirt.engine.api.restapi.util.MappedList;
 import org.ovirt.engine.api.restapi.util.ParametersHelper;
 import org.ovirt.engine.api.restapi.util.QueryHelper;
 import org.ovirt.engine.api.restapi.util.VmHelper;
+import org.ovirt.engine.api.utils.EntityHelper;
 import org.ovirt.engine.core.common.action.ActionType;
 import org.ovirt.engine.core.common.action.AddVmFromSnapshotParameters;
 import org.ovirt.engine.core.common.action.AddVmParameters;
@@ -77,8 +79,10 @@ import org.ovirt.engine.core.common.businessentities.VmRngDevice;
 import org.ovirt.engine.core.common.businessentities.VmStatic;
 import org.ovirt.engine.core.common.businessentities.VmTemplate;
 import org.ovirt.engine.core.common.businessentities.VmWatchdog;
+import org.ovirt.engine.core.common.businessentities.network.VmNetworkInterface;
 import org.ovirt.engine.core.common.businessentities.storage.BaseDisk;
 import org.ovirt.engine.core.common.businessentities.storage.DiskImage;
+import org.ovirt.engine.core.common.businessentities.storage.DiskVmElement;
 import org.ovirt.engine.core.common.interfaces.SearchType;
 import org.ovirt.engine.core.common.osinfo.OsRepository;
 import org.ovirt.engine.core.common.queries.GetFilteredAndSortedParameters;
@@ -114,6 +118,8 @@ public class BackendVmsResource extends
     private static final String HOST_DEVICES = "host_devices";
     private static final String WATCHDOGS = "watchdogs";
     private static final String SNAPSHOTS = "snapshots";
+    private static final String NICS = "nics";
+    private static final String DISK_ATTACHMENTS = "disk_attachments";
 
     private Map<String, VM> vmIdToVm = Collections.emptyMap();
 
@@ -732,7 +738,8 @@ public class BackendVmsResource extends
             Map<Guid, List<GraphicsDevice>> vmsGraphicsDevices =
                     DisplayHelper.getGraphicsDevicesForMultipleEntities(this, vmIds);
 
-            for (org.ovirt.engine.core.common.businessentities.VM entity : entities) {
+            // the VMs are mapped only when they are accessed, so large collections can be written one VM at a time:
+            EntityHelper.setCollection(collection, new MappedList<>(entities, entity -> {
                 Vm vm = map(entity);
                 if (includeCurrentGraphicsConsoles) {
                     GraphicsConsoles consoles = new GraphicsConsoles();
@@ -744,8 +751,8 @@ public class BackendVmsResource extends
                 DisplayHelper.adjustDisplayData(this, vm, vmsGraphicsDevices, false);
                 DisplayHelper.addDisplayCertificate(this, vm);
                 removeRestrictedInfo(vm);
-                collection.getVms().add(addLinks(populate(vm, entity)));
-            }
+                return addLinks(populate(vm, entity));
+            }));
         }
         if (includeSize) {
             collection.setSize((long) entities.size());
@@ -794,16 +801,58 @@ public class BackendVmsResource extends
             vms.getVms().forEach(this::setSnapshots);
             node.setFollowed(true);
         });
+        // nics and disk attachments of all the VMs are fetched by a single query each, instead of a query per VM
+        findNics(linksTree).ifPresent(node -> {
+            Vms vms = (Vms) entity;
+            Map<Guid, List<VmNetworkInterface>> interfaces = getVmInterfaces(vms);
+            vms.getVms().forEach(vm -> setNics(vm,
+                    interfaces.getOrDefault(asGuid(vm.getId()), Collections.emptyList())));
+            node.setFollowed(true);
+        });
+        findDiskAttachments(linksTree).ifPresent(node -> {
+            Vms vms = (Vms) entity;
+            Map<Guid, List<DiskVmElement>> diskVmElements = getDiskVmElements(vms);
+            vms.getVms().forEach(vm -> setDiskAttachments(vm,
+                    diskVmElements.getOrDefault(asGuid(vm.getId()), Collections.emptyList())));
+            node.setFollowed(true);
+        });
+    }
+
+    private List<Guid> getVmIds(Vms vms) {
+        return vms.getVms().stream().map(Vm::getId).map(this::asGuid).collect(Collectors.toList());
     }
 
     private List<VmWatchdog> getWatchdogs(Vms vms) {
-        List<Guid> vmIds = vms.getVms().stream().map(Vm::getId).map(this::asGuid).collect(Collectors.toList());
         return getEntity(List.class,
                 QueryType.GetWatchdogs,
-                new IdsQueryParameters(vmIds),
+                new IdsQueryParameters(getVmIds(vms)),
                 "GetWatchdogs", true);
     }
 
+    private Map<Guid, List<VmNetworkInterface>> getVmInterfaces(Vms vms) {
+        List<VmNetworkInterface> interfaces = getEntity(List.class,
+                QueryType.GetVmInterfacesByVmIds,
+                new IdsQueryParameters(getVmIds(vms)),
+                "GetVmInterfacesByVmIds", true);
+        return interfaces.stream().collect(Collectors.groupingBy(VmNetworkInterface::getVmId));
+    }
+
+    private Map<Guid, List<DiskVmElement>> getDiskVmElements(Vms vms) {
+        List<DiskVmElement> diskVmElements = getEntity(List.class,
+                QueryType.GetDiskVmElementsByVmIds,
+                new IdsQueryParameters(getVmIds(vms)),
+                "GetDiskVmElementsByVmIds", true);
+        return diskVmElements.stream().collect(Collectors.groupingBy(DiskVmElement::getVmId));
+    }
+
+    private void setNics(Vm vm, List<VmNetworkInterface> interfaces) {
+        vm.setNics(inject(new BackendVmNicsResource(asGuid(vm.getId()), interfaces)).list());
+    }
+
+    private void setDiskAttachments(Vm vm, List<DiskVmElement> diskVmElements) {
+        vm.setDiskAttachments(inject(new BackendDiskAttachmentsResource(asGuid(vm.getId()), diskVmElements)).list());
+    }
+
     private void setWatchdogs(Vm vm, List<VmWatchdog> watchdogs) {
         vm.setWatchdogs(getBackendVmWatchdogsResource(vm.getId(), watchdogs).list());
     }
@@ -856,6 +905,14 @@ public class BackendVmsResource extends
         return findNode(linksTree, SNAPSHOTS);
     }
 
+    private Optional<LinksTreeNode> findNics(LinksTreeNode linksTree) {
+        return findNode(linksTree, NICS);
+    }
+
+    private Optional<LinksTreeNode> findDiskAttachments(LinksTreeNode linksTree) {
+        return findNode(linksTree, DISK_ATTACHMENTS);
+    }
+
     protected InstanceType lookupInstance(Template template) {
         return getEntity(InstanceType.class,
                 QueryType.GetInstanceType,
@@ -0,0 +1,68 @@
+package org.ovirt.engine.api.restapi.util;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * A list of model objects that are mapped from the corresponding backend entities only when they are first accessed,
+ * so that collections can be written entity by entity without mapping all of them in advance. Each backend entity is
+ * released once it is mapped, and a mapped object is released by replacing it, e.g. with {@code null}.
+ */
+public class MappedList<S, T> extends AbstractList<T> {
+
+    private final List<S> sources;
+    private final List<T> mapped;
+    private final Function<S, T> mapper;
+
+    public MappedList(List<S> sources, Function<S, T> mapper) {
+        this.sources = new ArrayList<>(sources);
+        this.mapped = new ArrayList<>(Collections.nCopies(sources.size(), null));
+        this.mapper = Objects.requireNonNull(mapper);
+    }
+
+    @Override
+    public T get(int index) {
+        S source = sources.get(index);
+        if (source != null) {
+            mapped.set(index, mapper.apply(source));
+            sources.set(index, null);
+        }
+        return mapped.get(index);
+    }
+
+    @Override
+    public T set(int index, T element) {
+        T previous = get(index);
+        mapped.set(index, element);
+        return previous;
+    }
+
+    @Override
+    public void add(int index, T element) {
+        sources.add(index, null);
+        mapped.add(index, element);
+    }
+
+    @Override
+    public T remove(int index) {
+        T previous = get(index);
+        sources.remove(index);
+        mapped.remove(index);
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        sources.clear();
+        mapped.clear();
+    }
+
+    @Override
+    public int size() {
+        return mapped.size();
+    }
+}
@@ -9,11 +9,17 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.Produces;
@@ -23,20 +29,34 @@ import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.ext.MessageBodyReader;
 import javax.ws.rs.ext.MessageBodyWriter;
 import javax.ws.rs.ext.Provider;
+import javax.xml.XMLConstants;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
 import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.ValidationEventHandler;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.namespace.QName;
 import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.transform.dom.DOMResult;
 
 import org.ovirt.engine.api.model.Api;
+import org.ovirt.engine.api.model.BaseResources;
 import org.ovirt.engine.api.model.ObjectFactory;
+import org.ovirt.engine.api.restapi.LocalConfig;
+import org.ovirt.engine.api.utils.EntityHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.Text;
 
 /**
  * This class is responsible for converting XML documents into model objects, and the other way around. Note that it
@@ -73,17 +93,54 @@ public class JAXBProvider implements MessageBodyReader<Object>, MessageBodyWrite
      */
     private XMLInputFactory parserFactory;
 
+    /**
+     * The factory used to create the XML document writers used to stream collections.
+     */
+    private XMLOutputFactory writerFactory = XMLOutputFactory.newFactory();
+
     /**
      * The JAXB jaxbContext used to convert XML documents into the corresponding model objects.
      */
     private JAXBContext jaxbContext;
 
+    /**
+     * The maximum number of idle marshallers kept by each pool.
+     */
+    private static final int MAX_POOLED_MARSHALLERS = 32;
+
+    /**
+     * Marshallers are expensive to create but not thread safe, so they are pooled and each request borrows one. They
+     * aren't bound to the threads of the container, so they don't keep the classes of the application loaded once it
+     * is undeployed. One pool has the marshallers that write complete documents and the other has the marshallers
+     * that write fragments of the streamed collections.
+     */
+    private BlockingQueue<Marshaller> documentMarshallers = new ArrayBlockingQueue<>(MAX_POOLED_MARSHALLERS);
+    private BlockingQueue<Marshaller> fragmentMarshallers = new ArrayBlockingQueue<>(MAX_POOLED_MARSHALLERS);
+
+    /**
+     * The minimum number of entities of a collection that is streamed, element by element, instead of being
+     * marshalled as a whole.
+     */
+    private int streamingMinSize;
+
+    /**
+     * A index of the names of the elements of each collection type.
+     */
+    private Map<Class<?>, QName> collectionElementNames = new ConcurrentHashMap<>();
+
     /**
      * Default event handler recognizes XML parsing as error and not as warning.
      */
     private ValidationEventHandler jaxbHandler = new JAXBValidationEventHandler();
 
     public JAXBProvider() {
+        this(LocalConfig.getInstance().getStreamingCollectionMinSize());
+    }
+
+    // visible for testing
+    JAXBProvider(int streamingMinSize) {
+        this.streamingMinSize = streamingMinSize;
+
         // In order to create the JAXB element that wraps the object we need to call the method of the object factory
         // that uses the correct element name, and in order to avoid doing this with every request we populate this
         // map in advance:
@@ -202,12 +259,168 @@ public class JAXBProvider implements MessageBodyReader<Object>, MessageBodyWrite
 
         // Marshal the element:
         try {
-            Marshaller marshaller = jaxbContext.createMarshaller();
-            marshaller.setProperty(Marshaller.JAXB_ENCODING, "UTF-8");
-            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
-            marshaller.marshal(element, entityStream);
-        } catch(JAXBException exception) {
+            if (object instanceof BaseResources && isStreamed((BaseResources) object)) {
+                writeCollection(element, entityStream);
+            } else {
+                Marshaller marshaller = borrowMarshaller(documentMarshallers, false);
+                try {
+                    marshaller.marshal(element, entityStream);
+                } finally {
+                    documentMarshallers.offer(marshaller);
+                }
+            }
+        } catch(JAXBException|XMLStreamException exception) {
             throw new IOException("Can't marshall JAXB element of type \"" + type.getName() + "\".", exception);
         }
     }
+
+    /**
+     * Takes an idle marshaller from the given pool, or creates a new one if there is none. The caller offers it back
+     * to the pool once it is done with it, and it is discarded if the pool is already full.
+     */
+    private Marshaller borrowMarshaller(BlockingQueue<Marshaller> marshallers, boolean fragment)
+            throws JAXBException {
+        Marshaller marshaller = marshallers.poll();
+        if (marshaller == null) {
+            marshaller = jaxbContext.createMarshaller();
+            marshaller.setProperty(Marshaller.JAXB_ENCODING, "UTF-8");
+            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, !fragment);
+            marshaller.setProperty(Marshaller.JAXB_FRAGMENT, fragment);
+        }
+        return marshaller;
+    }
+
+    private boolean isStreamed(BaseResources collection) {
+        return streamingMinSize > 0 && EntityHelper.getCollection(collection).size() >= streamingMinSize;
+    }
+
+    /**
+     * Writes the given collection element by element, so that the first bytes of large collections are sent earlier,
+     * and the model objects of the entities are mapped, if the collection maps them lazily, and released one by one
+     * while they are written. The output is equivalent to the output of marshalling the complete collection, but it
+     * isn't indented.
+     */
+    private void writeCollection(JAXBElement<Object> element, OutputStream entityStream)
+            throws IOException, JAXBException, XMLStreamException {
+        BaseResources collection = (BaseResources) element.getValue();
+        List<Object> entities = EntityHelper.detachCollection(collection);
+        QName entityName = getCollectionElementName(collection.getClass(), entities.get(0));
+
+        // Marshal the collection without its entities, so that its element can be written before them:
+        DOMResult header = new DOMResult();
+        Marshaller documentMarshaller = borrowMarshaller(documentMarshallers, false);
+        try {
+            documentMarshaller.marshal(element, header);
+        } finally {
+            documentMarshallers.offer(documentMarshaller);
+        }
+        Element root = ((Document) header.getNode()).getDocumentElement();
+
+        Marshaller marshaller = borrowMarshaller(fragmentMarshallers, true);
+        XMLStreamWriter writer = writerFactory.createXMLStreamWriter(entityStream, "UTF-8");
+        try {
+            writer.writeStartDocument("UTF-8", "1.0");
+            writeStartElement(root, writer);
+            writeChildren(root, writer);
+            for (int i = 0; i < entities.size(); i++) {
+                Object entity = entities.set(i, null);
+                marshaller.marshal(new JAXBElement<>(entityName, (Class<Object>) entity.getClass(), entity), writer);
+            }
+            writer.writeEndElement();
+            writer.writeEndDocument();
+            writer.flush();
+        } finally {
+            writer.close();
+            fragmentMarshallers.offer(marshaller);
+        }
+    }
+
+    /**
+     * Writes the start tag of the given element, including its attributes and namespace declarations.
+     */
+    private static void writeStartElement(Element element, XMLStreamWriter writer) throws XMLStreamException {
+        writer.writeStartElement(nonNull(element.getPrefix()), getLocalName(element),
+                nonNull(element.getNamespaceURI()));
+        NamedNodeMap attributes = element.getAttributes();
+        for (int i = 0; i < attributes.getLength(); i++) {
+            Node attribute = attributes.item(i);
+            String localName = getLocalName(attribute);
+            if (XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attribute.getNamespaceURI())) {
+                if (XMLConstants.XMLNS_ATTRIBUTE.equals(localName)) {
+                    writer.writeDefaultNamespace(attribute.getNodeValue());
+                } else {
+                    writer.writeNamespace(localName, attribute.getNodeValue());
+                }
+            } else {
+                writer.writeAttribute(nonNull(attribute.getPrefix()), nonNull(attribute.getNamespaceURI()), localName,
+                        attribute.getNodeValue());
+            }
+        }
+    }
+
+    /**
+     * Writes the child elements and the text of the given element.
+     */
+    private static void writeChildren(Element element, XMLStreamWriter writer) throws XMLStreamException {
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child instanceof Element) {
+                writeStartElement((Element) child, writer);
+                writeChildren((Element) child, writer);
+                writer.writeEndElement();
+            } else if (child instanceof Text) {
+                writer.writeCharacters(child.getNodeValue());
+            }
+        }
+    }
+
+    private static String getLocalName(Node node) {
+        return node.getLocalName() != null ? node.getLocalName() : node.getNodeName();
+    }
+
+    private static String nonNull(String value) {
+        return value != null ? value : "";
+    }
+
+    /**
+     * Returns the name of the elements of the entities of the given collection type, as declared by the annotation of
+     * the field that contains them, or else the name of the element created for the given entity by the object
+     * factory.
+     */
+    private QName getCollectionElementName(Class<?> collectionType, Object entity) throws IOException {
+        QName name = collectionElementNames.get(collectionType);
+        if (name == null) {
+            name = findCollectionElementName(collectionType);
+            if (name == null) {
+                Method factoryMethod = factoryMethods.get(entity.getClass());
+                if (factoryMethod == null) {
+                    throw new IOException("Can't find factory method for type \"" + entity.getClass().getName()
+                            + "\".");
+                }
+                try {
+                    name = ((JAXBElement<?>) factoryMethod.invoke(objectFactory, entity)).getName();
+                } catch(IllegalAccessException|InvocationTargetException exception) {
+                    throw new IOException("Error invoking factory method for type \"" + entity.getClass().getName()
+                            + "\".", exception);
+                }
+            }
+            collectionElementNames.put(collectionType, name);
+        }
+        return name;
+    }
+
+    private static QName findCollectionElementName(Class<?> collectionType) {
+        for (Class<?> current = collectionType; current != null; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (Collection.class.isAssignableFrom(field.getType())) {
+                    XmlElement annotation = field.getAnnotation(XmlElement.class);
+                    if (annotation == null || annotation.name().equals("##default")) {
+                        return null;
+                    }
+                    return new QName(annotation.namespace().equals("##default") ? "" : annotation.namespace(),
+                            annotation.name());
+                }
+            }
+        }
+        return null;
+    }
 }
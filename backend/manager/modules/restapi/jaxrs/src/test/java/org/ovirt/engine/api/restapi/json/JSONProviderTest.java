@@ -0,0 +1,54 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.ovirt.engine.api.restapi.json;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+
+import javax.ws.rs.core.MediaType;
+
+import org.junit.jupiter.api.Test;
+import org.ovirt.engine.api.model.Vm;
+import org.ovirt.engine.api.model.Vms;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class JSONProviderTest {
+
+    private static final int VMS = 5;
+
+    @Test
+    public void testStreamedCollectionEquivalent() throws Exception {
+        JsonNode whole = write(new JSONProvider(0), createVms());
+        JsonNode streamed = write(new JSONProvider(1), createVms());
+
+        assertEquals(whole, streamed);
+        assertEquals(VMS, streamed.get("vm").size());
+    }
+
+    private static Vms createVms() {
+        Vms vms = new Vms();
+        for (int i = 0; i < VMS; i++) {
+            Vm vm = new Vm();
+            vm.setId("vm" + i);
+            vm.setName("name" + i);
+            vms.getVms().add(vm);
+        }
+        vms.setSize((long) VMS);
+        return vms;
+    }
+
+    private static JsonNode write(JSONProvider provider, Vms vms) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        provider.writeTo(vms, Vms.class, Vms.class, new Annotation[0],
+                MediaType.APPLICATION_JSON_TYPE, null, out);
+        return new ObjectMapper().readTree(out.toByteArray());
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright oVirt Authors
+ * SPDX-License-Identifier: Apache-2.0
+*/
+
+package org.ovirt.engine.api.restapi.xml;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import javax.ws.rs.core.MediaType;
+
+import org.junit.jupiter.api.Test;
+import org.ovirt.engine.api.model.Vm;
+import org.ovirt.engine.api.model.Vms;
+import org.ovirt.engine.api.restapi.util.MappedList;
+import org.ovirt.engine.api.utils.EntityHelper;
+
+public class JAXBProviderTest {
+
+    private static final int VMS = 5;
+
+    @Test
+    public void testStreamedCollectionEquivalent() throws Exception {
+        String whole = write(new JAXBProvider(0), createVms());
+        String streamed = write(new JAXBProvider(1), createVms());
+
+        Vms wholeVms = read(whole);
+        Vms streamedVms = read(streamed);
+        assertEquals(wholeVms.getSize(), streamedVms.getSize());
+        assertEquals(names(wholeVms), names(streamedVms));
+        assertEquals(VMS, streamedVms.getVms().size());
+        assertTrue(streamed.startsWith("<?xml"));
+    }
+
+    @Test
+    public void testStreamedCollectionMappedOneByOne() throws Exception {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < VMS; i++) {
+            ids.add("vm" + i);
+        }
+        AtomicInteger mapped = new AtomicInteger();
+        Vms vms = new Vms();
+        MappedList<String, Vm> entities = new MappedList<>(ids, id -> {
+            mapped.incrementAndGet();
+            Vm vm = new Vm();
+            vm.setId(id);
+            vm.setName("name" + id.substring(2));
+            return vm;
+        });
+        EntityHelper.setCollection(vms, entities);
+        vms.setSize((long) VMS);
+
+        Vms streamedVms = read(write(new JAXBProvider(1), vms));
+        assertEquals(names(read(write(new JAXBProvider(0), createVms()))), names(streamedVms));
+        assertEquals(VMS, mapped.get());
+        assertTrue(entities.stream().allMatch(Objects::isNull));
+    }
+
+    @Test
+    public void testSmallCollectionNotStreamed() throws Exception {
+        assertEquals(write(new JAXBProvider(0), createVms()), write(new JAXBProvider(VMS + 1), createVms()));
+    }
+
+    private static Vms createVms() {
+        Vms vms = new Vms();
+        for (int i = 0; i < VMS; i++) {
+            Vm vm = new Vm();
+            vm.setId("vm" + i);
+            vm.setName("name" + i);
+            vms.getVms().add(vm);
+        }
+        vms.setSize((long) VMS);
+        return vms;
+    }
+
+    private static String write(JAXBProvider provider, Vms vms) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        provider.writeTo(vms, Vms.class, Vms.class, null, MediaType.APPLICATION_XML_TYPE, null, out);
+        return out.toString(StandardCharsets.UTF_8.name());
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Vms read(String xml) throws IOException {
+        return (Vms) new JAXBProvider(0).readFrom((Class) Vms.class, Vms.class, null, MediaType.APPLICATION_XML_TYPE,
+                null, new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static List<String> names(Vms vms) {
+        return vms.getVms().stream().map(vm -> vm.getId() + ":" + vm.getName()).collect(Collectors.toList());
+    }
+}
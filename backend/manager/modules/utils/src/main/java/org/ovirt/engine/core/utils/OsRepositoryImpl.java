@@ -5,6 +5,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -52,6 +53,11 @@ public enum OsRepositoryImpl implements OsRepository {
      */
     private Map<Integer, String> idToUnameLookup;
     private Map<String, Integer> backwardCompatibleNamesToIds;
+    /**
+     * the values of every key of every os, keyed by the os unique name and the dotted relative key path, with the
+     * values inherited through the derivedFrom chain already applied. Built once when the repository is (re)loaded.
+     */
+    private Map<String, Map<String, OsValues>> valuesIndex = Collections.emptyMap();
     private static Map<ArchitectureType, Integer> defaultOsMap = new HashMap<>(3);
 
     static {
@@ -66,6 +72,7 @@ public enum OsRepositoryImpl implements OsRepository {
         buildIdToUnameLookup();
         buildBackCompatMapping();
         validateTree();
+        buildValuesIndex();
         if (log.isDebugEnabled()) {
             log.debug("Osinfo Repository:\n{}", this);
         }
@@ -125,6 +132,56 @@ public enum OsRepositoryImpl implements OsRepository {
         }
     }
 
+    private void buildValuesIndex() {
+        try {
+            String[] uniqueNames = preferences.node("/os").childrenNames();
+            Map<String, Map<String, OsValues>> index = new HashMap<>(uniqueNames.length);
+            for (String uniqueName : uniqueNames) {
+                // collect the raw values from the farthest parent to the os itself so the closest definition wins
+                Map<String, Map<String, String>> rawValues = new HashMap<>();
+                List<String> chain = new ArrayList<>(getDerivationChain(uniqueName));
+                Collections.reverse(chain);
+                for (String osName : chain) {
+                    collectValues(preferences.node(OS_ROOT_NODE + osName), "", rawValues);
+                }
+                Map<String, OsValues> osValues = new HashMap<>(rawValues.size());
+                rawValues.forEach((key, values) -> osValues.put(key, new OsValues(uniqueName, key, values)));
+                index.put(uniqueName, Collections.unmodifiableMap(osValues));
+            }
+            valuesIndex = Collections.unmodifiableMap(index);
+        } catch (BackingStoreException e) {
+            throw new RuntimeException("Failed to index Os Repository due to " + e);
+        }
+    }
+
+    /**
+     * @return the unique names of the given os and of the oses it is derived from, the os itself first
+     */
+    private Set<String> getDerivationChain(String uniqueOsName) throws BackingStoreException {
+        Set<String> chain = new LinkedHashSet<>();
+        String osName = uniqueOsName;
+        while (osName != null && preferences.nodeExists(OS_ROOT_NODE + osName) && chain.add(osName)) {
+            osName = preferences.nodeExists(OS_ROOT_NODE + osName + "/derivedFrom")
+                    ? preferences.node(OS_ROOT_NODE + osName + "/derivedFrom").get("value", null)
+                    : null;
+        }
+        return chain;
+    }
+
+    private void collectValues(Preferences node, String keyPath, Map<String, Map<String, String>> rawValues)
+            throws BackingStoreException {
+        String[] valuePaths = node.keys();
+        if (valuePaths.length > 0) {
+            Map<String, String> values = rawValues.computeIfAbsent(keyPath, k -> new HashMap<>());
+            for (String valuePath : valuePaths) {
+                values.put(valuePath, node.get(valuePath, ""));
+            }
+        }
+        for (String child : node.childrenNames()) {
+            collectValues(node.node(child), keyPath.isEmpty() ? child : keyPath + "." + child, rawValues);
+        }
+    }
+
     @Override
     public List<Integer> getOsIds() {
         return new ArrayList<>(idToUnameLookup.keySet());
@@ -190,7 +247,8 @@ public enum OsRepositoryImpl implements OsRepository {
 
     @Override
     public String getOsName(int osId) {
-        return getOsNames().get(osId);
+        String uniqueOsName = idToUnameLookup.get(osId);
+        return uniqueOsName == null ? null : getValueByVersion(uniqueOsName, "name", null);
     }
 
     @Override
@@ -576,7 +634,7 @@ public enum OsRepositoryImpl implements OsRepository {
     @Override
     public UsbControllerModel getOsUsbControllerModel(int osId, Version version, ChipsetType chipset) {
         final String osInfoName = parseChipsetPrefixedValue(
-                getValueByVersion(getUniqueOsNames().get(osId), "devices.usb.controller", version), chipset);
+                getValueByVersion(idToUnameLookup.get(osId), "devices.usb.controller", version), chipset);
         if (StringUtils.isEmpty(osInfoName)) {
             return null;
         }
@@ -586,7 +644,7 @@ public enum OsRepositoryImpl implements OsRepository {
     @Override
     public ConsoleTargetType getOsConsoleTargetType(int osId, Version version) {
         final String osInfoName =
-                getValueByVersion(getUniqueOsNames().get(osId), "devices.console.target.type", version);
+                getValueByVersion(idToUnameLookup.get(osId), "devices.console.target.type", version);
         if (StringUtils.isEmpty(osInfoName)) {
             return null;
         }
@@ -595,7 +653,7 @@ public enum OsRepositoryImpl implements OsRepository {
 
     @Override
     public int getOsIdByUniqueName(String uniqueOsName) {
-        for (Map.Entry<Integer, String> entry : getUniqueOsNames().entrySet()) {
+        for (Map.Entry<Integer, String> entry : idToUnameLookup.entrySet()) {
             if (entry.getValue().equals(uniqueOsName)) {
                 return entry.getKey();
             }
@@ -669,16 +727,16 @@ public enum OsRepositoryImpl implements OsRepository {
     }
 
     /**
-     * get the value of the key specified by its version or the default version if not exist. see
-     * {@link OsRepositoryImpl#getKeyNode}
+     * get the value of the key specified by its version or the default version if not exist, as resolved through the
+     * derivedFrom chain by {@link OsRepositoryImpl#buildValuesIndex}.
      */
     private String getValueByVersion(String uniqueOsName, String relativeKeyPath, Version version) {
-        Preferences keyNode = getKeyNode(uniqueOsName, relativeKeyPath, version);
-        if (keyNode == emptyNode) {
-            version = null;
-            keyNode = getKeyNode(uniqueOsName, relativeKeyPath, null);
+        if (uniqueOsName == null) {
+            return "";
         }
-        return keyNode.get(versionedValuePath(version), "");
+        Map<String, OsValues> osValues = valuesIndex.get(uniqueOsName);
+        OsValues values = osValues == null ? null : osValues.get(relativeKeyPath);
+        return values == null ? "" : values.get(version);
     }
 
     /**
@@ -761,6 +819,39 @@ public enum OsRepositoryImpl implements OsRepository {
         return version == null ? "value" : "value." + version.toString();
     }
 
+    /**
+     * The values of a single key of an os: the default value and the values overridden for specific versions.
+     */
+    private static final class OsValues {
+        private final String defaultValue;
+        private final Map<Version, String> versionedValues;
+
+        OsValues(String uniqueOsName, String relativeKeyPath, Map<String, String> values) {
+            Map<Version, String> versioned = new HashMap<>();
+            for (Map.Entry<String, String> entry : values.entrySet()) {
+                if (entry.getKey().startsWith("value.")) {
+                    try {
+                        versioned.put(new Version(entry.getKey().substring("value.".length())), entry.getValue());
+                    } catch (NumberFormatException e) {
+                        log.warn("Ignoring illegal version '{}' of key '{}' of os '{}'",
+                                entry.getKey(),
+                                relativeKeyPath,
+                                uniqueOsName);
+                    }
+                }
+            }
+            this.defaultValue = values.getOrDefault("value", "");
+            this.versionedValues = versioned.isEmpty() ? Collections.emptyMap() : versioned;
+        }
+
+        String get(Version version) {
+            if (version == null || versionedValues.isEmpty()) {
+                return defaultValue;
+            }
+            return versionedValues.getOrDefault(version, defaultValue);
+        }
+    }
+
     public Map<String, Integer> getBackwardCompatibleNamesToIds() {
         return backwardCompatibleNamesToIds;
     }
@@ -1,13 +1,24 @@
 package org.ovirt.engine.core.utils;
 
+import org.ovirt.engine.core.utils.serialization.binary.BinaryObjectDeserializer;
+import org.ovirt.engine.core.utils.serialization.binary.BinaryObjectSerializer;
 import org.ovirt.engine.core.utils.serialization.json.JsonObjectDeserializer;
 import org.ovirt.engine.core.utils.serialization.json.JsonObjectSerializer;
 
 
 public class SerializationFactory {
 
+    /**
+     * Engine configuration property selecting the format used by {@link #getPersistenceSerializer()}, either
+     * {@code json} (the default) or {@code binary}.
+     */
+    public static final String PERSISTENCE_FORMAT_PROPERTY = "ENGINE_PERSISTENCE_SERIALIZATION_FORMAT";
+
     private static final JsonObjectSerializer serializer = new JsonObjectSerializer();
     private static final JsonObjectDeserializer deserializer = new JsonObjectDeserializer();
+    private static final BinaryObjectSerializer binarySerializer = new BinaryObjectSerializer(serializer);
+    private static final BinaryObjectDeserializer binaryDeserializer = new BinaryObjectDeserializer(deserializer);
+    private static volatile Serializer persistenceSerializer;
 
     public static JsonObjectSerializer getSerializer() {
         return serializer;
@@ -16,4 +27,23 @@ public class SerializationFactory {
     public static JsonObjectDeserializer getDeserializer() {
         return deserializer;
     }
+
+    /**
+     * @return the serializer for high volume persisted payloads such as command entities and compensation snapshots
+     */
+    public static Serializer getPersistenceSerializer() {
+        if (persistenceSerializer == null) {
+            String format = EngineLocalConfig.getInstance().getProperty(PERSISTENCE_FORMAT_PROPERTY, true);
+            persistenceSerializer = "binary".equalsIgnoreCase(format) ? binarySerializer : serializer;
+        }
+        return persistenceSerializer;
+    }
+
+    /**
+     * @return the deserializer for payloads written by {@link #getPersistenceSerializer()}, it reads both the binary
+     *         and the JSON format regardless of the configured one
+     */
+    public static Deserializer getPersistenceDeserializer() {
+        return binaryDeserializer;
+    }
 }
@@ -10,13 +10,26 @@ import javax.xml.stream.XMLStreamWriter;
 
 public class XmlTextWriter {
 
+    /**
+     * Looking up the factory implementation is much more expensive than creating a writer, and the factory is safe to
+     * share as its properties are never changed, so it is created once.
+     */
+    private static final XMLOutputFactory factory = XMLOutputFactory.newInstance();
+
     private XMLStreamWriter writer;
     private StringWriter stream;
 
     public XmlTextWriter() {
-        stream = new StringWriter();
+        this(16);
+    }
+
+    /**
+     * @param initialCapacity
+     *            the expected length of the document, so its buffer doesn't have to be grown while it is written
+     */
+    public XmlTextWriter(int initialCapacity) {
+        stream = new StringWriter(initialCapacity);
         try {
-            XMLOutputFactory factory = XMLOutputFactory.newInstance();
             writer = factory.createXMLStreamWriter(stream);
             writer.writeStartDocument("UTF-8", "1.0");
         } catch (Exception e) {
@@ -0,0 +1,71 @@
+package org.ovirt.engine.core.utils.serialization.binary;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Base64;
+
+import org.apache.commons.lang.exception.ExceptionUtils;
+import org.ovirt.engine.core.utils.Deserializer;
+import org.ovirt.engine.core.utils.SerializationException;
+import org.ovirt.engine.core.utils.serialization.json.JsonObjectDeserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+/**
+ * {@link Deserializer} implementation for content written by {@link BinaryObjectSerializer}. Values which do not carry
+ * the binary prefix, e.g. rows persisted before the binary format was introduced, are handed to the JSON deserializer.
+ */
+public class BinaryObjectDeserializer implements Deserializer {
+
+    private static final Logger log = LoggerFactory.getLogger(BinaryObjectDeserializer.class);
+
+    private final JsonObjectDeserializer jsonDeserializer;
+
+    public BinaryObjectDeserializer() {
+        this(new JsonObjectDeserializer());
+    }
+
+    public BinaryObjectDeserializer(JsonObjectDeserializer jsonDeserializer) {
+        this.jsonDeserializer = jsonDeserializer;
+    }
+
+    @Override
+    public <T extends Serializable> T deserialize(Object source, Class<T> type) throws SerializationException {
+        if (source == null) {
+            return null;
+        }
+        String value = source.toString();
+        if (!value.startsWith(BinaryObjectSerializer.PREFIX)) {
+            return jsonDeserializer.deserialize(value, type);
+        }
+        byte[] payload;
+        try {
+            payload = Base64.getDecoder().decode(value.substring(BinaryObjectSerializer.PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            log.error("Cannot decode binary payload of {} because of {}",
+                    type.getName(),
+                    ExceptionUtils.getRootCauseMessage(e));
+            throw new SerializationException(e);
+        }
+        return deserializeFromBytes(payload, type);
+    }
+
+    /**
+     * Deserializes the raw binary form, without the text envelope.
+     */
+    public <T extends Serializable> T deserializeFromBytes(byte[] payload, Class<T> type)
+            throws SerializationException {
+        TokenBuffer tokens = new TokenBuffer((ObjectCodec) null, false);
+        try {
+            BinaryTokenCodec.decode(payload, tokens);
+        } catch (IOException e) {
+            log.error("Cannot deserialize {} because of {}", type.getName(), ExceptionUtils.getRootCauseMessage(e));
+            log.debug("Cannot deserialize {}. Details {}", type.getName(), ExceptionUtils.getFullStackTrace(e));
+            throw new SerializationException(e);
+        }
+        return jsonDeserializer.deserializeTokens(tokens.asParser(), type);
+    }
+}
@@ -0,0 +1,61 @@
+package org.ovirt.engine.core.utils.serialization.binary;
+
+import java.io.IOException;
+import java.util.Base64;
+
+import org.apache.commons.lang.exception.ExceptionUtils;
+import org.ovirt.engine.core.utils.SerializationException;
+import org.ovirt.engine.core.utils.Serializer;
+import org.ovirt.engine.core.utils.serialization.json.JsonObjectSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+/**
+ * {@link Serializer} implementation producing a compact binary encoding of the same token stream that
+ * {@link JsonObjectSerializer} produces, so the JSON mix-ins and polymorphic type information are shared between the
+ * two formats. The result is a text value, prefixed by {@link #PREFIX}, so it can be stored in the existing text
+ * columns.
+ */
+public class BinaryObjectSerializer implements Serializer {
+
+    /**
+     * Marks a value as binary encoded, a JSON document can never start with it.
+     */
+    public static final String PREFIX = "#ovbin:";
+
+    private static final Logger log = LoggerFactory.getLogger(BinaryObjectSerializer.class);
+
+    private final JsonObjectSerializer jsonSerializer;
+
+    public BinaryObjectSerializer() {
+        this(new JsonObjectSerializer());
+    }
+
+    public BinaryObjectSerializer(JsonObjectSerializer jsonSerializer) {
+        this.jsonSerializer = jsonSerializer;
+    }
+
+    @Override
+    public String serialize(Object payload) throws SerializationException {
+        if (payload == null) {
+            return null;
+        }
+        return PREFIX + Base64.getEncoder().encodeToString(serializeToBytes(payload));
+    }
+
+    /**
+     * Serializes the payload to the raw binary form, without the text envelope.
+     */
+    public byte[] serializeToBytes(Object payload) throws SerializationException {
+        TokenBuffer tokens = jsonSerializer.serializeToTokens(payload);
+        try {
+            return BinaryTokenCodec.encode(tokens.asParser());
+        } catch (IOException e) {
+            log.error("Cannot serialize {} because {}", payload, ExceptionUtils.getRootCauseMessage(e));
+            log.debug("Cannot serialize {}. Details {}", payload, ExceptionUtils.getFullStackTrace(e));
+            throw new SerializationException(e);
+        }
+    }
+}
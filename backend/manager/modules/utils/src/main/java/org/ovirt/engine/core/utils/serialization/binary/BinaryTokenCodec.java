@@ -0,0 +1,363 @@
+package org.ovirt.engine.core.utils.serialization.binary;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+/**
+ * Encodes a Jackson token stream to a compact binary form and back.
+ * <p>
+ * The payload starts with a single format version byte followed by tagged tokens. Field names and short strings
+ * (type ids, enum constants, ...) are interned in a per-payload dictionary the first time they are seen and referred
+ * to by index afterwards, canonical UUID strings are stored as 16 raw bytes and numbers are stored as zig-zag
+ * varints or fixed width IEEE values.
+ * <p>
+ * Values embedded in the token stream, e.g. objects a serializer wrote with {@link JsonGenerator#writeObject(Object)}
+ * or raw JSON values, are expanded to their own tokens, so the payload never refers to Java objects.
+ */
+final class BinaryTokenCodec {
+
+    static final byte FORMAT_VERSION = 1;
+
+    private static final int MAX_INTERNED_LENGTH = 64;
+    private static final int UUID_LENGTH = 36;
+
+    private static final byte TAG_START_OBJECT = 0x01;
+    private static final byte TAG_END_OBJECT = 0x02;
+    private static final byte TAG_START_ARRAY = 0x03;
+    private static final byte TAG_END_ARRAY = 0x04;
+    private static final byte TAG_FIELD_NAME = 0x05;
+    private static final byte TAG_FIELD_NAME_REF = 0x06;
+    private static final byte TAG_STRING = 0x07;
+    private static final byte TAG_STRING_REF = 0x08;
+    private static final byte TAG_STRING_RAW = 0x09;
+    private static final byte TAG_UUID_STRING = 0x0A;
+    private static final byte TAG_INT = 0x0B;
+    private static final byte TAG_LONG = 0x0C;
+    private static final byte TAG_BIG_INTEGER = 0x0D;
+    private static final byte TAG_FLOAT = 0x0E;
+    private static final byte TAG_DOUBLE = 0x0F;
+    private static final byte TAG_BIG_DECIMAL = 0x10;
+    private static final byte TAG_TRUE = 0x11;
+    private static final byte TAG_FALSE = 0x12;
+    private static final byte TAG_NULL = 0x13;
+    private static final byte TAG_BINARY = 0x14;
+
+    private BinaryTokenCodec() {
+    }
+
+    /**
+     * Encodes all the tokens available from the given parser, its codec serializes the embedded values.
+     */
+    static byte[] encode(JsonParser parser) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(FORMAT_VERSION);
+        writeTokens(out, new HashMap<>(), parser);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void writeTokens(DataOutputStream out, Map<String, Integer> dictionary, JsonParser parser)
+            throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null) {
+            switch (token) {
+            case START_OBJECT:
+                out.writeByte(TAG_START_OBJECT);
+                break;
+            case END_OBJECT:
+                out.writeByte(TAG_END_OBJECT);
+                break;
+            case START_ARRAY:
+                out.writeByte(TAG_START_ARRAY);
+                break;
+            case END_ARRAY:
+                out.writeByte(TAG_END_ARRAY);
+                break;
+            case FIELD_NAME:
+                writeInterned(out, dictionary, parser.getCurrentName(), TAG_FIELD_NAME, TAG_FIELD_NAME_REF);
+                break;
+            case VALUE_STRING:
+                writeString(out, dictionary, parser.getText());
+                break;
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                writeNumber(out, parser);
+                break;
+            case VALUE_TRUE:
+                out.writeByte(TAG_TRUE);
+                break;
+            case VALUE_FALSE:
+                out.writeByte(TAG_FALSE);
+                break;
+            case VALUE_NULL:
+                out.writeByte(TAG_NULL);
+                break;
+            case VALUE_EMBEDDED_OBJECT:
+                writeEmbedded(out, dictionary, parser.getEmbeddedObject(), parser.getCodec());
+                break;
+            default:
+                throw new IOException("Unsupported token " + token);
+            }
+        }
+    }
+
+    private static void writeEmbedded(DataOutputStream out,
+            Map<String, Integer> dictionary,
+            Object embedded,
+            ObjectCodec codec) throws IOException {
+        if (embedded == null) {
+            out.writeByte(TAG_NULL);
+        } else if (embedded instanceof byte[]) {
+            out.writeByte(TAG_BINARY);
+            writeBytes(out, (byte[]) embedded);
+        } else if (codec == null) {
+            throw new IOException("Cannot serialize embedded value of type " + embedded.getClass().getName()
+                    + " without a codec");
+        } else if (embedded instanceof RawValue) {
+            try (JsonParser rawParser = codec.getFactory().createParser(((RawValue) embedded).rawValue().toString())) {
+                writeTokens(out, dictionary, rawParser);
+            }
+        } else {
+            TokenBuffer tokens = new TokenBuffer(codec, false);
+            codec.writeValue(tokens, embedded);
+            writeTokens(out, dictionary, tokens.asParser());
+        }
+    }
+
+    /**
+     * Replays the encoded tokens into the given generator.
+     */
+    static void decode(byte[] payload, JsonGenerator generator) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        List<String> dictionary = new ArrayList<>();
+        byte version = in.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported binary serialization format version " + version);
+        }
+        while (in.available() > 0) {
+            byte tag = in.readByte();
+            switch (tag) {
+            case TAG_START_OBJECT:
+                generator.writeStartObject();
+                break;
+            case TAG_END_OBJECT:
+                generator.writeEndObject();
+                break;
+            case TAG_START_ARRAY:
+                generator.writeStartArray();
+                break;
+            case TAG_END_ARRAY:
+                generator.writeEndArray();
+                break;
+            case TAG_FIELD_NAME:
+                generator.writeFieldName(readNewInterned(in, dictionary));
+                break;
+            case TAG_FIELD_NAME_REF:
+                generator.writeFieldName(dictionary.get(readVarInt(in)));
+                break;
+            case TAG_STRING:
+                generator.writeString(readNewInterned(in, dictionary));
+                break;
+            case TAG_STRING_REF:
+                generator.writeString(dictionary.get(readVarInt(in)));
+                break;
+            case TAG_STRING_RAW:
+                generator.writeString(new String(readBytes(in), StandardCharsets.UTF_8));
+                break;
+            case TAG_UUID_STRING:
+                generator.writeString(new UUID(in.readLong(), in.readLong()).toString());
+                break;
+            case TAG_INT:
+                generator.writeNumber((int) readZigZag(in));
+                break;
+            case TAG_LONG:
+                generator.writeNumber(readZigZag(in));
+                break;
+            case TAG_BIG_INTEGER:
+                generator.writeNumber(new BigInteger(readBytes(in)));
+                break;
+            case TAG_FLOAT:
+                generator.writeNumber(in.readFloat());
+                break;
+            case TAG_DOUBLE:
+                generator.writeNumber(in.readDouble());
+                break;
+            case TAG_BIG_DECIMAL:
+                generator.writeNumber(new BigDecimal(new String(readBytes(in), StandardCharsets.US_ASCII)));
+                break;
+            case TAG_TRUE:
+                generator.writeBoolean(true);
+                break;
+            case TAG_FALSE:
+                generator.writeBoolean(false);
+                break;
+            case TAG_NULL:
+                generator.writeNull();
+                break;
+            case TAG_BINARY:
+                generator.writeBinary(readBytes(in));
+                break;
+            default:
+                throw new IOException("Unknown tag " + tag);
+            }
+        }
+        generator.flush();
+    }
+
+    private static void writeString(DataOutputStream out, Map<String, Integer> dictionary, String value)
+            throws IOException {
+        if (isCanonicalUuid(value)) {
+            UUID uuid = UUID.fromString(value);
+            out.writeByte(TAG_UUID_STRING);
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+        } else if (value.length() <= MAX_INTERNED_LENGTH) {
+            writeInterned(out, dictionary, value, TAG_STRING, TAG_STRING_REF);
+        } else {
+            out.writeByte(TAG_STRING_RAW);
+            writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void writeInterned(DataOutputStream out,
+            Map<String, Integer> dictionary,
+            String value,
+            byte newTag,
+            byte refTag) throws IOException {
+        Integer index = dictionary.get(value);
+        if (index != null) {
+            out.writeByte(refTag);
+            writeVarInt(out, index);
+        } else {
+            dictionary.put(value, dictionary.size());
+            out.writeByte(newTag);
+            writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String readNewInterned(DataInputStream in, List<String> dictionary) throws IOException {
+        String value = new String(readBytes(in), StandardCharsets.UTF_8);
+        dictionary.add(value);
+        return value;
+    }
+
+    private static void writeNumber(DataOutputStream out, JsonParser parser) throws IOException {
+        JsonParser.NumberType numberType = parser.getNumberType();
+        if (numberType == null) {
+            numberType = parser.currentToken() == JsonToken.VALUE_NUMBER_INT
+                    ? JsonParser.NumberType.BIG_INTEGER
+                    : JsonParser.NumberType.BIG_DECIMAL;
+        }
+        switch (numberType) {
+        case INT:
+            out.writeByte(TAG_INT);
+            writeZigZag(out, parser.getIntValue());
+            break;
+        case LONG:
+            out.writeByte(TAG_LONG);
+            writeZigZag(out, parser.getLongValue());
+            break;
+        case BIG_INTEGER:
+            out.writeByte(TAG_BIG_INTEGER);
+            writeBytes(out, parser.getBigIntegerValue().toByteArray());
+            break;
+        case FLOAT:
+            out.writeByte(TAG_FLOAT);
+            out.writeFloat(parser.getFloatValue());
+            break;
+        case DOUBLE:
+            out.writeByte(TAG_DOUBLE);
+            out.writeDouble(parser.getDoubleValue());
+            break;
+        default:
+            out.writeByte(TAG_BIG_DECIMAL);
+            writeBytes(out, parser.getDecimalValue().toString().getBytes(StandardCharsets.US_ASCII));
+            break;
+        }
+    }
+
+    private static boolean isCanonicalUuid(String value) {
+        if (value.length() != UUID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < UUID_LENGTH; i++) {
+            char c = value.charAt(i);
+            boolean dash = i == 8 || i == 13 || i == 18 || i == 23;
+            if (dash ? c != '-' : !(c >= '0' && c <= '9' || c >= 'a' && c <= 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] value) throws IOException {
+        writeVarInt(out, value.length);
+        out.write(value);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] value = new byte[readVarInt(in)];
+        in.readFully(value);
+        return value;
+    }
+
+    private static void writeZigZag(DataOutputStream out, long value) throws IOException {
+        long encoded = (value << 1) ^ (value >> 63);
+        while ((encoded & ~0x7FL) != 0) {
+            out.writeByte((int) ((encoded & 0x7F) | 0x80));
+            encoded >>>= 7;
+        }
+        out.writeByte((int) encoded);
+    }
+
+    private static long readZigZag(DataInputStream in) throws IOException {
+        long encoded = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.readByte();
+            encoded |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (encoded >>> 1) ^ -(encoded & 1);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -25,6 +25,7 @@ import org.ovirt.engine.core.utils.SerializationFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
 import com.fasterxml.jackson.databind.type.CollectionType;
@@ -67,6 +68,26 @@ public class JsonObjectDeserializer implements Deserializer {
         return readJsonString(source, type, formattedMapper);
     }
 
+    /**
+     * Reads an instance of the given type from the token stream of the parser, using the same mapper configuration
+     * as {@link #deserialize(Object, Class)}.
+     *
+     * @param parser
+     *            parser providing the tokens
+     * @param type
+     *            The type or the return value which is expected.
+     * @return The deserialized payload
+     */
+    public <T extends Serializable> T deserializeTokens(JsonParser parser, Class<T> type) throws SerializationException {
+        try {
+            return formattedMapper.readValue(parser, type);
+        } catch (IOException e) {
+            log.error("Cannot deserialize {} because of {}", type.getName(), ExceptionUtils.getRootCauseMessage(e));
+            log.debug("Cannot deserialize {}. Details {}", type.getName(), ExceptionUtils.getFullStackTrace(e));
+            throw new SerializationException(e);
+        }
+    }
+
     /**
      * Converts JSON string to instance of specified class. If {@code value} is {@code null} or empty, tries to create
      * new instance of specified class. If it fails returns {@code null}
@@ -33,6 +33,7 @@ import org.slf4j.LoggerFactory;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 
 /**
  * {@link Serializer} implementation for deserializing JSON content.
@@ -76,6 +77,27 @@ public class JsonObjectSerializer implements Serializer {
         }
     }
 
+    /**
+     * Writes the payload to a token buffer using the same mapper configuration as {@link #serialize(Object)}, so other
+     * encodings of the token stream stay compatible with the JSON one. The mapper is the codec of the buffer, so values
+     * that serializers embed in the stream can be serialized with the same configuration.
+     *
+     * @param payload
+     *            - The payload to be written.
+     * @return the buffer holding the tokens of the payload
+     */
+    public TokenBuffer serializeToTokens(Object payload) throws SerializationException {
+        TokenBuffer tokens = new TokenBuffer(formattedMapper, false);
+        try {
+            formattedMapper.writeValue(tokens, payload);
+        } catch (IOException e) {
+            log.error("Cannot serialize {} because {}", payload, ExceptionUtils.getRootCauseMessage(e));
+            log.debug("Cannot serialize {}. Details {}", payload, ExceptionUtils.getFullStackTrace(e));
+            throw new SerializationException(e);
+        }
+        return tokens;
+    }
+
     /**
      * Use the ObjectMapper to parse the payload to String.
      *
@@ -0,0 +1,74 @@
+package org.ovirt.engine.core.utils.threadpool;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Bounds the number of operations executed concurrently for the same key, e.g. the calls made to the same host. The
+ * keys are expected to be of a bounded set, the permits of a key are kept for the lifetime of the limiter.
+ * <p>
+ * A thread already holding a permit of a key does not wait for another permit of the same key, so nested operations
+ * on the same key can not dead lock the limiter.
+ */
+public class PerKeyConcurrencyLimiter<K> {
+
+    private final int maxConcurrency;
+    private final Map<K, Semaphore> permits = new ConcurrentHashMap<>();
+    private final ThreadLocal<Set<K>> heldKeys = ThreadLocal.withInitial(HashSet::new);
+
+    public PerKeyConcurrencyLimiter(int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("The maximal concurrency must be positive: " + maxConcurrency);
+        }
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * Blocks until a permit of the given key is available.
+     *
+     * @return the permit, to be closed once the operation is done
+     */
+    public Permit acquire(K key) throws InterruptedException {
+        Set<K> held = heldKeys.get();
+        if (held.contains(key)) {
+            return new Permit(null, null, null);
+        }
+        Semaphore semaphore = permits.computeIfAbsent(key, k -> new Semaphore(maxConcurrency, true));
+        semaphore.acquire();
+        held.add(key);
+        return new Permit(semaphore, held, key);
+    }
+
+    /**
+     * @return the number of operations which can currently start for the given key without blocking
+     */
+    public int availablePermits(K key) {
+        Semaphore semaphore = permits.get(key);
+        return semaphore == null ? maxConcurrency : semaphore.availablePermits();
+    }
+
+    public static class Permit implements AutoCloseable {
+
+        private Semaphore semaphore;
+        private final Set<?> held;
+        private final Object key;
+
+        private Permit(Semaphore semaphore, Set<?> held, Object key) {
+            this.semaphore = semaphore;
+            this.held = held;
+            this.key = key;
+        }
+
+        @Override
+        public void close() {
+            if (semaphore != null) {
+                held.remove(key);
+                semaphore.release();
+                semaphore = null;
+            }
+        }
+    }
+}
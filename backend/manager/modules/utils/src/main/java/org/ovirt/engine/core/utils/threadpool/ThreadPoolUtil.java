@@ -17,6 +17,7 @@ import javax.enterprise.concurrent.ManagedExecutorService;
 import javax.enterprise.concurrent.ManagedTask;
 import javax.enterprise.concurrent.ManagedTaskListener;
 
+import org.ovirt.engine.core.compat.Guid;
 import org.ovirt.engine.core.utils.CorrelationIdTracker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,6 +28,8 @@ public class ThreadPoolUtil {
 
     private static ExecutorService executor;
 
+    private static PerKeyConcurrencyLimiter<Guid> hostConcurrencyLimiter;
+
     private static class EngineManagedTask implements ManagedTask, ManagedTaskListener {
 
         @Override
@@ -206,4 +209,26 @@ public class ThreadPoolUtil {
     public static ExecutorService getExecutorService() {
         return executor;
     }
+
+    /**
+     * Sets the limiter of the concurrent calls to a single host made by the tasks of the executor service, which is
+     * needed when the executor service itself does not bound the number of concurrent tasks.
+     */
+    public static void setHostConcurrencyLimiter(PerKeyConcurrencyLimiter<Guid> limiter) {
+        hostConcurrencyLimiter = limiter;
+    }
+
+    /**
+     * @return the limiter of the concurrent calls to a single host, or {@code null} if they are not limited
+     */
+    public static PerKeyConcurrencyLimiter<Guid> getHostConcurrencyLimiter() {
+        return hostConcurrencyLimiter;
+    }
+
+    /**
+     * @return whether the tasks are executed on virtual threads
+     */
+    public static boolean isVirtualThreadsEnabled() {
+        return executor instanceof VirtualThreadExecutor;
+    }
 }
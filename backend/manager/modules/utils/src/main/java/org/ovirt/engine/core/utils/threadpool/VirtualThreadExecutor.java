@@ -0,0 +1,195 @@
+package org.ovirt.engine.core.utils.threadpool;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.enterprise.concurrent.ManagedTask;
+import javax.enterprise.concurrent.ManagedTaskListener;
+
+import org.apache.commons.lang.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executor running every task on a new virtual thread, used instead of the engine thread pool when the virtual threads
+ * execution mode is enabled, so tasks blocking on VDSM calls or other I/O do not exhaust a bounded pool of platform
+ * threads.
+ * <p>
+ * The engine is built for Java 11, so virtual threads are created by reflection and are available only when the
+ * engine runs on Java 21 or later, see {@link #isSupported()}. Since the virtual threads are not created by the
+ * managed thread factory, the tasks are run through the given task context, which applies the container context the
+ * managed thread factory would have applied, and the executor notifies the {@link ManagedTaskListener} of the submitted
+ * {@link ManagedTask}s itself and propagates the context class loader of the submitting thread to the task.
+ */
+public class VirtualThreadExecutor extends AbstractExecutorService {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadExecutor.class);
+
+    private static final ThreadLocal<Boolean> executorThread = new ThreadLocal<>();
+
+    private final ExecutorService delegate;
+    private final Executor taskContext;
+
+    private VirtualThreadExecutor(ExecutorService delegate, Executor taskContext) {
+        this.delegate = delegate;
+        this.taskContext = taskContext;
+    }
+
+    /**
+     * @return whether the running JVM supports virtual threads
+     */
+    public static boolean isSupported() {
+        try {
+            Thread.class.getMethod("ofVirtual");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Creates an executor which names its threads with the given prefix followed by a sequence number, running the
+     * tasks without any container context.
+     *
+     * @throws IllegalStateException if virtual threads are not supported by the running JVM
+     */
+    public static VirtualThreadExecutor create(String namePrefix) {
+        return create(namePrefix, Runnable::run);
+    }
+
+    /**
+     * Creates an executor which names its threads with the given prefix followed by a sequence number.
+     *
+     * @param taskContext
+     *            runs each task, on its virtual thread, within the container context of the engine, e.g. a contextual
+     *            proxy of the container context service
+     * @throws IllegalStateException if virtual threads are not supported by the running JVM
+     */
+    public static VirtualThreadExecutor create(String namePrefix, Executor taskContext) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            ThreadFactory threadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            Method newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return new VirtualThreadExecutor((ExecutorService) newThreadPerTaskExecutor.invoke(null, threadFactory),
+                    taskContext);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads are not supported: " + ExceptionUtils.getRootCauseMessage(e),
+                    e);
+        }
+    }
+
+    /**
+     * @return whether the current thread is a thread of a virtual thread executor
+     */
+    public static boolean isExecutorThread() {
+        return Boolean.TRUE.equals(executorThread.get());
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+        return new ManagedFutureTask<>(runnable, value, runnable);
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+        return new ManagedFutureTask<>(callable, callable);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        Object task = command instanceof ManagedFutureTask ? ((ManagedFutureTask<?>) command).task : command;
+        ManagedTaskListener listener = task instanceof ManagedTask ? ((ManagedTask) task).getManagedTaskListener() : null;
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        if (listener != null) {
+            listener.taskSubmitted(asFuture(command), null, task);
+        }
+        delegate.execute(() -> taskContext.execute(() -> {
+            Thread.currentThread().setContextClassLoader(contextClassLoader);
+            executorThread.set(Boolean.TRUE);
+            Throwable failure = null;
+            try {
+                if (listener != null) {
+                    listener.taskStarting(asFuture(command), null, task);
+                }
+                command.run();
+            } catch (RuntimeException | Error e) {
+                failure = e;
+                throw e;
+            } finally {
+                if (listener != null) {
+                    notifyDone(listener, command, task, failure);
+                }
+            }
+        }));
+    }
+
+    private void notifyDone(ManagedTaskListener listener, Runnable command, Object task, Throwable failure) {
+        try {
+            if (failure != null || command instanceof FutureTask && ((FutureTask<?>) command).isCancelled()) {
+                listener.taskAborted(asFuture(command), null, task, failure);
+            }
+            listener.taskDone(asFuture(command), null, task, failure);
+        } catch (RuntimeException e) {
+            log.warn("Task listener failed: {}", ExceptionUtils.getRootCauseMessage(e));
+            log.debug("Exception", e);
+        }
+    }
+
+    private static FutureTask<?> asFuture(Runnable command) {
+        return command instanceof FutureTask ? (FutureTask<?>) command : null;
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Keeps the submitted task so its listener can be notified.
+     */
+    private static class ManagedFutureTask<V> extends FutureTask<V> {
+
+        private final Object task;
+
+        ManagedFutureTask(Callable<V> callable, Object task) {
+            super(callable);
+            this.task = task;
+        }
+
+        ManagedFutureTask(Runnable runnable, V result, Object task) {
+            super(runnable, result);
+            this.task = task;
+        }
+    }
+}
@@ -66,6 +66,10 @@ public class OsRepositoryImplTest {
         preferences.node("/os/bados/derivedFrom").put("value", "nonExistingOs");
         preferences.node("/os/rhel8/id").put("value", "888");
         preferences.node("/os/rhel8/derivedFrom").put("value", "rhel7");
+        preferences.node("/os/rhel9/id").put("value", "889");
+        preferences.node("/os/rhel9/derivedFrom").put("value", "rhel8");
+        preferences.node("/os/rhel9/bus").put("value", "32");
+        preferences.node("/os/rhel9/resources/minimum/ram").put("value", "4096");
         preferences.node("/os/windows_8/id").put("value", "20");
         preferences.node("/backwardCompatibility").put("Windows8", "20");
         preferences.node("/os/windows_7/id").put("value", "11");
@@ -274,6 +278,22 @@ public class OsRepositoryImplTest {
         assertEquals(2048, OsRepositoryImpl.INSTANCE.getMinimumRam(888, Version.v4_3));
     }
 
+    @Test
+    public void testDerivedOverriddenValue() {
+        assertEquals(4096, OsRepositoryImpl.INSTANCE.getMinimumRam(889, null));
+        assertEquals(4096, OsRepositoryImpl.INSTANCE.getMinimumRam(889, Version.v4_3));
+        // the value of a version defined by a parent takes precedence over the default value of the derived os
+        assertEquals(1024, OsRepositoryImpl.INSTANCE.getMinimumRam(889, Version.v4_2));
+        assertEquals(Arrays.asList("e100", "pv"), OsRepositoryImpl.INSTANCE.getNetworkDevices(889, Version.v4_2));
+        assertEquals("RHEL 7", OsRepositoryImpl.INSTANCE.getOsName(889));
+    }
+
+    @Test
+    public void testUnknownOs() {
+        assertNull(OsRepositoryImpl.INSTANCE.getOsName(12345));
+        assertEquals("", OsRepositoryImpl.INSTANCE.getOsFamily(12345));
+    }
+
     @Test
     public void testBackwardCompatibility() {
         assertEquals(20, OsRepositoryImpl.INSTANCE.getOsIdByUniqueName("Windows8"));
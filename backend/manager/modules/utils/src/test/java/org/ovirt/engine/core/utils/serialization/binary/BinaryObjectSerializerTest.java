@@ -0,0 +1,128 @@
+package org.ovirt.engine.core.utils.serialization.binary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+
+import org.junit.jupiter.api.Test;
+import org.ovirt.engine.core.common.action.ActionType;
+import org.ovirt.engine.core.common.action.RunVmParams;
+import org.ovirt.engine.core.common.businessentities.InitializationType;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.utils.SerializationException;
+import org.ovirt.engine.core.utils.serialization.json.JsonObjectSerializer;
+import org.ovirt.engine.core.utils.serialization.json.JsonSerializablePojo;
+
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+/**
+ * Tests for {@link BinaryObjectSerializer} and {@link BinaryObjectDeserializer}.
+ */
+public class BinaryObjectSerializerTest {
+
+    private final BinaryObjectSerializer serializer = new BinaryObjectSerializer();
+    private final BinaryObjectDeserializer deserializer = new BinaryObjectDeserializer();
+
+    @Test
+    public void testSerializeDeserialize() {
+        JsonSerializablePojo serializablePojo = new JsonSerializablePojo();
+
+        String binary = serializer.serialize(serializablePojo);
+
+        assertTrue(binary.startsWith(BinaryObjectSerializer.PREFIX));
+        assertEquals(serializablePojo, deserializer.deserialize(binary, JsonSerializablePojo.class));
+    }
+
+    @Test
+    public void testNullSerialize() {
+        assertNull(serializer.serialize(null));
+        assertNull(deserializer.deserialize(null, JsonSerializablePojo.class));
+    }
+
+    @Test
+    public void testActionParameters() {
+        RunVmParams params = createRunVmParams();
+
+        RunVmParams deserialized = deserializer.deserialize(serializer.serialize(params), RunVmParams.class);
+
+        assertEquals(params, deserialized);
+        assertEquals(params.getCommandId(), deserialized.getCommandId());
+        assertEquals(params.getParentCommand(), deserialized.getParentCommand());
+    }
+
+    @Test
+    public void testDataMap() {
+        HashMap<String, Object> data = new HashMap<>();
+        data.put("name", "disk");
+        data.put("count", 42);
+        data.put("id", Guid.newGuid());
+
+        assertEquals(data, deserializer.deserialize(serializer.serialize(data), HashMap.class));
+    }
+
+    @Test
+    public void testJsonFallback() {
+        RunVmParams params = createRunVmParams();
+        String json = new JsonObjectSerializer().serialize(params);
+
+        assertEquals(params, deserializer.deserialize(json, RunVmParams.class));
+    }
+
+    @Test
+    public void testMoreCompactThanJson() {
+        RunVmParams params = createRunVmParams();
+
+        assertTrue(serializer.serialize(params).length() < new JsonObjectSerializer().serialize(params).length());
+    }
+
+    @Test
+    public void testEmbeddedValues() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        TokenBuffer tokens = new TokenBuffer(mapper, false);
+        tokens.writeStartArray();
+        tokens.writeEmbeddedObject(Collections.singletonMap("name", "disk"));
+        tokens.writeRawValue("{\"count\":42}");
+        tokens.writeEmbeddedObject(new byte[] { 1, 2, 3 });
+        tokens.writeEndArray();
+
+        TokenBuffer decoded = new TokenBuffer((ObjectCodec) null, false);
+        BinaryTokenCodec.decode(BinaryTokenCodec.encode(tokens.asParser()), decoded);
+
+        JsonNode node = mapper.readTree(decoded.asParser());
+        assertEquals("disk", node.get(0).get("name").asText());
+        assertEquals(42, node.get(1).get("count").asInt());
+        assertEquals(3, node.get(2).binaryValue().length);
+    }
+
+    @Test
+    public void testUnsupportedVersion() {
+        byte[] payload = serializer.serializeToBytes(createRunVmParams());
+        payload[0] = BinaryTokenCodec.FORMAT_VERSION + 1;
+
+        assertThrows(SerializationException.class, () -> deserializer.deserializeFromBytes(payload, RunVmParams.class));
+    }
+
+    @Test
+    public void testCorruptedEnvelope() {
+        assertThrows(SerializationException.class,
+                () -> deserializer.deserialize(BinaryObjectSerializer.PREFIX + "%%%", RunVmParams.class));
+    }
+
+    private static RunVmParams createRunVmParams() {
+        RunVmParams params = new RunVmParams(Guid.newGuid());
+        params.setCommandId(Guid.newGuid());
+        params.setParentCommand(ActionType.RunVmOnce);
+        params.setInitializationType(InitializationType.CloudInit);
+        params.setRunAsStateless(true);
+        params.setDiskPath("/rhev/data-center/mnt/iso/" + Guid.newGuid() + ".iso");
+        return params;
+    }
+}
@@ -0,0 +1,109 @@
+package org.ovirt.engine.core.utils.threadpool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class PerKeyConcurrencyLimiterTest {
+
+    private final PerKeyConcurrencyLimiter<String> limiter = new PerKeyConcurrencyLimiter<>(2);
+
+    @Test
+    public void testInvalidConcurrency() {
+        assertThrows(IllegalArgumentException.class, () -> new PerKeyConcurrencyLimiter<String>(0));
+    }
+
+    @Test
+    public void testPermitsAreReleased() throws InterruptedException {
+        try (PerKeyConcurrencyLimiter.Permit permit = limiter.acquire("host1")) {
+            assertEquals(1, limiter.availablePermits("host1"));
+            assertEquals(2, limiter.availablePermits("host2"));
+        }
+        assertEquals(2, limiter.availablePermits("host1"));
+    }
+
+    @Test
+    public void testPermitIsReleasedOnce() throws InterruptedException {
+        PerKeyConcurrencyLimiter.Permit permit = limiter.acquire("host1");
+        permit.close();
+        permit.close();
+        assertEquals(2, limiter.availablePermits("host1"));
+    }
+
+    @Test
+    public void testInterruptedWaitDoesNotTakePermit() throws Exception {
+        PerKeyConcurrencyLimiter<String> singleLimiter = new PerKeyConcurrencyLimiter<>(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (PerKeyConcurrencyLimiter.Permit permit = singleLimiter.acquire("host1")) {
+            Future<?> blocked = executor.submit(() -> singleLimiter.acquire("host1"));
+            Thread.sleep(100);
+            assertFalse(blocked.isDone());
+
+            executor.shutdownNow();
+            ExecutionException e = assertThrows(ExecutionException.class, () -> blocked.get(10, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof InterruptedException);
+            assertEquals(0, singleLimiter.availablePermits("host1"));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, singleLimiter.availablePermits("host1"));
+    }
+
+    @Test
+    public void testReentrantAcquire() throws InterruptedException {
+        try (PerKeyConcurrencyLimiter.Permit outer = limiter.acquire("host1")) {
+            try (PerKeyConcurrencyLimiter.Permit inner = limiter.acquire("host1")) {
+                assertEquals(1, limiter.availablePermits("host1"));
+            }
+            assertEquals(1, limiter.availablePermits("host1"));
+        }
+        assertEquals(2, limiter.availablePermits("host1"));
+    }
+
+    @Test
+    public void testWaitsForPermitOfSameKey() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        CountDownLatch acquired = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            for (int i = 0; i < 2; i++) {
+                executor.submit(() -> {
+                    try (PerKeyConcurrencyLimiter.Permit permit = limiter.acquire("host1")) {
+                        acquired.countDown();
+                        release.await();
+                    }
+                    return null;
+                });
+            }
+            assertTrue(acquired.await(10, TimeUnit.SECONDS));
+
+            Future<?> blocked = executor.submit(() -> {
+                try (PerKeyConcurrencyLimiter.Permit permit = limiter.acquire("host1")) {
+                    return null;
+                }
+            });
+            try (PerKeyConcurrencyLimiter.Permit permit = limiter.acquire("host2")) {
+                assertEquals(1, limiter.availablePermits("host2"));
+            }
+            Thread.sleep(100);
+            assertFalse(blocked.isDone());
+
+            release.countDown();
+            blocked.get(10, TimeUnit.SECONDS);
+            assertEquals(2, limiter.availablePermits("host1"));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+}
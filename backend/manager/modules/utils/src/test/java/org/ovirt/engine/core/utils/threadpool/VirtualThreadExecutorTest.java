@@ -0,0 +1,150 @@
+package org.ovirt.engine.core.utils.threadpool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.enterprise.concurrent.ManagedTask;
+import javax.enterprise.concurrent.ManagedTaskListener;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class VirtualThreadExecutorTest {
+
+    private static final ThreadLocal<Boolean> inTaskContext = new ThreadLocal<>();
+
+    private final AtomicInteger contextualTasks = new AtomicInteger();
+    private VirtualThreadExecutor executor;
+
+    @BeforeEach
+    public void setUp() {
+        assumeTrue(VirtualThreadExecutor.isSupported());
+        Executor taskContext = task -> {
+            contextualTasks.incrementAndGet();
+            inTaskContext.set(Boolean.TRUE);
+            try {
+                task.run();
+            } finally {
+                inTaskContext.remove();
+            }
+        };
+        executor = VirtualThreadExecutor.create("test-virtual-", taskContext);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testRunsTasksOnVirtualThreads() throws Exception {
+        Future<String> threadName = executor.submit(() -> Thread.currentThread().getName());
+        assertTrue(threadName.get(10, TimeUnit.SECONDS).startsWith("test-virtual-"));
+        assertTrue(executor.submit(VirtualThreadExecutor::isExecutorThread).get(10, TimeUnit.SECONDS));
+        assertFalse(VirtualThreadExecutor.isExecutorThread());
+    }
+
+    @Test
+    public void testRunsTasksInTaskContext() throws Exception {
+        assertTrue(executor.submit(() -> Boolean.TRUE.equals(inTaskContext.get())).get(10, TimeUnit.SECONDS));
+        assertEquals(1, contextualTasks.get());
+    }
+
+    @Test
+    public void testPropagatesContextClassLoader() throws Exception {
+        ClassLoader original = Thread.currentThread().getContextClassLoader();
+        ClassLoader classLoader = new URLClassLoader(new URL[0], original);
+        Thread.currentThread().setContextClassLoader(classLoader);
+        try {
+            Future<ClassLoader> taskClassLoader = executor.submit(() -> Thread.currentThread().getContextClassLoader());
+            assertEquals(classLoader, taskClassLoader.get(10, TimeUnit.SECONDS));
+        } finally {
+            Thread.currentThread().setContextClassLoader(original);
+        }
+    }
+
+    @Test
+    public void testNotifiesListenerOfManagedTask() throws Exception {
+        ManagedTaskListener listener = mock(ManagedTaskListener.class);
+        TestManagedTask task = new TestManagedTask(listener, null);
+
+        Future<?> future = executor.submit(task);
+        future.get(10, TimeUnit.SECONDS);
+
+        verify(listener).taskSubmitted(any(), isNull(), eq(task));
+        verify(listener, timeout(10000)).taskStarting(any(), isNull(), eq(task));
+        verify(listener, timeout(10000)).taskDone(any(), isNull(), eq(task), isNull());
+        verify(listener, never()).taskAborted(any(), any(), any(), any());
+    }
+
+    @Test
+    public void testNotifiesListenerOfFailedManagedTask() {
+        ManagedTaskListener listener = mock(ManagedTaskListener.class);
+        RuntimeException failure = new IllegalStateException("failure");
+        TestManagedTask task = new TestManagedTask(listener, failure);
+
+        executor.execute(task);
+
+        verify(listener, timeout(10000)).taskAborted(isNull(), isNull(), eq(task), eq(failure));
+        verify(listener, timeout(10000)).taskDone(isNull(), isNull(), eq(task), eq(failure));
+    }
+
+    @Test
+    public void testFailureOfSubmittedTask() {
+        Future<?> future = executor.submit(() -> {
+            throw new IllegalStateException("failure");
+        });
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof IllegalStateException);
+    }
+
+    private static class TestManagedTask implements Runnable, ManagedTask {
+
+        private final ManagedTaskListener listener;
+        private final RuntimeException failure;
+
+        TestManagedTask(ManagedTaskListener listener, RuntimeException failure) {
+            this.listener = listener;
+            this.failure = failure;
+        }
+
+        @Override
+        public void run() {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
+        @Override
+        public ManagedTaskListener getManagedTaskListener() {
+            return listener;
+        }
+
+        @Override
+        public Map<String, String> getExecutionProperties() {
+            return null;
+        }
+    }
+}
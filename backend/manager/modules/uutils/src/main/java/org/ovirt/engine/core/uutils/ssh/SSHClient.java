@@ -30,9 +30,11 @@ import org.apache.sshd.client.keyverifier.ServerKeyVerifier;
 import org.apache.sshd.client.session.ClientSession;
 import org.apache.sshd.client.session.ClientSession.ClientSessionEvent;
 import org.apache.sshd.common.NamedFactory;
+import org.apache.sshd.common.SshConstants;
 import org.apache.sshd.common.kex.extension.DefaultClientKexExtensionHandler;
 import org.apache.sshd.common.signature.BuiltinSignatures;
 import org.apache.sshd.common.signature.Signature;
+import org.apache.sshd.common.util.buffer.Buffer;
 import org.apache.sshd.core.CoreModuleProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,6 +45,8 @@ public class SSHClient implements Closeable {
 
     private static final Logger log = LoggerFactory.getLogger(SSHClient.class);
     private static final Duration HEARTBEAT = Duration.ofSeconds(2L);
+    private static final Duration HEARTBEAT_REPLY_WAIT = Duration.ofSeconds(10L);
+    private static final String KEEPALIVE_REQUEST = "keepalive@openssh.com";
 
     private SshClient client;
     private ClientSession session;
@@ -55,6 +59,9 @@ public class SSHClient implements Closeable {
     private int port = DEFAULT_SSH_PORT;
     private ServerKeyVerifier serverKeyVerifier = AcceptAllServerKeyVerifier.INSTANCE;
     private final List<NamedFactory<Signature>> expectedSignatures = new ArrayList<>();
+    private SSHSessionPool sessionPool;
+    private SSHSessionPool.PooledSession pooledSession;
+    private boolean sessionReusable = true;
 
     /**
      * Create the client for testing using org.mockito.Mockito.
@@ -82,6 +89,12 @@ public class SSHClient implements Closeable {
 
         sshClient.setKexExtensionHandler(new DefaultClientKexExtensionHandler());
         CoreModuleProperties.HEARTBEAT_INTERVAL.set(sshClient, HEARTBEAT);
+        if (sessionPool != null) {
+            // a pooled session outlives its client, the heartbeat is answered so a session to a host which went
+            // away is closed instead of being handed out
+            CoreModuleProperties.HEARTBEAT_REQUEST.set(sshClient, KEEPALIVE_REQUEST);
+            CoreModuleProperties.HEARTBEAT_REPLY_WAIT.set(sshClient, HEARTBEAT_REPLY_WAIT);
+        }
         return sshClient;
     }
 
@@ -141,6 +154,18 @@ public class SSHClient implements Closeable {
         this.keyPair = keyPair;
     }
 
+    /**
+     * Set session pool.
+     *
+     * @param sessionPool
+     *            pool to reuse authenticated sessions from, sessions authenticated by password are not pooled.
+     *
+     *            default is no pool.
+     */
+    public void setSessionPool(SSHSessionPool sessionPool) {
+        this.sessionPool = sessionPool;
+    }
+
     /**
      * Set host.
      *
@@ -246,6 +271,11 @@ public class SSHClient implements Closeable {
 
         log.debug("Connecting '{}'", this.getDisplayHost());
 
+        if (reusePooledSession()) {
+            log.debug("Reusing pooled session: '{}'", this.getDisplayHost());
+            return;
+        }
+
         try {
             client = createSshClient();
             client.setServerKeyVerifier(serverKeyVerifier);
@@ -297,6 +327,11 @@ public class SSHClient implements Closeable {
 
         log.debug("Authenticating: '{}'", this.getDisplayHost());
 
+        if (pooledSession != null) {
+            log.debug("Authenticated by pooled session: '{}'", this.getDisplayHost());
+            return;
+        }
+
         try {
             AuthFuture afuture;
             if (isKeyPairSet()) {
@@ -329,6 +364,10 @@ public class SSHClient implements Closeable {
             throw e;
         }
 
+        if (sessionPool != null && isKeyPairSet()) {
+            pooledSession = sessionPool.add(getPoolKey(), client, session);
+        }
+
         log.debug("Authenticated: '{}'", this.getDisplayHost());
     }
 
@@ -337,11 +376,74 @@ public class SSHClient implements Closeable {
     }
 
     /**
-     * Disconnect and cleanup.
+     * Use a pooled session instead of connecting, the host key of the session is verified as the key of a new
+     * connection.
+     *
+     * @return {@code true} if a pooled session is used.
+     */
+    private boolean reusePooledSession() {
+        if (sessionPool == null || !isKeyPairSet()) {
+            return false;
+        }
+        SSHSessionPool.PooledSession pooled = sessionPool.acquire(getPoolKey());
+        if (pooled == null) {
+            return false;
+        }
+        ClientSession pooledClientSession = pooled.getSession();
+        if (!isResponding(pooledClientSession) || !serverKeyVerifier.verifyServerKey(pooledClientSession,
+                pooledClientSession.getConnectAddress(),
+                pooledClientSession.getServerKey())) {
+            sessionPool.release(pooled, false);
+            return false;
+        }
+        pooledSession = pooled;
+        client = pooled.getClient();
+        session = pooledClientSession;
+        return true;
+    }
+
+    /**
+     * Check that the host still answers on a pooled session, which may be half open when the host crashed or was
+     * fenced since the session was last used.
+     *
+     * @return {@code true} if the host answered a keepalive request within the soft timeout.
+     */
+    private boolean isResponding(ClientSession pooledClientSession) {
+        try {
+            Buffer buffer = pooledClientSession.createBuffer(SshConstants.SSH_MSG_GLOBAL_REQUEST,
+                    KEEPALIVE_REQUEST.length() + Byte.SIZE);
+            buffer.putString(KEEPALIVE_REQUEST);
+            buffer.putBoolean(true);
+            // any answer, even a failure to handle the request, shows the connection is alive
+            pooledClientSession.request(KEEPALIVE_REQUEST, buffer, softTimeout);
+            return true;
+        } catch (Exception e) {
+            log.debug("Pooled session to '{}' does not respond: {}",
+                    this.getDisplayHost(),
+                    ExceptionUtils.getRootCauseMessage(e));
+            return false;
+        }
+    }
+
+    private SSHSessionPool.Key getPoolKey() {
+        return new SSHSessionPool.Key(host, port, user, OpenSSHUtils.getKeyFingerprint(keyPair.getPublic(), null));
+    }
+
+    /**
+     * Disconnect and cleanup, a pooled session is returned to its pool. A session on which a command failed is not
+     * handed out again.
      *
      * Must be called when done with client.
      */
     public void close() throws IOException {
+        if (pooledSession != null) {
+            // the session is kept open for the next client
+            sessionPool.release(pooledSession, sessionReusable);
+            pooledSession = null;
+            session = null;
+            client = null;
+            return;
+        }
         try {
             if (session != null) {
                 session.close(true);
@@ -392,6 +494,7 @@ public class SSHClient implements Closeable {
          * Redirect streams into indexed streams.
          */
         ClientChannel channel = null;
+        boolean executed = false;
         try (
                 final ProgressInputStream iin = new ProgressInputStream(in);
                 final ProgressOutputStream iout = new ProgressOutputStream(out);
@@ -483,20 +586,23 @@ public class SSHClient implements Closeable {
             // on close.
             out.flush();
             err.flush();
+            executed = true;
         } catch (RuntimeException e) {
             log.error("Execute failed {}", ExceptionUtils.getRootCauseMessage(e));
             log.debug("Exception", e);
             throw e;
         } finally {
+            if (!executed) {
+                sessionReusable = false;
+            }
             if (channel != null) {
-                Set<ClientChannelEvent> stat = channel.waitFor(
+                channel.waitFor(
                         EnumSet.of(
                                 ClientChannelEvent.CLOSED,
                                 ClientChannelEvent.TIMEOUT),
                         1);
-                if (stat.contains(ClientChannelEvent.CLOSED)) {
-                    channel.close(true);
-                }
+                // the session may be shared, a channel left open would count against the sessions limit of the host
+                channel.close(true);
             }
         }
 
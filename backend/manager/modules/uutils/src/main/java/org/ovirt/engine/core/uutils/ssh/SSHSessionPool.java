@@ -0,0 +1,278 @@
+package org.ovirt.engine.core.uutils.ssh;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.exception.ExceptionUtils;
+import org.apache.sshd.client.SshClient;
+import org.apache.sshd.client.session.ClientSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pool of authenticated SSH sessions.
+ *
+ * A session is kept open after its {@link SSHClient} is closed, so the next client connecting to the same host, port
+ * and user with the same key skips the key exchange and the authentication. A session is shared by up to
+ * maxChannelsPerSession clients at a time, each of them opening its own channels over the connection, and at most
+ * maxSessionsPerHost sessions are kept per host. Sessions which are idle for idleTimeout milliseconds and sessions
+ * closed by the host are closed and removed from the pool. A client checks that the host answers on a session before
+ * using it, and a session on which a command failed is not handed out again.
+ */
+public class SSHSessionPool implements Closeable {
+
+    /**
+     * Maximum number of clients sharing a session, same as the default MaxSessions of OpenSSH sshd.
+     */
+    public static final int DEFAULT_MAX_CHANNELS_PER_SESSION = 10;
+
+    private static final Logger log = LoggerFactory.getLogger(SSHSessionPool.class);
+
+    private final int maxSessionsPerHost;
+    private final int maxChannelsPerSession;
+    private final long idleTimeout;
+    private final Map<Key, List<PooledSession>> sessions = new HashMap<>();
+    private final ScheduledExecutorService evictor;
+
+    /**
+     * Constructor.
+     *
+     * @param maxSessionsPerHost
+     *            maximum number of sessions kept per host, port, user and key.
+     * @param maxChannelsPerSession
+     *            maximum number of clients sharing a session.
+     * @param idleTimeout
+     *            time in milliseconds after which an unused session is closed, must be positive.
+     */
+    public SSHSessionPool(int maxSessionsPerHost, int maxChannelsPerSession, long idleTimeout) {
+        this.maxSessionsPerHost = maxSessionsPerHost;
+        this.maxChannelsPerSession = maxChannelsPerSession;
+        this.idleTimeout = idleTimeout;
+        evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ssh-session-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor.scheduleWithFixedDelay(this::evictIdle, idleTimeout, idleTimeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Get a live session of the key which is not shared by too many clients.
+     *
+     * @return the session, {@code null} if there is none.
+     */
+    PooledSession acquire(Key key) {
+        List<PooledSession> closed = new ArrayList<>();
+        try {
+            synchronized (this) {
+                List<PooledSession> keySessions = sessions.getOrDefault(key, new ArrayList<>());
+                for (Iterator<PooledSession> i = keySessions.iterator(); i.hasNext();) {
+                    PooledSession pooled = i.next();
+                    if (!pooled.isAlive()) {
+                        if (pooled.users == 0) {
+                            i.remove();
+                            closed.add(pooled);
+                        }
+                    } else if (pooled.users < maxChannelsPerSession) {
+                        pooled.users++;
+                        return pooled;
+                    }
+                }
+                if (keySessions.isEmpty()) {
+                    sessions.remove(key);
+                }
+                return null;
+            }
+        } finally {
+            closed.forEach(PooledSession::close);
+        }
+    }
+
+    /**
+     * Add a newly authenticated session, which is used by its client until released.
+     *
+     * @return the pooled session, {@code null} if the host has the maximum number of sessions already and the
+     *         session is not pooled.
+     */
+    synchronized PooledSession add(Key key, SshClient client, ClientSession session) {
+        List<PooledSession> keySessions = sessions.computeIfAbsent(key, k -> new ArrayList<>());
+        if (keySessions.size() >= maxSessionsPerHost) {
+            return null;
+        }
+        PooledSession pooled = new PooledSession(key, client, session);
+        pooled.users++;
+        keySessions.add(pooled);
+        return pooled;
+    }
+
+    /**
+     * Release a session acquired or added by a client.
+     *
+     * @param reusable
+     *            {@code false} if the session must not be handed out again, it is closed once its last client
+     *            releases it.
+     */
+    void release(PooledSession pooled, boolean reusable) {
+        boolean close = false;
+        synchronized (this) {
+            pooled.users--;
+            pooled.idleSince = System.currentTimeMillis();
+            if (!reusable) {
+                pooled.reusable = false;
+            }
+            if (pooled.users == 0 && !pooled.isAlive()) {
+                close = remove(pooled);
+            }
+        }
+        if (close) {
+            pooled.close();
+        }
+    }
+
+    /**
+     * Close the sessions which are unused for longer than the idle timeout and the unused sessions closed by their
+     * hosts.
+     */
+    public void evictIdle() {
+        List<PooledSession> evicted = new ArrayList<>();
+        synchronized (this) {
+            long idleLimit = System.currentTimeMillis() - idleTimeout;
+            for (Iterator<List<PooledSession>> i = sessions.values().iterator(); i.hasNext();) {
+                List<PooledSession> keySessions = i.next();
+                for (Iterator<PooledSession> j = keySessions.iterator(); j.hasNext();) {
+                    PooledSession pooled = j.next();
+                    if (pooled.users == 0 && (pooled.idleSince <= idleLimit || !pooled.isAlive())) {
+                        j.remove();
+                        evicted.add(pooled);
+                    }
+                }
+                if (keySessions.isEmpty()) {
+                    i.remove();
+                }
+            }
+        }
+        if (!evicted.isEmpty()) {
+            log.debug("Closing {} idle SSH sessions", evicted.size());
+            evicted.forEach(PooledSession::close);
+        }
+    }
+
+    /**
+     * Get the number of pooled sessions.
+     *
+     * @return number of sessions, including the ones in use.
+     */
+    public synchronized int getSessionCount() {
+        return sessions.values().stream().mapToInt(List::size).sum();
+    }
+
+    /**
+     * Close all the sessions, including the ones in use.
+     */
+    @Override
+    public void close() {
+        evictor.shutdownNow();
+        List<PooledSession> closed = new ArrayList<>();
+        synchronized (this) {
+            sessions.values().forEach(closed::addAll);
+            sessions.clear();
+        }
+        closed.forEach(PooledSession::close);
+    }
+
+    private boolean remove(PooledSession pooled) {
+        List<PooledSession> keySessions = sessions.get(pooled.key);
+        if (keySessions == null || !keySessions.remove(pooled)) {
+            return false;
+        }
+        if (keySessions.isEmpty()) {
+            sessions.remove(pooled.key);
+        }
+        return true;
+    }
+
+    /**
+     * Identity of the sessions which are interchangeable.
+     */
+    static final class Key {
+        private final String host;
+        private final int port;
+        private final String user;
+        private final String keyFingerprint;
+
+        Key(String host, int port, String user, String keyFingerprint) {
+            this.host = host;
+            this.port = port;
+            this.user = user;
+            this.keyFingerprint = keyFingerprint;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return port == other.port
+                    && Objects.equals(host, other.host)
+                    && Objects.equals(user, other.user)
+                    && Objects.equals(keyFingerprint, other.keyFingerprint);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(host, port, user, keyFingerprint);
+        }
+    }
+
+    /**
+     * An authenticated session and the client owning its connection. Guarded by the pool.
+     */
+    static final class PooledSession {
+        private final Key key;
+        private final SshClient client;
+        private final ClientSession session;
+        private int users;
+        private long idleSince;
+        private boolean reusable = true;
+
+        private PooledSession(Key key, SshClient client, ClientSession session) {
+            this.key = key;
+            this.client = client;
+            this.session = session;
+        }
+
+        SshClient getClient() {
+            return client;
+        }
+
+        ClientSession getSession() {
+            return session;
+        }
+
+        private boolean isAlive() {
+            return reusable && session.isOpen() && !session.isClosing() && session.isAuthenticated();
+        }
+
+        private void close() {
+            try {
+                session.close(true);
+                client.stop();
+            } catch (Exception e) {
+                log.error("Failed to close pooled session {}", ExceptionUtils.getRootCauseMessage(e));
+                log.debug("Exception", e);
+            }
+        }
+    }
+}
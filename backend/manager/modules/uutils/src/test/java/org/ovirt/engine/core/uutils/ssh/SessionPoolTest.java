@@ -0,0 +1,231 @@
+package org.ovirt.engine.core.uutils.ssh;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import javax.naming.TimeLimitExceededException;
+
+import org.apache.sshd.common.session.Session;
+import org.apache.sshd.common.session.SessionListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Session pool tests.
+ *
+ * The connections, each of them doing a key exchange and an authentication, are counted by the internal daemon.
+ */
+public class SessionPoolTest extends TestCommon {
+    static final String helloCommand = "echo test";
+    static final String helloResult = "test\n";
+    static final int clients = 20;
+    static final int maxSessionsPerHost = 2;
+    static final int maxChannelsPerSession = 5;
+
+    private final AtomicInteger connections = new AtomicInteger();
+    private final SessionListener connectionCounter = new SessionListener() {
+        @Override
+        public void sessionCreated(Session session) {
+            connections.incrementAndGet();
+        }
+    };
+    private SSHSessionPool pool;
+
+    @BeforeEach
+    public void setUp() {
+        assumeTrue(TestCommon.sshd != null, "Connections are counted by the internal daemon only");
+        TestCommon.sshd.sshd.addSessionListener(connectionCounter);
+        pool = new SSHSessionPool(maxSessionsPerHost, maxChannelsPerSession, TimeUnit.MINUTES.toMillis(1));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+        if (TestCommon.sshd != null) {
+            TestCommon.sshd.sshd.removeSessionListener(connectionCounter);
+        }
+    }
+
+    @Test
+    public void testSessionIsReused() throws Exception {
+        long connectTime = 0;
+        for (int i = 0; i < clients; i++) {
+            connectTime += execute(null, helloCommand);
+        }
+        assertEquals(clients, connections.get());
+
+        long pooledConnectTime = 0;
+        for (int i = 0; i < clients; i++) {
+            pooledConnectTime += execute(pool, helloCommand);
+        }
+        assertEquals(clients + 1, connections.get());
+        assertEquals(1, pool.getSessionCount());
+        assertTrue(pooledConnectTime < connectTime,
+                String.format("Connecting %1$d clients took %2$d ms with the pool and %3$d ms without it",
+                        clients,
+                        TimeUnit.NANOSECONDS.toMillis(pooledConnectTime),
+                        TimeUnit.NANOSECONDS.toMillis(connectTime)));
+    }
+
+    @Test
+    public void testChannelsAreMultiplexed() throws Exception {
+        openSessions(maxSessionsPerHost);
+        assertEquals(maxSessionsPerHost, connections.get());
+        assertEquals(maxSessionsPerHost, pool.getSessionCount());
+
+        int concurrentClients = maxSessionsPerHost * maxChannelsPerSession;
+        ExecutorService executor = Executors.newFixedThreadPool(concurrentClients);
+        try {
+            long start = System.currentTimeMillis();
+            List<Future<Long>> results = new ArrayList<>();
+            for (int i = 0; i < concurrentClients; i++) {
+                results.add(executor.submit(() -> execute(pool, "sleep 1; " + helloCommand)));
+            }
+            for (Future<Long> result : results) {
+                result.get(1, TimeUnit.MINUTES);
+            }
+            long duration = System.currentTimeMillis() - start;
+
+            assertEquals(maxSessionsPerHost, connections.get());
+            assertTrue(duration < TimeUnit.SECONDS.toMillis(concurrentClients / 2),
+                    String.format("Running %1$d commands took %2$d ms", concurrentClients, duration));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSessionsPerHostAreLimited() throws Exception {
+        openSessions(maxSessionsPerHost + 1);
+        assertEquals(maxSessionsPerHost + 1, connections.get());
+        assertEquals(maxSessionsPerHost, pool.getSessionCount());
+    }
+
+    @Test
+    public void testIdleSessionIsEvicted() throws Exception {
+        pool.close();
+        pool = new SSHSessionPool(maxSessionsPerHost, maxChannelsPerSession, 100);
+        execute(pool, helloCommand);
+        assertEquals(1, pool.getSessionCount());
+
+        waitFor(() -> pool.getSessionCount() == 0);
+        execute(pool, helloCommand);
+        assertEquals(2, connections.get());
+    }
+
+    @Test
+    public void testClosedSessionIsNotReused() throws Exception {
+        execute(pool, helloCommand);
+        TestCommon.sshd.sshd.getActiveSessions().forEach(session -> session.close(true));
+
+        waitFor(() -> {
+            pool.evictIdle();
+            return pool.getSessionCount() == 0;
+        });
+        execute(pool, helloCommand);
+        assertEquals(2, connections.get());
+    }
+
+    @Test
+    public void testSessionOfTimedOutCommandIsNotReused() throws Exception {
+        try (final SSHClient client = createClient(pool)) {
+            client.setSoftTimeout(500);
+            client.connect();
+            client.authenticate();
+            assertThrows(TimeLimitExceededException.class,
+                    () -> client.executeCommand("sleep 5", null, null, null));
+        }
+        assertEquals(0, pool.getSessionCount());
+
+        execute(pool, helloCommand);
+        assertEquals(2, connections.get());
+    }
+
+    @Test
+    public void testPasswordSessionIsNotPooled() throws Exception {
+        try (final SSHClient client = createClient(pool)) {
+            client.setKeyPair(null);
+            client.setPassword(TestCommon.password);
+            client.connect();
+            client.authenticate();
+            client.executeCommand(helloCommand, null, null, null);
+        }
+        assertEquals(0, pool.getSessionCount());
+    }
+
+    private SSHClient createClient(SSHSessionPool pool) {
+        SSHClient client = new SSHClient();
+        client.setSoftTimeout(30 * 1000);
+        client.setHardTimeout(5 * 60 * 1000);
+        client.setHost(TestCommon.host, TestCommon.port);
+        client.setUser(TestCommon.user);
+        client.setKeyPair(TestCommon.keyPair);
+        client.setSessionPool(pool);
+        return client;
+    }
+
+    /**
+     * Run the command with a new client.
+     *
+     * @return the time taken to connect and authenticate, in nanoseconds.
+     */
+    private long execute(SSHSessionPool pool, String command) throws Exception {
+        try (
+                final SSHClient client = createClient(pool);
+                final ByteArrayOutputStream out = new ConstraintByteArrayOutputStream(500)) {
+            long start = System.nanoTime();
+            client.connect();
+            client.authenticate();
+            long connectTime = System.nanoTime() - start;
+            client.executeCommand(command, null, out, null);
+            assertEquals(helloResult, new String(out.toByteArray(), StandardCharsets.UTF_8));
+            return connectTime;
+        }
+    }
+
+    /**
+     * Open sessions to the host at the same time, so none of them is shared, and return them to the pool.
+     */
+    private void openSessions(int count) throws Exception {
+        List<SSHClient> sessionClients = new ArrayList<>();
+        try {
+            for (int i = 0; i < count; i++) {
+                SSHClient client = createClient(pool);
+                sessionClients.add(client);
+                client.connect();
+            }
+            for (SSHClient client : sessionClients) {
+                client.authenticate();
+            }
+        } finally {
+            for (SSHClient client : sessionClients) {
+                client.close();
+            }
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long end = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < end, "Timed out waiting for the pool");
+            Thread.sleep(50);
+        }
+    }
+}
@@ -64,10 +64,24 @@ public class NetworkImplementationDetailsUtils {
     }
 
     public Set<VdsNetworkInterface> getAllInterfacesOutOfSync(Guid clusterId) {
+        return getInterfacesOutOfSync(clusterId, interfaceDao.getAllInterfacesByClusterId(clusterId));
+    }
+
+    /**
+     * @return the interfaces of the given hosts of the cluster which are out of sync with the cluster networks
+     */
+    public Set<VdsNetworkInterface> getInterfacesOutOfSync(Guid clusterId, Collection<Guid> vdsIds) {
+        List<VdsNetworkInterface> interfaces = vdsIds.stream()
+                .flatMap(vdsId -> interfaceDao.getAllInterfacesForVds(vdsId).stream())
+                .collect(Collectors.toList());
+        return getInterfacesOutOfSync(clusterId, interfaces);
+    }
+
+    private Set<VdsNetworkInterface> getInterfacesOutOfSync(Guid clusterId, Collection<VdsNetworkInterface> interfaces) {
         Map<String, Network> clusterNetworksByName = networkDao.getNetworksForCluster(clusterId);
         Map<Guid, HostNetworkQos> qosByNetworkId = calcQosByNetworkIdMap(clusterNetworksByName.values());
         Cluster cluster = clusterDao.get(clusterId);
-        return interfaceDao.getAllInterfacesByClusterId(clusterId)
+        return interfaces
                 .stream()
                 .filter(iface -> clusterNetworksByName.get(iface.getNetworkName()) != null)
                 .filter(iface -> {
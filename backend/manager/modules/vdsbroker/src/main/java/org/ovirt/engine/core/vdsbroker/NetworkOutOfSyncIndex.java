@@ -0,0 +1,237 @@
+package org.ovirt.engine.core.vdsbroker;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.ovirt.engine.core.common.businessentities.VdsStatic;
+import org.ovirt.engine.core.common.businessentities.network.Network;
+import org.ovirt.engine.core.common.businessentities.network.VdsNetworkInterface;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.dao.VdsStaticDao;
+import org.ovirt.engine.core.dao.network.NetworkDao;
+import org.ovirt.engine.core.utils.transaction.TransactionSuccessListener;
+import org.ovirt.engine.core.utils.transaction.TransactionSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps, per cluster, the networks of each host which are out of sync with their definition, so the sync status of a
+ * cluster does not have to be calculated for all of its hosts whenever it is queried. It also keeps the networks of
+ * each cluster, which the sync status is checked against.
+ * <p>
+ * The sync status of a host is recalculated when the host is marked as changed, e.g. once it reported new
+ * capabilities or joined the cluster. The sync status of all the hosts of a cluster is recalculated when the cluster,
+ * or the networks or QoS of any cluster, are marked as changed, which the flows changing them have to do. The changes
+ * are versioned, so a calculation that runs concurrently with a change is redone by the next query.
+ */
+@Singleton
+public class NetworkOutOfSyncIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(NetworkOutOfSyncIndex.class);
+
+    private final NetworkImplementationDetailsUtils networkImplementationDetailsUtils;
+    private final VdsStaticDao vdsStaticDao;
+    private final NetworkDao networkDao;
+
+    private final Map<Guid, ClusterIndex> clusters = new ConcurrentHashMap<>();
+    /**
+     * The version of the network and QoS definitions, which are shared by the clusters.
+     */
+    private final AtomicLong definitionsVersion = new AtomicLong();
+
+    @Inject
+    public NetworkOutOfSyncIndex(NetworkImplementationDetailsUtils networkImplementationDetailsUtils,
+            VdsStaticDao vdsStaticDao,
+            NetworkDao networkDao) {
+        this.networkImplementationDetailsUtils = Objects.requireNonNull(networkImplementationDetailsUtils);
+        this.vdsStaticDao = Objects.requireNonNull(vdsStaticDao);
+        this.networkDao = Objects.requireNonNull(networkDao);
+    }
+
+    /**
+     * Marks the network configuration of the given host as changed, its sync status is recalculated by the next query
+     * of its cluster. A host which was indexed in another cluster is dropped from it.
+     */
+    public void hostChanged(Guid vdsId, Guid clusterId) {
+        runNowAndAfterCommit(() -> {
+            clusters.forEach((id, index) -> {
+                if (!id.equals(clusterId) && index.hosts.containsKey(vdsId)) {
+                    index.version.incrementAndGet();
+                }
+            });
+            getClusterIndex(clusterId).changedHosts.add(vdsId);
+        });
+    }
+
+    /**
+     * Drops the given host from the index.
+     */
+    public void hostRemoved(Guid vdsId) {
+        runNowAndAfterCommit(() -> clusters.values().forEach(index -> {
+            if (index.hosts.containsKey(vdsId) || index.changedHosts.contains(vdsId)) {
+                index.version.incrementAndGet();
+            }
+        }));
+    }
+
+    /**
+     * Marks the given cluster or the attachment of networks to it as changed, the sync status of all of its hosts is
+     * recalculated by its next query.
+     */
+    public void clusterChanged(Guid clusterId) {
+        runNowAndAfterCommit(() -> getClusterIndex(clusterId).version.incrementAndGet());
+    }
+
+    public void clusterRemoved(Guid clusterId) {
+        runNowAndAfterCommit(() -> clusters.remove(clusterId));
+    }
+
+    /**
+     * Marks the definitions of networks or QoS as changed, the sync status of the hosts of all the clusters is
+     * recalculated by their next query.
+     */
+    public void networksChanged() {
+        runNowAndAfterCommit(definitionsVersion::incrementAndGet);
+    }
+
+    /**
+     * @return the networks attached to the given cluster, which must not be modified
+     */
+    public List<Network> getClusterNetworks(Guid clusterId) {
+        ClusterIndex index = getClusterIndex(clusterId);
+        long definitions = definitionsVersion.get();
+        long version = index.version.get();
+        ClusterNetworks networks = index.networks;
+        if (networks == null || networks.definitionsVersion != definitions || networks.version != version) {
+            networks = new ClusterNetworks(definitions,
+                    version,
+                    Collections.unmodifiableList(networkDao.getAllForCluster(clusterId)));
+            index.networks = networks;
+        }
+        return networks.networks;
+    }
+
+    /**
+     * @return the ids of the hosts of the given cluster which have networks out of sync
+     */
+    public Set<Guid> getOutOfSyncHosts(Guid clusterId) {
+        return new HashSet<>(getOutOfSyncNetworksByHost(clusterId).keySet());
+    }
+
+    /**
+     * @return the names of the out of sync networks by the ids of the hosts of the given cluster having such networks
+     */
+    public Map<Guid, Set<String>> getOutOfSyncNetworksByHost(Guid clusterId) {
+        ClusterIndex index = getClusterIndex(clusterId);
+        synchronized (index) {
+            long definitions = definitionsVersion.get();
+            long version = index.version.get();
+            if (!index.loaded || index.loadedDefinitionsVersion != definitions || index.loadedVersion != version) {
+                // the changes of the hosts are included by the full calculation
+                index.changedHosts.clear();
+                Set<Guid> members = vdsStaticDao.getAllForCluster(clusterId)
+                        .stream()
+                        .map(VdsStatic::getId)
+                        .collect(Collectors.toSet());
+                index.load(definitions,
+                        version,
+                        members,
+                        networkImplementationDetailsUtils.getAllInterfacesOutOfSync(clusterId));
+                log.debug("Calculated the network sync status of all the {} hosts of cluster '{}'",
+                        members.size(),
+                        clusterId);
+            } else {
+                Set<Guid> changed = new HashSet<>();
+                for (Iterator<Guid> iterator = index.changedHosts.iterator(); iterator.hasNext();) {
+                    changed.add(iterator.next());
+                    iterator.remove();
+                }
+                if (!changed.isEmpty()) {
+                    index.update(changed,
+                            networkImplementationDetailsUtils.getInterfacesOutOfSync(clusterId, changed));
+                    log.debug("Recalculated the network sync status of {} hosts of cluster '{}'",
+                            changed.size(),
+                            clusterId);
+                }
+            }
+            return index.getOutOfSyncNetworksByHost();
+        }
+    }
+
+    private ClusterIndex getClusterIndex(Guid clusterId) {
+        return clusters.computeIfAbsent(clusterId, id -> new ClusterIndex());
+    }
+
+    /**
+     * Applies a change right away, and again once the transaction of the caller, if there is one, is committed, so a
+     * calculation made before the commit doesn't keep the old state.
+     */
+    private static void runNowAndAfterCommit(Runnable change) {
+        change.run();
+        if (TransactionSupport.current() != null) {
+            TransactionSupport.registerRollbackHandler((TransactionSuccessListener) change::run);
+        }
+    }
+
+    private static class ClusterIndex {
+        /**
+         * The version of the cluster and of its network attachments, it is also changed when a host leaves it.
+         */
+        private final AtomicLong version = new AtomicLong();
+        private final Set<Guid> changedHosts = ConcurrentHashMap.newKeySet();
+        private final Map<Guid, Set<String>> hosts = new ConcurrentHashMap<>();
+        private volatile ClusterNetworks networks;
+
+        // guarded by the index
+        private boolean loaded;
+        private long loadedDefinitionsVersion;
+        private long loadedVersion;
+
+        void load(long definitionsVersion, long version, Set<Guid> members, Set<VdsNetworkInterface> outOfSync) {
+            this.loaded = true;
+            this.loadedDefinitionsVersion = definitionsVersion;
+            this.loadedVersion = version;
+            hosts.clear();
+            update(members, outOfSync);
+        }
+
+        void update(Set<Guid> vdsIds, Set<VdsNetworkInterface> outOfSync) {
+            Map<Guid, Set<String>> networksByHost = outOfSync.stream()
+                    .collect(Collectors.groupingBy(VdsNetworkInterface::getVdsId,
+                            Collectors.mapping(VdsNetworkInterface::getNetworkName, Collectors.toSet())));
+            for (Guid vdsId : vdsIds) {
+                hosts.put(vdsId, networksByHost.getOrDefault(vdsId, Collections.emptySet()));
+            }
+        }
+
+        Map<Guid, Set<String>> getOutOfSyncNetworksByHost() {
+            return hosts.entrySet()
+                    .stream()
+                    .filter(entry -> !entry.getValue().isEmpty())
+                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        }
+    }
+
+    private static class ClusterNetworks {
+        private final long definitionsVersion;
+        private final long version;
+        private final List<Network> networks;
+
+        ClusterNetworks(long definitionsVersion, long version, List<Network> networks) {
+            this.definitionsVersion = definitionsVersion;
+            this.version = version;
+            this.networks = networks;
+        }
+    }
+}
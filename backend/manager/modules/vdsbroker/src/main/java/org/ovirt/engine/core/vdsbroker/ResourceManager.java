@@ -53,6 +53,7 @@ import org.ovirt.engine.core.dao.network.VmNetworkStatisticsDao;
 import org.ovirt.engine.core.di.Injector;
 import org.ovirt.engine.core.utils.ReflectionUtils;
 import org.ovirt.engine.core.utils.threadpool.ThreadPools;
+import org.ovirt.engine.core.vdsbroker.monitoring.HostMonitoringScheduler;
 import org.ovirt.engine.core.vdsbroker.monitoring.HostMonitoringWatchdog;
 import org.ovirt.engine.core.vdsbroker.vdsbroker.FutureVDSCommand;
 import org.ovirt.engine.core.vdsbroker.vdsbroker.VdsCommandExecutor;
@@ -78,6 +79,7 @@ public class ResourceManager implements BackendService {
     private int eventTimeoutInHours = Config.getValue(ConfigValues.EventPurgeTimeoutInHours);
 
     private HostMonitoringWatchdog hostMonitoringWatchdog;
+    private HostMonitoringScheduler hostMonitoringScheduler;
 
     @Inject
     private Instance<IVdsEventListener> eventListener;
@@ -104,6 +106,8 @@ public class ResourceManager implements BackendService {
     private void init() {
         log.info("Start initializing {}", getClass().getSimpleName());
         populateVdsAndVmsList();
+        hostMonitoringScheduler = new HostMonitoringScheduler(executor);
+        hostMonitoringScheduler.start();
 
         // Populate the VDS dictionary
         final List<VDS> allVdsList = hostDao.getAll();
@@ -486,6 +490,10 @@ public class ResourceManager implements BackendService {
         return executor;
     }
 
+    public HostMonitoringScheduler getHostMonitoringScheduler() {
+        return hostMonitoringScheduler;
+    }
+
     public Map<String, Pair<String, String>> getVdsPoolAndStorageConnectionsLock(Guid vdsId) {
         return getEventListener().getVdsPoolAndStorageConnectionsLock(vdsId);
     }
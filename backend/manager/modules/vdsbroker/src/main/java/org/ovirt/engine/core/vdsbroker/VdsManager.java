@@ -157,11 +157,20 @@ public class VdsManager {
     private final AtomicInteger unrespondedAttempts;
     private final Guid vdsId;
     private final VdsMonitor vdsMonitor = new VdsMonitor();
-    private VDS cachedVds;
+    private volatile VDS cachedVds;
+    /**
+     * A copy of the cached host which is shared by the readers that don't modify it. A new copy is published when a
+     * monitoring cycle ends and when the cached host is changed outside of a monitoring cycle, so the readers never see
+     * a host that a monitoring cycle changed only in part.
+     */
+    private volatile VDS vdsSnapshot;
+    /**
+     * Whether a monitoring cycle is changing the cached host, guarded by this manager.
+     */
+    private boolean monitoringCycleInProgress;
     private long lastUpdate;
     private long updateStartTime;
     private long nextMaintenanceAttemptTime;
-    private List<ScheduledFuture> registeredJobs;
     private volatile boolean isSetNonOperationalExecuted;
     private MonitoringStrategy monitoringStrategy;
     private EngineLock monitoringLock;
@@ -191,6 +200,7 @@ public class VdsManager {
         refreshIteration = new AtomicInteger(NUMBER_HOST_REFRESHES_BEFORE_SAVE - 1);
         log.info("Entered VdsManager constructor");
         cachedVds = vds;
+        vdsSnapshot = vds.clone();
         vmsSharedCpusCount = cachedVds.getVmsCoresCount();
         vdsId = vds.getId();
         unrespondedAttempts = new AtomicInteger();
@@ -203,7 +213,6 @@ public class VdsManager {
         monitoringStrategy = monitoringStrategyFactory.getMonitoringStrategyForVds(cachedVds);
         monitoringLock = new EngineLock(Collections.singletonMap(vdsId.toString(),
                 new Pair<>(LockingGroup.VDS_INIT.name(), "")), null);
-        registeredJobs = new ArrayList<>();
         handlePreviousStatus();
         handleSecureSetup();
         initVdsBroker();
@@ -230,16 +239,11 @@ public class VdsManager {
         } else {
             cachedVds.setPreviousStatus(VDSStatus.Up);
         }
+        publishVdsSnapshot();
     }
 
     public void scheduleJobs() {
-        long refreshRate = Config.<Long> getValue(ConfigValues.VdsRefreshRate) * 1000;
-
-        registeredJobs.add(executor.scheduleWithFixedDelay(
-                this::refresh,
-                refreshRate,
-                refreshRate,
-                TimeUnit.MILLISECONDS));
+        resourceManager.getHostMonitoringScheduler().register(this);
 
         vmsRefresher = getRefresherFactory().createVmStatsRefresher(this, resourceManager);
         vmsRefresher.startMonitoring();
@@ -326,6 +330,7 @@ public class VdsManager {
                 throw t;
             } finally {
                 if (releaseLock) {
+                    endMonitoringCycle();
                     lockManager.releaseLock(monitoringLock);
                 }
             }
@@ -354,6 +359,7 @@ public class VdsManager {
         final String hostName = cachedVds != null ? cachedVds.getHostName() : "n/a";
         if (!succeeded) {
             log.debug("[{}] Host monitoring refresh not succeeded. Releasing monitoring lock", hostName);
+            endMonitoringCycle();
             lockManager.releaseLock(monitoringLock);
             return;
         }
@@ -401,6 +407,7 @@ public class VdsManager {
             log.error("Timer update runtime info failed. Exception: {}", ExceptionUtils.getRootCauseMessage(e));
             log.debug("Exception:", e);
         } finally {
+            endMonitoringCycle();
             lockManager.releaseLock(monitoringLock);
         }
     }
@@ -418,6 +425,22 @@ public class VdsManager {
 
     private void refreshCachedVds() {
         cachedVds = vdsDao.get(getVdsId());
+        monitoringCycleInProgress = true;
+    }
+
+    /**
+     * Publishes a new snapshot of the cached host, unless a monitoring cycle is in progress, which publishes it when
+     * the cycle ends.
+     */
+    private synchronized void publishVdsSnapshot() {
+        if (!monitoringCycleInProgress && cachedVds != null) {
+            vdsSnapshot = cachedVds.clone();
+        }
+    }
+
+    private synchronized void endMonitoringCycle() {
+        monitoringCycleInProgress = false;
+        publishVdsSnapshot();
     }
 
     /**
@@ -427,6 +450,18 @@ public class VdsManager {
         return cachedVds.clone();
     }
 
+    /**
+     * Returns a copy of the internal VDS which is shared with the other callers of this method. It is taken when the
+     * last monitoring cycle ended, or when the internal VDS was last changed outside of a monitoring cycle, and is
+     * never changed afterwards. Unlike {@link #getCopyVds()} the host isn't copied on every call, so this should be
+     * preferred by callers that only read the host.
+     *
+     * @return a copy of the internal VDS, which must not be modified
+     */
+    public VDS getVdsSnapshot() {
+        return vdsSnapshot;
+    }
+
     public VDSStatus getStatus() {
         return cachedVds.getStatus();
     }
@@ -528,16 +563,19 @@ public class VdsManager {
     public void updateDynamicData(VdsDynamic dynamicData) {
         vdsDynamicDao.updateIfNeeded(dynamicData);
         cachedVds.setDynamicData(dynamicData);
+        publishVdsSnapshot();
     }
 
     public void updatePartialDynamicData(NonOperationalReason nonOperationalReason, String maintenanceReason) {
         cachedVds.getDynamicData().setNonOperationalReason(nonOperationalReason);
         cachedVds.getDynamicData().setMaintenanceReason(maintenanceReason);
+        publishVdsSnapshot();
         vdsDynamicDao.updateStatusAndReasons(cachedVds.getDynamicData());
     }
 
     public void updateUpdateAvailable(boolean updatesAvailable) {
         cachedVds.getDynamicData().setUpdateAvailable(updatesAvailable);
+        publishVdsSnapshot();
         vdsDynamicDao.updateUpdateAvailable(cachedVds.getId(), updatesAvailable);
     }
 
@@ -547,6 +585,7 @@ public class VdsManager {
     public void updateStatisticsData(VdsStatistics statisticsData) {
         vdsStatisticsDao.update(statisticsData);
         cachedVds.setStatisticsData(statisticsData);
+        publishVdsSnapshot();
 
         statisticsData.getCpuCoreStatistics().stream().forEach(statistics -> {
             cpuTopology.stream()
@@ -719,6 +758,7 @@ public class VdsManager {
                 if (status == VDSStatus.PreparingForMaintenance) {
                     calculateNextMaintenanceAttemptTime();
                 }
+                resourceManager.getHostMonitoringScheduler().activity(getVdsId());
                 vds.setPreviousStatus(vds.getStatus());
                 if (this.cachedVds != null) {
                     this.cachedVds.setPreviousStatus(vds.getStatus());
@@ -770,6 +810,7 @@ public class VdsManager {
             default:
                 break;
             }
+            publishVdsSnapshot();
         }
     }
 
@@ -1026,9 +1067,7 @@ public class VdsManager {
     public void dispose() {
         log.info("vdsManager::disposing");
 
-        for (ScheduledFuture job : registeredJobs) {
-            job.cancel(true);
-        }
+        resourceManager.getHostMonitoringScheduler().unregister(getVdsId());
 
         if (vmsRefresher != null) {
             vmsRefresher.stopMonitoring();
@@ -71,7 +71,7 @@ public class VmManager {
 
     private Double lastStatusEventTimestamp;
     private Guid lastStatusEventReporterId;
-    private VmStatistics statistics;
+    private volatile VmStatistics statistics;
 
     private boolean coldReboot;
 
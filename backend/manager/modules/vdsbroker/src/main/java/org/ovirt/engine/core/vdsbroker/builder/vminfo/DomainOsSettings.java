@@ -0,0 +1,66 @@
+package org.ovirt.engine.core.vdsbroker.builder.vminfo;
+
+import java.util.Objects;
+
+import org.ovirt.engine.core.common.businessentities.ChipsetType;
+import org.ovirt.engine.core.compat.Version;
+
+/**
+ * The settings of the domain XML that are derived from osinfo, which are the same for all the VMs with the same
+ * operating system, compatibility version and chipset.
+ */
+public class DomainOsSettings {
+
+    private final boolean hypervEnabled;
+    private final String cdInterface;
+    private final boolean legacyVirtio;
+
+    DomainOsSettings(boolean hypervEnabled, String cdInterface, boolean legacyVirtio) {
+        this.hypervEnabled = hypervEnabled;
+        this.cdInterface = cdInterface;
+        this.legacyVirtio = legacyVirtio;
+    }
+
+    public boolean isHypervEnabled() {
+        return hypervEnabled;
+    }
+
+    public String getCdInterface() {
+        return cdInterface;
+    }
+
+    public boolean isLegacyVirtio() {
+        return legacyVirtio;
+    }
+
+    static class Key {
+        private final int osId;
+        private final Version version;
+        private final ChipsetType chipset;
+
+        Key(int osId, Version version, ChipsetType chipset) {
+            this.osId = osId;
+            this.version = version;
+            this.chipset = chipset;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return osId == other.osId
+                    && Objects.equals(version, other.version)
+                    && chipset == other.chipset;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(osId, version, chipset);
+        }
+    }
+}
@@ -8,6 +8,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -117,6 +118,16 @@ public class LibvirtVmXmlBuilder {
     private static final String SCSI_BLOCK = "scsi_block";
     public static final String SCSI_VIRTIO_BLK_PCI = "virtio_blk_pci";
     public static final List<String> SCSI_HOST_DEV_DRIVERS = Arrays.asList(SCSI_HD, SCSI_BLOCK, SCSI_VIRTIO_BLK_PCI);
+    /** The initial buffer size of a complete domain XML, large enough for most VMs */
+    private static final int DOMAIN_XML_INITIAL_CAPACITY = 16 * 1024;
+    /** The initial buffer size of a partial XML for hot-(un)plugging a device */
+    private static final int DEVICE_XML_INITIAL_CAPACITY = 1024;
+    private static final Map<ArchitectureType, String> EMULATORS = new EnumMap<>(ArchitectureType.class);
+    static {
+        for (ArchitectureType arch : ArchitectureType.values()) {
+            EMULATORS.put(arch, emulatorPath(arch));
+        }
+    }
 
     private VmInfoBuildUtils vmInfoBuildUtils;
 
@@ -141,6 +152,7 @@ public class LibvirtVmXmlBuilder {
     private MemoizingSupplier<VdsStatistics> hostStatisticsSupplier;
     private MemoizingSupplier<List<VdsNumaNode>> hostNumaNodesSupplier;
     private MemoizingSupplier<List<VmNumaNode>> vmNumaNodesSupplier;
+    private MemoizingSupplier<Map<String, Object>> numaTuneSettingSupplier;
     private MemoizingSupplier<VgpuPlacement> hostVgpuPlacementSupplier;
     private MemoizingSupplier<String> tscFrequencySupplier;
     private MemoizingSupplier<String> cpuFlagsSupplier;
@@ -177,7 +189,7 @@ public class LibvirtVmXmlBuilder {
         this.vdsCpuThreads = vdsCpuThreads;
         this.volatileRun = volatileRun;
         this.passthroughVnicToVfMap = passthroughVnicToVfMap;
-        init(vm, vmInfoBuildUtils, hostId);
+        init(vm, vmInfoBuildUtils, hostId, DOMAIN_XML_INITIAL_CAPACITY);
     }
 
     /**
@@ -194,7 +206,7 @@ public class LibvirtVmXmlBuilder {
         this.passthroughVnicToVfMap = passthroughVnicToVfMap;
         this.nic = nic;
         this.device = device;
-        init(vm, vmInfoBuildUtils, hostId);
+        init(vm, vmInfoBuildUtils, hostId, DEVICE_XML_INITIAL_CAPACITY);
     }
 
     /**
@@ -208,7 +220,7 @@ public class LibvirtVmXmlBuilder {
             VmInfoBuildUtils vmInfoBuildUtils) {
         this.disk = disk;
         this.device = device;
-        init(vm, vmInfoBuildUtils, hostId);
+        init(vm, vmInfoBuildUtils, hostId, DEVICE_XML_INITIAL_CAPACITY);
     }
 
     /**
@@ -219,10 +231,10 @@ public class LibvirtVmXmlBuilder {
     public LibvirtVmXmlBuilder(
             VM vm,
             VmInfoBuildUtils vmInfoBuildUtils) {
-        init(vm, vmInfoBuildUtils, null);
+        init(vm, vmInfoBuildUtils, null, DOMAIN_XML_INITIAL_CAPACITY);
     }
 
-    private void init(VM vm, VmInfoBuildUtils vmInfoBuildUtils, Guid hostId) {
+    private void init(VM vm, VmInfoBuildUtils vmInfoBuildUtils, Guid hostId, int xmlInitialCapacity) {
         this.vm = vm;
         this.vmInfoBuildUtils = vmInfoBuildUtils;
         payloadIndex = -1;
@@ -230,15 +242,17 @@ public class LibvirtVmXmlBuilder {
         vnicMetadata = new HashMap<>();
         diskMetadata = new HashMap<>();
         mdevMetadata = new HashMap<>();
-        hypervEnabled = vmInfoBuildUtils.isHypervEnabled(vm.getVmOsId(), vm.getCompatibilityVersion());
         emulatedMachine = vm.getEmulatedMachine() != null ?
                 vm.getEmulatedMachine()
                 : vmInfoBuildUtils.getEmulatedMachineByClusterArch(vm.getClusterArch());
-        cdInterface = vmInfoBuildUtils.getCdInterface(
+        DomainOsSettings osSettings = vmInfoBuildUtils.getDomainOsSettings(
                 vm.getOs(),
                 vm.getCompatibilityVersion(),
                 ChipsetType.fromMachineType(emulatedMachine));
-        writer = new XmlTextWriter();
+        hypervEnabled = osSettings.isHypervEnabled();
+        cdInterface = osSettings.getCdInterface();
+        legacyVirtio = osSettings.isLegacyVirtio();
+        writer = new XmlTextWriter(xmlInitialCapacity);
         qosCache = new HashMap<>();
         vmCustomProperties = VmPropertiesUtils.getInstance().getVMProperties(
                 vm.getCompatibilityVersion(),
@@ -268,7 +282,11 @@ public class LibvirtVmXmlBuilder {
         }
         vmDevicesSupplier = new MemoizingSupplier<>(() -> vmInfoBuildUtils.getVmDevices(vm.getId()));
         vmNumaNodesSupplier = new MemoizingSupplier<>(() -> vmInfoBuildUtils.getVmNumaNodes(vm));
-        legacyVirtio = vmInfoBuildUtils.isLegacyVirtio(vm.getVmOsId(), ChipsetType.fromMachineType(emulatedMachine));
+        numaTuneSettingSupplier = new MemoizingSupplier<>(() -> {
+            Map<String, Object> numaTuneSetting =
+                    NumaSettingFactory.buildVmNumatuneSetting(vm, vmNumaNodesSupplier.get());
+            return numaTuneSetting.isEmpty() ? null : numaTuneSetting;
+        });
     }
 
     public String buildCreateVm() {
@@ -609,13 +627,7 @@ public class LibvirtVmXmlBuilder {
     }
 
     private Map<String, Object> getNumaTuneSetting() {
-        Map<String, Object> numaTuneSetting = NumaSettingFactory.buildVmNumatuneSetting(
-                vm, vmNumaNodesSupplier.get());
-        if (numaTuneSetting.isEmpty()) {
-            return null;
-        }
-
-        return numaTuneSetting;
+        return numaTuneSettingSupplier.get();
     }
 
     private void writeNumaTune() {
@@ -1548,10 +1560,15 @@ public class LibvirtVmXmlBuilder {
 
     public void writeEmulator() {
         writer.writeStartElement("emulator");
-        writer.writeAttributeString("text", String.format("/usr/bin/qemu-system-%s", vm.getClusterArch()));
+        ArchitectureType arch = vm.getClusterArch();
+        writer.writeAttributeString("text", arch != null ? EMULATORS.get(arch) : emulatorPath(null));
         writer.writeEndElement();
     }
 
+    private static String emulatorPath(ArchitectureType arch) {
+        return String.format("/usr/bin/qemu-system-%s", arch);
+    }
+
     private void writeIommu() {
         if (VmInfoBuildUtils.isVmWithHighNumberOfX86Vcpus(vm)) {
             writer.writeStartElement("iommu");
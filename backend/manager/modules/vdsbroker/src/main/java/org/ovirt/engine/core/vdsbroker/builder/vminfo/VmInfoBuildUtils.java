@@ -19,6 +19,7 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -174,6 +175,11 @@ public class VmInfoBuildUtils {
     private final VmDevicesMonitoring vmDevicesMonitoring;
     private final VmSerialNumberBuilder vmSerialNumberBuilder;
     private final MultiQueueUtils multiQueueUtils;
+    /**
+     * The osinfo derived settings of the domain XML. The osinfo repository is loaded once when the engine starts, so
+     * the settings are never invalidated.
+     */
+    private final Map<DomainOsSettings.Key, DomainOsSettings> domainOsSettings = new ConcurrentHashMap<>();
 
     private static final String BLOCK_DOMAIN_DISK_PATH = "/rhev/data-center/mnt/blockSD/%s/images/%s/%s";
     private static final String FILE_DOMAIN_DISK_PATH = "/rhev/data-center/%s/%s/images/%s/%s";
@@ -1400,6 +1406,13 @@ public class VmInfoBuildUtils {
         return osRepository.requiresLegacyVirtio(osId, chipset);
     }
 
+    public DomainOsSettings getDomainOsSettings(int osId, Version version, ChipsetType chipset) {
+        return domainOsSettings.computeIfAbsent(new DomainOsSettings.Key(osId, version, chipset),
+                key -> new DomainOsSettings(isHypervEnabled(osId, version),
+                        getCdInterface(osId, version, chipset),
+                        isLegacyVirtio(osId, chipset)));
+    }
+
     public boolean isOvirtGuestAgent(int osId) {
         return osRepository.requiresOvirtGuestAgentChannel(osId);
     }
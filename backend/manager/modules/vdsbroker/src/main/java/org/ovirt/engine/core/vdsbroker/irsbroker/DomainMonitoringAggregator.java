@@ -0,0 +1,223 @@
+package org.ovirt.engine.core.vdsbroker.irsbroker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.ovirt.engine.core.common.businessentities.StorageDomain;
+import org.ovirt.engine.core.common.businessentities.StorageDomainStatic;
+import org.ovirt.engine.core.common.businessentities.StorageDomainStatus;
+import org.ovirt.engine.core.common.businessentities.StoragePool;
+import org.ovirt.engine.core.common.config.Config;
+import org.ovirt.engine.core.common.config.ConfigValues;
+import org.ovirt.engine.core.common.eventqueue.Event;
+import org.ovirt.engine.core.common.eventqueue.EventQueue;
+import org.ovirt.engine.core.common.eventqueue.EventResult;
+import org.ovirt.engine.core.common.eventqueue.EventType;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.dao.StorageDomainDao;
+import org.ovirt.engine.core.dao.StoragePoolDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Aggregates the domain monitoring reports of the hosts of a storage pool.
+ * <p>
+ * Every report is checked against the status of the pool and of its domains. Those are read at most once per host
+ * monitoring interval and shared by the reports of all the hosts, rather than read again for each report. They are
+ * read again as soon as the engine changes the statuses of the domains, see {@link IrsProxy#domainStatusesChanged()}.
+ * <p>
+ * The outcome of each report is applied to the caches of the problematic domains in the event queue of the pool, as
+ * before. Reports which arrive while a previous report is waiting in the queue are applied by the same event, in the
+ * order they arrived, keeping only the latest report of each host.
+ */
+class DomainMonitoringAggregator {
+
+    private static final Logger log = LoggerFactory.getLogger(DomainMonitoringAggregator.class);
+
+    private final Guid storagePoolId;
+    private final StoragePoolDao storagePoolDao;
+    private final StorageDomainDao storageDomainDao;
+    private final EventQueue eventQueue;
+    private final long refreshInterval;
+    private final Map<Guid, Runnable> pendingReports = new LinkedHashMap<>();
+    private boolean applyScheduled;
+    private volatile PoolDomains poolDomains;
+
+    DomainMonitoringAggregator(Guid storagePoolId,
+            StoragePoolDao storagePoolDao,
+            StorageDomainDao storageDomainDao,
+            EventQueue eventQueue) {
+        this.storagePoolId = storagePoolId;
+        this.storagePoolDao = storagePoolDao;
+        this.storageDomainDao = storageDomainDao;
+        this.eventQueue = eventQueue;
+        this.refreshInterval = TimeUnit.SECONDS.toMillis(Config.<Long> getValue(ConfigValues.VdsRefreshRate));
+    }
+
+    /**
+     * Returns the pool and its domains, as read during the current monitoring interval.
+     */
+    PoolDomains getPoolDomains() {
+        PoolDomains current = poolDomains;
+        if (current != null && !current.isExpired()) {
+            return current;
+        }
+        synchronized (this) {
+            current = poolDomains;
+            if (current == null || current.isExpired()) {
+                current = loadPoolDomains();
+                poolDomains = current;
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Returns a domain of the pool if it was read already, without reading the pool.
+     */
+    StorageDomainStatic getKnownDomain(Guid domainId) {
+        PoolDomains current = poolDomains;
+        return current == null ? null : current.getDomain(domainId);
+    }
+
+    /**
+     * Forgets the pool and its domains, so they are read again for the next report.
+     */
+    void invalidate() {
+        poolDomains = null;
+    }
+
+    /**
+     * Applies the report of a host in the event queue of the pool. The report replaces any report of the host which
+     * was not applied yet.
+     *
+     * @param vdsId
+     *            the reporting host
+     * @param report
+     *            updates the caches of the problematic domains according to the report
+     */
+    void submitReport(Guid vdsId, Runnable report) {
+        synchronized (pendingReports) {
+            pendingReports.remove(vdsId);
+            pendingReports.put(vdsId, report);
+            if (applyScheduled) {
+                return;
+            }
+            applyScheduled = true;
+        }
+
+        AtomicBoolean applied = new AtomicBoolean();
+        try {
+            eventQueue.submitEventSync(new Event(storagePoolId, null, vdsId, EventType.DOMAINMONITORING, ""),
+                    () -> {
+                        applied.set(true);
+                        applyPendingReports();
+                        return new EventResult(true, EventType.DOMAINMONITORING);
+                    });
+        } finally {
+            if (!applied.get()) {
+                // the event was skipped, as during a reconstruct, so are the reports it would have applied
+                synchronized (pendingReports) {
+                    pendingReports.clear();
+                    applyScheduled = false;
+                }
+            }
+        }
+    }
+
+    private void applyPendingReports() {
+        List<Runnable> reports;
+        synchronized (pendingReports) {
+            reports = new ArrayList<>(pendingReports.values());
+            pendingReports.clear();
+            // reports arriving from now on are applied by a new event
+            applyScheduled = false;
+        }
+        if (reports.size() > 1) {
+            log.debug("Applying {} domain monitoring reports of pool '{}'", reports.size(), storagePoolId);
+        }
+        for (Runnable report : reports) {
+            try {
+                report.run();
+            } catch (RuntimeException ex) {
+                log.error("error applying domain monitoring report: {}", ex.getMessage());
+                log.debug("Exception", ex);
+            }
+        }
+    }
+
+    private PoolDomains loadPoolDomains() {
+        StoragePool storagePool = storagePoolDao.get(storagePoolId);
+        List<StorageDomain> domains = storagePool == null
+                ? Collections.emptyList()
+                : storageDomainDao.getAllForStoragePool(storagePoolId);
+        return new PoolDomains(storagePool, domains, System.currentTimeMillis() + refreshInterval);
+    }
+
+    /**
+     * A storage pool and the statuses of its domains, excluding Cinder and managed block storage domains which are
+     * not monitored by the hosts.
+     */
+    static final class PoolDomains {
+        private final StoragePool storagePool;
+        private final Map<Guid, StorageDomainStatic> domains = new HashMap<>();
+        private final ConcurrentMap<Guid, StorageDomainStatus> statuses = new ConcurrentHashMap<>();
+        private final long expiration;
+
+        private PoolDomains(StoragePool storagePool, List<StorageDomain> storageDomains, long expiration) {
+            this.storagePool = storagePool;
+            this.expiration = expiration;
+            for (StorageDomain storageDomain : storageDomains) {
+                if (storageDomain.getStorageType().isCinderDomain()
+                        || storageDomain.getStorageType().isManagedBlockStorage()) {
+                    continue;
+                }
+                domains.put(storageDomain.getId(), storageDomain.getStorageStaticData());
+                if (storageDomain.getStatus() != null) {
+                    statuses.put(storageDomain.getId(), storageDomain.getStatus());
+                }
+            }
+        }
+
+        StoragePool getStoragePool() {
+            return storagePool;
+        }
+
+        StorageDomainStatic getDomain(Guid domainId) {
+            return domains.get(domainId);
+        }
+
+        Set<Guid> getDomainIds(StorageDomainStatus status) {
+            Set<Guid> domainIds = new HashSet<>();
+            statuses.forEach((domainId, domainStatus) -> {
+                if (domainStatus == status) {
+                    domainIds.add(domainId);
+                }
+            });
+            return domainIds;
+        }
+
+        /**
+         * Records a status change of a domain done while handling a report, so the change is done once.
+         *
+         * @return {@code true} if the domain had the expected status
+         */
+        boolean updateStatus(Guid domainId, StorageDomainStatus expected, StorageDomainStatus status) {
+            return statuses.replace(domainId, expected, status);
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() >= expiration;
+        }
+    }
+}
@@ -40,6 +40,12 @@ public interface IrsProxy {
 
     void clearCache();
 
+    /**
+     * Called after the engine changed the statuses of domains of the pool, so the domain monitoring does not handle
+     * the next reports of the hosts according to the previous statuses.
+     */
+    void domainStatusesChanged();
+
     String getIsoDirectory();
 
     void setFencedIrs(Guid fencedIrs);
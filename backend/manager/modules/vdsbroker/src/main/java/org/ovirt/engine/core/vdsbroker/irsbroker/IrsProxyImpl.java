@@ -85,6 +85,7 @@ import org.ovirt.engine.core.utils.lock.EngineLock;
 import org.ovirt.engine.core.utils.lock.LockManager;
 import org.ovirt.engine.core.utils.threadpool.ThreadPoolUtil;
 import org.ovirt.engine.core.utils.threadpool.ThreadPools;
+import org.ovirt.engine.core.utils.transaction.TransactionSuccessListener;
 import org.ovirt.engine.core.utils.transaction.TransactionSupport;
 import org.ovirt.engine.core.vdsbroker.ResourceManager;
 import org.ovirt.engine.core.vdsbroker.TransportFactory;
@@ -219,6 +220,7 @@ public class IrsProxyImpl implements IrsProxy {
 
     @PostConstruct
     public void init() {
+        domainMonitoring = new DomainMonitoringAggregator(storagePoolId, storagePoolDao, storageDomainDao, eventQueue);
         long storagePoolRefreshTime = Config.<Long> getValue(ConfigValues.StoragePoolRefreshTimeInSeconds);
         storagePoolRefreshJob = schedulerService.scheduleWithFixedDelay(this::updatingTimerElapsed,
                 storagePoolRefreshTime,
@@ -401,6 +403,8 @@ public class IrsProxyImpl implements IrsProxy {
         }
 
         domainsInMaintenanceCheck(domainsInDb, storagePool);
+        // the statuses of the domains might have been updated from the SPM
+        domainMonitoring.invalidate();
     }
 
     /**
@@ -445,6 +449,7 @@ public class IrsProxyImpl implements IrsProxy {
                                 storagePoolIsoMapDao.updateStatus(
                                         domain.getStoragePoolIsoMapData().getId(),
                                         StorageDomainStatus.Maintenance);
+                                domainMonitoring.invalidate();
                                 AuditLogable logable = new AuditLogableImpl();
                                 logable.setStorageDomainId(domain.getId());
                                 logable.setStorageDomainName(domain.getName());
@@ -1186,7 +1191,8 @@ public class IrsProxyImpl implements IrsProxy {
     private final Map<Guid, Set<Guid>> _domainsInMaintenance = new ConcurrentHashMap<>();
     private final Map<Guid, Guid> vdsReportsOnUnseenDomain = new ConcurrentHashMap<>();
     private final Map<Guid, Guid> vdsHandeledReportsOnUnseenDomains = new ConcurrentHashMap<>();
-    private final Map<Guid, ScheduledFuture> timersMap = new HashMap<>();
+    private final Map<Guid, ScheduledFuture> timersMap = new ConcurrentHashMap<>();
+    private DomainMonitoringAggregator domainMonitoring;
 
     @Override
     public void updateVdsDomainsData(VDS vds,
@@ -1195,8 +1201,8 @@ public class IrsProxyImpl implements IrsProxy {
             return;
         }
 
-        StoragePool storagePool =
-                storagePoolDao.get(storagePoolId);
+        DomainMonitoringAggregator.PoolDomains poolDomains = domainMonitoring.getPoolDomains();
+        StoragePool storagePool = poolDomains.getStoragePool();
         if (storagePool != null
                 && (storagePool.getStatus() == StoragePoolStatus.Up
                 || storagePool.getStatus() == StoragePoolStatus.NonResponsive)) {
@@ -1216,12 +1222,13 @@ public class IrsProxyImpl implements IrsProxy {
                             handleMonitoredDomainsForHost(vdsId,
                                     vdsName,
                                     data,
-                                    monitoredDomains);
+                                    monitoredDomains,
+                                    poolDomains);
                 }
 
                 Set<Guid> domainsInMaintenance = Collections.emptySet();
                 if (StoragePoolDomainHelper.vdsDomainsMaintenanceMonitoringStatus.contains(vds.getStatus())) {
-                    domainsInMaintenance = handleDomainsInMaintenanceForHost(monitoredDomains);
+                    domainsInMaintenance = handleDomainsInMaintenanceForHost(monitoredDomains, poolDomains);
                 }
 
                 updateDomainInProblem(vdsId, vdsName, domainsProblematicReportInfo, domainsInMaintenance);
@@ -1245,16 +1252,15 @@ public class IrsProxyImpl implements IrsProxy {
      * The methods inspects which domains status can be changed to Maintenance according to the host
      * domains report.
      * @param monitoredDomains domains that the host monitors
+     * @param poolDomains the domains in pool
      * @return domains that are not monitored by the host and are in
      * @link StorageDomainStatus#Maintenance or @link StorageDomainStatus#PreparingForMaintenance.
      */
-    private Set<Guid> handleDomainsInMaintenanceForHost(Collection<Guid> monitoredDomains) {
+    private Set<Guid> handleDomainsInMaintenanceForHost(Collection<Guid> monitoredDomains,
+            DomainMonitoringAggregator.PoolDomains poolDomains) {
         Set<Guid>  domainsInMaintenance = new HashSet<>();
-        Set<Guid> maintInPool = new HashSet<>(
-                storageDomainStaticDao.getAllIds(
-                        storagePoolId, StorageDomainStatus.Maintenance));
-        maintInPool.addAll(storageDomainStaticDao.getAllIds(
-                storagePoolId, StorageDomainStatus.PreparingForMaintenance));
+        Set<Guid> maintInPool = poolDomains.getDomainIds(StorageDomainStatus.Maintenance);
+        maintInPool.addAll(poolDomains.getDomainIds(StorageDomainStatus.PreparingForMaintenance));
 
         for (Guid tempDomainId : maintInPool) {
             if (!monitoredDomains.contains(tempDomainId)) {
@@ -1271,17 +1277,14 @@ public class IrsProxyImpl implements IrsProxy {
      * the host reporting is problematic for.
      */
     private Map<Guid, DomainMonitoringResult> handleMonitoredDomainsForHost(final Guid vdsId, final String vdsName,
-            final ArrayList<VDSDomainsData> data, Collection<Guid> monitoredDomains) {
+            final ArrayList<VDSDomainsData> data, Collection<Guid> monitoredDomains,
+            DomainMonitoringAggregator.PoolDomains poolDomains) {
         Map<Guid, DomainMonitoringResult> domainsProblematicReportInfo = new HashMap<>();
         // build a list of all domains in pool
         // which are in status Active or Unknown
-        Set<Guid> activeDomainsInPool = new HashSet<>(
-                storageDomainStaticDao.getAllIds(
-                        storagePoolId, StorageDomainStatus.Active));
-        Set<Guid> unknownDomainsInPool = new HashSet<>(storageDomainStaticDao.getAllIds(
-                storagePoolId, StorageDomainStatus.Unknown));
-        Set<Guid> inActiveDomainsInPool =
-                new HashSet<>(storageDomainStaticDao.getAllIds(storagePoolId, StorageDomainStatus.Inactive));
+        Set<Guid> activeDomainsInPool = poolDomains.getDomainIds(StorageDomainStatus.Active);
+        Set<Guid> unknownDomainsInPool = poolDomains.getDomainIds(StorageDomainStatus.Unknown);
+        Set<Guid> inActiveDomainsInPool = poolDomains.getDomainIds(StorageDomainStatus.Inactive);
 
         // build a list of all the domains in
         // pool (activeDomainsInPool and unknownDomainsInPool) that are not
@@ -1306,7 +1309,7 @@ public class IrsProxyImpl implements IrsProxy {
         // and are contained in the Active or
         // Unknown domains in pool
         for (VDSDomainsData tempData : data) {
-            StorageDomainStatic storageDomain = storageDomainStaticDao.get(tempData.getDomainId());
+            StorageDomainStatic storageDomain = poolDomains.getDomain(tempData.getDomainId());
             if (activeDomainsInPool.contains(tempData.getDomainId()) || unknownDomainsInPool.contains(tempData.getDomainId())) {
                 DomainMonitoringResult domainMonitoringResult = analyzeDomainReport(tempData, false);
                 if (domainMonitoringResult.invalidAndActual()) {
@@ -1315,7 +1318,11 @@ public class IrsProxyImpl implements IrsProxy {
                     logDelayedDomain(vdsName, storageDomain.getName(), tempData.getDelay());
                 }
             } else if (inActiveDomainsInPool.contains(tempData.getDomainId())
-                    && analyzeDomainReport(tempData, false).validAndActual()) {
+                    && analyzeDomainReport(tempData, false).validAndActual()
+                    // another host might have reported the domain as active already
+                    && poolDomains.updateStatus(tempData.getDomainId(),
+                            StorageDomainStatus.Inactive,
+                            StorageDomainStatus.Active)) {
                 log.warn("Storage Domain '{}' was reported by Host '{}' as Active in Pool '{}', moving to active status",
                         getDomainIdTuple(tempData.getDomainId()),
                         vdsName,
@@ -1341,13 +1348,10 @@ public class IrsProxyImpl implements IrsProxy {
 
     private void updateDomainInProblem(final Guid vdsId, final String vdsName, final Map<Guid, DomainMonitoringResult> domainsInProblem,
                                        final Set<Guid> domainsInMaintenance) {
-        getEventQueue().submitEventSync(new Event(storagePoolId,
-                null, vdsId, EventType.DOMAINMONITORING, ""),
+        domainMonitoring.submitReport(vdsId,
                 () -> {
-                    EventResult result = new EventResult(true, EventType.DOMAINMONITORING);
                     updateProblematicVdsData(vdsId, vdsName, domainsInProblem);
                     updateMaintenanceVdsData(vdsId, vdsName, domainsInMaintenance);
-                    return result;
                 });
     }
 
@@ -1857,6 +1861,16 @@ public class IrsProxyImpl implements IrsProxy {
         domainsInProblem.clear();
     }
 
+    @Override
+    public void domainStatusesChanged() {
+        domainMonitoring.invalidate();
+
+        // A report handled before the transaction is committed would read the previous statuses again
+        if (TransactionSupport.current() != null) {
+            TransactionSupport.registerRollbackHandler((TransactionSuccessListener) domainMonitoring::invalidate);
+        }
+    }
+
     @Override
     public void clearPoolTimers() {
         log.info("clear domain error-timers for pool '{}'.", storagePoolId);
@@ -1907,7 +1921,10 @@ public class IrsProxyImpl implements IrsProxy {
        }
     }
     private String getDomainIdTuple(Guid domainId) {
-        StorageDomainStatic storage_domain = storageDomainStaticDao.get(domainId);
+        StorageDomainStatic storage_domain = domainMonitoring.getKnownDomain(domainId);
+        if (storage_domain == null) {
+            storage_domain = storageDomainStaticDao.get(domainId);
+        }
         if (storage_domain != null) {
             return domainId + ":" + storage_domain.getStorageName();
         } else {
@@ -60,6 +60,18 @@ public class IrsProxyManager implements BackendService {
         return irsProxyData.get(storagePoolId);
     }
 
+    /**
+     * Lets the IRS proxy of the pool know that the engine changed the statuses of domains of the pool.
+     *
+     * @see IrsProxy#domainStatusesChanged()
+     */
+    public void domainStatusesChanged(Guid storagePoolId) {
+        IrsProxy proxy = storagePoolId == null ? null : getProxy(storagePoolId);
+        if (proxy != null) {
+            proxy.domainStatusesChanged();
+        }
+    }
+
     public void removeProxy(Guid storagePoolId) {
         irsProxyData.get(storagePoolId).dispose();
         irsProxyData.remove(storagePoolId);
@@ -133,6 +145,10 @@ public class IrsProxyManager implements BackendService {
         public void clearCache() {
         }
 
+        @Override
+        public void domainStatusesChanged() {
+        }
+
         @Override
         public String getIsoDirectory() {
             return null;
@@ -0,0 +1,323 @@
+package org.ovirt.engine.core.vdsbroker.monitoring;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.apache.commons.lang.exception.ExceptionUtils;
+import org.ovirt.engine.core.common.businessentities.VDSStatus;
+import org.ovirt.engine.core.common.config.Config;
+import org.ovirt.engine.core.common.config.ConfigValues;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.utils.EngineLocalConfig;
+import org.ovirt.engine.core.vdsbroker.VdsManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Schedules the periodic refresh of all the hosts on a single hashed timing wheel, instead of a scheduled job per host.
+ * <p>
+ * The hosts are spread evenly over the refresh interval when registered and each of their refreshes is shifted by a
+ * small random jitter, so the refreshes of many hosts do not fire in bursts. Hosts in maintenance are refreshed less
+ * frequently until activity is reported for them, hosts in any other status, including non responsive and transitional
+ * ones, are refreshed every interval. The number of refreshes running concurrently is bounded, a refresh which can not
+ * start or complete within its interval is reported with its lag.
+ */
+public class HostMonitoringScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(HostMonitoringScheduler.class);
+
+    private static final int WHEEL_SIZE = 512;
+    private static final double GOLDEN_RATIO_FRACTION = 0.6180339887498949;
+
+    private final ScheduledExecutorService executor;
+    private final Executor dispatcher;
+    private final LongSupplier clock;
+    private final Random random;
+    private final long intervalMillis;
+    private final long tickMillis;
+    private final int maintenanceFactor;
+    private final double jitterFraction;
+    private final Semaphore refreshPermits;
+
+    private final List<List<WheelEntry>> wheel = new ArrayList<>(WHEEL_SIZE);
+    private final Map<Guid, HostEntry> hosts = new ConcurrentHashMap<>();
+    private final AtomicLong registrations = new AtomicLong();
+    private final long startMillis;
+    private long processedTick;
+
+    public HostMonitoringScheduler(ScheduledExecutorService executor) {
+        this(executor,
+                executor,
+                System::currentTimeMillis,
+                new Random(),
+                Config.<Long> getValue(ConfigValues.VdsRefreshRate) * 1000,
+                EngineLocalConfig.getInstance().getLong("HOST_MONITORING_TICK_IN_MILLIS", 100L),
+                EngineLocalConfig.getInstance().getInteger("HOST_MONITORING_MAX_CONCURRENT_REFRESHES", 50),
+                EngineLocalConfig.getInstance().getInteger("HOST_MONITORING_MAINTENANCE_INTERVAL_FACTOR", 5),
+                EngineLocalConfig.getInstance().getInteger("HOST_MONITORING_JITTER_PERCENT", 10) / 100.0);
+    }
+
+    // visible for testing
+    HostMonitoringScheduler(ScheduledExecutorService executor,
+            Executor dispatcher,
+            LongSupplier clock,
+            Random random,
+            long intervalMillis,
+            long tickMillis,
+            int maxConcurrentRefreshes,
+            int maintenanceFactor,
+            double jitterFraction) {
+        this.executor = executor;
+        this.dispatcher = dispatcher;
+        this.clock = clock;
+        this.random = random;
+        this.intervalMillis = intervalMillis;
+        this.tickMillis = Math.max(1, tickMillis);
+        this.maintenanceFactor = Math.max(1, maintenanceFactor);
+        this.jitterFraction = Math.min(Math.max(jitterFraction, 0), 0.5);
+        this.refreshPermits = new Semaphore(Math.max(1, maxConcurrentRefreshes));
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel.add(new ArrayList<>());
+        }
+        startMillis = clock.getAsLong();
+    }
+
+    public void start() {
+        log.info("Starting host monitoring scheduler, refresh interval {}ms, tick {}ms, at most {} concurrent refreshes",
+                intervalMillis,
+                tickMillis,
+                refreshPermits.availablePermits());
+        executor.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts refreshing the given host, replacing a previous registration of the same host. The first refresh is
+     * scheduled within the refresh interval, at an offset keeping the hosts registered so far evenly spread.
+     */
+    public void register(VdsManager vdsManager) {
+        HostEntry entry = new HostEntry(vdsManager);
+        HostEntry previous = hosts.put(vdsManager.getVdsId(), entry);
+        if (previous != null) {
+            previous.cancelled = true;
+        }
+        double position = (registrations.getAndIncrement() * GOLDEN_RATIO_FRACTION) % 1;
+        schedule(entry, clock.getAsLong() + (long) (position * intervalMillis));
+    }
+
+    /**
+     * Stops refreshing the given host, interrupting its refresh if one is running.
+     */
+    public void unregister(Guid vdsId) {
+        HostEntry entry = hosts.remove(vdsId);
+        if (entry != null) {
+            synchronized (entry) {
+                entry.cancelled = true;
+                if (entry.refreshThread != null) {
+                    entry.refreshThread.interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Reports activity on the given host, e.g. a change of its status, so it is refreshed within the refresh interval
+     * regardless of its status.
+     */
+    public void activity(Guid vdsId) {
+        HostEntry entry = hosts.get(vdsId);
+        if (entry == null) {
+            return;
+        }
+        entry.active = true;
+        long dueMillis = clock.getAsLong() + intervalMillis + jitter(intervalMillis);
+        synchronized (wheel) {
+            if (!entry.running && entry.dueMillis > dueMillis) {
+                schedule(entry, dueMillis);
+            }
+        }
+    }
+
+    /**
+     * @return how late the last refresh of the given host started, in milliseconds
+     */
+    public long getLag(Guid vdsId) {
+        HostEntry entry = hosts.get(vdsId);
+        return entry == null ? 0 : entry.lagMillis;
+    }
+
+    private void schedule(HostEntry entry, long dueMillis) {
+        synchronized (wheel) {
+            entry.version++;
+            entry.dueMillis = dueMillis;
+            long dueTick = Math.max(processedTick + 1, ceilDiv(dueMillis - startMillis, tickMillis));
+            wheel.get((int) (dueTick % WHEEL_SIZE)).add(new WheelEntry(entry, entry.version, dueTick));
+        }
+    }
+
+    // visible for testing
+    void tick() {
+        try {
+            List<HostEntry> due = new ArrayList<>();
+            synchronized (wheel) {
+                long currentTick = (clock.getAsLong() - startMillis) / tickMillis;
+                // every bucket is visited once when late by more than a round, entries of past ticks are all due
+                processedTick = Math.max(processedTick, currentTick - WHEEL_SIZE);
+                while (processedTick < currentTick) {
+                    processedTick++;
+                    Iterator<WheelEntry> iterator = wheel.get((int) (processedTick % WHEEL_SIZE)).iterator();
+                    while (iterator.hasNext()) {
+                        WheelEntry wheelEntry = iterator.next();
+                        if (wheelEntry.isStale()) {
+                            iterator.remove();
+                        } else if (wheelEntry.dueTick <= processedTick) {
+                            iterator.remove();
+                            wheelEntry.host.running = true;
+                            due.add(wheelEntry.host);
+                        }
+                    }
+                }
+            }
+            due.forEach(this::dispatch);
+        } catch (Throwable t) {
+            log.error("Host monitoring scheduler tick failed: {}", ExceptionUtils.getRootCauseMessage(t));
+            log.debug("Exception:", t);
+        }
+    }
+
+    private void dispatch(HostEntry entry) {
+        if (!refreshPermits.tryAcquire()) {
+            defer(entry);
+            return;
+        }
+        try {
+            dispatcher.execute(() -> refresh(entry));
+        } catch (RejectedExecutionException e) {
+            refreshPermits.release();
+            defer(entry);
+        }
+    }
+
+    private void defer(HostEntry entry) {
+        if (entry.deferrals++ == 0) {
+            entry.firstDueMillis = entry.dueMillis;
+        }
+        reschedule(entry, clock.getAsLong() + tickMillis);
+    }
+
+    private void refresh(HostEntry entry) {
+        long startedMillis = clock.getAsLong();
+        long dueMillis = entry.deferrals > 0 ? entry.firstDueMillis : entry.dueMillis;
+        synchronized (entry) {
+            if (entry.cancelled) {
+                refreshPermits.release();
+                return;
+            }
+            entry.refreshThread = Thread.currentThread();
+        }
+        try {
+            entry.vdsManager.refresh();
+        } finally {
+            synchronized (entry) {
+                entry.refreshThread = null;
+                if (entry.cancelled) {
+                    // don't leave the interrupt of an unregistered host to the next task of the thread
+                    Thread.interrupted();
+                }
+            }
+            refreshPermits.release();
+            long endMillis = clock.getAsLong();
+            long interval = getInterval(entry);
+            entry.lagMillis = startedMillis - dueMillis;
+            if (entry.lagMillis + endMillis - startedMillis > interval) {
+                log.warn("Refresh of host '{}' ({}) overran its slot, it started {}ms late after {} deferrals and "
+                                + "took {}ms while refreshed every {}ms",
+                        entry.vdsManager.getVdsName(),
+                        entry.vdsManager.getVdsId(),
+                        entry.lagMillis,
+                        entry.deferrals,
+                        endMillis - startedMillis,
+                        interval);
+            }
+            entry.deferrals = 0;
+
+            // keep the host in its phase of the interval unless the refresh overran it
+            long nextMillis = dueMillis + interval + jitter(interval);
+            reschedule(entry, Math.max(nextMillis, endMillis + tickMillis));
+        }
+    }
+
+    private void reschedule(HostEntry entry, long dueMillis) {
+        synchronized (wheel) {
+            entry.running = false;
+            if (!entry.cancelled) {
+                schedule(entry, dueMillis);
+            }
+        }
+    }
+
+    private long getInterval(HostEntry entry) {
+        if (entry.active) {
+            entry.active = false;
+            return intervalMillis;
+        }
+        if (entry.vdsManager.getStatus() == VDSStatus.Maintenance) {
+            return intervalMillis * maintenanceFactor;
+        }
+        return intervalMillis;
+    }
+
+    private long jitter(long interval) {
+        return (long) (interval * jitterFraction * (2 * random.nextDouble() - 1));
+    }
+
+    private static long ceilDiv(long x, long y) {
+        return -Math.floorDiv(-x, y);
+    }
+
+    private static class HostEntry {
+        private final VdsManager vdsManager;
+        private volatile boolean cancelled;
+        private volatile boolean active;
+        private volatile long lagMillis;
+        // guarded by the entry
+        private Thread refreshThread;
+        private int deferrals;
+        private long firstDueMillis;
+
+        // guarded by the wheel
+        private long version;
+        private long dueMillis;
+        private boolean running;
+
+        HostEntry(VdsManager vdsManager) {
+            this.vdsManager = vdsManager;
+        }
+    }
+
+    private static class WheelEntry {
+        private final HostEntry host;
+        private final long version;
+        private final long dueTick;
+
+        WheelEntry(HostEntry host, long version, long dueTick) {
+            this.host = host;
+            this.version = version;
+            this.dueTick = dueTick;
+        }
+
+        boolean isStale() {
+            return host.cancelled || host.version != version;
+        }
+    }
+}
@@ -524,7 +524,7 @@ public class VmAnalyzer {
             return;
         }
 
-        if (!vdsManager.getCopyVds().isBalloonEnabled()) {
+        if (!vdsManager.getVdsSnapshot().isBalloonEnabled()) {
             return;
         }
 
@@ -747,7 +747,7 @@ public class VmAnalyzer {
             dbVm.setIp(extractVmIps(vmGuestAgentNics));
         }
         if (!Objects.equals(vdsmVm.getVmDynamic().getAppList(), dbVm.getAppList())) {
-            resourceManager.refreshIsoCache(vdsManager.getCopyVds().getStoragePoolId());
+            resourceManager.refreshIsoCache(vdsManager.getVdsSnapshot().getStoragePoolId());
         }
         dbVm.updateRuntimeData(vdsmVm.getVmDynamic(), vdsManager.getVdsId());
         saveDynamic(dbVm);
@@ -257,6 +257,8 @@ public class VmsMonitoring {
 
         getVdsEventListener().updateSlaPolicies(succeededToRunVms, vdsManager.getVdsId());
 
+        getVdsEventListener().processOnVmsUp(succeededToRunVms);
+
         // need to execute this before processOnVmStop that might remove unmanaged devices
         getVdsEventListener().refreshHostIfAnyVmHasHostDevices(succeededToRunVms, movedToDownVms, vdsManager.getVdsId());
 
@@ -32,10 +32,10 @@ import org.ovirt.engine.core.dao.VdsDynamicDao;
 import org.ovirt.engine.core.dao.VmDynamicDao;
 import org.ovirt.engine.core.dao.network.InterfaceDao;
 import org.ovirt.engine.core.dao.network.NetworkAttachmentDao;
-import org.ovirt.engine.core.dao.network.NetworkDao;
 import org.ovirt.engine.core.dao.provider.HostProviderBindingDao;
 import org.ovirt.engine.core.utils.transaction.TransactionSupport;
 import org.ovirt.engine.core.vdsbroker.NetworkImplementationDetailsUtils;
+import org.ovirt.engine.core.vdsbroker.NetworkOutOfSyncIndex;
 import org.ovirt.engine.core.vdsbroker.ResourceManager;
 import org.ovirt.engine.core.vdsbroker.monitoring.NetworkMonitoringHelper;
 import org.ovirt.engine.core.vdsbroker.vdsbroker.predicates.DisplayInterfaceEqualityPredicate;
@@ -46,7 +46,6 @@ final class HostNetworkTopologyPersisterImpl implements HostNetworkTopologyPersi
 
     private final VmDynamicDao vmDynamicDao;
     private final InterfaceDao interfaceDao;
-    private final NetworkDao networkDao;
     private final Instance<ResourceManager> resourceManager;
     private final ManagementNetworkUtil managementNetworkUtil;
     private final AuditLogDirector auditLogDirector;
@@ -54,20 +53,20 @@ final class HostNetworkTopologyPersisterImpl implements HostNetworkTopologyPersi
     private final NetworkImplementationDetailsUtils networkImplementationDetailsUtils;
     private final VdsDynamicDao vdsDynamicDao;
     private final HostProviderBindingDao hostProviderBindingDao;
+    private final NetworkOutOfSyncIndex networkOutOfSyncIndex;
 
     @Inject
     HostNetworkTopologyPersisterImpl(VmDynamicDao vmDynamicDao,
                                      InterfaceDao interfaceDao,
                                      NetworkAttachmentDao networkAttachmentDao,
-                                     NetworkDao networkDao,
                                      Instance<ResourceManager> resourceManager,
                                      NetworkImplementationDetailsUtils networkImplementationDetailsUtils,
                                      ManagementNetworkUtil managementNetworkUtil,
                                      AuditLogDirector auditLogDirector,
                                      VdsDynamicDao vdsDynamicDao,
-                                     HostProviderBindingDao hostProviderBindingDao) {
-        Validate.notNull(networkDao, "networkAttachmentDao can not be null");
-        Validate.notNull(networkDao, "networkDao can not be null");
+                                     HostProviderBindingDao hostProviderBindingDao,
+                                     NetworkOutOfSyncIndex networkOutOfSyncIndex) {
+        Validate.notNull(networkAttachmentDao, "networkAttachmentDao can not be null");
         Validate.notNull(interfaceDao, "interfaceDao can not be null");
         Validate.notNull(vmDynamicDao, "vmDynamicDao can not be null");
         Validate.notNull(resourceManager, "resourceManager can not be null");
@@ -76,10 +75,10 @@ final class HostNetworkTopologyPersisterImpl implements HostNetworkTopologyPersi
         Validate.notNull(auditLogDirector, "auditLogDirector can not be null");
         Validate.notNull(vdsDynamicDao, "vdsDynamicDao can not be null");
         Validate.notNull(hostProviderBindingDao, "hostProviderBindingDaoImpl can not be null");
+        Validate.notNull(networkOutOfSyncIndex, "networkOutOfSyncIndex can not be null");
 
         this.vmDynamicDao = vmDynamicDao;
         this.interfaceDao = interfaceDao;
-        this.networkDao = networkDao;
         this.resourceManager = resourceManager;
         this.managementNetworkUtil = managementNetworkUtil;
         this.networkAttachmentDao = networkAttachmentDao;
@@ -87,22 +86,29 @@ final class HostNetworkTopologyPersisterImpl implements HostNetworkTopologyPersi
         this.auditLogDirector = auditLogDirector;
         this.vdsDynamicDao = vdsDynamicDao;
         this.hostProviderBindingDao = hostProviderBindingDao;
+        this.networkOutOfSyncIndex = networkOutOfSyncIndex;
     }
 
     @Override
     public NonOperationalReason persistAndEnforceNetworkCompliance(VDS host,
                                                                    boolean skipManagementNetwork,
                                                                    UserConfiguredNetworkData userConfiguredData) {
-        return TransactionSupport.executeInScope(TransactionScopeOption.Required, () -> {
-            List<VdsNetworkInterface> dbIfaces = interfaceDao.getAllInterfacesForVds(host.getId());
-            List<Network> clusterNetworks = networkDao.getAllForCluster(host.getClusterId());
-
-            persistTopology(host, dbIfaces, clusterNetworks, userConfiguredData);
-            NonOperationalReason nonOperationalReason =
-                    enforceNetworkCompliance(host, skipManagementNetwork, clusterNetworks);
-            auditNetworkCompliance(host, dbIfaces, clusterNetworks);
-            return nonOperationalReason;
-        });
+        try {
+            return TransactionSupport.executeInScope(TransactionScopeOption.Required, () -> {
+                List<VdsNetworkInterface> dbIfaces = interfaceDao.getAllInterfacesForVds(host.getId());
+                // a copy, since the management network may be dropped from it
+                List<Network> clusterNetworks =
+                        new ArrayList<>(networkOutOfSyncIndex.getClusterNetworks(host.getClusterId()));
+
+                persistTopology(host, dbIfaces, clusterNetworks, userConfiguredData);
+                NonOperationalReason nonOperationalReason =
+                        enforceNetworkCompliance(host, skipManagementNetwork, clusterNetworks);
+                auditNetworkCompliance(host, dbIfaces, clusterNetworks);
+                return nonOperationalReason;
+            });
+        } finally {
+            networkOutOfSyncIndex.hostChanged(host.getId(), host.getClusterId());
+        }
     }
 
     private NonOperationalReason enforceNetworkCompliance(VDS host,
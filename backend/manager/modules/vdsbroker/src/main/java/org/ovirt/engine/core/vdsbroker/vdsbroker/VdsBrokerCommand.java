@@ -17,6 +17,9 @@ import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AuditLogable;
 import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AuditLogableImpl;
 import org.ovirt.engine.core.dao.VdsStaticDao;
 import org.ovirt.engine.core.di.Injector;
+import org.ovirt.engine.core.utils.threadpool.PerKeyConcurrencyLimiter;
+import org.ovirt.engine.core.utils.threadpool.ThreadPoolUtil;
+import org.ovirt.engine.core.utils.threadpool.VirtualThreadExecutor;
 import org.ovirt.engine.core.vdsbroker.ResourceManager;
 import org.ovirt.engine.core.vdsbroker.TransportRunTimeException;
 import org.ovirt.engine.core.vdsbroker.VdsManager;
@@ -68,7 +71,8 @@ public abstract class VdsBrokerCommand<P extends VdsIdVDSCommandParametersBase>
                     String.format("Vds with id: %1$s was not found", vdsId));
         }
 
-        setVdsAndVdsStatic(vdsmanager.getCopyVds());
+        // the commands only read the host, so they share the snapshot of the manager instead of copying the host
+        setVdsAndVdsStatic(vdsmanager.getVdsSnapshot());
         return vdsmanager.getVdsProxy();
     }
 
@@ -119,7 +123,7 @@ public abstract class VdsBrokerCommand<P extends VdsIdVDSCommandParametersBase>
      *            network error occurs. For example, when the] connection to export and ISO domain fails.
      */
     protected void executeVdsCommandWithNetworkEvent(boolean sendNetworkErrorEvent) {
-        try {
+        try (PerKeyConcurrencyLimiter.Permit permit = acquireHostPermit()) {
             executeVdsBrokerCommand();
         } catch (VDSNetworkException ex) {
             printReturnValue();
@@ -154,6 +158,26 @@ public abstract class VdsBrokerCommand<P extends VdsIdVDSCommandParametersBase>
 
     }
 
+    /**
+     * The virtual threads execution mode does not bound the number of concurrent tasks, so the number of concurrent
+     * calls made by its tasks to the same host is bounded instead, to not overload VDSM.
+     *
+     * @return the permit to call the host or {@code null} if the calls are not bounded
+     */
+    private PerKeyConcurrencyLimiter.Permit acquireHostPermit() {
+        PerKeyConcurrencyLimiter<Guid> limiter = ThreadPoolUtil.getHostConcurrencyLimiter();
+        if (limiter == null || getParameters().getVdsId() == null || !VirtualThreadExecutor.isExecutorThread()) {
+            return null;
+        }
+        try {
+            return limiter.acquire(getParameters().getVdsId());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while waiting to call host '{}', calling it anyway", getParameters().getVdsId());
+            return null;
+        }
+    }
+
     private void updateNetworkException(VDSNetworkException ex, String message) {
         VDSError error = ex.getVdsError();
         if (error == null) {
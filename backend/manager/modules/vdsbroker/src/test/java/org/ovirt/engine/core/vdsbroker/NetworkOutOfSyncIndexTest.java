@@ -0,0 +1,174 @@
+package org.ovirt.engine.core.vdsbroker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.transaction.TransactionManager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.ovirt.engine.core.common.businessentities.VdsStatic;
+import org.ovirt.engine.core.common.businessentities.network.Network;
+import org.ovirt.engine.core.common.businessentities.network.VdsNetworkInterface;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.dao.VdsStaticDao;
+import org.ovirt.engine.core.dao.network.NetworkDao;
+import org.ovirt.engine.core.utils.InjectedMock;
+import org.ovirt.engine.core.utils.InjectorExtension;
+
+@ExtendWith({ MockitoExtension.class, InjectorExtension.class })
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class NetworkOutOfSyncIndexTest {
+
+    private static final Guid CLUSTER_ID = Guid.newGuid();
+    private static final Guid HOST1 = Guid.newGuid();
+    private static final Guid HOST2 = Guid.newGuid();
+    private static final Guid HOST3 = Guid.newGuid();
+
+    @Mock
+    private NetworkImplementationDetailsUtils networkImplementationDetailsUtils;
+
+    @Mock
+    private VdsStaticDao vdsStaticDao;
+
+    @Mock
+    private NetworkDao networkDao;
+
+    @InjectedMock
+    @Mock
+    public TransactionManager transactionManager;
+
+    @InjectMocks
+    private NetworkOutOfSyncIndex underTest;
+
+    @BeforeEach
+    public void setUp() {
+        mockClusterHosts(HOST1, HOST2);
+        when(networkImplementationDetailsUtils.getAllInterfacesOutOfSync(CLUSTER_ID))
+                .thenReturn(interfaces(iface(HOST1, "net1"), iface(HOST1, "net2")));
+    }
+
+    @Test
+    public void loadsClusterOnce() {
+        assertEquals(Collections.singleton(HOST1), underTest.getOutOfSyncHosts(CLUSTER_ID));
+        assertEquals(Collections.singleton(HOST1), underTest.getOutOfSyncHosts(CLUSTER_ID));
+
+        Map<Guid, Set<String>> networksByHost = underTest.getOutOfSyncNetworksByHost(CLUSTER_ID);
+        assertEquals(new HashSet<>(Arrays.asList("net1", "net2")), networksByHost.get(HOST1));
+        verify(networkImplementationDetailsUtils, times(1)).getAllInterfacesOutOfSync(CLUSTER_ID);
+        verify(networkImplementationDetailsUtils, never()).getInterfacesOutOfSync(any(), any());
+        verify(vdsStaticDao, times(1)).getAllForCluster(CLUSTER_ID);
+    }
+
+    @Test
+    public void recalculatesOnlyChangedHosts() {
+        underTest.getOutOfSyncHosts(CLUSTER_ID);
+
+        underTest.hostChanged(HOST2, CLUSTER_ID);
+        when(networkImplementationDetailsUtils.getInterfacesOutOfSync(CLUSTER_ID, Collections.singleton(HOST2)))
+                .thenReturn(interfaces(iface(HOST2, "net1")));
+        assertEquals(new HashSet<>(Arrays.asList(HOST1, HOST2)), underTest.getOutOfSyncHosts(CLUSTER_ID));
+
+        underTest.hostChanged(HOST1, CLUSTER_ID);
+        when(networkImplementationDetailsUtils.getInterfacesOutOfSync(CLUSTER_ID, Collections.singleton(HOST1)))
+                .thenReturn(Collections.emptySet());
+        assertEquals(Collections.singleton(HOST2), underTest.getOutOfSyncHosts(CLUSTER_ID));
+
+        verify(networkImplementationDetailsUtils, times(1)).getAllInterfacesOutOfSync(CLUSTER_ID);
+    }
+
+    @Test
+    public void followsClusterMembership() {
+        underTest.getOutOfSyncHosts(CLUSTER_ID);
+
+        underTest.hostChanged(HOST3, CLUSTER_ID);
+        when(networkImplementationDetailsUtils.getInterfacesOutOfSync(CLUSTER_ID, Collections.singleton(HOST3)))
+                .thenReturn(interfaces(iface(HOST3, "net1")));
+        assertEquals(new HashSet<>(Arrays.asList(HOST1, HOST3)), underTest.getOutOfSyncHosts(CLUSTER_ID));
+
+        underTest.hostRemoved(HOST1);
+        mockClusterHosts(HOST2, HOST3);
+        when(networkImplementationDetailsUtils.getAllInterfacesOutOfSync(CLUSTER_ID))
+                .thenReturn(interfaces(iface(HOST3, "net1")));
+        assertEquals(Collections.singleton(HOST3), underTest.getOutOfSyncHosts(CLUSTER_ID));
+    }
+
+    @Test
+    public void reloadsClusterWhenClusterChanges() {
+        underTest.getOutOfSyncHosts(CLUSTER_ID);
+
+        underTest.clusterChanged(CLUSTER_ID);
+        when(networkImplementationDetailsUtils.getAllInterfacesOutOfSync(CLUSTER_ID))
+                .thenReturn(interfaces(iface(HOST2, "net3")));
+        assertEquals(Collections.singleton(HOST2), underTest.getOutOfSyncHosts(CLUSTER_ID));
+
+        verify(networkImplementationDetailsUtils, times(2)).getAllInterfacesOutOfSync(CLUSTER_ID);
+        verify(vdsStaticDao, times(2)).getAllForCluster(CLUSTER_ID);
+    }
+
+    @Test
+    public void reloadsClusterWhenDefinitionsChange() {
+        underTest.getOutOfSyncHosts(CLUSTER_ID);
+
+        underTest.networksChanged();
+        when(networkImplementationDetailsUtils.getAllInterfacesOutOfSync(CLUSTER_ID))
+                .thenReturn(interfaces(iface(HOST2, "net3")));
+        assertEquals(Collections.singleton(HOST2), underTest.getOutOfSyncHosts(CLUSTER_ID));
+
+        verify(networkImplementationDetailsUtils, times(2)).getAllInterfacesOutOfSync(CLUSTER_ID);
+    }
+
+    @Test
+    public void cachesClusterNetworksUntilChanged() {
+        when(networkDao.getAllForCluster(CLUSTER_ID)).thenReturn(Collections.singletonList(new Network()));
+
+        List<Network> networks = underTest.getClusterNetworks(CLUSTER_ID);
+        assertSame(networks, underTest.getClusterNetworks(CLUSTER_ID));
+        verify(networkDao, times(1)).getAllForCluster(CLUSTER_ID);
+
+        underTest.clusterChanged(CLUSTER_ID);
+        underTest.getClusterNetworks(CLUSTER_ID);
+        underTest.networksChanged();
+        underTest.getClusterNetworks(CLUSTER_ID);
+        verify(networkDao, times(3)).getAllForCluster(CLUSTER_ID);
+    }
+
+    private void mockClusterHosts(Guid... vdsIds) {
+        when(vdsStaticDao.getAllForCluster(CLUSTER_ID)).thenReturn(Arrays.stream(vdsIds).map(vdsId -> {
+            VdsStatic vdsStatic = new VdsStatic();
+            vdsStatic.setId(vdsId);
+            return vdsStatic;
+        }).collect(Collectors.toList()));
+    }
+
+    private static Set<VdsNetworkInterface> interfaces(VdsNetworkInterface... interfaces) {
+        return new HashSet<>(Arrays.asList(interfaces));
+    }
+
+    private static VdsNetworkInterface iface(Guid vdsId, String networkName) {
+        VdsNetworkInterface iface = new VdsNetworkInterface();
+        iface.setId(Guid.newGuid());
+        iface.setVdsId(vdsId);
+        iface.setNetworkName(networkName);
+        return iface;
+    }
+}
@@ -5,10 +5,15 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.ovirt.engine.core.vdsbroker.vdsbroker.IoTuneUtils.MB_TO_BYTES;
 
@@ -32,6 +37,7 @@ import org.mockito.quality.Strictness;
 import org.ovirt.engine.core.common.businessentities.AdditionalFeature;
 import org.ovirt.engine.core.common.businessentities.ArchitectureType;
 import org.ovirt.engine.core.common.businessentities.BiosType;
+import org.ovirt.engine.core.common.businessentities.ChipsetType;
 import org.ovirt.engine.core.common.businessentities.GraphicsInfo;
 import org.ovirt.engine.core.common.businessentities.GraphicsType;
 import org.ovirt.engine.core.common.businessentities.SupportedAdditionalClusterFeature;
@@ -574,4 +580,24 @@ public class VmInfoBuildUtilsTest {
         vm.setVmOs(1301); // debian_9
         assertFalse(underTest.isOvirtGuestAgent(vm.getVmOsId()));
     }
+
+    @Test
+    public void testDomainOsSettingsAreCachedPerOsVersionAndChipset() {
+        reset(osRepository);
+        when(osRepository.isHypervEnabled(anyInt(), any())).thenReturn(true);
+        when(osRepository.getCdInterface(anyInt(), any(), eq(ChipsetType.I440FX))).thenReturn("ide");
+        when(osRepository.getCdInterface(anyInt(), any(), eq(ChipsetType.Q35))).thenReturn("sata");
+        when(osRepository.requiresLegacyVirtio(anyInt(), eq(ChipsetType.Q35))).thenReturn(true);
+
+        DomainOsSettings i440fx = underTest.getDomainOsSettings(0, Version.v4_7, ChipsetType.I440FX);
+        DomainOsSettings q35 = underTest.getDomainOsSettings(0, Version.v4_7, ChipsetType.Q35);
+
+        assertTrue(i440fx.isHypervEnabled());
+        assertEquals("ide", i440fx.getCdInterface());
+        assertFalse(i440fx.isLegacyVirtio());
+        assertEquals("sata", q35.getCdInterface());
+        assertTrue(q35.isLegacyVirtio());
+        assertSame(q35, underTest.getDomainOsSettings(0, Version.v4_7, ChipsetType.Q35));
+        verify(osRepository, times(1)).getCdInterface(0, Version.v4_7, ChipsetType.Q35);
+    }
 }
@@ -0,0 +1,379 @@
+package org.ovirt.engine.core.vdsbroker.irsbroker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+
+import javax.enterprise.concurrent.ManagedScheduledExecutorService;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.Transaction;
+import javax.transaction.TransactionManager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.ovirt.engine.core.common.businessentities.IVdsEventListener;
+import org.ovirt.engine.core.common.businessentities.NonOperationalReason;
+import org.ovirt.engine.core.common.businessentities.StorageDomain;
+import org.ovirt.engine.core.common.businessentities.StorageDomainStatus;
+import org.ovirt.engine.core.common.businessentities.StorageDomainType;
+import org.ovirt.engine.core.common.businessentities.StoragePool;
+import org.ovirt.engine.core.common.businessentities.StoragePoolIsoMap;
+import org.ovirt.engine.core.common.businessentities.StoragePoolIsoMapId;
+import org.ovirt.engine.core.common.businessentities.StoragePoolStatus;
+import org.ovirt.engine.core.common.businessentities.VDS;
+import org.ovirt.engine.core.common.businessentities.VDSDomainsData;
+import org.ovirt.engine.core.common.businessentities.VDSStatus;
+import org.ovirt.engine.core.common.businessentities.storage.StorageType;
+import org.ovirt.engine.core.common.config.ConfigValues;
+import org.ovirt.engine.core.common.eventqueue.Event;
+import org.ovirt.engine.core.common.eventqueue.EventQueue;
+import org.ovirt.engine.core.common.eventqueue.EventResult;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AuditLogDirector;
+import org.ovirt.engine.core.dao.StorageDomainDao;
+import org.ovirt.engine.core.dao.StorageDomainStaticDao;
+import org.ovirt.engine.core.dao.StoragePoolDao;
+import org.ovirt.engine.core.dao.StoragePoolIsoMapDao;
+import org.ovirt.engine.core.dao.VdsDao;
+import org.ovirt.engine.core.utils.InjectedMock;
+import org.ovirt.engine.core.utils.InjectorExtension;
+import org.ovirt.engine.core.utils.MockConfigDescriptor;
+import org.ovirt.engine.core.utils.MockConfigExtension;
+import org.ovirt.engine.core.utils.threadpool.ThreadPoolUtil;
+import org.ovirt.engine.core.vdsbroker.ResourceManager;
+
+/**
+ * Simulates the domain monitoring reports of the hosts of a large data center, sent concurrently by their monitoring
+ * threads, and checks the domains and hosts found in problem.
+ */
+@ExtendWith({ MockitoExtension.class, MockConfigExtension.class, InjectorExtension.class })
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class IrsProxyImplDomainMonitoringTest {
+
+    private static final Guid POOL_ID = Guid.newGuid();
+    private static final int HOST_COUNT = 300;
+    private static final int DOMAIN_COUNT = 50;
+    private static final int PROBLEM_CODE = 200;
+
+    public static Stream<MockConfigDescriptor<?>> mockConfiguration() {
+        return Stream.of(
+                MockConfigDescriptor.of(ConfigValues.VdsRefreshRate, TimeUnit.HOURS.toSeconds(1)),
+                MockConfigDescriptor.of(ConfigValues.StoragePoolRefreshTimeInSeconds, 10L),
+                MockConfigDescriptor.of(ConfigValues.HostStorageConnectionAndPoolRefreshTimeInSeconds, 30L),
+                MockConfigDescriptor.of(ConfigValues.StorageDomainFailureTimeoutInMinutes, 5L),
+                MockConfigDescriptor.of(ConfigValues.MaxStorageVdsTimeoutCheckSec, 30.0),
+                MockConfigDescriptor.of(ConfigValues.MaxStorageVdsDelayCheckSec, 5.0)
+        );
+    }
+
+    @Mock
+    private StoragePoolDao storagePoolDao;
+
+    @Mock
+    private StorageDomainDao storageDomainDao;
+
+    @Mock
+    private StorageDomainStaticDao storageDomainStaticDao;
+
+    @Mock
+    private StoragePoolIsoMapDao storagePoolIsoMapDao;
+
+    @Mock
+    private VdsDao vdsDao;
+
+    @Mock
+    private EventQueue eventQueue;
+
+    @Mock
+    private AuditLogDirector auditLogDirector;
+
+    @Mock
+    private ResourceManager resourceManager;
+
+    @Mock
+    private IVdsEventListener eventListener;
+
+    @Mock
+    private ManagedScheduledExecutorService schedulerService;
+
+    @InjectedMock
+    @Mock
+    public TransactionManager transactionManager;
+
+    @InjectMocks
+    private IrsProxyImpl irsProxy = new IrsProxyImpl(POOL_ID);
+
+    private final Object queueLock = new Object();
+    private final AtomicInteger scheduledTimers = new AtomicInteger();
+    private final Set<ScheduledFuture<?>> cancelledTimers = ConcurrentHashMap.newKeySet();
+    private final List<StorageDomain> domains = new ArrayList<>();
+    private final List<VDS> hosts = new ArrayList<>();
+    private StorageDomain inactiveDomain;
+    private ExecutorService executor;
+    private ExecutorService previousExecutor;
+
+    @BeforeEach
+    public void setUp() {
+        previousExecutor = ThreadPoolUtil.getExecutorService();
+        executor = Executors.newFixedThreadPool(16);
+        ThreadPoolUtil.setExecutorService(executor);
+
+        StoragePool storagePool = new StoragePool();
+        storagePool.setId(POOL_ID);
+        storagePool.setStatus(StoragePoolStatus.Up);
+        when(storagePoolDao.get(POOL_ID)).thenReturn(storagePool);
+
+        for (int i = 0; i < DOMAIN_COUNT; i++) {
+            domains.add(createDomain("domain" + i, StorageDomainStatus.Active));
+        }
+        inactiveDomain = createDomain("inactive", StorageDomainStatus.Inactive);
+        List<StorageDomain> poolDomains = new ArrayList<>(domains);
+        poolDomains.add(inactiveDomain);
+        poolDomains.add(createDomain("maintenance", StorageDomainStatus.Maintenance));
+        when(storageDomainDao.getAllForStoragePool(POOL_ID)).thenReturn(poolDomains);
+        for (StorageDomain domain : poolDomains) {
+            when(storageDomainStaticDao.get(domain.getId())).thenReturn(domain.getStorageStaticData());
+        }
+        when(storagePoolIsoMapDao.get(new StoragePoolIsoMapId(inactiveDomain.getId(), POOL_ID)))
+                .thenReturn(new StoragePoolIsoMap(inactiveDomain.getId(), POOL_ID, StorageDomainStatus.Inactive));
+
+        for (int i = 0; i < HOST_COUNT; i++) {
+            VDS host = new VDS();
+            host.setId(Guid.newGuid());
+            host.setVdsName("host" + i);
+            host.setStatus(VDSStatus.Up);
+            host.setClusterSupportsVirtService(true);
+            hosts.add(host);
+        }
+        when(vdsDao.getAllForStoragePoolAndStatus(POOL_ID, null)).thenReturn(hosts);
+        when(resourceManager.getEventListener()).thenReturn(eventListener);
+
+        // the events of the pool run one at a time, as in the event queue
+        when(eventQueue.submitEventSync(any(), any())).thenAnswer(invocation -> {
+            synchronized (queueLock) {
+                return invocation.<Callable<EventResult>> getArgument(1).call();
+            }
+        });
+        when(eventQueue.submitEventAsync(any(), any())).thenAnswer(invocation -> {
+            synchronized (queueLock) {
+                invocation.<Callable<EventResult>> getArgument(1).call();
+            }
+            return null;
+        });
+        when(schedulerService.schedule(any(Runnable.class), anyLong(), any())).thenAnswer(invocation -> {
+            ScheduledFuture<?> timer = mock(ScheduledFuture.class);
+            when(timer.cancel(anyBoolean())).thenAnswer(cancel -> cancelledTimers.add(timer));
+            scheduledTimers.incrementAndGet();
+            return timer;
+        });
+
+        irsProxy.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+        ThreadPoolUtil.setExecutorService(previousExecutor);
+    }
+
+    @Test
+    public void reportsOfLargeDataCenter() throws Exception {
+        Guid unreachableDomainId = domains.get(0).getId();
+        Guid flappingDomainId = domains.get(1).getId();
+        Guid partiallySeenDomainId = domains.get(2).getId();
+        List<VDS> partiallySeeingHosts = hosts.subList(0, 10);
+
+        // every domain is fine, the inactive one is reported as active by all the hosts
+        report((host, domainId) -> 0);
+        verify(storagePoolIsoMapDao, times(1)).update(any());
+        assertEquals(0, scheduledTimers.get());
+
+        // one domain is unreachable, one is problematic on some hosts and one is not seen by a few hosts
+        report((host, domainId) -> {
+            int hostIndex = hosts.indexOf(host);
+            if (domainId.equals(unreachableDomainId)
+                    || domainId.equals(flappingDomainId) && hostIndex < 30
+                    || domainId.equals(partiallySeenDomainId) && hostIndex < partiallySeeingHosts.size()) {
+                return PROBLEM_CODE;
+            }
+            return 0;
+        });
+        assertEquals(3, scheduledTimers.get());
+
+        // the flapping domain recovers
+        report((host, domainId) -> {
+            if (domainId.equals(unreachableDomainId)
+                    || domainId.equals(partiallySeenDomainId) && partiallySeeingHosts.contains(host)) {
+                return PROBLEM_CODE;
+            }
+            return 0;
+        });
+        assertEquals(3, scheduledTimers.get());
+        assertEquals(1, cancelledTimers.size());
+
+        // the domain and hosts metadata is read once for all the reports of the interval
+        verify(storagePoolDao, times(1)).get(POOL_ID);
+        verify(storageDomainDao, times(1)).getAllForStoragePool(POOL_ID);
+        verify(storageDomainStaticDao, never()).getAllIds(any(), any());
+        verify(storageDomainStaticDao, never()).get(any());
+
+        // the timers expire, the unreachable domain is handled first as the hosts are not moved in the database
+        irsProxy.addDomainData(unreachableDomainId);
+        irsProxy.addDomainData(partiallySeenDomainId);
+        irsProxy.addDomainData(flappingDomainId);
+
+        verify(eventListener, times(1)).storageDomainNotOperational(unreachableDomainId, POOL_ID);
+        verify(eventListener, never()).storageDomainNotOperational(eq(flappingDomainId), any());
+        verify(eventListener, never()).storageDomainNotOperational(eq(partiallySeenDomainId), any());
+        for (VDS host : partiallySeeingHosts) {
+            verify(eventListener, timeout(TimeUnit.SECONDS.toMillis(10))).vdsNonOperational(eq(host.getId()),
+                    eq(NonOperationalReason.STORAGE_DOMAIN_UNREACHABLE),
+                    eq(true),
+                    eq(partiallySeenDomainId),
+                    any());
+        }
+        verify(eventListener, times(partiallySeeingHosts.size()))
+                .vdsNonOperational(any(), any(), anyBoolean(), any(), any());
+    }
+
+    @Test
+    public void domainStatusChangedByEngine() throws Exception {
+        StorageDomain maintainedDomain = domains.get(0);
+        report((host, domainId) -> 0);
+
+        // the domain is moved to maintenance in a transaction, and reports arrive before it is committed
+        Transaction transaction = mock(Transaction.class);
+        when(transactionManager.getTransaction()).thenReturn(transaction);
+        irsProxy.domainStatusesChanged();
+        ArgumentCaptor<Synchronization> synchronization = ArgumentCaptor.forClass(Synchronization.class);
+        verify(transaction).registerSynchronization(synchronization.capture());
+        report((host, domainId) -> 0);
+        verify(storageDomainDao, times(2)).getAllForStoragePool(POOL_ID);
+
+        maintainedDomain.setStatus(StorageDomainStatus.Maintenance);
+        when(transactionManager.getTransaction()).thenReturn(null);
+        synchronization.getValue().afterCompletion(Status.STATUS_COMMITTED);
+
+        // the hosts stop monitoring the domain, which is not taken as a problem of the domain
+        report((host, domainId) -> domainId.equals(maintainedDomain.getId()) ? null : 0);
+        verify(storageDomainDao, times(3)).getAllForStoragePool(POOL_ID);
+        assertEquals(0, scheduledTimers.get());
+    }
+
+    @Test
+    public void reportsWaitingInTheQueueAreAppliedByOneEvent() throws Exception {
+        Guid unreachableDomainId = domains.get(0).getId();
+        VDS lastHost = hosts.get(HOST_COUNT - 1);
+        // hold the event of the first report in the queue until the other reports arrive
+        AtomicInteger events = new AtomicInteger();
+        CountDownLatch eventQueued = new CountDownLatch(1);
+        CountDownLatch eventReleased = new CountDownLatch(1);
+        when(eventQueue.submitEventSync(any(), any())).thenAnswer(invocation -> {
+            if (events.incrementAndGet() == 1) {
+                eventQueued.countDown();
+                eventReleased.await(1, TimeUnit.MINUTES);
+            }
+            synchronized (queueLock) {
+                return invocation.<Callable<EventResult>> getArgument(1).call();
+            }
+        });
+        // only the last host, whose report waits behind the others, can't reach the domain
+        BiFunction<VDS, Guid, Integer> codes =
+                (host, domainId) -> host == lastHost && domainId.equals(unreachableDomainId) ? PROBLEM_CODE : 0;
+
+        List<Future<?>> firstReport = submitReports(hosts.subList(0, 1), codes);
+        assertTrue(eventQueued.await(1, TimeUnit.MINUTES));
+        // the other reports join the queued event rather than submitting their own
+        for (Future<?> report : submitReports(hosts.subList(1, HOST_COUNT), codes)) {
+            report.get(1, TimeUnit.MINUTES);
+        }
+        eventReleased.countDown();
+        firstReport.get(0).get(1, TimeUnit.MINUTES);
+
+        verify(eventQueue, times(1)).submitEventSync(any(Event.class), any());
+        // the report of the last host was applied by the event of the first one
+        assertEquals(1, scheduledTimers.get());
+    }
+
+    /**
+     * Sends the reports of all the hosts concurrently and waits for them to be handled.
+     *
+     * @param codes
+     *            the code each host reports for each domain, {@code null} for the domains the host does not monitor
+     */
+    private void report(BiFunction<VDS, Guid, Integer> codes) throws Exception {
+        for (Future<?> report : submitReports(hosts, codes)) {
+            report.get(1, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Sends the reports of the given hosts concurrently, without waiting for them.
+     */
+    private List<Future<?>> submitReports(List<VDS> reportingHosts, BiFunction<VDS, Guid, Integer> codes) {
+        List<Future<?>> reports = new ArrayList<>();
+        for (VDS host : reportingHosts) {
+            ArrayList<VDSDomainsData> data = new ArrayList<>();
+            for (StorageDomain domain : domains) {
+                Integer code = codes.apply(host, domain.getId());
+                if (code != null) {
+                    data.add(createDomainData(domain.getId(), code));
+                }
+            }
+            data.add(createDomainData(inactiveDomain.getId(), 0));
+            reports.add(executor.submit(() -> irsProxy.updateVdsDomainsData(host, data)));
+        }
+        return reports;
+    }
+
+    private static StorageDomain createDomain(String name, StorageDomainStatus status) {
+        StorageDomain domain = new StorageDomain();
+        domain.setId(Guid.newGuid());
+        domain.setStorageName(name);
+        domain.setStatus(status);
+        domain.setStorageType(StorageType.NFS);
+        domain.setStorageDomainType(StorageDomainType.Data);
+        return domain;
+    }
+
+    private static VDSDomainsData createDomainData(Guid domainId, int code) {
+        VDSDomainsData data = new VDSDomainsData();
+        data.setDomainId(domainId);
+        data.setCode(code);
+        data.setActual(true);
+        return data;
+    }
+}
@@ -0,0 +1,210 @@
+package org.ovirt.engine.core.vdsbroker.monitoring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.willAnswer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ovirt.engine.core.common.businessentities.VDSStatus;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.vdsbroker.VdsManager;
+
+class HostMonitoringSchedulerTest {
+
+    private static final long INTERVAL = 1000;
+    private static final long TICK = 10;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+    private final List<Runnable> dispatched = new ArrayList<>();
+    private final Map<Guid, List<Long>> refreshes = new HashMap<>();
+
+    private HostMonitoringScheduler scheduler;
+
+    @BeforeEach
+    public void setup() {
+        scheduler = createScheduler(Runnable::run, 100);
+    }
+
+    private HostMonitoringScheduler createScheduler(Executor dispatcher, int maxConcurrent) {
+        return new HostMonitoringScheduler(mock(ScheduledExecutorService.class),
+                dispatcher,
+                clock::get,
+                new Random(0),
+                INTERVAL,
+                TICK,
+                maxConcurrent,
+                5,
+                0);
+    }
+
+    private VdsManager mockHost(VDSStatus status) {
+        Guid vdsId = Guid.newGuid();
+        VdsManager vdsManager = mock(VdsManager.class);
+        given(vdsManager.getVdsId()).willReturn(vdsId);
+        given(vdsManager.getStatus()).willReturn(status);
+        refreshes.put(vdsId, new ArrayList<>());
+        willAnswer(invocation -> refreshes.get(vdsId).add(clock.get())).given(vdsManager).refresh();
+        return vdsManager;
+    }
+
+    private void advance(long millis) {
+        for (long elapsed = 0; elapsed < millis; elapsed += TICK) {
+            clock.addAndGet(TICK);
+            scheduler.tick();
+        }
+    }
+
+    @Test
+    public void hostsAreSpreadOverInterval() {
+        List<VdsManager> hosts = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            hosts.add(mockHost(VDSStatus.Up));
+            scheduler.register(hosts.get(i));
+        }
+        advance(INTERVAL - TICK);
+
+        List<Long> times = new ArrayList<>();
+        for (VdsManager host : hosts) {
+            assertEquals(1, refreshes.get(host.getVdsId()).size());
+            times.addAll(refreshes.get(host.getVdsId()));
+        }
+        Collections.sort(times);
+        for (int i = 1; i < times.size(); i++) {
+            long gap = times.get(i) - times.get(i - 1);
+            assertTrue(gap >= INTERVAL / 40 && gap <= INTERVAL / 5, "Refreshes are not spread: " + times);
+        }
+    }
+
+    @Test
+    public void upHostRefreshedEveryInterval() {
+        VdsManager host = mockHost(VDSStatus.Up);
+        scheduler.register(host);
+        advance(10 * INTERVAL);
+
+        // the first refresh is due immediately
+        List<Long> times = refreshes.get(host.getVdsId());
+        assertEquals(11, times.size());
+        for (int i = 2; i < times.size(); i++) {
+            assertEquals(INTERVAL, times.get(i) - times.get(i - 1));
+        }
+    }
+
+    @Test
+    public void maintenanceHostRefreshedLessFrequently() {
+        VdsManager maintenance = mockHost(VDSStatus.Maintenance);
+        scheduler.register(maintenance);
+        advance(10 * INTERVAL);
+
+        assertEquals(3, refreshes.get(maintenance.getVdsId()).size());
+    }
+
+    @Test
+    public void nonResponsiveAndTransitionalHostsRefreshedEveryInterval() {
+        List<VdsManager> hosts = new ArrayList<>();
+        for (VDSStatus status : Arrays.asList(VDSStatus.NonResponsive,
+                VDSStatus.Reboot,
+                VDSStatus.Installing,
+                VDSStatus.Kdumping)) {
+            VdsManager host = mockHost(status);
+            hosts.add(host);
+            scheduler.register(host);
+        }
+        advance(10 * INTERVAL);
+
+        for (VdsManager host : hosts) {
+            assertTrue(refreshes.get(host.getVdsId()).size() >= 10,
+                    "Host refreshed less frequently: " + host.getStatus());
+        }
+    }
+
+    @Test
+    public void activityRestoresInterval() {
+        VdsManager host = mockHost(VDSStatus.Maintenance);
+        scheduler.register(host);
+        advance(INTERVAL);
+        assertEquals(1, refreshes.get(host.getVdsId()).size());
+
+        given(host.getStatus()).willReturn(VDSStatus.Unassigned);
+        scheduler.activity(host.getVdsId());
+        advance(INTERVAL);
+        assertEquals(2, refreshes.get(host.getVdsId()).size());
+
+        advance(3 * INTERVAL);
+        assertEquals(5, refreshes.get(host.getVdsId()).size());
+    }
+
+    @Test
+    public void unregisteredHostNotRefreshed() {
+        VdsManager host = mockHost(VDSStatus.Up);
+        scheduler.register(host);
+        scheduler.unregister(host.getVdsId());
+        advance(3 * INTERVAL);
+
+        verify(host, never()).refresh();
+    }
+
+    @Test
+    public void unregisterInterruptsRunningRefresh() throws InterruptedException {
+        scheduler = createScheduler(command -> new Thread(command).start(), 100);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        VdsManager host = mockHost(VDSStatus.Up);
+        willAnswer(invocation -> {
+            started.countDown();
+            try {
+                Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return null;
+        }).given(host).refresh();
+        scheduler.register(host);
+        advance(TICK);
+
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        scheduler.unregister(host.getVdsId());
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void concurrentRefreshesAreBounded() {
+        scheduler = createScheduler(dispatched::add, 2);
+        List<VdsManager> hosts = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            hosts.add(mockHost(VDSStatus.Up));
+            scheduler.register(hosts.get(i));
+        }
+        advance(INTERVAL);
+        assertEquals(2, dispatched.size());
+
+        // the deferred refreshes start once the running ones complete
+        advance(INTERVAL);
+        dispatched.remove(0).run();
+        dispatched.remove(0).run();
+        advance(TICK);
+        assertEquals(2, dispatched.size());
+        dispatched.forEach(Runnable::run);
+
+        // both the refreshes waiting in the dispatcher and the deferred ones started more than an interval late
+        long late = hosts.stream().filter(host -> scheduler.getLag(host.getVdsId()) > INTERVAL).count();
+        assertEquals(4, late);
+    }
+}
@@ -328,7 +328,7 @@ public class VmAnalyzerTest {
         stubDaos();
         when(vdsManager.getVdsId()).thenReturn(VmTestPairs.SRC_HOST_ID);
         when(vdsManager.getClusterId()).thenReturn(VmTestPairs.CLUSTER_ID);
-        when(vdsManager.getCopyVds()).thenReturn(vdsManagerVds);
+        when(vdsManager.getVdsSnapshot()).thenReturn(vdsManagerVds);
         when(vmManager.isColdReboot()).thenReturn(false);
         when(vmManager.isAutoStart()).thenReturn(vmData.dbVm() != null ? vmData.dbVm().isAutoStartup() : false);
         when(vmManager.getStatistics()).thenReturn(new VmStatistics());
@@ -4,9 +4,13 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.Executors;
 import java.util.regex.Pattern;
 
+import javax.annotation.Resource;
 import javax.ejb.EJB;
+import javax.enterprise.concurrent.ManagedThreadFactory;
+import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -22,6 +26,7 @@ import org.ovirt.engine.core.common.queries.QueryParametersBase;
 import org.ovirt.engine.core.common.queries.QueryReturnValue;
 import org.ovirt.engine.core.common.queries.QueryType;
 import org.ovirt.engine.core.utils.CorrelationIdTracker;
+import org.ovirt.engine.core.utils.EngineLocalConfig;
 import org.ovirt.engine.ui.frontend.gwtservices.GenericApiGWTService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,8 +44,52 @@ public class GenericApiGWTServiceImpl extends OvirtXsrfProtectedServiceServlet i
     private static final String CORRELATION_ID_HEADER = "Correlation-Id"; //$NON-NLS-1$
     private static final Pattern INVALID_CORRELATION_ID_CHARACTERS_RE = Pattern.compile("[^0-9a-zA-Z_-]+"); //$NON-NLS-1$
 
+    private static final String MULTIPLE_QUERIES_PARALLELISM = "ENGINE_MULTIPLE_QUERIES_PARALLELISM"; //$NON-NLS-1$
+    private static final String MULTIPLE_QUERIES_TIMEOUT = "ENGINE_MULTIPLE_QUERIES_TIMEOUT_IN_SECONDS"; //$NON-NLS-1$
+    private static final String MULTIPLE_QUERIES_POOL_SIZE = "ENGINE_MULTIPLE_QUERIES_POOL_SIZE"; //$NON-NLS-1$
+    private static final String MULTIPLE_QUERIES_QUEUE_SIZE = "ENGINE_MULTIPLE_QUERIES_QUEUE_SIZE"; //$NON-NLS-1$
+    private static final int DEFAULT_MULTIPLE_QUERIES_PARALLELISM = 8;
+    private static final long DEFAULT_MULTIPLE_QUERIES_TIMEOUT = 120;
+    private static final int DEFAULT_MULTIPLE_QUERIES_POOL_SIZE = 32;
+    private static final int DEFAULT_MULTIPLE_QUERIES_QUEUE_SIZE = 64;
+
+    private static final String ENGINE_THREAD_FACTORY_NAME = "java:jboss/ee/concurrency/factory/engine"; //$NON-NLS-1$
+
     private BackendLocal backend;
 
+    @Resource(lookup = ENGINE_THREAD_FACTORY_NAME)
+    private transient ManagedThreadFactory threadFactory;
+
+    private transient QueryBatchExecutor queryBatchExecutor;
+
+    @Override
+    public void init(ServletConfig config) throws ServletException {
+        super.init(config);
+        EngineLocalConfig localConfig = EngineLocalConfig.getInstance();
+        queryBatchExecutor = new QueryBatchExecutor(
+                threadFactory != null ? threadFactory : Executors.defaultThreadFactory(),
+                localConfig.getInteger(MULTIPLE_QUERIES_POOL_SIZE, DEFAULT_MULTIPLE_QUERIES_POOL_SIZE),
+                localConfig.getInteger(MULTIPLE_QUERIES_QUEUE_SIZE, DEFAULT_MULTIPLE_QUERIES_QUEUE_SIZE),
+                localConfig.getInteger(MULTIPLE_QUERIES_PARALLELISM, DEFAULT_MULTIPLE_QUERIES_PARALLELISM),
+                localConfig.getLong(MULTIPLE_QUERIES_TIMEOUT, DEFAULT_MULTIPLE_QUERIES_TIMEOUT));
+        queryBatchExecutor.registerInJMX(config.getServletContext().getContextPath() + "/" //$NON-NLS-1$
+                + config.getServletName());
+    }
+
+    @Override
+    public void destroy() {
+        if (queryBatchExecutor != null) {
+            queryBatchExecutor.shutdown();
+            queryBatchExecutor = null;
+        }
+        super.destroy();
+    }
+
+    // visible for testing
+    void setQueryBatchExecutor(QueryBatchExecutor queryBatchExecutor) {
+        this.queryBatchExecutor = queryBatchExecutor;
+    }
+
     @EJB(beanInterface = BackendLocal.class,
             mappedName = "java:global/engine/bll/Backend!org.ovirt.engine.core.common.interfaces.BackendLocal")
     public void setBackend(BackendLocal backend) {
@@ -113,12 +162,20 @@ public class GenericApiGWTServiceImpl extends OvirtXsrfProtectedServiceServlet i
                 && queryParamsList != null
                 && queryTypeList.size() == queryParamsList.size()) {
             String correlationId = CorrelationIdTracker.getCorrelationId();
+            String sessionId = getEngineSessionId();
             for (int i = 0; i < queryTypeList.size(); i++) {
                 if (queryParamsList.get(i).getCorrelationId() == null) {
                     queryParamsList.get(i).setCorrelationId(correlationId);
                 }
+                queryParamsList.get(i).setSessionId(sessionId);
                 debugQuery(queryTypeList.get(i), queryParamsList.get(i));
-                ret.add(runQuery(queryTypeList.get(i), queryParamsList.get(i)));
+            }
+            if (queryBatchExecutor != null) {
+                ret.addAll(queryBatchExecutor.execute(queryTypeList, queryParamsList, getBackend()::runQuery));
+            } else {
+                for (int i = 0; i < queryTypeList.size(); i++) {
+                    ret.add(getBackend().runQuery(queryTypeList.get(i), queryParamsList.get(i)));
+                }
             }
         } else {
             log.error(
@@ -0,0 +1,263 @@
+package org.ovirt.engine.ui.frontend.server.gwt;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiFunction;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.ovirt.engine.core.common.queries.QueryParametersBase;
+import org.ovirt.engine.core.common.queries.QueryReturnValue;
+import org.ovirt.engine.core.common.queries.QueryType;
+import org.ovirt.engine.core.utils.CorrelationIdTracker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the queries of the batches sent by the UI concurrently on its own bounded thread pool, so the batches can't
+ * exhaust the engine thread pool, and counts the batches, the queries, and the queries that timed out or failed. The
+ * workers rejected by the full pool are counted apart from the timeouts, and a batch which all of its workers were
+ * rejected is run on the request thread. The counters are exposed through JMX.
+ */
+public class QueryBatchExecutor implements QueryBatchExecutorMXBean {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryBatchExecutor.class);
+
+    private final ThreadPoolExecutor executor;
+    private final int parallelism;
+    private final long timeoutNanos;
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong timedOutQueries = new AtomicLong();
+    private final AtomicLong failedQueries = new AtomicLong();
+    private final AtomicLong rejectedWorkers = new AtomicLong();
+    private final AtomicLong batchesRunOnRequestThread = new AtomicLong();
+
+    private ObjectName objectName;
+
+    /**
+     * @param poolSize
+     *            the maximal number of threads running the queries of all the batches
+     * @param queueSize
+     *            the maximal number of workers waiting for a thread, further workers are rejected
+     * @param parallelism
+     *            the maximal number of workers running the queries of a single batch
+     * @param timeout
+     *            the time in seconds to wait for the queries of a batch
+     */
+    public QueryBatchExecutor(ThreadFactory threadFactory, int poolSize, int queueSize, int parallelism, long timeout) {
+        executor = new ThreadPoolExecutor(poolSize,
+                poolSize,
+                60L,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                threadFactory,
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        this.parallelism = parallelism;
+        this.timeoutNanos = TimeUnit.SECONDS.toNanos(timeout);
+    }
+
+    /**
+     * Runs the given queries, which parameters already carry the session and correlation ids, and returns their
+     * results in the order of the queries. The batch is executed by at most {@code parallelism} workers pulling the
+     * next pending query, and the queries which have not completed within the timeout are reported as failed.
+     */
+    public List<QueryReturnValue> execute(List<QueryType> queryTypes,
+            List<QueryParametersBase> queryParams,
+            BiFunction<QueryType, QueryParametersBase, QueryReturnValue> runQuery) {
+        long start = System.nanoTime();
+        int size = queryTypes.size();
+        AtomicReferenceArray<QueryReturnValue> results = new AtomicReferenceArray<>(size);
+        AtomicInteger next = new AtomicInteger();
+        Runnable worker = () -> {
+            // a worker cancelled upon timeout stops pulling queries
+            for (int i = next.getAndIncrement();
+                    i < size && !Thread.currentThread().isInterrupted();
+                    i = next.getAndIncrement()) {
+                results.set(i, runQuery.apply(queryTypes.get(i), queryParams.get(i)));
+            }
+        };
+
+        int workers = Math.min(size, parallelism);
+        List<Future<?>> futures = new ArrayList<>(workers);
+        if (workers > 1) {
+            String correlationId = CorrelationIdTracker.getCorrelationId();
+            for (int i = 0; i < workers; i++) {
+                try {
+                    futures.add(executor.submit(() -> {
+                        CorrelationIdTracker.setCorrelationId(correlationId);
+                        try {
+                            worker.run();
+                        } finally {
+                            CorrelationIdTracker.clean();
+                        }
+                    }));
+                } catch (RejectedExecutionException e) {
+                    rejectedWorkers.incrementAndGet();
+                }
+            }
+            if (futures.size() < workers) {
+                log.warn("The thread pool of the UI query batches is full, running {} queries by {} out of {} workers",
+                        size,
+                        futures.size(),
+                        workers);
+            }
+        }
+
+        boolean timedOut = false;
+        if (futures.isEmpty()) {
+            if (workers > 1) {
+                batchesRunOnRequestThread.incrementAndGet();
+            }
+            try {
+                worker.run();
+            } catch (RuntimeException e) {
+                log.error("Failed to run the queries of a batch: {}", e.getMessage());
+                log.debug("Exception", e);
+            }
+        } else {
+            timedOut = awaitWorkers(futures, start + timeoutNanos);
+        }
+
+        List<QueryReturnValue> ret = new ArrayList<>(size);
+        int notCompleted = 0;
+        for (int i = 0; i < size; i++) {
+            QueryReturnValue result = results.get(i);
+            if (result == null) {
+                result = new QueryReturnValue();
+                result.setSucceeded(false);
+                result.setExceptionString("Query " + queryTypes.get(i) //$NON-NLS-1$
+                        + (timedOut ? " did not complete in time" : " failed")); //$NON-NLS-1$ //$NON-NLS-2$
+                result.setCorrelationId(queryParams.get(i).getCorrelationId());
+                notCompleted++;
+            }
+            ret.add(result);
+        }
+
+        batches.incrementAndGet();
+        queries.addAndGet(size);
+        (timedOut ? timedOutQueries : failedQueries).addAndGet(notCompleted);
+
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (notCompleted > 0) {
+            log.warn("Server: RunMultipleQuery {} [amount of queries: {}, not completed: {}, elapsed: {} ms]", //$NON-NLS-1$
+                    timedOut ? "timed out" : "failed", //$NON-NLS-1$ //$NON-NLS-2$
+                    size,
+                    notCompleted,
+                    elapsed);
+        }
+        log.debug("Server: RunMultipleQuery executed [amount of queries: {}, workers: {}, elapsed: {} ms]", //$NON-NLS-1$
+                size,
+                Math.max(1, futures.size()),
+                elapsed);
+        return ret;
+    }
+
+    /**
+     * Waits for the given workers until the deadline and cancels the ones which have not completed by then.
+     *
+     * @return whether some of the workers have not completed by the deadline
+     */
+    private static boolean awaitWorkers(List<Future<?>> futures, long deadline) {
+        boolean timedOut = false;
+        try {
+            for (Future<?> future : futures) {
+                try {
+                    future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (ExecutionException e) {
+                    log.error("Failed to run the queries of a batch: {}", e.getCause().getMessage());
+                    log.debug("Exception", e.getCause());
+                }
+            }
+        } catch (TimeoutException e) {
+            timedOut = true;
+        } catch (InterruptedException e) {
+            timedOut = true;
+            Thread.currentThread().interrupt();
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+        return timedOut;
+    }
+
+    public void registerInJMX(String name) {
+        try {
+            objectName = new ObjectName("QueryBatchExecutor:type=" + getClass().getName() + ",name="
+                    + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        } catch (Exception e) {
+            log.warn("Problem during registration of the UI query batches monitoring into JMX: {}", e.getMessage());
+            log.debug("Exception", e);
+            objectName = null;
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+        if (objectName != null) {
+            try {
+                MBeanServer platformMBeanServer = ManagementFactory.getPlatformMBeanServer();
+                platformMBeanServer.unregisterMBean(objectName);
+            } catch (Exception e) {
+                log.warn("Problem during unregistration of the UI query batches monitoring from JMX: {}",
+                        e.getMessage());
+                log.debug("Exception", e);
+            }
+        }
+    }
+
+    @Override
+    public long getBatches() {
+        return batches.get();
+    }
+
+    @Override
+    public long getQueries() {
+        return queries.get();
+    }
+
+    @Override
+    public long getTimedOutQueries() {
+        return timedOutQueries.get();
+    }
+
+    @Override
+    public long getFailedQueries() {
+        return failedQueries.get();
+    }
+
+    @Override
+    public long getRejectedWorkers() {
+        return rejectedWorkers.get();
+    }
+
+    @Override
+    public long getBatchesRunOnRequestThread() {
+        return batchesRunOnRequestThread.get();
+    }
+
+    @Override
+    public int getActiveThreads() {
+        return executor.getActiveCount();
+    }
+
+    @Override
+    public int getQueuedWorkers() {
+        return executor.getQueue().size();
+    }
+}
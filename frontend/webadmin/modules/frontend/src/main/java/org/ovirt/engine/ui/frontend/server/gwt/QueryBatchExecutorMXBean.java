@@ -0,0 +1,13 @@
+package org.ovirt.engine.ui.frontend.server.gwt;
+
+public interface QueryBatchExecutorMXBean {
+    long getBatches();
+    long getQueries();
+    long getTimedOutQueries();
+    long getFailedQueries();
+    long getRejectedWorkers();
+    long getBatchesRunOnRequestThread();
+
+    int getActiveThreads();
+    int getQueuedWorkers();
+}
@@ -1,6 +1,11 @@
 package org.ovirt.engine.ui.frontend.server.gwt;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -9,11 +14,16 @@ import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -22,6 +32,7 @@ import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.ovirt.engine.core.common.interfaces.BackendLocal;
 import org.ovirt.engine.core.common.queries.QueryParametersBase;
+import org.ovirt.engine.core.common.queries.QueryReturnValue;
 import org.ovirt.engine.core.common.queries.QueryType;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,6 +45,7 @@ public class GenericApiGWTServiceImplTest {
 
     private HttpServletRequest request;
     private HttpServletResponse response;
+    private QueryBatchExecutor queryBatchExecutor;
 
     @Spy
     private GenericApiGWTServiceImpl underTest = new GenericApiGWTServiceImpl() {
@@ -54,6 +66,13 @@ public class GenericApiGWTServiceImplTest {
         when(request.getSession()).thenReturn(session);
     }
 
+    @AfterEach
+    public void tearDown() {
+        if (queryBatchExecutor != null) {
+            queryBatchExecutor.shutdown();
+        }
+    }
+
     @Test
     public void multiQueryWithNulls() {
         underTest.runMultipleQueries(null, null);
@@ -87,4 +106,103 @@ public class GenericApiGWTServiceImplTest {
         verify(backendLocal, times(2)).runQuery(any(), any());
     }
 
+    @Test
+    public void multiQueryConcurrentKeepsOrder() {
+        setupQueryBatchExecutor(4, 4, 4, 60);
+        when(backendLocal.runQuery(any(), any())).thenAnswer(invocation -> {
+            QueryReturnValue returnValue = new QueryReturnValue();
+            returnValue.setSucceeded(true);
+            returnValue.setReturnValue(invocation.getArgument(1));
+            return returnValue;
+        });
+        ArrayList<QueryType> queryTypeList = new ArrayList<>();
+        ArrayList<QueryParametersBase> queryParamsList = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            queryTypeList.add(QueryType.Search);
+            queryParamsList.add(new QueryParametersBase());
+        }
+
+        List<QueryReturnValue> result = underTest.runMultipleQueries(queryTypeList, queryParamsList);
+
+        verify(backendLocal, times(20)).runQuery(any(), any());
+        assertEquals(20, result.size());
+        for (int i = 0; i < 20; i++) {
+            assertTrue(result.get(i).getSucceeded());
+            assertSame(queryParamsList.get(i), result.get(i).getReturnValue());
+        }
+        assertEquals(1, queryBatchExecutor.getBatches());
+        assertEquals(20, queryBatchExecutor.getQueries());
+        assertEquals(0, queryBatchExecutor.getTimedOutQueries());
+        assertEquals(0, queryBatchExecutor.getRejectedWorkers());
+    }
+
+    @Test
+    public void multiQueryTimeout() throws Exception {
+        setupQueryBatchExecutor(2, 2, 2, 1);
+        CountDownLatch latch = new CountDownLatch(1);
+        QueryReturnValue completed = new QueryReturnValue();
+        completed.setSucceeded(true);
+        QueryParametersBase slowParams = new QueryParametersBase();
+        when(backendLocal.runQuery(eq(QueryType.Search), eq(slowParams))).thenAnswer(invocation -> {
+            latch.await(10, TimeUnit.SECONDS);
+            return completed;
+        });
+        when(backendLocal.runQuery(eq(QueryType.GetAllClusters), any())).thenReturn(completed);
+        ArrayList<QueryType> queryTypeList = new ArrayList<>(Arrays.asList(
+                QueryType.Search,
+                QueryType.GetAllClusters));
+        ArrayList<QueryParametersBase> queryParamsList = new ArrayList<>(Arrays.asList(
+                slowParams,
+                new QueryParametersBase()));
+
+        List<QueryReturnValue> result = underTest.runMultipleQueries(queryTypeList, queryParamsList);
+        latch.countDown();
+
+        assertEquals(2, result.size());
+        assertFalse(result.get(0).getSucceeded());
+        assertSame(completed, result.get(1));
+        assertEquals(1, queryBatchExecutor.getTimedOutQueries());
+        assertEquals(0, queryBatchExecutor.getFailedQueries());
+        assertEquals(0, queryBatchExecutor.getRejectedWorkers());
+    }
+
+    @Test
+    public void multiQueryRejectedWorkersAreNotTimeouts() {
+        // a single thread and queue slot, so two of the four workers of the batch are rejected
+        setupQueryBatchExecutor(1, 1, 4, 60);
+        QueryReturnValue completed = new QueryReturnValue();
+        completed.setSucceeded(true);
+        when(backendLocal.runQuery(any(), any())).thenAnswer(invocation -> {
+            // hold the running worker until the other workers were submitted
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (queryBatchExecutor.getRejectedWorkers() < 2 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            return completed;
+        });
+        ArrayList<QueryType> queryTypeList = new ArrayList<>();
+        ArrayList<QueryParametersBase> queryParamsList = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            queryTypeList.add(QueryType.Search);
+            queryParamsList.add(new QueryParametersBase());
+        }
+
+        List<QueryReturnValue> result = underTest.runMultipleQueries(queryTypeList, queryParamsList);
+
+        assertEquals(4, result.size());
+        result.forEach(returnValue -> assertSame(completed, returnValue));
+        assertEquals(2, queryBatchExecutor.getRejectedWorkers());
+        assertEquals(0, queryBatchExecutor.getTimedOutQueries());
+        assertEquals(0, queryBatchExecutor.getFailedQueries());
+        assertEquals(0, queryBatchExecutor.getBatchesRunOnRequestThread());
+    }
+
+    private void setupQueryBatchExecutor(int poolSize, int queueSize, int parallelism, int timeout) {
+        queryBatchExecutor = new QueryBatchExecutor(Executors.defaultThreadFactory(),
+                poolSize,
+                queueSize,
+                parallelism,
+                timeout);
+        underTest.setQueryBatchExecutor(queryBatchExecutor);
+    }
 }
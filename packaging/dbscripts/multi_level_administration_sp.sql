@@ -493,6 +493,56 @@ BEGIN
 END; $FUNCTION$
 LANGUAGE plpgsql;
 
+DROP TYPE IF EXISTS entity_permissions_rs CASCADE;
+CREATE TYPE entity_permissions_rs AS (
+        object_id UUID,
+        parent_ids TEXT[],
+        permission_id UUID
+        );
+
+-- gets entity permissions as get_entity_permissions does, for multiple objects of the same type,
+-- together with the parents of each object; the parents are walked once per object
+CREATE OR REPLACE FUNCTION get_entity_permissions_for_objects(
+    v_user_id UUID,
+    v_action_group_id INTEGER,
+    v_object_ids UUID[],
+    v_object_type_id INTEGER)
+RETURNS SETOF entity_permissions_rs STABLE AS $FUNCTION$
+   DECLARE
+   v_everyone_object_id  UUID;
+BEGIN
+   v_everyone_object_id := getGlobalIds('everyone'); -- hardcoded also in MLA Handler
+   RETURN QUERY
+   SELECT objects.id,
+       parents.ids::TEXT[],
+       (
+           SELECT permissions.id
+           FROM permissions
+           WHERE
+               permissions.role_id IN(
+                   SELECT role_id
+                   FROM roles_groups
+                   WHERE action_group_id = v_action_group_id)
+               -- get allparents of object
+               AND permissions.object_id = ANY(parents.ids)
+               -- get user and his groups
+               AND (permissions.ad_element_id = v_everyone_object_id
+               OR permissions.ad_element_id = v_user_id
+               OR permissions.ad_element_id IN(
+                   SELECT *
+                   FROM getUserAndGroupsById(v_user_id)
+               )) LIMIT 1)
+   FROM (
+       SELECT DISTINCT unnest(v_object_ids) AS id
+       ) objects
+   CROSS JOIN LATERAL (
+       SELECT ARRAY(
+           SELECT entity_parents.id
+           FROM fn_get_entity_parents(objects.id, v_object_type_id) entity_parents) AS ids
+       ) parents;
+END; $FUNCTION$
+LANGUAGE plpgsql;
+
 ----------------------------------------------------------------
 -- [roles_groups] Table
 --
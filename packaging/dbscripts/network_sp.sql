@@ -387,6 +387,50 @@ BEGIN
 END;$FUNCTION$
 LANGUAGE plpgsql;
 
+CREATE OR REPLACE FUNCTION GetAllNetworkByClusterIds (v_ids UUID[])
+RETURNS SETOF networkViewClusterType STABLE AS $FUNCTION$
+BEGIN
+    RETURN QUERY
+
+    SELECT DISTINCT network.id,
+        network.name,
+        network.vdsm_name,
+        network.description,
+        network.free_text_comment,
+        network.type,
+        network.addr,
+        network.subnet,
+        network.gateway,
+        network.vlan_id,
+        network.stp,
+        network.storage_pool_id,
+        network.mtu,
+        network.vm_network,
+        network.label,
+        network.provider_network_provider_id,
+        network.provider_network_external_id,
+        network.provider_physical_network_id,
+        network.qos_id,
+        network.dns_resolver_configuration_id,
+        network.port_isolation,
+        network_cluster.network_id,
+        network_cluster.cluster_id,
+        network_cluster.status,
+        network_cluster.is_display,
+        network_cluster.required,
+        network_cluster.migration,
+        network_cluster.management,
+        network_cluster.is_gluster,
+        network_cluster.default_route
+    FROM network
+    INNER JOIN network_cluster
+        ON network.id = network_cluster.network_id
+    WHERE network_cluster.cluster_id = ANY(v_ids)
+    ORDER BY network_cluster.cluster_id,
+        network.name;
+END;$FUNCTION$
+LANGUAGE plpgsql;
+
 CREATE OR REPLACE FUNCTION GetAllNetworksByQosId (v_id UUID)
 RETURNS SETOF network STABLE AS $FUNCTION$
 BEGIN
@@ -771,6 +815,76 @@ BEGIN
 END;$FUNCTION$
 LANGUAGE plpgsql;
 
+CREATE OR REPLACE FUNCTION GetInterfaceViewWithQosByVdsIds (v_vds_ids UUID[])
+RETURNS SETOF vds_interface_view_qos_rs STABLE AS $FUNCTION$
+BEGIN
+    RETURN QUERY
+
+    SELECT
+        s1.rx_rate,
+        s1.tx_rate,
+        s1.rx_drop,
+        s1.tx_drop,
+        s1.rx_total,
+        s1.tx_total,
+        s1.rx_offset,
+        s1.tx_offset,
+        s1.iface_status,
+        s1.sample_time,
+        s1.type,
+        s1.gateway,
+        s1.ipv4_default_route,
+        s1.ipv6_gateway,
+        s1.subnet,
+        s1.ipv6_prefix,
+        s1.addr,
+        s1.ipv6_address,
+        s1.speed,
+        s1.base_interface,
+        s1.vlan_id,
+        s1.bond_type,
+        s1.bond_name,
+        s1.is_bond,
+        s1.bond_opts,
+        s1.mac_addr,
+        s1.network_name,
+        s1.name,
+        s1.vds_id,
+        s1.vds_name,
+        s1.id,
+        s1.boot_protocol,
+        s1.ipv6_boot_protocol,
+        s1.mtu,
+        s1.bridged,
+        s1.reported_switch_type,
+        s1.is_vds,
+        s1.qos_overridden,
+        s1.labels,
+        s1.cluster_id,
+        s1.ad_partner_mac,
+        s1.ad_aggregator_id,
+        s1.bond_active_slave,
+        s2.id AS qos_id,
+        s2.name AS qos_name,
+        s2.qos_type,
+        s2.out_average_linkshare,
+        s2.out_average_upperlimit,
+        s2.out_average_realtime
+    FROM (
+        SELECT *
+        FROM vds_interface_view
+        WHERE vds_id = ANY(v_vds_ids)
+        ) s1
+    LEFT JOIN (
+            SELECT *
+            FROM qos
+            WHERE qos.qos_type = 4
+        ) s2
+        ON s1.id = s2.id
+    ;
+END;$FUNCTION$
+LANGUAGE plpgsql;
+
 DROP TYPE IF EXISTS host_networks_by_cluster_rs CASCADE;
 CREATE TYPE host_networks_by_cluster_rs AS (
         vds_id UUID,
@@ -1251,6 +1365,30 @@ BEGIN
 END;$FUNCTION$
 LANGUAGE plpgsql;
 
+CREATE OR REPLACE FUNCTION GetVmNetworkInterfaceViewByVmIds (
+    v_vm_ids UUID[],
+    v_user_id UUID,
+    v_is_filtered BOOLEAN
+    )
+RETURNS SETOF vm_interface_view STABLE AS $FUNCTION$
+BEGIN
+    RETURN QUERY
+
+    SELECT *
+    FROM vm_interface_view
+    WHERE vm_guid = ANY(v_vm_ids)
+        AND (
+            NOT v_is_filtered
+            OR EXISTS (
+                SELECT 1
+                FROM user_vm_permissions_view
+                WHERE user_id = v_user_id
+                    AND entity_id = vm_interface_view.vm_guid
+                )
+            );
+END;$FUNCTION$
+LANGUAGE plpgsql;
+
 CREATE OR REPLACE FUNCTION GetVmNetworkInterfaceToMonitorByVmId (v_vm_id UUID)
 RETURNS SETOF vm_interface_monitoring_view STABLE AS $FUNCTION$
 BEGIN
@@ -2611,6 +2749,53 @@ BEGIN
 END;$FUNCTION$
 LANGUAGE plpgsql;
 
+CREATE OR REPLACE FUNCTION GetNetworkAttachmentsWithQosByHostIds (v_host_ids UUID[])
+RETURNS SETOF network_attachments_qos_rs STABLE AS $FUNCTION$
+BEGIN
+    RETURN QUERY
+
+    SELECT
+        s1.id,
+        s1.network_id,
+        s1.nic_id,
+        s1.boot_protocol,
+        s1.address,
+        s1.netmask,
+        s1.gateway,
+        s1.custom_properties,
+        s1._create_date,
+        s1._update_date,
+        s1.ipv6_boot_protocol,
+        s1.ipv6_address,
+        s1.ipv6_prefix,
+        s1.ipv6_gateway,
+        s1.dns_resolver_configuration_id,
+        s2.id AS qos_id,
+        s2.name AS qos_name,
+        s2.qos_type,
+        s2.out_average_linkshare,
+        s2.out_average_upperlimit,
+        s2.out_average_realtime
+    FROM (
+        SELECT *
+        FROM network_attachments na
+        WHERE EXISTS (
+            SELECT 1
+            FROM vds_interface
+            WHERE na.nic_id = vds_interface.id
+                AND vds_interface.vds_id = ANY(v_host_ids)
+            )
+        ) s1
+    LEFT JOIN (
+            SELECT *
+            FROM qos
+            WHERE qos.qos_type = 4
+        ) s2
+        ON s1.id = s2.id
+    ;
+END;$FUNCTION$
+LANGUAGE plpgsql;
+
 CREATE OR REPLACE FUNCTION GetNetworkAttachmentWithQosByNicIdAndNetworkId (
     v_nic_id UUID,
     v_network_id UUID
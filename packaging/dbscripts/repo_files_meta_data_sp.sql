@@ -71,3 +71,37 @@ BEGIN
     ORDER BY repo_file_meta_data.last_refreshed;
 END;$FUNCTION$
 LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION DeleteRepo_domain_files (
+    v_storage_domain_id UUID,
+    v_repo_image_ids VARCHAR []
+    )
+RETURNS VOID AS $FUNCTION$
+BEGIN
+    DELETE
+    FROM repo_file_meta_data
+    WHERE repo_domain_id = v_storage_domain_id
+        AND repo_image_id = ANY (v_repo_image_ids);
+
+    RETURN;
+END;$FUNCTION$
+LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION UpdateRepo_domain_file_list_last_refreshed (
+    v_storage_domain_id UUID,
+    v_file_type INT,
+    v_last_refreshed BIGINT
+    )
+RETURNS VOID AS $FUNCTION$
+BEGIN
+    UPDATE repo_file_meta_data
+    SET last_refreshed = v_last_refreshed
+    WHERE repo_domain_id = v_storage_domain_id
+        AND (
+            v_file_type IS NULL
+            OR file_type = v_file_type
+            );
+
+    RETURN;
+END;$FUNCTION$
+LANGUAGE plpgsql;
@@ -143,6 +143,7 @@ select fn_db_add_config_value('PropagateDiskErrors','false','general');
 select fn_db_add_config_value('GlusterRefreshRateHooks', '7200', 'general');
 select fn_db_add_config_value('GlusterRefreshRateLight', '15', 'general');
 select fn_db_add_config_value('GlusterRefreshRateHeavy', '900', 'general');
+select fn_db_add_config_value('GlusterRefreshMaxConcurrentClusters', '4', 'general');
 select fn_db_add_config_value('GlusterRefreshRateStorageDevices', '7200', 'general');
 select fn_db_add_config_value('GlusterVolumeOptionGroupVirtValue','virt','general');
 select fn_db_add_config_value('GlusterVolumeOptionOwnerUserVirtValue','36','general');
@@ -385,6 +386,9 @@ select fn_db_add_config_value('PayloadSize','8192','general');
 -- Power management health check
 select fn_db_add_config_value('PMHealthCheckEnabled','false','general');
 select fn_db_add_config_value('PMHealthCheckIntervalInSec','3600','general');
+select fn_db_add_config_value('PMHealthCheckMaxConcurrentHosts','10','general');
+select fn_db_add_config_value('PMHealthCheckMaxConcurrentChecksPerProxy','5','general');
+select fn_db_add_config_value('PMHealthCheckAgentTimeoutInSec','120','general');
 select fn_db_add_config_value('PostgresI18NPrefix','','general');
 select fn_db_add_config_value('PostgresLikeSyntax','ILIKE','general');
 select fn_db_add_config_value('PostgresPagingSyntax',E' OFFSET (%1$s -1) LIMIT %2$s','general');
@@ -597,6 +601,8 @@ select fn_db_add_config_value('HsmCommandFailOverRetries','3','general');
 select fn_db_add_config_value('SpmVCpuConsumption','1','general');
 select fn_db_add_config_value('SSHInactivityTimeoutSeconds','300','general');
 select fn_db_add_config_value('SSHInactivityHardTimeoutSeconds','1800','general');
+select fn_db_add_config_value('SSHSessionPoolIdleTimeoutSeconds','60','general');
+select fn_db_add_config_value('SSHSessionPoolMaxSessionsPerHost','2','general');
 --Handling SPICE SSL Enabled
 select fn_db_add_config_value('SSLEnabled','true','general');
 select fn_db_add_config_value('StorageDomainFailureTimeoutInMinutes','5','general');
@@ -631,6 +637,7 @@ select fn_db_add_config_value('TimeToReduceFailedRunOnVdsInMinutes','30','genera
 select fn_db_add_config_value('UnknownTaskPrePollingLapse','60000','general');
 select fn_db_add_config_value_for_versions_up_to('UserDefinedVMProperties', '','4.7');
 select fn_db_add_config_value('UserSessionTimeOutInterval','30','general');
+select fn_db_add_config_value('PermissionCacheExpirationInSeconds','300','general');
 select fn_db_add_config_value('UtilizationThresholdInPercent','80','general');
 select fn_db_add_config_value('ValidNumOfMonitors','1,2,4','general');
 select fn_db_add_config_value('VcpuConsumptionPercentage','10','general');